@@ -0,0 +1,106 @@
+package com.ezh.Inventory.benchmark;
+
+import com.ezh.Inventory.items.entity.Item;
+import com.ezh.Inventory.items.repository.ItemRepository;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Wiring for the CPU-only suites: services are built with just the collaborators a benchmarked
+ * method touches (everything else null), and item lookups are answered from memory so the
+ * numbers show the mapping / BigDecimal cost and not the database.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /** Calls the widest constructor of {@code type}, passing each collaborator to the parameter it fits. */
+    static <T> T newService(Class<T> type, Object... collaborators) {
+        try {
+            Constructor<?> constructor = Arrays.stream(type.getDeclaredConstructors())
+                    .max(Comparator.comparingInt(Constructor::getParameterCount))
+                    .orElseThrow();
+            Class<?>[] parameterTypes = constructor.getParameterTypes();
+            Object[] args = new Object[parameterTypes.length];
+            for (int i = 0; i < parameterTypes.length; i++) {
+                for (Object collaborator : collaborators) {
+                    if (parameterTypes[i].isInstance(collaborator)) {
+                        args[i] = collaborator;
+                    }
+                }
+            }
+            constructor.setAccessible(true);
+            return type.cast(constructor.newInstance(args));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot build " + type.getSimpleName(), e);
+        }
+    }
+
+    /** Handle on a private instance method, so suites measure the service code as it ships. */
+    static MethodHandle privateMethod(Class<?> owner, String name, Class<?> returnType, Class<?>... parameterTypes) {
+        try {
+            return MethodHandles.privateLookupIn(owner, MethodHandles.lookup())
+                    .findVirtual(owner, name, MethodType.methodType(returnType, parameterTypes));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot access " + owner.getSimpleName() + "." + name, e);
+        }
+    }
+
+    /** Read-only {@link ItemRepository} over {@code items}; only the lookups used by the services are supported. */
+    static ItemRepository itemRepository(Map<Long, Item> items) {
+        return (ItemRepository) Proxy.newProxyInstance(ItemRepository.class.getClassLoader(),
+                new Class<?>[]{ItemRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.ofNullable(items.get((Long) args[0]));
+                    case "findByIdIn", "findAllById" -> {
+                        List<Item> found = new ArrayList<>();
+                        for (Object id : (Iterable<?>) args[0]) {
+                            Item item = items.get((Long) id);
+                            if (item != null) found.add(item);
+                        }
+                        yield found;
+                    }
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryItemRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    static Map<Long, Item> items(int count) {
+        Map<Long, Item> items = new HashMap<>(count * 2);
+        for (long id = 1; id <= count; id++) {
+            Item item = new Item();
+            item.setId(id);
+            item.setTenantId(1L);
+            item.setName("Item " + id);
+            item.setItemCode("ITEM-" + id);
+            item.setSku("SKU-" + id);
+            item.setSellingPrice(price(id));
+            item.setPurchasePrice(price(id).multiply(new BigDecimal("0.8")));
+            item.setTaxPercentage(new BigDecimal("18"));
+            item.setIsActive(true);
+            items.put(id, item);
+        }
+        return items;
+    }
+
+    /** Prices with cents, so rounding is exercised. */
+    static BigDecimal price(long seed) {
+        return BigDecimal.valueOf(100 + (seed * 37) % 9_000, 2).add(BigDecimal.valueOf(seed % 50));
+    }
+
+    static BigDecimal discountRate(long seed) {
+        return BigDecimal.valueOf(seed % 4 * 5);
+    }
+
+    static BigDecimal taxRate(long seed) {
+        return seed % 3 == 0 ? new BigDecimal("5") : new BigDecimal("18");
+    }
+}
@@ -0,0 +1,255 @@
+package com.ezh.Inventory.benchmark;
+
+import com.ezh.Inventory.items.entity.Item;
+import com.ezh.Inventory.sales.order.dto.SalesOrderDto;
+import com.ezh.Inventory.sales.order.dto.SalesOrderItemDto;
+import com.ezh.Inventory.sales.order.entity.SalesOrder;
+import com.ezh.Inventory.sales.order.entity.SalesOrderItem;
+import com.ezh.Inventory.sales.order.service.SalesOrderServiceImpl;
+import com.ezh.Inventory.utils.AbstractFinancialHeader;
+import com.ezh.Inventory.utils.AbstractFinancialLine;
+import com.ezh.Inventory.utils.DocumentFinancialCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static com.ezh.Inventory.benchmark.BenchmarkFixtures.*;
+
+/**
+ * {@link DocumentFinancialCalculator} against the per-service math it replaced ({@code legacy}),
+ * on the same {@code lines} lines. Setup first checks that both give identical amounts, scale
+ * included, for the benchmark document, for a document of awkward rates (nulls, zeros, fractions,
+ * half-cent ties), and for {@code SalesOrderServiceImpl.processAndCalculateFinancials} as it ships;
+ * a mismatch fails the trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentFinancialCalculatorBenchmark {
+
+    private static final BigDecimal FLAT_DISCOUNT_RATE = new BigDecimal("2.5");
+    private static final BigDecimal FLAT_TAX_RATE = BigDecimal.ONE;
+
+    @Param({"10", "100", "500"})
+    int lines;
+
+    private BigDecimal[] prices;
+    private int[] quantities;
+    private BigDecimal[] discountRates;
+    private BigDecimal[] taxRates;
+
+    @Setup
+    public void setUp() throws Throwable {
+        prices = new BigDecimal[lines];
+        quantities = new int[lines];
+        discountRates = new BigDecimal[lines];
+        taxRates = new BigDecimal[lines];
+        for (int i = 0; i < lines; i++) {
+            long id = i + 1;
+            prices[i] = price(id);
+            quantities[i] = (int) (id % 20) + 1;
+            discountRates[i] = discountRate(id);
+            taxRates[i] = taxRate(id);
+        }
+        assertSame("benchmark document", legacy(), calculator());
+
+        BigDecimal[] awkwardRates = {null, BigDecimal.ZERO, new BigDecimal("0.00"), new BigDecimal("12.5"),
+                new BigDecimal("33.3333"), new BigDecimal("50"), new BigDecimal("100")};
+        BigDecimal[] awkwardPrices = {new BigDecimal("0.01"), new BigDecimal("0.05"), new BigDecimal("19.99"),
+                new BigDecimal("1E+2"), new BigDecimal("7.125"), new BigDecimal("1234.5678")};
+        for (BigDecimal flatRate : awkwardRates) {
+            List<Object[]> rows = new ArrayList<>();
+            for (BigDecimal price : awkwardPrices) {
+                for (BigDecimal rate : awkwardRates) {
+                    rows.add(new Object[]{price, 3, rate, awkwardRates[(rows.size() + 3) % awkwardRates.length]});
+                }
+            }
+            assertSame("awkward rates, flat " + flatRate,
+                    legacy(rows, flatRate, flatRate), calculator(rows, flatRate, flatRate));
+        }
+
+        checkSalesOrderService();
+    }
+
+    @Benchmark
+    public SalesOrder legacy() {
+        SalesOrder order = new SalesOrder();
+        order.setItems(new ArrayList<>(lines));
+        BigDecimal itemGrossTotal = BigDecimal.ZERO;
+        BigDecimal itemTotalDiscount = BigDecimal.ZERO;
+        BigDecimal itemTotalTax = BigDecimal.ZERO;
+        for (int i = 0; i < lines; i++) {
+            SalesOrderItem line = legacyLine(prices[i], quantities[i], discountRates[i], taxRates[i]);
+            order.getItems().add(line);
+            itemGrossTotal = itemGrossTotal.add(line.getUnitPrice().multiply(BigDecimal.valueOf(line.getQuantity())));
+            itemTotalDiscount = itemTotalDiscount.add(line.getDiscountAmount());
+            itemTotalTax = itemTotalTax.add(line.getTaxAmount());
+        }
+        legacyHeader(order, itemGrossTotal, itemTotalDiscount, itemTotalTax, FLAT_DISCOUNT_RATE, FLAT_TAX_RATE);
+        return order;
+    }
+
+    @Benchmark
+    public SalesOrder calculator() {
+        SalesOrder order = new SalesOrder();
+        order.setItems(new ArrayList<>(lines));
+        DocumentFinancialCalculator calculator = new DocumentFinancialCalculator();
+        for (int i = 0; i < lines; i++) {
+            order.getItems().add(calculator.addLine(new SalesOrderItem(), prices[i], quantities[i],
+                    discountRates[i], taxRates[i]));
+        }
+        calculator.applyTo(order, FLAT_DISCOUNT_RATE, FLAT_TAX_RATE);
+        return order;
+    }
+
+    /** The service as it ships, through the in-memory item repository, against {@link #legacy()}. */
+    private void checkSalesOrderService() throws Throwable {
+        Map<Long, Item> items = items(lines);
+        SalesOrderServiceImpl service = newService(SalesOrderServiceImpl.class, itemRepository(items));
+        MethodHandle financials = privateMethod(SalesOrderServiceImpl.class, "processAndCalculateFinancials",
+                void.class, SalesOrder.class, SalesOrderDto.class);
+
+        List<SalesOrderItemDto> dtoLines = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            dtoLines.add(SalesOrderItemDto.builder()
+                    .itemId((long) i + 1)
+                    .orderedQty(quantities[i])
+                    .unitPrice(i % 5 == 0 ? null : prices[i])     // falls back to the item's selling price
+                    .discountRate(discountRates[i])
+                    .taxRate(taxRates[i])
+                    .build());
+        }
+        SalesOrder shipped = new SalesOrder();
+        financials.invoke(service, shipped, SalesOrderDto.builder()
+                .items(dtoLines)
+                .flatDiscountRate(FLAT_DISCOUNT_RATE)
+                .flatTaxRate(FLAT_TAX_RATE)
+                .build());
+        assertSame("SalesOrderServiceImpl", legacy(), shipped);
+    }
+
+    private static SalesOrder legacy(List<Object[]> rows, BigDecimal flatDiscountRate, BigDecimal flatTaxRate) {
+        SalesOrder order = new SalesOrder();
+        order.setItems(new ArrayList<>(rows.size()));
+        BigDecimal itemGrossTotal = BigDecimal.ZERO;
+        BigDecimal itemTotalDiscount = BigDecimal.ZERO;
+        BigDecimal itemTotalTax = BigDecimal.ZERO;
+        for (Object[] row : rows) {
+            SalesOrderItem line = legacyLine((BigDecimal) row[0], (int) row[1], (BigDecimal) row[2], (BigDecimal) row[3]);
+            order.getItems().add(line);
+            itemGrossTotal = itemGrossTotal.add(line.getUnitPrice().multiply(BigDecimal.valueOf(line.getQuantity())));
+            itemTotalDiscount = itemTotalDiscount.add(line.getDiscountAmount());
+            itemTotalTax = itemTotalTax.add(line.getTaxAmount());
+        }
+        legacyHeader(order, itemGrossTotal, itemTotalDiscount, itemTotalTax, flatDiscountRate, flatTaxRate);
+        return order;
+    }
+
+    private static SalesOrder calculator(List<Object[]> rows, BigDecimal flatDiscountRate, BigDecimal flatTaxRate) {
+        SalesOrder order = new SalesOrder();
+        order.setItems(new ArrayList<>(rows.size()));
+        DocumentFinancialCalculator calculator = new DocumentFinancialCalculator();
+        for (Object[] row : rows) {
+            order.getItems().add(calculator.addLine(new SalesOrderItem(), (BigDecimal) row[0], (int) row[1],
+                    (BigDecimal) row[2], (BigDecimal) row[3]));
+        }
+        calculator.applyTo(order, flatDiscountRate, flatTaxRate);
+        return order;
+    }
+
+    // Line math as SalesOrderServiceImpl and InvoicePostingPipeline each carried it before the calculator
+    private static SalesOrderItem legacyLine(BigDecimal price, int quantity, BigDecimal discountRate, BigDecimal taxRate) {
+        BigDecimal qty = BigDecimal.valueOf(quantity);
+        BigDecimal grossPrice = price.multiply(qty);
+
+        BigDecimal discRate = discountRate != null ? discountRate : BigDecimal.ZERO;
+        BigDecimal discAmt = grossPrice.multiply(discRate).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
+
+        BigDecimal taxableValue = grossPrice.subtract(discAmt);
+        BigDecimal tRate = taxRate != null ? taxRate : BigDecimal.ZERO;
+        BigDecimal taxAmt = taxableValue.multiply(tRate).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
+
+        SalesOrderItem line = new SalesOrderItem();
+        line.setQuantity(quantity);
+        line.setUnitPrice(price);
+        line.setDiscountRate(discRate);
+        line.setDiscountAmount(discAmt);
+        line.setTaxRate(tRate);
+        line.setTaxAmount(taxAmt);
+        line.setLineTotal(taxableValue.add(taxAmt));
+        return line;
+    }
+
+    private static void legacyHeader(SalesOrder order, BigDecimal itemGrossTotal, BigDecimal itemTotalDiscount,
+                                     BigDecimal itemTotalTax, BigDecimal flatDiscountRate, BigDecimal flatTaxRate) {
+        order.setItemGrossTotal(itemGrossTotal);
+        order.setItemTotalDiscount(itemTotalDiscount);
+        order.setItemTotalTax(itemTotalTax);
+
+        BigDecimal lineSum = order.getItems().stream()
+                .map(SalesOrderItem::getLineTotal)
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        BigDecimal flatDiscRate = flatDiscountRate != null ? flatDiscountRate : BigDecimal.ZERO;
+        BigDecimal flatDiscAmt = lineSum.multiply(flatDiscRate).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
+        order.setFlatDiscountRate(flatDiscRate);
+        order.setFlatDiscountAmount(flatDiscAmt);
+
+        BigDecimal discountedBill = lineSum.subtract(flatDiscAmt);
+        BigDecimal flatTRate = flatTaxRate != null ? flatTaxRate : BigDecimal.ZERO;
+        BigDecimal flatTaxAmt = discountedBill.multiply(flatTRate).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
+        order.setFlatTaxRate(flatTRate);
+        order.setFlatTaxAmount(flatTaxAmt);
+
+        order.setGrandTotal(discountedBill.add(flatTaxAmt));
+    }
+
+    private static void assertSame(String label, SalesOrder expected, SalesOrder actual) {
+        assertHeader(label, expected, actual);
+        if (expected.getItems().size() != actual.getItems().size()) {
+            throw new IllegalStateException(label + ": line count " + actual.getItems().size()
+                    + ", expected " + expected.getItems().size());
+        }
+        for (int i = 0; i < expected.getItems().size(); i++) {
+            assertLine(label + " line " + i, expected.getItems().get(i), actual.getItems().get(i));
+        }
+    }
+
+    private static void assertHeader(String label, AbstractFinancialHeader expected, AbstractFinancialHeader actual) {
+        check(label, "itemGrossTotal", expected.getItemGrossTotal(), actual.getItemGrossTotal());
+        check(label, "itemTotalDiscount", expected.getItemTotalDiscount(), actual.getItemTotalDiscount());
+        check(label, "itemTotalTax", expected.getItemTotalTax(), actual.getItemTotalTax());
+        check(label, "flatDiscountRate", expected.getFlatDiscountRate(), actual.getFlatDiscountRate());
+        check(label, "flatDiscountAmount", expected.getFlatDiscountAmount(), actual.getFlatDiscountAmount());
+        check(label, "flatTaxRate", expected.getFlatTaxRate(), actual.getFlatTaxRate());
+        check(label, "flatTaxAmount", expected.getFlatTaxAmount(), actual.getFlatTaxAmount());
+        check(label, "grandTotal", expected.getGrandTotal(), actual.getGrandTotal());
+    }
+
+    private static void assertLine(String label, AbstractFinancialLine expected, AbstractFinancialLine actual) {
+        check(label, "quantity", expected.getQuantity(), actual.getQuantity());
+        check(label, "unitPrice", expected.getUnitPrice(), actual.getUnitPrice());
+        check(label, "discountRate", expected.getDiscountRate(), actual.getDiscountRate());
+        check(label, "discountAmount", expected.getDiscountAmount(), actual.getDiscountAmount());
+        check(label, "taxRate", expected.getTaxRate(), actual.getTaxRate());
+        check(label, "taxAmount", expected.getTaxAmount(), actual.getTaxAmount());
+        check(label, "lineTotal", expected.getLineTotal(), actual.getLineTotal());
+    }
+
+    // equals, not compareTo: a changed scale would show in API responses
+    private static void check(String label, String field, Object expected, Object actual) {
+        if (!Objects.equals(expected, actual)) {
+            throw new IllegalStateException(label + ": " + field + " " + actual + ", expected " + expected);
+        }
+    }
+}
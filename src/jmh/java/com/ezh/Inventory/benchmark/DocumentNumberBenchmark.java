@@ -0,0 +1,31 @@
+package com.ezh.Inventory.benchmark;
+
+import com.ezh.Inventory.utils.common.DocPrefix;
+import com.ezh.Inventory.utils.common.DocumentNumberUtil;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DocumentNumberUtil#generate}, called once per saved document. The threaded variant shows
+ * contention on the shared {@code SecureRandom} when many documents are created at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocumentNumberBenchmark {
+
+    @Benchmark
+    public String generate() {
+        return DocumentNumberUtil.generate(DocPrefix.INV);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public String generateContended() {
+        return DocumentNumberUtil.generate(DocPrefix.INV);
+    }
+}
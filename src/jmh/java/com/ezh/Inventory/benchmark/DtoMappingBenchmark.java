@@ -0,0 +1,102 @@
+package com.ezh.Inventory.benchmark;
+
+import com.ezh.Inventory.sales.invoice.dto.InvoiceDto;
+import com.ezh.Inventory.sales.invoice.entity.Invoice;
+import com.ezh.Inventory.sales.invoice.entity.InvoiceItem;
+import com.ezh.Inventory.sales.invoice.service.InvoiceServiceImpl;
+import com.ezh.Inventory.sales.order.dto.SalesOrderDto;
+import com.ezh.Inventory.sales.order.entity.SalesOrder;
+import com.ezh.Inventory.sales.order.entity.SalesOrderItem;
+import com.ezh.Inventory.sales.order.service.SalesOrderServiceImpl;
+import com.ezh.Inventory.utils.AbstractFinancialLine;
+import com.ezh.Inventory.utils.common.dto.UserMiniDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.ezh.Inventory.benchmark.BenchmarkFixtures.*;
+
+/** Entity to DTO mapping of sales orders and invoices ({@code mapToDto}) for list and detail responses. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoMappingBenchmark {
+
+    @Param({"10", "100", "500"})
+    int lines;
+
+    private SalesOrderServiceImpl salesOrderService;
+    private InvoiceServiceImpl invoiceService;
+    private MethodHandle salesOrderMapper;
+    private MethodHandle invoiceMapper;
+    private SalesOrder salesOrder;
+    private Invoice invoice;
+    private Map<Long, UserMiniDto> customers;
+
+    @Setup
+    public void setUp() {
+        salesOrderService = newService(SalesOrderServiceImpl.class);
+        invoiceService = newService(InvoiceServiceImpl.class);
+        salesOrderMapper = privateMethod(SalesOrderServiceImpl.class, "mapToDto",
+                SalesOrderDto.class, SalesOrder.class, Map.class, boolean.class);
+        invoiceMapper = privateMethod(InvoiceServiceImpl.class, "mapToDto",
+                InvoiceDto.class, Invoice.class, Map.class, boolean.class);
+
+        salesOrder = new SalesOrder();
+        salesOrder.setId(1L);
+        salesOrder.setCustomerId(7L);
+        invoice = new Invoice();
+        invoice.setId(1L);
+        invoice.setCustomerId(7L);
+        invoice.setSalesOrder(salesOrder);
+        for (long id = 1; id <= lines; id++) {
+            SalesOrderItem soItem = new SalesOrderItem();
+            fill(soItem, id);
+            soItem.setItemId(id);
+            soItem.setOrderedQty(soItem.getQuantity());
+            soItem.setItemName("Item " + id);
+            salesOrder.getItems().add(soItem);
+
+            InvoiceItem invoiceItem = new InvoiceItem();
+            fill(invoiceItem, id);
+            invoiceItem.setItemId(id);
+            invoiceItem.setSoItemId(id);
+            invoiceItem.setItemName("Item " + id);
+            invoiceItem.setSku("SKU-" + id);
+            invoiceItem.setBatchNumber("BATCH-" + id % 7);
+            invoice.getItems().add(invoiceItem);
+        }
+
+        UserMiniDto customer = new UserMiniDto();
+        customer.setId(7L);
+        customer.setName("Customer 7");
+        customers = Map.of(7L, customer);
+    }
+
+    @Benchmark
+    public Object salesOrder() throws Throwable {
+        return salesOrderMapper.invoke(salesOrderService, salesOrder, customers, true);
+    }
+
+    @Benchmark
+    public Object invoice() throws Throwable {
+        return invoiceMapper.invoke(invoiceService, invoice, customers, true);
+    }
+
+    private static void fill(AbstractFinancialLine line, long id) {
+        line.setId(id);
+        line.setQuantity((int) (id % 20) + 1);
+        line.setUnitPrice(price(id));
+        line.setDiscountRate(discountRate(id));
+        line.setDiscountAmount(BigDecimal.ONE);
+        line.setTaxRate(taxRate(id));
+        line.setTaxAmount(BigDecimal.TEN);
+        line.setLineTotal(price(id));
+    }
+}
@@ -0,0 +1,79 @@
+package com.ezh.Inventory.benchmark;
+
+import com.ezh.Inventory.InventoryApplication;
+import com.ezh.Inventory.security.JwtAuthentication;
+import com.ezh.Inventory.support.RoundTripCounter;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.UUID;
+
+/**
+ * The application booted against a throwaway embedded Postgres (Flyway builds the schema), with
+ * one tenant signed in for every JMH worker thread. JDBC statements are counted by
+ * {@link RoundTripCounter}. Outbox workers are off, so nothing runs in the background; benchmarks
+ * drain the outbox themselves. One instance per trial.
+ */
+final class EmbeddedInventory implements AutoCloseable {
+
+    static final long TENANT_ID = 1L;
+    static final long USER_ID = 1L;
+
+    private final EmbeddedPostgres postgres;
+    private final ConfigurableApplicationContext context;
+
+    private EmbeddedInventory(EmbeddedPostgres postgres, ConfigurableApplicationContext context) {
+        this.postgres = postgres;
+        this.context = context;
+    }
+
+    static EmbeddedInventory start() throws IOException {
+        EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(InventoryApplication.class)
+                .logStartupInfo(false)
+                .initializers(ctx -> ctx.getBeanFactory().addBeanPostProcessor(RoundTripCounter.dataSourceWrapper()))
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "spring.datasource.username=postgres",
+                        "spring.datasource.password=postgres",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN",
+                        "jwt.secret=benchmark-signing-key-benchmark-signing-key-0123456789",
+                        "mcp.ai.url=http://localhost:0",
+                        "auth.service.url=http://localhost:0",
+                        "management.endpoints.web.exposure.include=health",
+                        "spring.mail.username=benchmark",
+                        "spring.mail.password=benchmark",
+                        "aws.s3.access-key-id=benchmark",
+                        "aws.s3.secret-access-key=benchmark",
+                        "aws.s3.bucket=benchmark",
+                        "outbox.enabled=false")
+                .run();
+
+        // JMH calls benchmark methods from its own worker threads
+        SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+        String uuid = UUID.randomUUID().toString();
+        SecurityContextHolder.getContext().setAuthentication(
+                new JwtAuthentication(USER_ID, uuid, "benchmark@ezh.local", TENANT_ID, uuid, "ADMIN", "ADMIN"));
+        return new EmbeddedInventory(postgres, context);
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    NamedParameterJdbcTemplate jdbc() {
+        return context.getBean(NamedParameterJdbcTemplate.class);
+    }
+
+    @Override
+    public void close() throws IOException {
+        context.close();
+        postgres.close();
+    }
+}
@@ -0,0 +1,121 @@
+package com.ezh.Inventory.benchmark;
+
+import com.ezh.Inventory.items.dto.ItemMetadata;
+import com.ezh.Inventory.items.entity.Item;
+import com.ezh.Inventory.items.repository.ItemRepository;
+import com.ezh.Inventory.sales.invoice.dto.InvoiceDto;
+import com.ezh.Inventory.sales.invoice.dto.InvoiceItemDto;
+import com.ezh.Inventory.sales.invoice.entity.Invoice;
+import com.ezh.Inventory.sales.invoice.entity.InvoiceItem;
+import com.ezh.Inventory.sales.invoice.service.InvoicePostingPipeline;
+import com.ezh.Inventory.sales.order.dto.SalesOrderDto;
+import com.ezh.Inventory.sales.order.dto.SalesOrderItemDto;
+import com.ezh.Inventory.sales.order.entity.SalesOrder;
+import com.ezh.Inventory.sales.order.entity.SalesOrderItem;
+import com.ezh.Inventory.sales.order.service.SalesOrderServiceImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.invoke.MethodHandle;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.ezh.Inventory.benchmark.BenchmarkFixtures.*;
+
+/**
+ * Line and header financials of sales orders ({@code processAndCalculateFinancials}) and invoices
+ * ({@code InvoicePostingPipeline.calculateFinancials}), per document of {@code lines} lines. Item
+ * masters come from memory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FinancialPipelineBenchmark {
+
+    @Param({"10", "100", "500"})
+    int lines;
+
+    private SalesOrderServiceImpl salesOrderService;
+    private InvoicePostingPipeline invoicePipeline;
+    private MethodHandle salesOrderFinancials;
+    private MethodHandle invoiceFinancials;
+    private SalesOrderDto salesOrderDto;
+    private Map<Long, SalesOrderItem> soItemsById;
+    private Map<Long, ItemMetadata> itemMetadata;
+    private InvoiceDto invoiceDto;
+
+    @Setup
+    public void setUp() {
+        Map<Long, Item> items = items(lines);
+        ItemRepository itemRepository = itemRepository(items);
+        salesOrderService = newService(SalesOrderServiceImpl.class, itemRepository);
+        invoicePipeline = newService(InvoicePostingPipeline.class);
+        salesOrderFinancials = privateMethod(SalesOrderServiceImpl.class, "processAndCalculateFinancials",
+                void.class, SalesOrder.class, SalesOrderDto.class);
+        invoiceFinancials = privateMethod(InvoicePostingPipeline.class, "calculateFinancials",
+                List.class, Invoice.class, InvoiceDto.class, Map.class, Map.class);
+
+        List<SalesOrderItemDto> soLines = new ArrayList<>(lines);
+        List<InvoiceItemDto> invoiceLines = new ArrayList<>(lines);
+        soItemsById = new HashMap<>(lines * 2);
+        itemMetadata = new HashMap<>(lines * 2);
+        items.forEach((id, item) -> itemMetadata.put(id, ItemMetadata.of(item)));
+        for (long id = 1; id <= lines; id++) {
+            soLines.add(SalesOrderItemDto.builder()
+                    .itemId(id)
+                    .orderedQty((int) (id % 20) + 1)
+                    .unitPrice(id % 5 == 0 ? null : price(id))
+                    .discountRate(discountRate(id))
+                    .taxRate(taxRate(id))
+                    .build());
+
+            SalesOrderItem soItem = new SalesOrderItem();
+            soItem.setId(id);
+            soItem.setItemId(id);
+            soItem.setUnitPrice(price(id));
+            soItem.setOrderedQty(1_000_000);
+            soItemsById.put(id, soItem);
+
+            invoiceLines.add(InvoiceItemDto.builder()
+                    .soItemId(id)
+                    .itemId(id)
+                    .quantity((int) (id % 20) + 1)
+                    .unitPrice(id % 5 == 0 ? null : price(id))
+                    .discountRate(discountRate(id))
+                    .taxRate(taxRate(id))
+                    .build());
+        }
+        salesOrderDto = SalesOrderDto.builder()
+                .items(soLines)
+                .flatDiscountRate(new BigDecimal("2.5"))
+                .flatTaxRate(BigDecimal.ONE)
+                .build();
+        invoiceDto = InvoiceDto.builder()
+                .items(invoiceLines)
+                .flatDiscountRate(new BigDecimal("2.5"))
+                .flatTaxRate(BigDecimal.ONE)
+                .build();
+    }
+
+    @Benchmark
+    public SalesOrder salesOrder() throws Throwable {
+        SalesOrder order = new SalesOrder();
+        salesOrderFinancials.invoke(salesOrderService, order, salesOrderDto);
+        return order;
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public Invoice invoice() throws Throwable {
+        Invoice invoice = new Invoice();
+        invoice.setItems((List<InvoiceItem>) invoiceFinancials.invoke(invoicePipeline, invoice, invoiceDto,
+                soItemsById, itemMetadata));
+        return invoice;
+    }
+}
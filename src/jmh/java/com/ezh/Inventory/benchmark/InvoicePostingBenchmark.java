@@ -0,0 +1,130 @@
+package com.ezh.Inventory.benchmark;
+
+import com.ezh.Inventory.sales.delivery.entity.ShipmentType;
+import com.ezh.Inventory.sales.invoice.dto.InvoiceDto;
+import com.ezh.Inventory.sales.invoice.dto.InvoiceItemDto;
+import com.ezh.Inventory.sales.invoice.service.InvoiceService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static com.ezh.Inventory.benchmark.EmbeddedInventory.TENANT_ID;
+
+/**
+ * Direct invoices of {@code lines} lines through {@code InvoiceService.createInvoice} against
+ * embedded Postgres: sales order, invoice and stock posting in one transaction, the delivery
+ * queued on the outbox (its creation is timed by {@link OutboxDispatchBenchmark}).
+ *
+ * <p>The trial posts one {@value #MAX_LINES}-line invoice before measuring to warm the item cache;
+ * that the statement count does not grow with lines is asserted by {@code InvoicePostingPipelineTest}.
+ * Documents are cleared and stock re-seeded before each iteration, outside the measurement, which
+ * also keeps the random document numbers clear of collisions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, batchSize = 20)
+@Measurement(iterations = 10, batchSize = 20)
+@Fork(1)
+public class InvoicePostingBenchmark {
+
+    static final long WAREHOUSE_ID = 1L;
+    static final long CUSTOMER_ID = 1L;
+    static final int MAX_LINES = 100;
+    static final int STOCK_QTY = 100_000;
+
+    @Param({"1", "20", "100"})
+    int lines;
+
+    private EmbeddedInventory inventory;
+    private InvoiceService invoiceService;
+    private List<Long> itemIds;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        inventory = EmbeddedInventory.start();
+        invoiceService = inventory.bean(InvoiceService.class);
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tenantId", TENANT_ID)
+                .addValue("items", MAX_LINES);
+        inventory.jdbc().update("""
+                INSERT INTO items (uuid, created_at, updated_at, is_deleted, name, tenant_id, item_code, sku,
+                                   item_type, purchase_price, selling_price, tax_percentage, is_active)
+                SELECT CAST(gen_random_uuid() AS varchar), CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, false,
+                       'Bench item ' || i, :tenantId, 'BENCH-' || i, 'BENCH-SKU-' || i, 'PRODUCT', 80, 100, 18, true
+                FROM generate_series(1, :items) AS i
+                """, params);
+        itemIds = inventory.jdbc().queryForList(
+                "SELECT id FROM items WHERE item_code LIKE 'BENCH-%' ORDER BY id", params, Long.class);
+
+        reset();
+        // Warms the item cache and the lazily initialised paths; each iteration's reset clears it away
+        invoiceService.createInvoice(invoice(MAX_LINES));
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tenantId", TENANT_ID)
+                .addValue("warehouseId", WAREHOUSE_ID)
+                .addValue("itemIds", itemIds.stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}")))
+                .addValue("qty", STOCK_QTY);
+        inventory.jdbc().update("DELETE FROM outbox_event", params);
+        inventory.jdbc().update("DELETE FROM delivery_item", params);
+        inventory.jdbc().update("DELETE FROM delivery", params);
+        inventory.jdbc().update("DELETE FROM invoice", params);
+        inventory.jdbc().update("DELETE FROM sales_order", params);
+        inventory.jdbc().update("DELETE FROM stock_ledger WHERE tenant_id = :tenantId", params);
+        inventory.jdbc().update("DELETE FROM stock_batch WHERE tenant_id = :tenantId", params);
+        inventory.jdbc().update("DELETE FROM stock WHERE tenant_id = :tenantId", params);
+        inventory.jdbc().update("""
+                INSERT INTO stock (uuid, created_at, updated_at, is_deleted, item_id, tenant_id, warehouse_id,
+                                   opening_qty, in_qty, out_qty, closing_qty, average_cost, stock_value, version)
+                SELECT CAST(gen_random_uuid() AS varchar), CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, false, i, :tenantId,
+                       :warehouseId, :qty, 0, 0, :qty, 80, 80 * :qty, 0
+                FROM unnest(CAST(:itemIds AS bigint[])) AS i
+                """, params);
+        inventory.jdbc().update("""
+                INSERT INTO stock_batch (uuid, created_at, updated_at, is_deleted, item_id, warehouse_id, tenant_id,
+                                         batch_number, buy_price, initial_qty, remaining_qty)
+                SELECT CAST(gen_random_uuid() AS varchar), CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, false, i,
+                       :warehouseId, :tenantId, 'B-1', 80, :qty, :qty
+                FROM unnest(CAST(:itemIds AS bigint[])) AS i
+                """, params);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        inventory.close();
+    }
+
+    @Benchmark
+    public Object createDirectInvoice() {
+        return invoiceService.createInvoice(invoice(lines));
+    }
+
+    private InvoiceDto invoice(int lineCount) {
+        List<InvoiceItemDto> items = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            items.add(InvoiceItemDto.builder()
+                    .itemId(itemIds.get(i))
+                    .quantity(1)
+                    .unitPrice(new BigDecimal("100.00"))
+                    .discountRate(BigDecimal.ZERO)
+                    .taxRate(new BigDecimal("18"))
+                    .build());
+        }
+        return InvoiceDto.builder()
+                .customerId(CUSTOMER_ID)
+                .warehouseId(WAREHOUSE_ID)
+                .deliveryType(ShipmentType.CUSTOMER_PICKUP)
+                .items(items)
+                .build();
+    }
+}
@@ -0,0 +1,140 @@
+package com.ezh.Inventory.benchmark;
+
+import com.ezh.Inventory.common.outbox.service.OutboxDispatcher;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.ezh.Inventory.benchmark.EmbeddedInventory.TENANT_ID;
+
+/**
+ * Drains {@code invoices} INVOICE_DELIVERY outbox events ({@code lines} lines per invoice) through
+ * {@link OutboxDispatcher#dispatchNext} on {@code workers} threads, one delivery per event.
+ *
+ * <p>Deliveries are cleared and the events re-queued before each iteration. That each invoice
+ * gets exactly one delivery, even when its event is redelivered, is asserted by
+ * {@code OutboxDispatcherTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class OutboxDispatchBenchmark {
+
+    @Param({"2000"})
+    int invoices;
+
+    @Param({"10"})
+    int lines;
+
+    @Param({"1", "4"})
+    int workers;
+
+    private EmbeddedInventory inventory;
+    private OutboxDispatcher dispatcher;
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        inventory = EmbeddedInventory.start();
+        dispatcher = inventory.bean(OutboxDispatcher.class);
+        executor = Executors.newFixedThreadPool(workers);
+        seed();
+    }
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        NamedParameterJdbcTemplate jdbc = inventory.jdbc();
+        jdbc.update("DELETE FROM delivery_item", new MapSqlParameterSource());
+        jdbc.update("DELETE FROM delivery", new MapSqlParameterSource());
+        requeue();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        executor.shutdownNow();
+        inventory.close();
+    }
+
+    @Benchmark
+    public int drainQueue() {
+        return drain();
+    }
+
+    /** @return events handled, by all workers together */
+    private int drain() {
+        AtomicInteger handled = new AtomicInteger();
+        List<CompletableFuture<Void>> runs = new ArrayList<>(workers);
+        for (int i = 0; i < workers; i++) {
+            runs.add(CompletableFuture.runAsync(() -> {
+                while (dispatcher.dispatchNext()) {
+                    handled.incrementAndGet();
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(runs.toArray(CompletableFuture[]::new)).join();
+        return handled.get();
+    }
+
+    private void requeue() {
+        inventory.jdbc().update("""
+                UPDATE outbox_event SET status = 'PENDING', attempts = 0, available_at = CURRENT_TIMESTAMP,
+                                        processed_at = NULL
+                """, new MapSqlParameterSource());
+    }
+
+    private void seed() {
+        NamedParameterJdbcTemplate jdbc = inventory.jdbc();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tenantId", TENANT_ID)
+                .addValue("invoices", invoices)
+                .addValue("lines", lines);
+
+        jdbc.update("""
+                INSERT INTO sales_order (uuid, created_at, tenant_id, warehouse_id, order_number, customer_id,
+                                         order_date, status, source, grand_total)
+                SELECT CAST(gen_random_uuid() AS varchar), CURRENT_TIMESTAMP, :tenantId, 1,
+                       'OSO-' || lpad(CAST(g AS text), 9, '0'), 1 + g % 50, CURRENT_TIMESTAMP, 'FULLY_INVOICED',
+                       'SALES_TEAM', 100 * :lines
+                FROM generate_series(1, :invoices) AS g
+                """, params);
+        jdbc.update("""
+                INSERT INTO invoice (uuid, created_at, tenant_id, warehouse_id, invoice_number, invoice_date,
+                                     sales_order_id, customer_id, status, delivery_status, payment_status,
+                                     invoice_type, grand_total, balance)
+                SELECT CAST(gen_random_uuid() AS varchar), so.created_at, so.tenant_id, so.warehouse_id,
+                       'OINV-' || substr(so.order_number, 5), so.order_date, so.id, so.customer_id, 'PENDING',
+                       'PENDING', 'UNPAID', 'CREDIT', so.grand_total, so.grand_total
+                FROM sales_order so
+                WHERE so.order_number LIKE 'OSO-%'
+                """, params);
+        jdbc.update("""
+                INSERT INTO invoice_item (uuid, invoice_id, item_id, item_name, batch_number, quantity, unit_price,
+                                          line_total)
+                SELECT CAST(gen_random_uuid() AS varchar), i.id, l, 'Outbox item ' || l, 'B-1', 1, 100, 100
+                FROM invoice i, generate_series(1, :lines) AS l
+                WHERE i.invoice_number LIKE 'OINV-%'
+                """, params);
+        jdbc.update("""
+                INSERT INTO outbox_event (tenant_id, user_id, event_type, aggregate_id, payload)
+                SELECT i.tenant_id, 1, 'INVOICE_DELIVERY', i.id,
+                       '{"type":"IN_HOUSE_DELIVERY","scheduledDate":null,"deliveryAddress":"Route ' || i.id % 20 || '"}'
+                FROM invoice i
+                WHERE i.invoice_number LIKE 'OINV-%'
+                ORDER BY i.id
+                """, params);
+        for (String table : List.of("invoice", "invoice_item", "outbox_event")) {
+            jdbc.getJdbcTemplate().execute("ANALYZE " + table);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.ezh.Inventory.benchmark;
+
+import com.ezh.Inventory.sales.invoice.dto.InvoiceStats;
+import com.ezh.Inventory.sales.invoice.repository.InvoiceRepository;
+import com.ezh.Inventory.sales.order.dto.SalesOrderStats;
+import com.ezh.Inventory.sales.order.repository.SalesConversionDateProjection;
+import com.ezh.Inventory.sales.order.repository.SalesOrderRepository;
+import com.ezh.Inventory.sales.rollup.service.SalesRollupJob;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.ezh.Inventory.benchmark.EmbeddedInventory.TENANT_ID;
+
+/**
+ * Sales order and invoice dashboards over {@code rows} orders (each invoiced once) spread across a
+ * year, for the last {@code windowDays} days: the old aggregates over {@code sales_order} and
+ * {@code invoice} against the repository queries over {@code sales_daily_rollup}.
+ *
+ * <p>The rollup is filled through {@link SalesRollupJob#recompute}, one day at a time. That both
+ * sides report the same figures is asserted by {@code SalesRollupJobTest}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SalesRollupBenchmark {
+
+    private static final int DAYS = 365;
+
+    private static final String LEGACY_ORDER_STATS = """
+            SELECT COALESCE(SUM(so.grand_total), 0) AS total_value,
+                   COUNT(*) AS total_sales_orders,
+                   COUNT(*) FILTER (WHERE so.status IN ('PARTIALLY_INVOICED', 'FULLY_INVOICED')) AS converted,
+                   COUNT(*) FILTER (WHERE so.status IN ('CANCELLED', 'REJECTED')) AS cancelled
+            FROM sales_order so
+            WHERE so.tenant_id = :tenantId AND so.created_at >= :from AND so.created_at <= :to
+            """;
+
+    private static final String LEGACY_CONVERSION_REPORT = """
+            SELECT CAST(so.created_at AS date) AS report_date,
+                   COUNT(*) AS total_sales_orders,
+                   COUNT(*) FILTER (WHERE so.status IN ('PARTIALLY_INVOICED', 'FULLY_INVOICED')) AS converted,
+                   SUM(so.grand_total) AS total_sales_value
+            FROM sales_order so
+            WHERE so.tenant_id = :tenantId AND so.created_at >= :from AND so.created_at <= :to
+            GROUP BY CAST(so.created_at AS date)
+            ORDER BY CAST(so.created_at AS date)
+            """;
+
+    private static final String LEGACY_INVOICE_STATS = """
+            SELECT COALESCE(SUM(i.grand_total), 0) AS total_invoice_value,
+                   COALESCE(SUM(i.amount_paid), 0) AS collected,
+                   COUNT(*) FILTER (WHERE i.status = 'PENDING') AS pending,
+                   COUNT(*) FILTER (WHERE i.delivery_status = 'PENDING') AS pending_delivery
+            FROM invoice i
+            WHERE i.tenant_id = :tenantId AND i.created_at >= :from AND i.created_at <= :to
+            """;
+
+    @Param({"1000000"})
+    int rows;
+
+    @Param({"90"})
+    int windowDays;
+
+    private EmbeddedInventory inventory;
+    private SalesOrderRepository salesOrderRepository;
+    private InvoiceRepository invoiceRepository;
+    private LocalDate from;
+    private LocalDate to;
+    private MapSqlParameterSource window;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        inventory = EmbeddedInventory.start();
+        salesOrderRepository = inventory.bean(SalesOrderRepository.class);
+        invoiceRepository = inventory.bean(InvoiceRepository.class);
+        seed();
+
+        SalesRollupJob job = inventory.bean(SalesRollupJob.class);
+        LocalDate today = LocalDate.now();
+        for (LocalDate day = today.minusDays(DAYS); !day.isAfter(today); day = day.plusDays(1)) {
+            job.recompute(TENANT_ID, day);
+        }
+
+        to = today;
+        from = today.minusDays(windowDays - 1L);
+        window = new MapSqlParameterSource()
+                .addValue("tenantId", TENANT_ID)
+                .addValue("from", Timestamp.valueOf(from.atStartOfDay()))
+                .addValue("to", Timestamp.valueOf(to.plusDays(1).atStartOfDay().minusNanos(1000)));
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        inventory.close();
+    }
+
+    @Benchmark
+    public Map<String, Object> legacyOrderStats() {
+        return inventory.jdbc().queryForMap(LEGACY_ORDER_STATS, window);
+    }
+
+    @Benchmark
+    public SalesOrderStats rollupOrderStats() {
+        return salesOrderRepository.getDashboardStats(TENANT_ID, from, to);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> legacyConversionReport() {
+        return inventory.jdbc().queryForList(LEGACY_CONVERSION_REPORT, window);
+    }
+
+    @Benchmark
+    public List<SalesConversionDateProjection> rollupConversionReport() {
+        return salesOrderRepository.getSalesOrderConversionReport(TENANT_ID, null, null, from, to);
+    }
+
+    @Benchmark
+    public Map<String, Object> legacyInvoiceStats() {
+        return inventory.jdbc().queryForMap(LEGACY_INVOICE_STATS, window);
+    }
+
+    @Benchmark
+    public InvoiceStats rollupInvoiceStats() {
+        return invoiceRepository.getDashboardStats(TENANT_ID, from, to);
+    }
+
+    private void seed() {
+        NamedParameterJdbcTemplate jdbc = inventory.jdbc();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tenantId", TENANT_ID)
+                .addValue("rows", rows)
+                .addValue("days", DAYS);
+
+        jdbc.update("""
+                INSERT INTO sales_order (uuid, created_at, tenant_id, warehouse_id, order_number, customer_id,
+                                         order_date, status, source, grand_total)
+                SELECT CAST(gen_random_uuid() AS varchar),
+                       CURRENT_TIMESTAMP - (g % :days) * INTERVAL '1 day' - (g % 600) * INTERVAL '1 minute',
+                       :tenantId, 1 + g % 3, 'RSO-' || lpad(CAST(g AS text), 9, '0'), 1 + g % 500, CURRENT_TIMESTAMP,
+                       (ARRAY['CONFIRMED', 'PENDING_APPROVAL', 'PARTIALLY_INVOICED', 'FULLY_INVOICED',
+                              'CANCELLED', 'REJECTED'])[1 + g % 6],
+                       'SALES_TEAM', 100 + g % 900
+                FROM generate_series(1, :rows) AS g
+                """, params);
+        jdbc.update("""
+                INSERT INTO invoice (uuid, created_at, tenant_id, warehouse_id, invoice_number, invoice_date,
+                                     sales_order_id, customer_id, status, delivery_status, payment_status,
+                                     invoice_type, grand_total, amount_paid, balance)
+                SELECT CAST(gen_random_uuid() AS varchar), so.created_at + INTERVAL '1 hour', so.tenant_id,
+                       so.warehouse_id, 'RINV-' || substr(so.order_number, 5), so.order_date, so.id, so.customer_id,
+                       CASE WHEN so.id % 2 = 0 THEN 'PENDING' ELSE 'ISSUED' END,
+                       CASE WHEN so.id % 3 = 0 THEN 'PENDING' ELSE 'DELIVERED' END,
+                       'UNPAID', 'CREDIT', so.grand_total, so.grand_total / 2, so.grand_total - so.grand_total / 2
+                FROM sales_order so
+                WHERE so.order_number LIKE 'RSO-%'
+                """, params);
+        for (String table : List.of("sales_order", "invoice")) {
+            jdbc.getJdbcTemplate().execute("ANALYZE " + table);
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.ezh.Inventory.benchmark;
+
+import com.ezh.Inventory.items.entity.Item;
+import com.ezh.Inventory.items.repository.ItemRepository;
+import com.ezh.Inventory.sales.invoice.entity.Invoice;
+import com.ezh.Inventory.sales.invoice.repository.InvoiceRepository;
+import com.ezh.Inventory.stock.entity.StockLedger;
+import com.ezh.Inventory.stock.repository.StockLedgerRepository;
+import com.ezh.Inventory.utils.common.FilterSpecification;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static com.ezh.Inventory.benchmark.EmbeddedInventory.TENANT_ID;
+
+/**
+ * List searches ({@code LOWER(col) LIKE '%term%'}) over {@code rows} sales orders, invoices,
+ * deliveries, items and ledger entries in embedded Postgres, served by the V23 trigram indexes
+ * ({@code SearchIndexTest} checks that the plans use them). The benchmarks time the first page of
+ * the invoice, item and ledger searches through their repositories.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchIndexBenchmark {
+
+    @Param({"1000000"})
+    int rows;
+
+    private EmbeddedInventory inventory;
+    private InvoiceRepository invoiceRepository;
+    private ItemRepository itemRepository;
+    private StockLedgerRepository stockLedgerRepository;
+    private String numberTerm;
+    private String itemTerm;
+    private String uuidTerm;
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        inventory = EmbeddedInventory.start();
+        invoiceRepository = inventory.bean(InvoiceRepository.class);
+        itemRepository = inventory.bean(ItemRepository.class);
+        stockLedgerRepository = inventory.bean(StockLedgerRepository.class);
+        seed();
+
+        NamedParameterJdbcTemplate jdbc = inventory.jdbc();
+        numberTerm = String.format("%07d", rows / 3);
+        itemTerm = jdbc.queryForObject("SELECT substr(md5(CAST(:n AS text)), 1, 6)",
+                new MapSqlParameterSource("n", rows / 2), String.class);
+        uuidTerm = jdbc.queryForObject("SELECT substr(uuid, 10, 9) FROM stock_ledger ORDER BY id DESC LIMIT 1",
+                new MapSqlParameterSource(), String.class).toUpperCase();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        inventory.close();
+    }
+
+    @Benchmark
+    public Page<Invoice> invoiceSearch() {
+        return invoiceRepository.findAll(FilterSpecification.<Invoice>forTenant(TENANT_ID)
+                .search(numberTerm, "invoiceNumber", "remarks")
+                .build(), firstPage());
+    }
+
+    @Benchmark
+    public Page<Item> itemSearch() {
+        return itemRepository.searchItems(TENANT_ID, itemTerm, null, null, null, null, firstPage());
+    }
+
+    @Benchmark
+    public Page<StockLedger> stockLedgerSearch() {
+        return stockLedgerRepository.findAll(FilterSpecification.<StockLedger>forTenant(TENANT_ID)
+                .contains("uuid", uuidTerm.toLowerCase(Locale.ROOT))
+                .build(), firstPage());
+    }
+
+    private static PageRequest firstPage() {
+        return PageRequest.of(0, 20, FilterSpecification.NEWEST_FIRST);
+    }
+
+    private void seed() {
+        NamedParameterJdbcTemplate jdbc = inventory.jdbc();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tenantId", TENANT_ID)
+                .addValue("rows", rows);
+
+        jdbc.update("""
+                INSERT INTO sales_order (uuid, created_at, tenant_id, warehouse_id, order_number, customer_id,
+                                         order_date, status, source, remarks, grand_total)
+                SELECT CAST(gen_random_uuid() AS varchar), CURRENT_TIMESTAMP - g * INTERVAL '1 minute', :tenantId, 1,
+                       'SO-' || lpad(CAST(g AS text), 9, '0'), 1 + g % 500, CURRENT_TIMESTAMP, 'CONFIRMED',
+                       'SALES_TEAM', 'Route ' || g % 97 || ' ' || md5(CAST(g AS text)), 100
+                FROM generate_series(1, :rows) AS g
+                """, params);
+        jdbc.update("""
+                INSERT INTO invoice (uuid, created_at, tenant_id, warehouse_id, invoice_number, invoice_date,
+                                     sales_order_id, customer_id, status, delivery_status, payment_status,
+                                     invoice_type, remarks, grand_total, balance)
+                SELECT CAST(gen_random_uuid() AS varchar), so.created_at, so.tenant_id, so.warehouse_id,
+                       'INV-' || substr(so.order_number, 4), so.order_date, so.id, so.customer_id, 'PENDING',
+                       'PENDING', 'UNPAID', 'CREDIT', so.remarks, 100, 100
+                FROM sales_order so
+                WHERE so.order_number LIKE 'SO-%'
+                """, params);
+        jdbc.update("""
+                INSERT INTO delivery (uuid, created_at, tenant_id, delivery_number, invoice_id, customer_id,
+                                      type, status)
+                SELECT CAST(gen_random_uuid() AS varchar), i.created_at, i.tenant_id,
+                       'DEL-' || substr(i.invoice_number, 5), i.id, i.customer_id, 'IN_HOUSE_DELIVERY', 'PENDING'
+                FROM invoice i
+                WHERE i.invoice_number LIKE 'INV-%'
+                """, params);
+        jdbc.update("""
+                INSERT INTO items (uuid, created_at, updated_at, is_deleted, name, tenant_id, item_code,
+                                   barcode, item_type, selling_price, is_active)
+                SELECT CAST(gen_random_uuid() AS varchar), CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, false,
+                       'Item ' || md5(CAST(g AS text)), :tenantId, 'SRCH-' || lpad(CAST(g AS text), 9, '0'),
+                       CAST(8900000000000 + g AS text), 'PRODUCT', 100, true
+                FROM generate_series(1, :rows) AS g
+                """, params);
+        jdbc.update("""
+                INSERT INTO stock_ledger (uuid, created_at, item_id, tenant_id, warehouse_id, transaction_type,
+                                          quantity, reference_type, before_qty, after_qty)
+                SELECT CAST(gen_random_uuid() AS varchar), CURRENT_TIMESTAMP - g * INTERVAL '1 second',
+                       1 + g % 1000, :tenantId, 1, 'IN', 1, 'GRN', 0, 1
+                FROM generate_series(1, :rows) AS g
+                """, params);
+        for (String table : List.of("sales_order", "invoice", "delivery", "items", "stock_ledger")) {
+            jdbc.getJdbcTemplate().execute("ANALYZE " + table);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.ezh.Inventory.benchmark;
+
+import com.ezh.Inventory.stock.dto.StockUpdateDto;
+import com.ezh.Inventory.stock.entity.MovementType;
+import com.ezh.Inventory.stock.entity.ReferenceType;
+import com.ezh.Inventory.stock.entity.StockBatch;
+import com.ezh.Inventory.stock.repository.StockBatchRepository;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
+import com.ezh.Inventory.stock.repository.StockRepository;
+import com.ezh.Inventory.stock.service.StockBatchAllocator;
+import com.ezh.Inventory.stock.service.StockService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.ezh.Inventory.benchmark.EmbeddedInventory.TENANT_ID;
+
+/**
+ * Stock postings against embedded Postgres: single-line {@code updateStock} IN and OUT, and whole
+ * documents through {@code postMovements}. OUT lines name no batch, so every one is a FIFO
+ * deduction. Each item holds the same quantity split over {@code batches} batches, so the
+ * {@code fifo*} pair shows how the set-based allocator and the per-batch deduction it replaced
+ * scale with the number of open batches. Stock is re-seeded before each iteration, outside the
+ * measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StockPostingBenchmark {
+
+    static final long WAREHOUSE_ID = 1L;
+    static final int ITEMS = 1_000;
+    static final int QTY_PER_ITEM = 10_000;
+    static final int OUT_QTY = 25;
+
+    @Param({"1", "10", "100", "1000"})
+    int batches;
+
+    private EmbeddedInventory inventory;
+    private StockService stockService;
+    private StockRepository stockRepository;
+    private StockBatchRepository stockBatchRepository;
+    private StockBatchAllocator stockBatchAllocator;
+    private TransactionTemplate transactionTemplate;
+    private final AtomicLong cursor = new AtomicLong();
+
+    @State(Scope.Benchmark)
+    public static class Document {
+        @Param({"1", "20", "100"})
+        int lines;
+    }
+
+    @Setup(Level.Trial)
+    public void start() throws Exception {
+        inventory = EmbeddedInventory.start();
+        stockService = inventory.bean(StockService.class);
+        stockRepository = inventory.bean(StockRepository.class);
+        stockBatchRepository = inventory.bean(StockBatchRepository.class);
+        stockBatchAllocator = inventory.bean(StockBatchAllocator.class);
+        transactionTemplate = inventory.bean(TransactionTemplate.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void seed() {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tenantId", TENANT_ID)
+                .addValue("warehouseId", WAREHOUSE_ID)
+                .addValue("items", ITEMS)
+                .addValue("batches", batches)
+                .addValue("batchQty", QTY_PER_ITEM / batches);
+        inventory.jdbc().update("DELETE FROM stock_batch WHERE tenant_id = :tenantId", params);
+        inventory.jdbc().update("DELETE FROM stock WHERE tenant_id = :tenantId", params);
+        inventory.jdbc().update("""
+                INSERT INTO stock (uuid, created_at, updated_at, is_deleted, item_id, tenant_id, warehouse_id,
+                                   opening_qty, in_qty, out_qty, closing_qty, average_cost, stock_value, version)
+                SELECT CAST(gen_random_uuid() AS varchar), CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, false, i, :tenantId,
+                       :warehouseId, :batches * :batchQty, 0, 0, :batches * :batchQty, 10, 10 * :batches * :batchQty, 0
+                FROM generate_series(1, :items) AS i
+                """, params);
+        inventory.jdbc().update("""
+                INSERT INTO stock_batch (uuid, created_at, updated_at, is_deleted, item_id, warehouse_id, tenant_id,
+                                         batch_number, buy_price, initial_qty, remaining_qty)
+                SELECT CAST(gen_random_uuid() AS varchar), TIMESTAMP '2024-01-01' + b * INTERVAL '1 minute',
+                       CURRENT_TIMESTAMP, false, i, :warehouseId, :tenantId, 'B-' || b, 10, :batchQty, :batchQty
+                FROM generate_series(1, :items) AS i, generate_series(1, :batches) AS b
+                """, params);
+        inventory.jdbc().update("ANALYZE stock", params);
+        inventory.jdbc().update("ANALYZE stock_batch", params);
+        cursor.set(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws Exception {
+        inventory.close();
+    }
+
+    @Benchmark
+    public Object updateStockIn() {
+        return stockService.updateStock(line(nextItem(), MovementType.IN, 1));
+    }
+
+    @Benchmark
+    public Object updateStockOutFifo() {
+        return stockService.updateStock(line(nextItem(), MovementType.OUT, OUT_QTY));
+    }
+
+    @Benchmark
+    public Object postMovementsOutFifo(Document document) {
+        List<StockUpdateDto> movements = new ArrayList<>(document.lines);
+        for (int i = 0; i < document.lines; i++) {
+            movements.add(line(nextItem(), MovementType.OUT, OUT_QTY));
+        }
+        return stockService.postMovements(movements);
+    }
+
+    /** Stock row deduction plus the set-based FIFO pick {@code updateStock} runs today. */
+    @Benchmark
+    public Object fifoAllocator() {
+        long itemId = nextItem();
+        return transactionTemplate.execute(status -> {
+            deductStock(itemId);
+            StockKey key = new StockKey(WAREHOUSE_ID, itemId);
+            return stockBatchAllocator.allocate(TENANT_ID, Map.of(key, OUT_QTY)).get(key);
+        });
+    }
+
+    /** The same deduction with the per-batch FIFO pick it replaced. */
+    @Benchmark
+    public Object fifoLegacyPerBatch() {
+        long itemId = nextItem();
+        return transactionTemplate.execute(status -> {
+            deductStock(itemId);
+            return performFifoDeduction(itemId, WAREHOUSE_ID, OUT_QTY);
+        });
+    }
+
+    private void deductStock(long itemId) {
+        if (stockRepository.deductIfAvailable(TENANT_ID, WAREHOUSE_ID, itemId, OUT_QTY) == 0) {
+            throw new IllegalStateException("Item " + itemId + " ran out of stock, lower the measurement time");
+        }
+    }
+
+    // StockServiceImpl.performFifoDeduction before StockBatchAllocator: loads every open batch, saves each one taken
+    private String performFifoDeduction(Long itemId, Long warehouseId, int qtyRequired) {
+        List<StockBatch> availableBatches = stockBatchRepository
+                .findByItemIdAndWarehouseIdAndRemainingQtyGreaterThanOrderByCreatedAtAsc(itemId, warehouseId, 0);
+
+        int qtyToDeduct = qtyRequired;
+        List<String> usedBatchNumbers = new ArrayList<>();
+        for (StockBatch batch : availableBatches) {
+            if (qtyToDeduct <= 0) break;
+
+            int take = Math.min(batch.getRemainingQty(), qtyToDeduct);
+            batch.setRemainingQty(batch.getRemainingQty() - take);
+            stockBatchRepository.save(batch);
+
+            usedBatchNumbers.add(batch.getBatchNumber());
+            qtyToDeduct -= take;
+        }
+        if (qtyToDeduct > 0) {
+            throw new IllegalStateException("Batches of item " + itemId + " ran out");
+        }
+        return String.join(",", usedBatchNumbers);
+    }
+
+    /** Items in turn, so lines of one document are distinct and stock drains evenly. */
+    private long nextItem() {
+        return cursor.getAndIncrement() % ITEMS + 1;
+    }
+
+    private static StockUpdateDto line(long itemId, MovementType type, int qty) {
+        return StockUpdateDto.builder()
+                .itemId(itemId)
+                .warehouseId(WAREHOUSE_ID)
+                .quantity(qty)
+                .unitPrice(type == MovementType.IN ? new BigDecimal("12.50") : null)
+                .transactionType(type)
+                .referenceType(type == MovementType.IN ? ReferenceType.GRN : ReferenceType.SALE)
+                .referenceId(1L)
+                .build();
+    }
+}
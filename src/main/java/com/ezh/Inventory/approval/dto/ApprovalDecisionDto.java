@@ -0,0 +1,17 @@
+package com.ezh.Inventory.approval.dto;
+
+import com.ezh.Inventory.approval.entity.ApprovalStatus;
+import com.ezh.Inventory.approval.entity.ApprovalType;
+import lombok.*;
+
+/** A decision on an approval request; the payload of its APPROVAL_DECISION outbox event. */
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApprovalDecisionDto {
+    private ApprovalType type;
+    private Long referenceId;
+    private ApprovalStatus status; // APPROVED or REJECTED
+}
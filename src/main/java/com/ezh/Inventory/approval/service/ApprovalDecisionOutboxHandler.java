@@ -0,0 +1,74 @@
+package com.ezh.Inventory.approval.service;
+
+import com.ezh.Inventory.approval.dto.ApprovalDecisionDto;
+import com.ezh.Inventory.approval.entity.ApprovalStatus;
+import com.ezh.Inventory.approval.entity.ApprovalType;
+import com.ezh.Inventory.common.outbox.dto.OutboxEvent;
+import com.ezh.Inventory.common.outbox.entity.OutboxEventType;
+import com.ezh.Inventory.common.outbox.service.OutboxHandler;
+import com.ezh.Inventory.stock.service.StockLockManager;
+import com.ezh.Inventory.utils.common.events.ApprovalDecisionEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Publishes a committed approval decision as an {@link ApprovalDecisionEvent}. The listeners in
+ * the document services join the outbox transaction, so the document update and the delivered
+ * event commit together; each listener ignores a document that is no longer awaiting a decision.
+ *
+ * <p>Approving a document that moves stock posts it inside that transaction, so the stock locks
+ * of its lines, named by its {@link ApprovalStockLocks}, are taken before the transaction opens.
+ */
+@Component
+public class ApprovalDecisionOutboxHandler implements OutboxHandler<ApprovalDecisionDto> {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final StockLockManager stockLockManager;
+    private final Map<ApprovalType, ApprovalStockLocks> stockLocks = new EnumMap<>(ApprovalType.class);
+
+    public ApprovalDecisionOutboxHandler(ApplicationEventPublisher eventPublisher,
+                                         StockLockManager stockLockManager,
+                                         List<ApprovalStockLocks> stockLocks) {
+        this.eventPublisher = eventPublisher;
+        this.stockLockManager = stockLockManager;
+        for (ApprovalStockLocks locks : stockLocks) {
+            this.stockLocks.put(locks.type(), locks);
+        }
+    }
+
+    @Override
+    public OutboxEventType type() {
+        return OutboxEventType.APPROVAL_DECISION;
+    }
+
+    @Override
+    public Class<ApprovalDecisionDto> payloadType() {
+        return ApprovalDecisionDto.class;
+    }
+
+    @Override
+    public void deliver(OutboxEvent event, ApprovalDecisionDto payload, Runnable delivery) {
+        ApprovalStockLocks locks = stockLocks.get(payload.getType());
+        if (locks == null || payload.getStatus() != ApprovalStatus.APPROVED) {
+            delivery.run();
+            return;
+        }
+        stockLockManager.withLocks(event.getTenantId(), locks.stockKeys(payload.getReferenceId()), () -> {
+            delivery.run();
+            return null;
+        });
+    }
+
+    @Override
+    public void handle(OutboxEvent event, ApprovalDecisionDto payload) {
+        eventPublisher.publishEvent(new ApprovalDecisionEvent(
+                this,
+                payload.getType(),
+                payload.getReferenceId(),
+                payload.getStatus()));
+    }
+}
@@ -4,6 +4,8 @@ import com.ezh.Inventory.approval.dto.*;
 import com.ezh.Inventory.approval.entity.*;
 import com.ezh.Inventory.approval.repository.ApprovalConfigRepository;
 import com.ezh.Inventory.approval.repository.ApprovalRequestRepository;
+import com.ezh.Inventory.common.outbox.entity.OutboxEventType;
+import com.ezh.Inventory.common.outbox.service.OutboxPublisher;
 import com.ezh.Inventory.notifications.common.entity.NotificationType;
 import com.ezh.Inventory.notifications.common.service.NotificationService;
 import com.ezh.Inventory.utils.UserContextUtil;
@@ -11,10 +13,8 @@ import com.ezh.Inventory.utils.common.CommonResponse;
 import com.ezh.Inventory.utils.common.DocPrefix;
 import com.ezh.Inventory.utils.common.DocumentNumberUtil;
 import com.ezh.Inventory.utils.common.Status;
-import com.ezh.Inventory.utils.common.events.ApprovalDecisionEvent;
 import com.ezh.Inventory.utils.exception.CommonException;
 import lombok.RequiredArgsConstructor;
-import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -34,7 +34,7 @@ public class ApprovalService {
 
     private final ApprovalConfigRepository approvalConfigRepository;
     private final ApprovalRequestRepository approvalRequestRepository;
-    private final ApplicationEventPublisher eventPublisher;
+    private final OutboxPublisher outboxPublisher;
     private final NotificationService notificationService;
 
     @Transactional
@@ -104,7 +104,7 @@ public class ApprovalService {
                     approvalRequest.getApprovalType(),
                     approvalRequest.getReferenceCode(),
                     approvalRequest.getDescription());
-            notificationService.sendToApp(notifTitle, notifBody, NotificationType.INFO);
+            notificationService.enqueueToApp(tenantId, notifTitle, notifBody, NotificationType.INFO);
             return CommonResponse.builder()
                     .data(ApprovalResultStatus.APPROVAL_REQUIRED)
                     .id(approvalRequest.getId().toString())
@@ -135,14 +135,14 @@ public class ApprovalService {
         request.setApprovedDate(new Date());
         approvalRequestRepository.save(request);
 
-        // 2. Publish the Event instead of calling services directly
-        ApprovalDecisionEvent event = new ApprovalDecisionEvent(
-                this,
-                request.getApprovalType(),
-                request.getReferenceId(),
-                actionDto.getStatus());
-
-        eventPublisher.publishEvent(event);
+        // 3. Queue the decision instead of calling services directly; the document is updated
+        // after commit (ApprovalDecisionOutboxHandler)
+        outboxPublisher.publish(OutboxEventType.APPROVAL_DECISION, request.getTenantId(), request.getId(),
+                ApprovalDecisionDto.builder()
+                        .type(request.getApprovalType())
+                        .referenceId(request.getReferenceId())
+                        .status(actionDto.getStatus())
+                        .build());
 
         return CommonResponse.builder()
                 .message("Request processed successfully")
@@ -172,7 +172,7 @@ public class ApprovalService {
             String notifTitle = String.format("Approval Cancelled: #%s", request.getApprovalRequestNumber());
             String notifBody = String.format("The request for %s (%s) was cancelled. Reason: %s",
                     request.getApprovalType(), request.getReferenceCode(), reason);
-            notificationService.sendToApp(notifTitle, notifBody, NotificationType.INFO);
+            notificationService.enqueueToApp(tenantId, notifTitle, notifBody, NotificationType.INFO);
         }
     }
 
@@ -0,0 +1,19 @@
+package com.ezh.Inventory.approval.service;
+
+import com.ezh.Inventory.approval.entity.ApprovalType;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
+
+import java.util.Collection;
+
+/**
+ * Implemented by document services whose approval moves stock. {@link ApprovalDecisionOutboxHandler}
+ * takes the stock locks of the approved document before it opens the transaction that applies
+ * the decision.
+ */
+public interface ApprovalStockLocks {
+
+    ApprovalType type();
+
+    /** Stock rows the approved document will post to; read outside any transaction. */
+    Collection<StockKey> stockKeys(Long referenceId);
+}
@@ -0,0 +1,59 @@
+package com.ezh.Inventory.common.outbox.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Tuning for the outbox workers.
+ *
+ * <pre>
+ * # application.properties
+ * outbox.enabled=true
+ * outbox.workers=4
+ * outbox.poll-interval=1s
+ * outbox.lease=5m
+ * outbox.max-attempts=10
+ * outbox.retry-backoff=30s
+ * outbox.max-retry-backoff=1h
+ * outbox.retention-days=7
+ * outbox.purge-cron=0 45 2 * * *
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "outbox")
+public class OutboxProperties {
+
+    /** Whether this instance runs workers. Events are written either way. */
+    private boolean enabled = true;
+
+    /** Worker threads; each holds one connection while it handles an event. */
+    private int workers = 4;
+
+    /** How long an idle worker waits before looking again, unless a commit wakes it earlier. */
+    private Duration pollInterval = Duration.ofSeconds(1);
+
+    /**
+     * How long a leased event is hidden from other workers. A worker that dies mid-delivery
+     * leaves its event to be picked up again after this; keep it well above the slowest delivery.
+     */
+    private Duration lease = Duration.ofMinutes(5);
+
+    /** Deliveries of an event, including the first, before it is marked FAILED. */
+    private int maxAttempts = 10;
+
+    /** Wait before the first retry; doubles with every further failure. */
+    private Duration retryBackoff = Duration.ofSeconds(30);
+
+    /** Longest wait between retries. */
+    private Duration maxRetryBackoff = Duration.ofHours(1);
+
+    /** Days delivered events are kept before the purge removes them. */
+    private int retentionDays = 7;
+
+    /** When delivered events past retention are purged; nightly by default. */
+    private String purgeCron = "0 45 2 * * *";
+}
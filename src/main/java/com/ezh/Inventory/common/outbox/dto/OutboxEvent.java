@@ -0,0 +1,16 @@
+package com.ezh.Inventory.common.outbox.dto;
+
+import com.ezh.Inventory.common.outbox.entity.OutboxEventType;
+import lombok.Value;
+
+/** A claimed {@code outbox_event} row; {@code attempts} counts earlier, failed deliveries. */
+@Value
+public class OutboxEvent {
+    Long id;
+    Long tenantId;
+    Long userId;
+    OutboxEventType type;
+    Long aggregateId;
+    String payload;
+    int attempts;
+}
@@ -0,0 +1,7 @@
+package com.ezh.Inventory.common.outbox.entity;
+
+public enum OutboxEventType {
+    INVOICE_DELIVERY,   // create the delivery of a new invoice
+    APPROVAL_DECISION,  // apply an approval decision to the document it was about
+    NOTIFICATION        // send a NotificationRequest
+}
@@ -0,0 +1,123 @@
+package com.ezh.Inventory.common.outbox.repository;
+
+import com.ezh.Inventory.common.outbox.dto.OutboxEvent;
+import com.ezh.Inventory.common.outbox.entity.OutboxEventType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * JDBC access to {@code outbox_event}. A worker leases an event with {@code FOR UPDATE SKIP LOCKED}
+ * and a pushed-out {@code available_at}, then delivers it in a transaction that locks the row
+ * again: concurrent workers do not get the same event while the lease lasts, and the event of a
+ * worker that dies is picked up again once it runs out.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OutboxJdbcRepository {
+
+    private static final String FAILED = "FAILED";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /** Writes the events as one batch; each row is {@code (aggregateId, payload)}. */
+    public void insertAll(OutboxEventType type, Long tenantId, Long userId, List<Object[]> rows) {
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO outbox_event (tenant_id, user_id, event_type, aggregate_id, payload)
+                VALUES (:tenantId, :userId, :eventType, :aggregateId, :payload)
+                """, rows.stream()
+                .map(row -> new MapSqlParameterSource()
+                        .addValue("tenantId", tenantId)
+                        .addValue("userId", userId)
+                        .addValue("eventType", type.name())
+                        .addValue("aggregateId", row[0])
+                        .addValue("payload", row[1]))
+                .toArray(MapSqlParameterSource[]::new));
+    }
+
+    /**
+     * Leases the oldest due pending event: pushes its {@code available_at} out by {@code leaseMs}
+     * so other workers skip it meanwhile. Runs as its own statement, outside the transaction
+     * that delivers the event, so a worker can take what it needs (stock locks) before opening
+     * that transaction.
+     *
+     * @return the event, or {@code null} if none is due
+     */
+    public OutboxEvent leaseNext(long leaseMs) {
+        List<OutboxEvent> events = jdbcTemplate.query("""
+                UPDATE outbox_event
+                SET available_at = CURRENT_TIMESTAMP + :leaseMs * INTERVAL '1 millisecond'
+                WHERE id = (
+                    SELECT id FROM outbox_event
+                    WHERE status = 'PENDING' AND available_at <= CURRENT_TIMESTAMP
+                    ORDER BY available_at, id
+                    LIMIT 1
+                    FOR UPDATE SKIP LOCKED)
+                RETURNING id, tenant_id, user_id, event_type, aggregate_id, payload, attempts
+                """, new MapSqlParameterSource("leaseMs", leaseMs), (rs, i) -> new OutboxEvent(
+                rs.getLong("id"),
+                rs.getLong("tenant_id"),
+                rs.getObject("user_id", Long.class),
+                OutboxEventType.valueOf(rs.getString("event_type")),
+                rs.getObject("aggregate_id", Long.class),
+                rs.getString("payload"),
+                rs.getInt("attempts")));
+        return events.isEmpty() ? null : events.get(0);
+    }
+
+    /**
+     * Locks a leased event for the delivering transaction.
+     *
+     * @return false if it is no longer pending: another worker delivered it after the lease ran out
+     */
+    public boolean lockPending(Long id) {
+        return !jdbcTemplate.queryForList("""
+                SELECT id FROM outbox_event
+                WHERE id = :id AND status = 'PENDING'
+                FOR UPDATE
+                """, new MapSqlParameterSource("id", id), Long.class).isEmpty();
+    }
+
+    public void markDone(Long id) {
+        jdbcTemplate.update("""
+                UPDATE outbox_event
+                SET status = 'DONE', attempts = attempts + 1, processed_at = CURRENT_TIMESTAMP, last_error = NULL
+                WHERE id = :id
+                """, new MapSqlParameterSource("id", id));
+    }
+
+    /**
+     * Records a failed delivery: the event is retried after {@code retryDelayMs}, or marked FAILED
+     * once it has been tried {@code maxAttempts} times. Events another worker has since
+     * delivered are left alone.
+     *
+     * @return true if the event is now FAILED
+     */
+    public boolean markFailed(Long id, String error, long retryDelayMs, int maxAttempts) {
+        List<String> statuses = jdbcTemplate.queryForList("""
+                UPDATE outbox_event
+                SET attempts = attempts + 1,
+                    last_error = :error,
+                    available_at = CURRENT_TIMESTAMP + :retryDelayMs * INTERVAL '1 millisecond',
+                    status = CASE WHEN attempts + 1 >= :maxAttempts THEN 'FAILED' ELSE 'PENDING' END
+                WHERE id = :id AND status = 'PENDING'
+                RETURNING status
+                """, new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("error", error)
+                .addValue("retryDelayMs", retryDelayMs)
+                .addValue("maxAttempts", maxAttempts), String.class);
+        return statuses.contains(FAILED);
+    }
+
+    /** @return delivered events removed */
+    public int purgeDone(int retentionDays) {
+        return jdbcTemplate.update("""
+                DELETE FROM outbox_event
+                WHERE status = 'DONE' AND processed_at < CURRENT_TIMESTAMP - :days * INTERVAL '1 day'
+                """, new MapSqlParameterSource("days", retentionDays));
+    }
+}
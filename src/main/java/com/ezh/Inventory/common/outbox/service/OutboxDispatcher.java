@@ -0,0 +1,208 @@
+package com.ezh.Inventory.common.outbox.service;
+
+import com.ezh.Inventory.common.outbox.config.OutboxProperties;
+import com.ezh.Inventory.common.outbox.dto.OutboxEvent;
+import com.ezh.Inventory.common.outbox.entity.OutboxEventType;
+import com.ezh.Inventory.common.outbox.repository.OutboxJdbcRepository;
+import com.ezh.Inventory.security.JwtAuthentication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Drains {@code outbox_event} on a pool of {@code outbox.workers} threads.
+ *
+ * <p>An event is first leased for {@code outbox.lease}, outside any transaction, so its handler
+ * can take stock locks before the delivery transaction opens (see
+ * {@link OutboxHandler#deliver}). It is then locked, handled and marked delivered in one
+ * transaction, so the handler's database work commits exactly when the event does. A failed event
+ * is rolled back and retried with exponential backoff until {@code outbox.max-attempts}, then
+ * left FAILED with its last error. Events are leased oldest first but handled in parallel;
+ * handlers must not rely on the order of events about different documents.
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+
+    private static final int MAX_ERROR_LENGTH = 2000;
+
+    private final OutboxJdbcRepository outboxJdbcRepository;
+    private final OutboxPublisher outboxPublisher;
+    private final OutboxProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Map<OutboxEventType, OutboxHandler<?>> handlers = new EnumMap<>(OutboxEventType.class);
+    private final ExecutorService executor;
+    private final Counter deliveredCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+
+    public OutboxDispatcher(OutboxJdbcRepository outboxJdbcRepository,
+                            OutboxPublisher outboxPublisher,
+                            OutboxProperties properties,
+                            TransactionTemplate transactionTemplate,
+                            ObjectMapper objectMapper,
+                            List<OutboxHandler<?>> handlers,
+                            MeterRegistry meterRegistry) {
+        this.outboxJdbcRepository = outboxJdbcRepository;
+        this.outboxPublisher = outboxPublisher;
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        for (OutboxHandler<?> handler : handlers) {
+            if (this.handlers.put(handler.type(), handler) != null) {
+                throw new IllegalStateException("Two outbox handlers for " + handler.type());
+            }
+        }
+        this.executor = Executors.newFixedThreadPool(Math.max(1, properties.getWorkers()),
+                Thread.ofPlatform().name("outbox-", 1).factory());
+        this.deliveredCounter = Counter.builder("outbox.delivered")
+                .description("Outbox events handled successfully")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("outbox.retried")
+                .description("Outbox event deliveries that failed and were rescheduled")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("outbox.failed")
+                .description("Outbox events given up on after the last attempt")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            log.info("Outbox workers disabled; events stay queued");
+            return;
+        }
+        for (int i = 0; i < properties.getWorkers(); i++) {
+            executor.execute(this::work);
+        }
+        log.info("Started {} outbox workers", properties.getWorkers());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Scheduled(cron = "${outbox.purge-cron:0 45 2 * * *}")
+    public void purgeDelivered() {
+        try {
+            int purged = outboxJdbcRepository.purgeDone(properties.getRetentionDays());
+            log.info("Purged {} delivered outbox events", purged);
+        } catch (Exception e) {
+            log.error("Outbox purge failed", e);
+        }
+    }
+
+    /**
+     * Leases and delivers the oldest due event, if any. Workers call this in a loop; it is public
+     * so the queue can also be drained by hand.
+     *
+     * @return false if no event was due
+     */
+    public boolean dispatchNext() {
+        OutboxEvent event = outboxJdbcRepository.leaseNext(properties.getLease().toMillis());
+        if (event == null) {
+            return false;
+        }
+
+        try {
+            if (deliver(event)) {
+                deliveredCounter.increment();
+            }
+        } catch (RuntimeException e) {
+            recordFailure(event, e);
+        }
+        return true;
+    }
+
+    private void work() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                if (!dispatchNext()) {
+                    outboxPublisher.awaitPublished(properties.getPollInterval());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                // Database unavailable and the like: back off for one poll interval
+                log.error("Outbox worker failed", e);
+                try {
+                    Thread.sleep(properties.getPollInterval());
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /** @return false if the event was delivered by another worker meanwhile */
+    private <T> boolean deliver(OutboxEvent event) {
+        @SuppressWarnings("unchecked")
+        OutboxHandler<T> handler = (OutboxHandler<T>) handlers.get(event.getType());
+        if (handler == null) {
+            throw new IllegalStateException("No outbox handler for " + event.getType());
+        }
+
+        T payload;
+        try {
+            payload = objectMapper.readValue(event.getPayload(), handler.payloadType());
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable " + event.getType() + " payload", e);
+        }
+
+        // The services read tenant and user from the security context, as they would in the request
+        SecurityContext previous = SecurityContextHolder.getContext();
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(new JwtAuthentication(event.getUserId(), null, null, event.getTenantId(), null,
+                null, null));
+        SecurityContextHolder.setContext(context);
+        try {
+            boolean[] delivered = new boolean[1];
+            handler.deliver(event, payload, () -> transactionTemplate.executeWithoutResult(status -> {
+                if (outboxJdbcRepository.lockPending(event.getId())) {
+                    handler.handle(event, payload);
+                    outboxJdbcRepository.markDone(event.getId());
+                    delivered[0] = true;
+                }
+            }));
+            return delivered[0];
+        } finally {
+            SecurityContextHolder.setContext(previous);
+        }
+    }
+
+    private void recordFailure(OutboxEvent event, Exception e) {
+        long delayMs = Math.min(properties.getMaxRetryBackoff().toMillis(),
+                properties.getRetryBackoff().toMillis() << Math.min(event.getAttempts(), 30));
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        if (error.length() > MAX_ERROR_LENGTH) {
+            error = error.substring(0, MAX_ERROR_LENGTH);
+        }
+
+        if (outboxJdbcRepository.markFailed(event.getId(), error, delayMs, properties.getMaxAttempts())) {
+            failedCounter.increment();
+            log.error("Outbox event {} ({}, aggregate {}) failed for good after {} attempts",
+                    event.getId(), event.getType(), event.getAggregateId(), event.getAttempts() + 1, e);
+        } else {
+            retriedCounter.increment();
+            log.warn("Outbox event {} ({}, aggregate {}) failed, retrying in {} ms: {}",
+                    event.getId(), event.getType(), event.getAggregateId(), delayMs, error);
+        }
+    }
+}
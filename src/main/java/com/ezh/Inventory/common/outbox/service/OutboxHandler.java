@@ -0,0 +1,31 @@
+package com.ezh.Inventory.common.outbox.service;
+
+import com.ezh.Inventory.common.outbox.dto.OutboxEvent;
+import com.ezh.Inventory.common.outbox.entity.OutboxEventType;
+
+/**
+ * Carries out the events of one {@link OutboxEventType}. Handlers are Spring beans picked up by
+ * {@link OutboxDispatcher}.
+ *
+ * <p>{@link #handle} runs in the transaction that locks the leased event, with a security context
+ * for the event's tenant and user; the event is marked delivered in the same transaction. Delivery is
+ * at least once: a handler whose work reaches outside the database (mail, websockets) can run
+ * again for the same event, and every handler must check whether its work is already done.
+ */
+public interface OutboxHandler<T> {
+
+    OutboxEventType type();
+
+    /** Type the JSON payload is read into. */
+    Class<T> payloadType();
+
+    void handle(OutboxEvent event, T payload);
+
+    /**
+     * Runs {@code delivery}, which opens the transaction that calls {@link #handle}. Handlers
+     * override this to take what must be held before that transaction opens, such as stock locks.
+     */
+    default void deliver(OutboxEvent event, T payload, Runnable delivery) {
+        delivery.run();
+    }
+}
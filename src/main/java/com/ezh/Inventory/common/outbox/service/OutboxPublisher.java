@@ -0,0 +1,88 @@
+package com.ezh.Inventory.common.outbox.service;
+
+import com.ezh.Inventory.common.outbox.config.OutboxProperties;
+import com.ezh.Inventory.common.outbox.entity.OutboxEventType;
+import com.ezh.Inventory.common.outbox.repository.OutboxJdbcRepository;
+import com.ezh.Inventory.utils.UserContextUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes outbox events in the caller's transaction, so they commit or roll back with the
+ * document they belong to. After commit, idle {@link OutboxDispatcher} workers are woken rather
+ * than left to find the events on their next poll.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxPublisher {
+
+    private final OutboxJdbcRepository outboxJdbcRepository;
+    private final OutboxProperties properties;
+    private final ObjectMapper objectMapper;
+
+    /** One permit per worker to wake; never more than there are workers. */
+    private final Semaphore published = new Semaphore(0);
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(OutboxEventType type, Long tenantId, Long aggregateId, Object payload) {
+        publishAll(type, tenantId, Collections.singletonMap(aggregateId, payload));
+    }
+
+    /** Writes one event per entry, keyed by the document it is about, in one batch. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publishAll(OutboxEventType type, Long tenantId, Map<Long, ?> payloadsByAggregateId) {
+        if (payloadsByAggregateId.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> rows = new ArrayList<>(payloadsByAggregateId.size());
+        payloadsByAggregateId.forEach((aggregateId, payload) -> rows.add(new Object[]{aggregateId, toJson(payload)}));
+        outboxJdbcRepository.insertAll(type, tenantId, UserContextUtil.getUserId(), rows);
+
+        int events = rows.size();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                wakeWorkers(events);
+            }
+        });
+    }
+
+    /**
+     * Waits until events are published or {@code timeout} passes.
+     *
+     * @return true if woken by a publish
+     */
+    boolean awaitPublished(Duration timeout) throws InterruptedException {
+        return published.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void wakeWorkers(int events) {
+        int wake = Math.min(events, properties.getWorkers()) - published.availablePermits();
+        if (wake > 0) {
+            published.release(wake);
+        }
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Outbox payload is not serialisable: " + payload.getClass().getName(), e);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.ezh.Inventory.items.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Sizing for the in-process item metadata cache.
+ *
+ * <pre>
+ * # application.properties
+ * item.cache.max-size=50000
+ * item.cache.ttl=30m
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "item.cache")
+public class ItemCacheProperties {
+
+    /** Upper bound on cached items across all tenants; least recently used entries go first. */
+    private long maxSize = 50_000;
+
+    /** Entries are reloaded after this long even without a write, bounding any missed invalidation. */
+    private Duration ttl = Duration.ofMinutes(30);
+}
@@ -0,0 +1,30 @@
+package com.ezh.Inventory.items.dto;
+
+import com.ezh.Inventory.items.entity.Item;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * Immutable snapshot of the item fields other modules need when mapping rows that only carry an
+ * item id. Held by {@link com.ezh.Inventory.items.service.ItemMetadataCache}.
+ */
+@Value
+public class ItemMetadata {
+    Long id;
+    Long tenantId;
+    String name;
+    String itemCode;
+    String sku;
+    BigDecimal taxPercentage;
+    BigDecimal purchasePrice;
+    BigDecimal sellingPrice;
+    BigDecimal mrp;
+    Boolean isActive;
+
+    public static ItemMetadata of(Item item) {
+        return new ItemMetadata(item.getId(), item.getTenantId(), item.getName(), item.getItemCode(), item.getSku(),
+                item.getTaxPercentage(), item.getPurchasePrice(), item.getSellingPrice(), item.getMrp(),
+                item.getIsActive());
+    }
+}
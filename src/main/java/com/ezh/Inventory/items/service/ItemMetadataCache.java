@@ -0,0 +1,107 @@
+package com.ezh.Inventory.items.service;
+
+import com.ezh.Inventory.items.config.ItemCacheProperties;
+import com.ezh.Inventory.items.dto.ItemMetadata;
+import com.ezh.Inventory.items.entity.Item;
+import com.ezh.Inventory.items.repository.ItemRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * Bounded, tenant-scoped cache of {@link ItemMetadata}, so that mapping stock rows, ledger rows or
+ * export lines to DTOs does not look the item up once per row.
+ *
+ * <p>Misses for a page are loaded together with one {@code findByIdIn}. Item writes invalidate
+ * after commit; a bulk import drops the whole tenant. Hit, miss and eviction counts are published
+ * as the {@code cache.*} meters with {@code cache=item.metadata}, see {@code /actuator/metrics}.
+ */
+@Component
+public class ItemMetadataCache {
+
+    static final String CACHE_NAME = "item.metadata";
+
+    private final ItemRepository itemRepository;
+    private final Cache<Key, ItemMetadata> cache;
+
+    public ItemMetadataCache(ItemRepository itemRepository, ItemCacheProperties properties, MeterRegistry meterRegistry) {
+        this.itemRepository = itemRepository;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaxSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public Optional<ItemMetadata> get(Long tenantId, Long itemId) {
+        return Optional.ofNullable(getAll(tenantId, List.of(itemId)).get(itemId));
+    }
+
+    /**
+     * @return metadata by item id; ids that do not exist for the tenant are absent from the map
+     */
+    public Map<Long, ItemMetadata> getAll(Long tenantId, Collection<Long> itemIds) {
+        Set<Key> keys = new HashSet<>();
+        for (Long itemId : itemIds) {
+            if (itemId != null) {
+                keys.add(new Key(tenantId, itemId));
+            }
+        }
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<Key, ItemMetadata> found = cache.getAll(keys, this::load);
+        Map<Long, ItemMetadata> byItemId = new HashMap<>(found.size() * 2);
+        found.forEach((key, metadata) -> byItemId.put(key.getItemId(), metadata));
+        return byItemId;
+    }
+
+    public void invalidateAfterCommit(Long tenantId, Long itemId) {
+        afterCommit(() -> cache.invalidate(new Key(tenantId, itemId)));
+    }
+
+    public void evictTenantAfterCommit(Long tenantId) {
+        afterCommit(() -> cache.asMap().keySet().removeIf(key -> key.getTenantId().equals(tenantId)));
+    }
+
+    private Map<Key, ItemMetadata> load(Set<? extends Key> missing) {
+        Long tenantId = missing.iterator().next().getTenantId();
+        List<Long> ids = missing.stream().map(Key::getItemId).toList();
+
+        Map<Key, ItemMetadata> loaded = new HashMap<>(ids.size() * 2);
+        for (Item item : itemRepository.findByIdIn(ids)) {
+            if (tenantId.equals(item.getTenantId())) {
+                loaded.put(new Key(tenantId, item.getId()), ItemMetadata.of(item));
+            }
+        }
+        return loaded;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    @Value
+    private static class Key {
+        Long tenantId;
+        Long itemId;
+    }
+}
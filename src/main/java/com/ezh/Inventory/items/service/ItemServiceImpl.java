@@ -17,6 +17,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.ByteArrayInputStream;
@@ -33,6 +34,7 @@ import static com.ezh.Inventory.utils.UserContextUtil.getTenantIdOrThrow;
 public class ItemServiceImpl implements ItemService {
 
     private final ItemRepository itemRepository;
+    private final ItemMetadataCache itemMetadataCache;
 
     @Override
     @Transactional
@@ -62,6 +64,7 @@ public class ItemServiceImpl implements ItemService {
 
         mapDtoToEntity(dto, item);
         itemRepository.save(item);
+        itemMetadataCache.invalidateAfterCommit(item.getTenantId(), item.getId());
 
         return CommonResponse.builder()
                 .id(item.getId().toString())
@@ -90,10 +93,13 @@ public class ItemServiceImpl implements ItemService {
         List<ItemType> types = (itemFilterDto.getItemTypes() != null && !itemFilterDto.getItemTypes().isEmpty())
                 ? itemFilterDto.getItemTypes()
                 : null;
+        String searchQuery = StringUtils.hasText(itemFilterDto.getSearchQuery())
+                ? itemFilterDto.getSearchQuery().trim()
+                : null;
         // The logic remains clean now without the duplicate assignment
         Page<Item> itemsPage = itemRepository.searchItems(
                 tenantId,
-                itemFilterDto.getSearchQuery(),
+                searchQuery,
                 itemFilterDto.getActive(),
                 types,
                 itemFilterDto.getBrand(),
@@ -122,6 +128,7 @@ public class ItemServiceImpl implements ItemService {
         // Update status
         item.setIsActive(active);
         itemRepository.save(item);
+        itemMetadataCache.invalidateAfterCommit(item.getTenantId(), item.getId());
 
         return CommonResponse.builder()
                 .id(item.getId().toString())
@@ -188,6 +195,7 @@ public class ItemServiceImpl implements ItemService {
 
             // 4. Batch Save
             itemRepository.saveAll(itemsToSave);
+            itemMetadataCache.evictTenantAfterCommit(getTenantIdOrThrow());
 
             return CommonResponse.builder()
                     .message("Processed " + itemsToSave.size() + " items. " + errors.size() + " errors.")
@@ -0,0 +1,35 @@
+package com.ezh.Inventory.notifications.common.service;
+
+import com.ezh.Inventory.common.outbox.dto.OutboxEvent;
+import com.ezh.Inventory.common.outbox.entity.OutboxEventType;
+import com.ezh.Inventory.common.outbox.service.OutboxHandler;
+import com.ezh.Inventory.notifications.common.dto.NotificationRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sends notifications queued with {@link NotificationService#enqueue}. The notification rows
+ * commit with the delivered event; the pushes and mails themselves cannot be taken back, so a
+ * delivery that fails after sending (commit error, worker crash) repeats them on retry.
+ */
+@Component
+@RequiredArgsConstructor
+public class NotificationOutboxHandler implements OutboxHandler<NotificationRequest> {
+
+    private final NotificationService notificationService;
+
+    @Override
+    public OutboxEventType type() {
+        return OutboxEventType.NOTIFICATION;
+    }
+
+    @Override
+    public Class<NotificationRequest> payloadType() {
+        return NotificationRequest.class;
+    }
+
+    @Override
+    public void handle(OutboxEvent event, NotificationRequest payload) {
+        notificationService.send(payload);
+    }
+}
@@ -1,5 +1,7 @@
 package com.ezh.Inventory.notifications.common.service;
 
+import com.ezh.Inventory.common.outbox.entity.OutboxEventType;
+import com.ezh.Inventory.common.outbox.service.OutboxPublisher;
 import com.ezh.Inventory.notifications.common.dto.NotificationDistributor;
 import com.ezh.Inventory.notifications.common.dto.NotificationRequest;
 import com.ezh.Inventory.notifications.common.dto.NotificationResult;
@@ -31,6 +33,10 @@ import java.util.*;
  * </ul>
  *
  * <p>Example: 3 distributors with 2 recipients each → 1 Notification + 6 delivery rows.
+ *
+ * <p>Inside a document transaction, prefer the {@code enqueue*} methods: the notification is
+ * queued on the outbox and sent after commit, off the request path and only if the document
+ * commits.
  */
 @Slf4j
 @Service
@@ -42,6 +48,7 @@ public class NotificationService {
     private final NotificationDeliveryRepository deliveryRepository;
     private final WhatsAppService                whatsAppService;
     private final GmailService                   gmailService;
+    private final OutboxPublisher                outboxPublisher;
 
 
     /**
@@ -111,13 +118,7 @@ public class NotificationService {
 
     /** Broadcast to all connected users (GLOBAL / IN_APP). */
     public NotificationResult sendToApp(String subject, String body, NotificationType type) {
-        return send(NotificationRequest.builder()
-                .type(type).targetScope(TargetType.GLOBAL)
-                .subject(subject).body(body)
-                .distributors(List.of(NotificationDistributor.builder()
-                        .channel(NotificationChannel.IN_APP)
-                        .build()))   // empty recipientIds = topic broadcast
-                .build());
+        return send(appRequest(subject, body, type));
     }
 
     /** Send IN_APP to a single user. */
@@ -134,13 +135,7 @@ public class NotificationService {
 
     /** Broadcast IN_APP to a whole org. */
     public NotificationResult sendToOrg(String orgId, String subject, String body, NotificationType type) {
-        return send(NotificationRequest.builder()
-                .type(type).targetScope(TargetType.TENANT).targetId(orgId)
-                .subject(subject).body(body)
-                .distributors(List.of(NotificationDistributor.builder()
-                        .channel(NotificationChannel.IN_APP)
-                        .build()))
-                .build());
+        return send(orgRequest(orgId, subject, body, type));
     }
 
     /** Broadcast IN_APP to a group. */
@@ -161,6 +156,48 @@ public class NotificationService {
         log.info("Batch dispatched to {} users", userIds.size());
     }
 
+    // ──────────────────────────────────────────────────────────────────────────
+    // Queued sends — written to the outbox, sent after the caller commits
+    // ──────────────────────────────────────────────────────────────────────────
+
+    /**
+     * Queue a request in the caller's transaction. It is sent by
+     * {@link NotificationOutboxHandler} after commit, and dropped on rollback.
+     */
+    public void enqueue(Long tenantId, NotificationRequest request) {
+        outboxPublisher.publish(OutboxEventType.NOTIFICATION, tenantId, null, request);
+    }
+
+    /** Queued {@link #sendToApp}. */
+    public void enqueueToApp(Long tenantId, String subject, String body, NotificationType type) {
+        enqueue(tenantId, appRequest(subject, body, type));
+    }
+
+    /** Queued {@link #sendToOrg} to the tenant's own org. */
+    public void enqueueToOrg(Long tenantId, String subject, String body, NotificationType type) {
+        enqueue(tenantId, orgRequest(tenantId.toString(), subject, body, type));
+    }
+
+    private static NotificationRequest appRequest(String subject, String body, NotificationType type) {
+        return NotificationRequest.builder()
+                .type(type).targetScope(TargetType.GLOBAL)
+                .subject(subject).body(body)
+                .distributors(List.of(NotificationDistributor.builder()
+                        .channel(NotificationChannel.IN_APP)
+                        .build()))   // empty recipientIds = topic broadcast
+                .build();
+    }
+
+    private static NotificationRequest orgRequest(String orgId, String subject, String body, NotificationType type) {
+        return NotificationRequest.builder()
+                .type(type).targetScope(TargetType.TENANT).targetId(orgId)
+                .subject(subject).body(body)
+                .distributors(List.of(NotificationDistributor.builder()
+                        .channel(NotificationChannel.IN_APP)
+                        .build()))
+                .build();
+    }
+
     // ──────────────────────────────────────────────────────────────────────────
     // Read state
     // ──────────────────────────────────────────────────────────────────────────
@@ -17,6 +17,7 @@ import com.ezh.Inventory.payment.repository.PaymentAllocationRepository;
 import com.ezh.Inventory.sales.invoice.entity.Invoice;
 import com.ezh.Inventory.sales.invoice.entity.InvoicePaymentStatus;
 import com.ezh.Inventory.sales.invoice.repository.InvoiceRepository;
+import com.ezh.Inventory.sales.rollup.service.SalesRollupAggregator;
 import com.ezh.Inventory.payment.entity.enums.AdvanceStatus;
 import com.ezh.Inventory.payment.entity.enums.PaymentMethod;
 import com.ezh.Inventory.payment.entity.enums.PaymentStatus;
@@ -60,6 +61,7 @@ public class AdvanceServiceImpl implements AdvanceService {
     private final PaymentRepository paymentRepository;
     private final PaymentAllocationRepository paymentAllocationRepository;
     private final AuthServiceClient authServiceClient;
+    private final SalesRollupAggregator salesRollupAggregator;
 
     @Override
     @Transactional
@@ -288,6 +290,7 @@ public class AdvanceServiceImpl implements AdvanceService {
                 ? InvoicePaymentStatus.PAID
                 : InvoicePaymentStatus.PARTIALLY_PAID);
         invoiceRepository.save(invoice);
+        salesRollupAggregator.recordInvoice(invoice);
     }
 
     private AdvanceDto mapToDto(CustomerAdvance advance, Map<Long, UserMiniDto> customerMap,
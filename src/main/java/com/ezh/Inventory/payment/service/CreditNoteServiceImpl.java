@@ -16,6 +16,7 @@ import com.ezh.Inventory.payment.repository.PaymentAllocationRepository;
 import com.ezh.Inventory.sales.invoice.entity.Invoice;
 import com.ezh.Inventory.sales.invoice.entity.InvoicePaymentStatus;
 import com.ezh.Inventory.sales.invoice.repository.InvoiceRepository;
+import com.ezh.Inventory.sales.rollup.service.SalesRollupAggregator;
 import com.ezh.Inventory.payment.entity.enums.CreditNoteStatus;
 import com.ezh.Inventory.payment.entity.enums.PaymentMethod;
 import com.ezh.Inventory.payment.entity.enums.PaymentStatus;
@@ -54,6 +55,7 @@ public class CreditNoteServiceImpl implements CreditNoteService {
     private final PaymentRepository paymentRepository;
     private final PaymentAllocationRepository paymentAllocationRepository;
     private final AuthServiceClient authServiceClient;
+    private final SalesRollupAggregator salesRollupAggregator;
 
     // CREATE CREDIT NOTE (called internally by SalesReturn service)
     @Override
@@ -287,6 +289,7 @@ public class CreditNoteServiceImpl implements CreditNoteService {
                 ? InvoicePaymentStatus.PAID
                 : InvoicePaymentStatus.PARTIALLY_PAID);
         invoiceRepository.save(invoice);
+        salesRollupAggregator.recordInvoice(invoice);
     }
 
     private CreditNoteDto mapToDto(CreditNote cn, Map<Long, UserMiniDto> customerMap, boolean includeDetails) {
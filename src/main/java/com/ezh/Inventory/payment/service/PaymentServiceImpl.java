@@ -10,6 +10,8 @@ import com.ezh.Inventory.payment.repository.PaymentRepository;
 import com.ezh.Inventory.sales.invoice.entity.Invoice;
 import com.ezh.Inventory.sales.invoice.entity.InvoicePaymentStatus;
 import com.ezh.Inventory.sales.invoice.repository.InvoiceRepository;
+import com.ezh.Inventory.sales.rollup.service.SalesRollupAggregator;
+import com.ezh.Inventory.payment.entity.enums.PaymentMethod;
 import com.ezh.Inventory.payment.entity.enums.PaymentStatus;
 import com.ezh.Inventory.utils.UserContextUtil;
 import com.ezh.Inventory.utils.common.*;
@@ -40,6 +42,7 @@ public class PaymentServiceImpl implements PaymentService {
     private final CustomerAdvanceRepository advanceRepository;
     private final CreditNoteRepository creditNoteRepository;
     private final AuthServiceClient authServiceClient;
+    private final SalesRollupAggregator salesRollupAggregator;
 
     // RECORD PAYMENT — pure invoice revenue, no excess allowed
     @Override
@@ -112,11 +115,23 @@ public class PaymentServiceImpl implements PaymentService {
         Long tenantId = UserContextUtil.getTenantIdOrThrow();
         Pageable pageable = PageRequest.of(page, size, Sort.by("id").descending());
 
-        String statusStr = (filter.getStatus() != null) ? filter.getStatus().name() : null;
+        PaymentMethod paymentMethod = null;
+        if (filter.getPaymentMethod() != null) {
+            try {
+                paymentMethod = PaymentMethod.valueOf(filter.getPaymentMethod());
+            } catch (IllegalArgumentException e) {
+                // The old native query compared the raw string: an unknown method matched nothing
+                return Page.empty(pageable);
+            }
+        }
 
-        Page<Payment> payments = paymentRepository.getAllPayments(
-                tenantId, filter.getId(), filter.getCustomerId(),
-                statusStr, filter.getPaymentMethod(), filter.getPaymentNumber(), null, pageable);
+        Page<Payment> payments = paymentRepository.findAll(FilterSpecification.<Payment>forTenant(tenantId)
+                .equal("id", filter.getId())
+                .equal("customerId", filter.getCustomerId())
+                .equal("status", filter.getStatus())
+                .equal("paymentMethod", paymentMethod)
+                .contains("paymentNumber", filter.getPaymentNumber())
+                .build(), pageable);
 
         List<Long> customerIds = payments.getContent().stream()
                 .map(Payment::getCustomerId).distinct().toList();
@@ -238,6 +253,7 @@ public class PaymentServiceImpl implements PaymentService {
                 ? InvoicePaymentStatus.PAID
                 : InvoicePaymentStatus.PARTIALLY_PAID);
         invoiceRepository.save(invoice);
+        salesRollupAggregator.recordInvoice(invoice);
     }
 
     private PaymentDto mapToDto(Payment payment, Map<Long, UserMiniDto> customerMap, boolean includeAllocations) {
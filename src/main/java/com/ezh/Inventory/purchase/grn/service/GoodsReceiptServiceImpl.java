@@ -20,6 +20,8 @@ import com.ezh.Inventory.stock.entity.MovementType;
 import com.ezh.Inventory.stock.entity.ReferenceType;
 import com.ezh.Inventory.stock.entity.StockBatch;
 import com.ezh.Inventory.stock.repository.StockBatchRepository;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
+import com.ezh.Inventory.stock.service.StockLockManager;
 import com.ezh.Inventory.stock.service.StockService;
 import com.ezh.Inventory.utils.UserContextUtil;
 import com.ezh.Inventory.utils.common.CommonResponse;
@@ -37,6 +39,7 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -55,10 +58,25 @@ public class GoodsReceiptServiceImpl implements GoodsReceiptService {
     private final StockBatchRepository stockBatchRepository;
     private final StockService stockService;
     private final AuthServiceClient authServiceClient;
+    private final StockLockManager stockLockManager;
+    private final TransactionTemplate transactionTemplate;
 
+    // Not @Transactional: the item locks are taken first, then the transaction is opened
     public CommonResponse createAndApproveGrn(GrnDto dto) throws CommonException {
         Long tenantId = UserContextUtil.getTenantIdOrThrow();
 
+        // Received lines go into the PO's warehouse
+        List<Long> itemIds = dto.getItems() != null
+                ? dto.getItems().stream().map(GrnItemDto::getItemId).toList()
+                : List.of();
+        Set<StockKey> keys = StockKey.forItems(dto.getPurchaseOrderId() != null
+                ? poRepository.findById(dto.getPurchaseOrderId()).map(PurchaseOrder::getWarehouseId).orElse(null)
+                : null, itemIds);
+        return stockLockManager.withLocks(tenantId, keys,
+                () -> transactionTemplate.execute(status -> applyGrn(tenantId, dto)));
+    }
+
+    private CommonResponse applyGrn(Long tenantId, GrnDto dto) {
         // 1. Fetch PO
         PurchaseOrder po = poRepository.findById(dto.getPurchaseOrderId())
                 .orElseThrow(() -> new CommonException("Invalid PO ID", HttpStatus.BAD_REQUEST));
@@ -76,6 +94,7 @@ public class GoodsReceiptServiceImpl implements GoodsReceiptService {
         grnRepository.save(grn);
 
         List<GoodsReceiptItem> grnItems = new ArrayList<>();
+        List<StockUpdateDto> stockMovements = new ArrayList<>();
         boolean isPoFullyReceived = true;
 
         // 3. Process Items
@@ -117,8 +136,10 @@ public class GoodsReceiptServiceImpl implements GoodsReceiptService {
                     stockBatchRepository.save(batch);
                 }
 
-                // --- STEP B: Update Master Stock ---
-                StockUpdateDto stockUpdate = StockUpdateDto.builder()
+                // --- STEP B: Queue Master Stock update (posted for all lines at once below) ---
+                // No batch number here: the batch above is already created with its full qty,
+                // passing it would add the same qty to it a second time
+                stockMovements.add(StockUpdateDto.builder()
                         .itemId(itemDto.getItemId())
                         .warehouseId(po.getWarehouseId())
                         .quantity(acceptedQty)
@@ -126,10 +147,7 @@ public class GoodsReceiptServiceImpl implements GoodsReceiptService {
                         .referenceType(ReferenceType.GRN)
                         .referenceId(grn.getId())
                         .unitPrice(poItem.getUnitPrice())
-                        .batchNumber(itemDto.getBatchNumber()) // <--- PASSED HERE
-                        .build();
-
-                stockService.updateStock(stockUpdate);
+                        .build());
             }
 
             // Update PO Item Progress
@@ -142,6 +160,7 @@ public class GoodsReceiptServiceImpl implements GoodsReceiptService {
         }
 
         grnItemRepository.saveAll(grnItems);
+        stockService.postMovements(stockMovements);
 
         // 4. Update PO Header Status
         if (isPoFullyReceived) {
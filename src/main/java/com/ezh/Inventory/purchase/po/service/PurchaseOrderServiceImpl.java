@@ -268,8 +268,8 @@ public class PurchaseOrderServiceImpl implements PurchaseOrderService {
         }
 
         if (po.getPoStatus() == PoStatus.PENDING && newStatus == PoStatus.ASN_CONFIRMED) {
-            notificationService.sendToOrg(
-                    po.getTenantId().toString(),
+            notificationService.enqueueToOrg(
+                    po.getTenantId(),
                     "ASN Confirmed: PO #" + po.getOrderNumber(),
                     "Advanced Shipping Notice (ASN) has been confirmed. The goods for PO #"
                             + po.getOrderNumber() + " are now in transit and ready for delivery.",
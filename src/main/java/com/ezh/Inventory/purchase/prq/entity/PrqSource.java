@@ -2,5 +2,6 @@ package com.ezh.Inventory.purchase.prq.entity;
 
 public enum PrqSource {
     VENDOR,
-    SEM_TEAM
+    SEM_TEAM,
+    REORDER_POINT
 }
@@ -7,9 +7,12 @@ import com.ezh.Inventory.utils.common.CommonResponse;
 import com.ezh.Inventory.utils.exception.CommonException;
 import org.springframework.data.domain.Page;
 
+import java.util.List;
+
 public interface PurchaseRequestService {
 
     CommonResponse<?> createPrq(PurchaseRequestDto dto) throws CommonException;
+    List<Long> createDraftPrqs(Long tenantId, List<PurchaseRequestDto> drafts) throws CommonException;
     CommonResponse<?> updateStatus(Long prqId, PrqStatus status) throws CommonException;
     CommonResponse<?> updatePrq(Long prqId, PurchaseRequestDto dto) throws CommonException;
     Page<PurchaseRequestDto> getAllPrqs(Integer page, Integer size, PurchaseRequestFilter filter) throws CommonException;
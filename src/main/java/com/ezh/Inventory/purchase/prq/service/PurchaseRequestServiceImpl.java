@@ -28,6 +28,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -97,6 +98,47 @@ public class PurchaseRequestServiceImpl implements PurchaseRequestService {
                 .build();
     }
 
+    /**
+     * Creates system-drafted requests (e.g. from reorder points) for a tenant in one transaction.
+     * There is no user context here, so {@code requestedBy} of each draft is also its creator.
+     */
+    @Override
+    @Transactional
+    public List<Long> createDraftPrqs(Long tenantId, List<PurchaseRequestDto> drafts) throws CommonException {
+        List<PurchaseRequest> prqs = new ArrayList<>(drafts.size());
+        for (PurchaseRequestDto dto : drafts) {
+            PurchaseRequest prq = PurchaseRequest.builder()
+                    .tenantId(tenantId)
+                    .vendorId(dto.getVendorId())
+                    .warehouseId(dto.getWarehouseId())
+                    .requestedBy(dto.getRequestedBy())
+                    .department(dto.getDepartment())
+                    .prqNumber(DocumentNumberUtil.generate(DocPrefix.PRQ))
+                    .status(PrqStatus.DRAFT)
+                    .source(dto.getSource() != null ? dto.getSource() : PrqSource.SEM_TEAM)
+                    .createdBy(dto.getRequestedBy())
+                    .notes(dto.getNotes())
+                    .build();
+
+            BigDecimal totalAmount = BigDecimal.ZERO;
+            for (var itemDto : dto.getItems()) {
+                BigDecimal unitPrice = itemDto.getEstimatedUnitPrice() != null ? itemDto.getEstimatedUnitPrice() : BigDecimal.ZERO;
+                BigDecimal lineTotal = unitPrice.multiply(BigDecimal.valueOf(itemDto.getRequestedQty()));
+                totalAmount = totalAmount.add(lineTotal);
+
+                prq.addItem(PurchaseRequestItem.builder()
+                        .itemId(itemDto.getItemId())
+                        .requestedQty(itemDto.getRequestedQty())
+                        .estimatedUnitPrice(unitPrice)
+                        .lineTotal(lineTotal)
+                        .build());
+            }
+            prq.setTotalEstimatedAmount(totalAmount);
+            prqs.add(prq);
+        }
+
+        return prqRepository.saveAll(prqs).stream().map(PurchaseRequest::getId).toList();
+    }
 
     @Override
     @Transactional
@@ -12,6 +12,8 @@ import com.ezh.Inventory.security.UserContext;
 import com.ezh.Inventory.stock.dto.StockUpdateDto;
 import com.ezh.Inventory.stock.entity.MovementType;
 import com.ezh.Inventory.stock.entity.ReferenceType;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
+import com.ezh.Inventory.stock.service.StockLockManager;
 import com.ezh.Inventory.stock.service.StockService;
 import com.ezh.Inventory.utils.UserContextUtil;
 import com.ezh.Inventory.utils.common.CommonResponse;
@@ -29,7 +31,9 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -46,6 +50,8 @@ public class PurchaseReturnServiceImpl implements PurchaseReturnService {
     private final StockService stockService;
     private final AuthServiceClient authServiceClient;
     private final UserContext userContext;
+    private final StockLockManager stockLockManager;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     @Transactional
@@ -154,10 +160,23 @@ public class PurchaseReturnServiceImpl implements PurchaseReturnService {
     }
 
 
+    // Not @Transactional: the item locks are taken first, then the transaction is opened
     @Override
-    @Transactional
     public CommonResponse<?> updateStatus(Long returnId, ReturnStatus newStatus) throws CommonException {
         Long tenantId = UserContextUtil.getTenantIdOrThrow();
+
+        // Only RETURNED moves stock: the lines leave the return's warehouse
+        Set<StockKey> keys = newStatus == ReturnStatus.RETURNED
+                ? StockKey.forItems(returnRepository.findByIdAndTenantId(returnId, tenantId)
+                        .map(PurchaseReturn::getWarehouseId).orElse(null),
+                returnItemRepository.findByPurchaseReturnId(returnId).stream()
+                        .map(PurchaseReturnItem::getItemId).toList())
+                : Set.of();
+        return stockLockManager.withLocks(tenantId, keys,
+                () -> transactionTemplate.execute(status -> applyStatus(tenantId, returnId, newStatus)));
+    }
+
+    private CommonResponse<?> applyStatus(Long tenantId, Long returnId, ReturnStatus newStatus) {
         // Fetch the Return Record
         PurchaseReturn pr = returnRepository.findByIdAndTenantId(returnId, tenantId)
                 .orElseThrow(() -> new CommonException("Return record not found", HttpStatus.NOT_FOUND));
@@ -170,9 +189,10 @@ public class PurchaseReturnServiceImpl implements PurchaseReturnService {
         // If moving to COMPLETED, perform the stock movement
         if (newStatus == ReturnStatus.RETURNED) {
             List<PurchaseReturnItem> items = returnItemRepository.findByPurchaseReturnId(returnId);
+            List<StockUpdateDto> stockMovements = new ArrayList<>();
 
             for (PurchaseReturnItem item : items) {
-                StockUpdateDto stockUpdate = StockUpdateDto.builder()
+                stockMovements.add(StockUpdateDto.builder()
                         .itemId(item.getItemId())
                         .warehouseId(pr.getWarehouseId())
                         .quantity(item.getReturnQty())
@@ -180,10 +200,10 @@ public class PurchaseReturnServiceImpl implements PurchaseReturnService {
                         .referenceType(ReferenceType.PURCHASE_RETURN)
                         .referenceId(pr.getId())
                         .batchNumber(item.getBatchNumber())
-                        .build();
-
-                stockService.updateStock(stockUpdate);
+                        .build());
             }
+
+            stockService.postMovements(stockMovements);
         }
 
         pr.setPrStatus(newStatus);
@@ -3,6 +3,7 @@ package com.ezh.Inventory.sales.delivery.controller;
 import com.ezh.Inventory.sales.delivery.dto.*;
 import com.ezh.Inventory.sales.delivery.service.DeliveryService;
 import com.ezh.Inventory.utils.common.CommonResponse;
+import com.ezh.Inventory.utils.common.CursorPage;
 import com.ezh.Inventory.utils.common.ResponseResource;
 import com.ezh.Inventory.utils.exception.CommonException;
 import lombok.RequiredArgsConstructor;
@@ -14,6 +15,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -42,6 +44,14 @@ public class DeliveryController {
     }
 
 
+    @PostMapping(value = "/all/scroll", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseResource<CursorPage<DeliveryDto>> scrollDeliveries(@RequestParam(defaultValue = "20") Integer size,
+                                                                      @RequestBody DeliveryFilterDto filter) throws CommonException {
+        log.info("Scrolling deliveries with size: {}", size);
+        CursorPage<DeliveryDto> response = deliveryService.scrollDeliveries(size, filter);
+        return ResponseResource.success(HttpStatus.OK, response, "Deliveries fetched successfully");
+    }
+
     @PostMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseResource<List<DeliveryDto>> searchDeliveryDetails(@RequestBody DeliveryFilterDto filter) throws CommonException {
         log.info("Searching deliveries with filter: {}", filter);
@@ -111,10 +121,10 @@ public class DeliveryController {
     }
 
     @PostMapping(value = "/bulk-items/download", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<byte[]> downloadBulkDeliveryItemsExcel(@RequestBody DeliveryFilterDto filter)
+    public ResponseEntity<StreamingResponseBody> downloadBulkDeliveryItemsExcel(@RequestBody DeliveryFilterDto filter)
             throws CommonException {
         log.info("Downloading bulk delivery items report in excel with filter: {}", filter);
-        byte[] response = deliveryService.downloadBulkDeliveryItemsExcel(filter);
+        StreamingResponseBody response = deliveryService.downloadBulkDeliveryItemsExcel(filter);
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=bulk_delivery_items.xlsx")
                 .contentType(
@@ -0,0 +1,20 @@
+package com.ezh.Inventory.sales.delivery.dto;
+
+import com.ezh.Inventory.sales.delivery.entity.ShipmentType;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/** How a new invoice is to be delivered; the payload of its INVOICE_DELIVERY outbox event. */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InvoiceDeliveryRequest {
+    private ShipmentType type;
+    private Date scheduledDate;
+    private String deliveryAddress;
+}
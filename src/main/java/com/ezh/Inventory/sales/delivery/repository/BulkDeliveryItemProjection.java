@@ -0,0 +1,8 @@
+package com.ezh.Inventory.sales.delivery.repository;
+
+public interface BulkDeliveryItemProjection {
+    Long getItemId();
+    String getItemName();
+    String getBatchNumber();
+    Long getTotalQuantity();
+}
@@ -0,0 +1,35 @@
+package com.ezh.Inventory.sales.delivery.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Copies invoice lines into a delivery with one statement, whatever the number of lines.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DeliveryItemJdbcRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Snapshots every line of the invoice, with the batch it was posted against, into the delivery.
+     *
+     * @return the number of delivery lines created
+     */
+    public int insertItemsFromInvoice(Long deliveryId, Long invoiceId) {
+        return jdbcTemplate.update("""
+                INSERT INTO delivery_item (uuid, created_at, updated_at, is_deleted, item_id, item_name,
+                                           invoice_item_id, batch_number, delivery_id, quantity)
+                SELECT CAST(gen_random_uuid() AS varchar), CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, false,
+                       ii.item_id, ii.item_name, ii.id, ii.batch_number, :deliveryId, ii.quantity
+                FROM invoice_item ii
+                WHERE ii.invoice_id = :invoiceId
+                ORDER BY ii.id
+                """, new MapSqlParameterSource()
+                .addValue("deliveryId", deliveryId)
+                .addValue("invoiceId", invoiceId));
+    }
+}
@@ -1,11 +1,14 @@
 package com.ezh.Inventory.sales.delivery.repository;
 
 import com.ezh.Inventory.sales.delivery.entity.DeliveryItem;
+import com.ezh.Inventory.sales.delivery.entity.ShipmentStatus;
+import com.ezh.Inventory.sales.delivery.entity.ShipmentType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -17,4 +20,37 @@ public interface DeliveryItemRepository extends JpaRepository<DeliveryItem, Long
             "AND di.delivery.status = 'DELIVERED'")
     Integer getTotalDeliveredQtyForInvoiceItem(@Param("invoiceId") Long invoiceId,
                                                @Param("itemId") Long itemId);
-}
\ No newline at end of file
+
+    // Pick list: delivered quantity per (item, batch) over the filtered deliveries, summed in the database
+    @Query("""
+            SELECT di.itemId AS itemId, MAX(di.itemName) AS itemName, di.batchNumber AS batchNumber,
+                   SUM(di.quantity) AS totalQuantity
+            FROM DeliveryItem di
+            JOIN di.delivery d
+            WHERE d.tenantId = :tenantId
+              AND (:id IS NULL OR d.id = :id)
+              AND (:deliveryNumber IS NULL OR d.deliveryNumber = :deliveryNumber)
+              AND (:invoiceId IS NULL OR d.invoice.id = :invoiceId)
+              AND (:customerId IS NULL OR d.customerId = :customerId)
+              AND (:types IS NULL OR d.type IN :types)
+              AND (:statuses IS NULL OR d.status IN :statuses)
+              AND (:invoiceIds IS NULL OR d.invoice.id IN :invoiceIds)
+              AND (:deliveryIds IS NULL OR d.id IN :deliveryIds)
+              AND (CAST(:fromDate AS timestamp) IS NULL OR d.createdAt >= :fromDate)
+              AND (CAST(:toDate AS timestamp) IS NULL OR d.createdAt <= :toDate)
+            GROUP BY di.itemId, di.batchNumber
+            """)
+    List<BulkDeliveryItemProjection> aggregateBulkItems(
+            @Param("tenantId") Long tenantId,
+            @Param("id") Long id,
+            @Param("deliveryNumber") String deliveryNumber,
+            @Param("invoiceId") Long invoiceId,
+            @Param("customerId") Long customerId,
+            @Param("types") List<ShipmentType> types,
+            @Param("statuses") List<ShipmentStatus> statuses,
+            @Param("invoiceIds") List<Long> invoiceIds,
+            @Param("deliveryIds") List<Long> deliveryIds,
+            @Param("fromDate") LocalDateTime fromDate,
+            @Param("toDate") LocalDateTime toDate
+    );
+}
@@ -4,9 +4,11 @@ import com.ezh.Inventory.sales.delivery.dto.*;
 import com.ezh.Inventory.sales.invoice.dto.InvoiceDto;
 import com.ezh.Inventory.sales.invoice.entity.Invoice;
 import com.ezh.Inventory.utils.common.CommonResponse;
+import com.ezh.Inventory.utils.common.CursorPage;
 import com.ezh.Inventory.utils.exception.CommonException;
 import org.springframework.data.domain.Page;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -14,11 +16,25 @@ public interface DeliveryService {
 
     Page<DeliveryDto> getAllDeliveries(int page, int size, DeliveryFilterDto filter) throws CommonException;
 
+    CursorPage<DeliveryDto> scrollDeliveries(int size, DeliveryFilterDto filter) throws CommonException;
+
     DeliveryDto getDeliveryDetail(Long deliveryId) throws CommonException;
 
     List<DeliveryDto> searchDeliveryDetails(DeliveryFilterDto filter) throws CommonException;
 
-    void createDeliveryForInvoice(Invoice invoice, InvoiceDto dto);
+    /**
+     * Settles how an invoice that is about to be saved is delivered. A customer pickup is handed
+     * over at once, so the invoice is marked issued and delivered here, before its insert.
+     *
+     * @return the request {@link #createDeliveryForInvoice} is queued with once the invoice is saved
+     */
+    InvoiceDeliveryRequest prepareDeliveryForInvoice(Invoice invoice, InvoiceDto dto);
+
+    /**
+     * Creates the delivery of a saved invoice, copying the invoice lines into it. Runs from the
+     * outbox after the invoice commits; does nothing if the invoice already has a delivery.
+     */
+    void createDeliveryForInvoice(Long invoiceId, InvoiceDeliveryRequest request) throws CommonException;
 
     CommonResponse<?> updateDeliveryStatus(Long id, DeliveryStatusUpdateRequest request, MultipartFile file) throws CommonException;
 
@@ -36,5 +52,5 @@ public interface DeliveryService {
 
     List<BulkDeliveryItemDto> getBulkDeliveryItems(DeliveryFilterDto filter) throws CommonException;
 
-    byte[] downloadBulkDeliveryItemsExcel(DeliveryFilterDto filter) throws CommonException;
+    StreamingResponseBody downloadBulkDeliveryItemsExcel(DeliveryFilterDto filter) throws CommonException;
 }
@@ -2,23 +2,31 @@ package com.ezh.Inventory.sales.delivery.service;
 
 import com.ezh.Inventory.sales.delivery.dto.*;
 import com.ezh.Inventory.sales.delivery.entity.*;
+import com.ezh.Inventory.sales.delivery.repository.DeliveryItemJdbcRepository;
 import com.ezh.Inventory.sales.delivery.repository.DeliveryItemRepository;
 import com.ezh.Inventory.sales.delivery.repository.DeliveryRepository;
 import com.ezh.Inventory.sales.delivery.repository.RouteRepository;
+import com.ezh.Inventory.sales.delivery.utils.DeliveryExportUtils;
 import com.ezh.Inventory.sales.invoice.dto.InvoiceDto;
 import com.ezh.Inventory.sales.invoice.dto.InvoiceItemDto;
 import com.ezh.Inventory.sales.invoice.entity.Invoice;
 import com.ezh.Inventory.sales.invoice.entity.InvoiceDeliveryStatus;
 import com.ezh.Inventory.sales.invoice.entity.InvoiceStatus;
 import com.ezh.Inventory.sales.invoice.repository.InvoiceRepository;
+import com.ezh.Inventory.sales.rollup.service.SalesRollupAggregator;
 import com.ezh.Inventory.utils.UserContextUtil;
 import com.ezh.Inventory.utils.common.CommonResponse;
+import com.ezh.Inventory.utils.common.CursorPage;
 import com.ezh.Inventory.utils.common.DocPrefix;
 import com.ezh.Inventory.utils.common.DocumentNumberUtil;
+import com.ezh.Inventory.utils.common.FilterSpecification;
+import com.ezh.Inventory.utils.common.KeysetCursor;
 import com.ezh.Inventory.utils.common.Status;
 import com.ezh.Inventory.utils.common.client.AuthServiceClient;
 import com.ezh.Inventory.utils.common.dto.UserMiniDto;
 import com.ezh.Inventory.utils.exception.CommonException;
+import com.ezh.Inventory.utils.export.ExportFormat;
+import com.ezh.Inventory.utils.export.StreamingExporter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -28,9 +36,12 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import com.ezh.Inventory.common.storage.dto.FileRecordResponse;
@@ -45,6 +56,8 @@ import com.ezh.Inventory.stock.entity.MovementType;
 import com.ezh.Inventory.stock.entity.ReferenceType;
 import com.ezh.Inventory.stock.entity.StockBatch;
 import com.ezh.Inventory.stock.repository.StockBatchRepository;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
+import com.ezh.Inventory.stock.service.StockLockManager;
 import com.ezh.Inventory.stock.service.StockService;
 
 @Slf4j
@@ -54,6 +67,7 @@ public class DeliveryServiceImpl implements DeliveryService {
 
     private final DeliveryRepository deliveryRepository;
     private final DeliveryItemRepository deliveryItemRepository;
+    private final DeliveryItemJdbcRepository deliveryItemJdbcRepository;
     private final InvoiceRepository invoiceRepository;
     private final RouteRepository routeRepository;
     private final AuthServiceClient authServiceClient;
@@ -61,77 +75,84 @@ public class DeliveryServiceImpl implements DeliveryService {
     private final StockBatchRepository stockBatchRepository;
     private final StockService stockService;
     private final FileStorageService fileStorageService;
+    private final StreamingExporter streamingExporter;
+    private final SalesRollupAggregator salesRollupAggregator;
+    private final StockLockManager stockLockManager;
+    private final TransactionTemplate transactionTemplate;
 
 
     @Override
-    @Transactional
-    public void createDeliveryForInvoice(Invoice invoice, InvoiceDto dto) {
-        Long tenantId = UserContextUtil.getTenantIdOrThrow();
-
-        // 1. Determine Status & Dates based on Type
+    public InvoiceDeliveryRequest prepareDeliveryForInvoice(Invoice invoice, InvoiceDto dto) {
         ShipmentType type = dto.getDeliveryType(); // Defaults to COURIER if null in DTO?
         if (type == null) type = ShipmentType.IN_HOUSE_DELIVERY; // Default
 
+        if (type == ShipmentType.CUSTOMER_PICKUP) {
+            // Instant Handover: update invoice delivered
+            invoice.setStatus(InvoiceStatus.ISSUED);
+            invoice.setDeliveryStatus(InvoiceDeliveryStatus.DELIVERED);
+        }
+
+        return InvoiceDeliveryRequest.builder()
+                .type(type)
+                .scheduledDate(dto.getScheduledDate())
+                .deliveryAddress(dto.getShippingAddress()) // Important for courier
+                .build();
+    }
+
+    @Override
+    @Transactional
+    public void createDeliveryForInvoice(Long invoiceId, InvoiceDeliveryRequest request) throws CommonException {
+        // Outbox events can arrive more than once
+        if (deliveryRepository.existsByInvoiceId(invoiceId)) {
+            log.info("Delivery for invoice {} already exists", invoiceId);
+            return;
+        }
+
+        Invoice invoice = invoiceRepository.findById(invoiceId)
+                .orElseThrow(() -> new CommonException("Invoice not found with ID: " + invoiceId, HttpStatus.NOT_FOUND));
+
+        // 1. Determine Status & Dates based on Type
         ShipmentStatus initialStatus;
         Date scheduledDate = null;
         Date shippedDate = null;
         Date deliveredDate = null;
 
-        if (type == ShipmentType.CUSTOMER_PICKUP) {
-            // Instant Handover
+        if (request.getType() == ShipmentType.CUSTOMER_PICKUP) {
+            // Instant Handover, at the time of the invoice
+            Date handedOver = invoice.getCreatedAt() != null ? invoice.getCreatedAt() : new Date();
             initialStatus = ShipmentStatus.DELIVERED;
-            shippedDate = new Date();
-            deliveredDate = new Date();
-            scheduledDate = new Date();
-
-            //update invoice delivered
-            invoice.setStatus(InvoiceStatus.ISSUED);
-            invoice.setDeliveryStatus(InvoiceDeliveryStatus.DELIVERED);
-            invoiceRepository.save(invoice);
-
-        } else if (dto.getScheduledDate() != null) {
+            shippedDate = handedOver;
+            deliveredDate = handedOver;
+            scheduledDate = handedOver;
+        } else if (request.getScheduledDate() != null) {
             // Queue for Dispatch
             initialStatus = ShipmentStatus.SCHEDULED; // Goes to "Todo List"
-            // If user provided a specific date, use it, else default to today
-            scheduledDate = dto.getScheduledDate();
-            //deliveredDate = new Date();
-            //scheduledDate = new Date();
+            scheduledDate = request.getScheduledDate();
         } else {
             initialStatus = ShipmentStatus.PENDING;
         }
 
         // 2. Create Header
         Delivery delivery = Delivery.builder()
-                .tenantId(tenantId)
+                .tenantId(invoice.getTenantId())
                 .deliveryNumber(DocumentNumberUtil.generate(DocPrefix.DEL))
                 .invoice(invoice)
                 .customerId(invoice.getCustomerId())
-                .type(type)
+                .type(request.getType())
                 .status(initialStatus)
                 .scheduledDate(scheduledDate)
                 .shippedDate(shippedDate)
                 .deliveredDate(deliveredDate)
-                .deliveryAddress(dto.getShippingAddress()) // Important for courier
+                .deliveryAddress(request.getDeliveryAddress())
 //                .contactPerson(invoice.getCustomer().getName())
 //                .contactPhone(invoice.getCustomer().getPhone())
                 .build();
-
         deliveryRepository.save(delivery);
 
         // 3. Create Delivery Items (Copy from Invoice Items)
         // This snapshots exactly what is in THIS box.
-        List<DeliveryItem> items = invoice.getItems().stream().map(invItem -> DeliveryItem.builder()
-                .delivery(delivery)
-                .itemId(invItem.getItemId())
-                .itemName(invItem.getItemName())
-                .invoiceItemId(invItem.getId())
-                .batchNumber(invItem.getBatchNumber())
-                .quantity(invItem.getQuantity())
-                .build()
-        ).collect(Collectors.toList());
-
-        deliveryItemRepository.saveAll(items);
-        log.info("Delivery Record Created: {} | Status: {}", delivery.getDeliveryNumber(), initialStatus);
+        int lines = deliveryItemJdbcRepository.insertItemsFromInvoice(delivery.getId(), invoiceId);
+        log.info("Delivery Record Created: {} | Status: {} | Lines: {}", delivery.getDeliveryNumber(), delivery.getStatus(), lines);
     }
 
     @Override
@@ -153,21 +174,9 @@ public class DeliveryServiceImpl implements DeliveryService {
 
         Long tenantId = UserContextUtil.getTenantIdOrThrow();
 
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "id"));
+        Pageable pageable = PageRequest.of(page, size, FilterSpecification.NEWEST_FIRST);
 
-        // Call the custom query with all filter parameters
-        Page<Delivery> deliveryPage = deliveryRepository.findDeliveriesByFilter(
-                tenantId,
-                filter.getDeliveryId(),
-                filter.getInvoiceId(),
-                filter.getCustomerId(),
-                filter.getShipmentTypes(),
-                filter.getShipmentStatuses(),
-                filter.getSearchQuery(),
-                filter.getStartDateTime(),
-                filter.getEndDateTime(),
-                pageable
-        );
+        Page<Delivery> deliveryPage = deliveryRepository.findAll(deliveryFilter(tenantId, filter).build(), pageable);
 
         // Bulk fetch customer details for mapping
         List<Long> customerIds = deliveryPage.getContent().stream()
@@ -185,11 +194,48 @@ public class DeliveryServiceImpl implements DeliveryService {
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
+    public CursorPage<DeliveryDto> scrollDeliveries(int size, DeliveryFilterDto filter) throws CommonException {
+
+        int pageSize = CursorPage.clampSize(size);
+        Long tenantId = UserContextUtil.getTenantIdOrThrow();
+        KeysetCursor cursor = filter.getKeysetCursor();
+
+        FilterSpecification<Delivery> spec = deliveryFilter(tenantId, filter);
+        Long total = filter.isTotalRequested() ? deliveryRepository.count(spec.build()) : null;
+
+        List<Delivery> deliveries = deliveryRepository.findBy(spec.after(cursor).build(),
+                query -> query.sortBy(FilterSpecification.NEWEST_FIRST).limit(pageSize + 1).all());
+
+        List<Long> customerIds = deliveries.stream()
+                .map(Delivery::getCustomerId)
+                .distinct()
+                .toList();
+        Map<Long, UserMiniDto> customerMap = customerIds.isEmpty()
+                ? new HashMap<>()
+                : authServiceClient.getBulkUserDetails(customerIds);
+
+        return CursorPage.of(deliveries, pageSize, Delivery::getCreatedAt, Delivery::getId,
+                d -> mapToDto(d, customerMap, true), total);
+    }
+
+    // Not @Transactional: the item locks are taken first, then the transaction is opened
+    @Override
     public CommonResponse<?> updateDeliveryStatus(Long id, DeliveryStatusUpdateRequest request, MultipartFile file) throws CommonException {
 
         Long tenantId = UserContextUtil.getTenantIdOrThrow();
 
+        // Only a cancellation moves stock: its lines go back into the invoice's warehouse
+        Set<StockKey> keys = request.getStatus() == ShipmentStatus.CANCELLED
+                ? StockKey.forItems(deliveryRepository.findWarehouseId(id, tenantId).orElse(null),
+                deliveryRepository.findItemIds(id))
+                : Set.of();
+        return stockLockManager.withLocks(tenantId, keys,
+                () -> transactionTemplate.execute(status -> applyDeliveryStatus(tenantId, id, request, file)));
+    }
+
+    private CommonResponse<?> applyDeliveryStatus(Long tenantId, Long id, DeliveryStatusUpdateRequest request,
+                                                  MultipartFile file) {
         Delivery delivery = deliveryRepository
                 .findByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new CommonException("Delivery not found", HttpStatus.NOT_FOUND));
@@ -241,12 +287,13 @@ public class DeliveryServiceImpl implements DeliveryService {
                 if (delivery.getStatus() == ShipmentStatus.DELIVERED) {
                     throw new CommonException("Cannot cancel a delivery that is already delivered", HttpStatus.BAD_REQUEST);
                 }
+                List<StockUpdateDto> stockMovements = new ArrayList<>();
                 for (DeliveryItem item : delivery.getItems()) {
                     if (item.getBatchNumber() == null || item.getBatchNumber().isBlank()) {
                         log.warn("Delivery item {} has no batch number — skipping stock restoration", item.getItemId());
                         continue;
                     }
-                    StockUpdateDto stockDto = StockUpdateDto.builder()
+                    stockMovements.add(StockUpdateDto.builder()
                             .itemId(item.getItemId())
                             .warehouseId(invoice.getWarehouseId())
                             .quantity(item.getQuantity())
@@ -255,9 +302,9 @@ public class DeliveryServiceImpl implements DeliveryService {
                             .referenceId(delivery.getId())
                             .batchNumber(item.getBatchNumber())
                             .remarks("Stock restored — Delivery " + delivery.getDeliveryNumber() + " cancelled: " + reason)
-                            .build();
-                    stockService.updateStock(stockDto);
+                            .build());
                 }
+                stockService.postMovements(stockMovements);
                 String existingRemarks = delivery.getRemarks() != null ? delivery.getRemarks() : "";
                 delivery.setRemarks(existingRemarks + " | Cancelled: " + reason);
                 invoice.setDeliveryStatus(InvoiceDeliveryStatus.CANCEL_DELIVERY);
@@ -269,6 +316,7 @@ public class DeliveryServiceImpl implements DeliveryService {
         delivery.setStatus(status);
         deliveryRepository.save(delivery);
         invoiceRepository.save(invoice);
+        salesRollupAggregator.recordInvoice(invoice);
 
         return CommonResponse.builder()
                 .message("Delivery status updated to " + status)
@@ -281,17 +329,15 @@ public class DeliveryServiceImpl implements DeliveryService {
 
         Long tenantId = UserContextUtil.getTenantIdOrThrow();
 
-        List<Delivery> deliveries = deliveryRepository.searchDeliveries(
-                tenantId,
-                filter.getId(),
-                filter.getDeliveryNumber(),
-                filter.getInvoiceId(),
-                filter.getCustomerId(),
-                filter.getShipmentTypes(),
-                filter.getShipmentStatuses(),
-                filter.getStartDateTime(),
-                filter.getEndDateTime()
-        );
+        List<Delivery> deliveries = deliveryRepository.findAll(FilterSpecification.<Delivery>forTenant(tenantId)
+                .equal("id", filter.getId())
+                .equal("deliveryNumber", filter.getDeliveryNumber())
+                .equal("invoice.id", filter.getInvoiceId())
+                .equal("customerId", filter.getCustomerId())
+                .in("type", filter.getShipmentTypes())
+                .in("status", filter.getShipmentStatuses())
+                .createdBetween(filter.getStartDateTime(), filter.getEndDateTime())
+                .build());
 
         List<Long> customerIds = deliveries.stream()
                 .map(Delivery::getCustomerId)
@@ -500,6 +546,17 @@ public class DeliveryServiceImpl implements DeliveryService {
     }
 
 
+    private static FilterSpecification<Delivery> deliveryFilter(Long tenantId, DeliveryFilterDto filter) {
+        return FilterSpecification.<Delivery>forTenant(tenantId)
+                .equal("id", filter.getDeliveryId())
+                .equal("invoice.id", filter.getInvoiceId())
+                .equal("customerId", filter.getCustomerId())
+                .in("type", filter.getShipmentTypes())
+                .in("status", filter.getShipmentStatuses())
+                .createdBetween(filter.getStartDateTime(), filter.getEndDateTime())
+                .search(filter.getSearchQuery(), "deliveryNumber");
+    }
+
     private DeliveryDto mapToDto(Delivery delivery, Map<Long, UserMiniDto> customerMap, Boolean includeContact) {
 
         UserMiniDto contactMini = null;
@@ -575,73 +632,58 @@ public class DeliveryServiceImpl implements DeliveryService {
     public List<BulkDeliveryItemDto> getBulkDeliveryItems(DeliveryFilterDto filter) throws CommonException {
         Long tenantId = UserContextUtil.getTenantIdOrThrow();
 
-        List<Delivery> deliveries = deliveryRepository.searchDeliveries(
-                tenantId,
-                filter.getId(),
-                filter.getDeliveryNumber(),
-                filter.getInvoiceId(),
-                filter.getCustomerId(),
-                filter.getShipmentTypes(),
-                filter.getShipmentStatuses(),
-                filter.getStartDateTime(),
-                filter.getEndDateTime()
-        );
-
-        if (filter.getInvoiceIds() != null && !filter.getInvoiceIds().isEmpty()) {
-            deliveries = deliveries.stream()
-                    .filter(d -> d.getInvoice() != null && filter.getInvoiceIds().contains(d.getInvoice().getId()))
-                    .collect(Collectors.toList());
-        }
+        List<BulkDeliveryItemDto> resultList = deliveryItemRepository.aggregateBulkItems(
+                        tenantId,
+                        filter.getId(),
+                        filter.getDeliveryNumber(),
+                        filter.getInvoiceId(),
+                        filter.getCustomerId(),
+                        filter.getShipmentTypes(),
+                        filter.getShipmentStatuses(),
+                        emptyToNull(filter.getInvoiceIds()),
+                        emptyToNull(filter.getDeliveryIds()),
+                        filter.getStartDateTime(),
+                        filter.getEndDateTime())
+                .stream()
+                .map(row -> BulkDeliveryItemDto.builder()
+                        .itemId(row.getItemId())
+                        .itemName(row.getItemName())
+                        .batchNumber(row.getBatchNumber())
+                        .totalQuantity(row.getTotalQuantity().intValue())
+                        .build())
+                .collect(Collectors.toList());
 
-        if (filter.getDeliveryIds() != null && !filter.getDeliveryIds().isEmpty()) {
-            deliveries = deliveries.stream()
-                    .filter(d -> filter.getDeliveryIds().contains(d.getId()))
-                    .collect(Collectors.toList());
+        if (resultList.isEmpty()) {
+            return resultList;
         }
 
-        Map<String, BulkDeliveryItemDto> itemMap = new HashMap<>();
-        for (Delivery delivery : deliveries) {
-            for (DeliveryItem item : delivery.getItems()) {
-                String key = item.getItemId() + "_" + (item.getBatchNumber() != null ? item.getBatchNumber() : "NO_BATCH");
-                itemMap.compute(key, (k, existing) -> {
-                    if (existing == null) {
-                        return BulkDeliveryItemDto.builder()
-                                .itemId(item.getItemId())
-                                .itemName(item.getItemName())
-                                .batchNumber(item.getBatchNumber())
-                                .totalQuantity(item.getQuantity())
-                                .build();
-                    } else {
-                        existing.setTotalQuantity(existing.getTotalQuantity() + item.getQuantity());
-                        return existing;
-                    }
-                });
+        Set<Long> itemIds = resultList.stream().map(BulkDeliveryItemDto::getItemId).collect(Collectors.toSet());
+        Map<Long, Item> itemDataMap = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, i -> i));
+
+        Set<String> batchNumbers = resultList.stream()
+                .map(BulkDeliveryItemDto::getBatchNumber)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, Long> expiryByItemBatch = new HashMap<>();
+        if (!batchNumbers.isEmpty()) {
+            for (StockBatch batch : stockBatchRepository.findByTenantIdAndItemIdInAndBatchNumberIn(tenantId, itemIds, batchNumbers)) {
+                expiryByItemBatch.putIfAbsent(batch.getItemId() + "_" + batch.getBatchNumber(), batch.getExpiryDate());
             }
         }
 
-        List<BulkDeliveryItemDto> resultList = new ArrayList<>(itemMap.values());
-
-        List<Long> itemIds = resultList.stream().map(BulkDeliveryItemDto::getItemId).distinct().collect(Collectors.toList());
-        if (!itemIds.isEmpty()) {
-            List<Item> items = itemRepository.findAllById(itemIds);
-            Map<Long, Item> itemDataMap = items.stream().collect(Collectors.toMap(Item::getId, i -> i));
-
-            for (BulkDeliveryItemDto dto : resultList) {
-                Item itemInfo = itemDataMap.get(dto.getItemId());
-                if (itemInfo != null) {
-                    dto.setItemCode(itemInfo.getItemCode());
-                    dto.setSku(itemInfo.getSku());
-                    dto.setCategory(itemInfo.getCategory());
-                    dto.setBrand(itemInfo.getBrand());
-                    dto.setMrp(itemInfo.getMrp());
-                    dto.setSellingPrice(itemInfo.getSellingPrice());
-                }
-
-                if (dto.getBatchNumber() != null && !dto.getBatchNumber().equals("NO_BATCH")) {
-                    Optional<StockBatch> batchOpt = stockBatchRepository.findFirstByItemIdAndBatchNumberAndTenantId(
-                            dto.getItemId(), dto.getBatchNumber(), tenantId);
-                    batchOpt.ifPresent(stockBatch -> dto.setExpiryDate(stockBatch.getExpiryDate()));
-                }
+        for (BulkDeliveryItemDto dto : resultList) {
+            Item itemInfo = itemDataMap.get(dto.getItemId());
+            if (itemInfo != null) {
+                dto.setItemCode(itemInfo.getItemCode());
+                dto.setSku(itemInfo.getSku());
+                dto.setCategory(itemInfo.getCategory());
+                dto.setBrand(itemInfo.getBrand());
+                dto.setMrp(itemInfo.getMrp());
+                dto.setSellingPrice(itemInfo.getSellingPrice());
+            }
+            if (dto.getBatchNumber() != null) {
+                dto.setExpiryDate(expiryByItemBatch.get(dto.getItemId() + "_" + dto.getBatchNumber()));
             }
         }
 
@@ -649,9 +691,14 @@ public class DeliveryServiceImpl implements DeliveryService {
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public byte[] downloadBulkDeliveryItemsExcel(DeliveryFilterDto filter) throws CommonException {
+    public StreamingResponseBody downloadBulkDeliveryItemsExcel(DeliveryFilterDto filter) throws CommonException {
+        // Already aggregated per (item, batch), so the list is small; only the workbook is streamed
         List<BulkDeliveryItemDto> items = getBulkDeliveryItems(filter);
-        return com.ezh.Inventory.sales.delivery.utils.DeliveryExportUtils.toBulkItemsExcel(items).readAllBytes();
+        return streamingExporter.export(ExportFormat.XLSX, DeliveryExportUtils.SHEET_NAME,
+                DeliveryExportUtils.BULK_ITEM_COLUMNS, items::stream, Function.identity());
+    }
+
+    private static <T> List<T> emptyToNull(List<T> values) {
+        return values == null || values.isEmpty() ? null : values;
     }
 }
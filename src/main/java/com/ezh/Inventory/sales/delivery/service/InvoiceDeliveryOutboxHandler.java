@@ -0,0 +1,31 @@
+package com.ezh.Inventory.sales.delivery.service;
+
+import com.ezh.Inventory.common.outbox.dto.OutboxEvent;
+import com.ezh.Inventory.common.outbox.entity.OutboxEventType;
+import com.ezh.Inventory.common.outbox.service.OutboxHandler;
+import com.ezh.Inventory.sales.delivery.dto.InvoiceDeliveryRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/** Creates the delivery of an invoice once the invoice has committed; the aggregate is the invoice id. */
+@Component
+@RequiredArgsConstructor
+public class InvoiceDeliveryOutboxHandler implements OutboxHandler<InvoiceDeliveryRequest> {
+
+    private final DeliveryService deliveryService;
+
+    @Override
+    public OutboxEventType type() {
+        return OutboxEventType.INVOICE_DELIVERY;
+    }
+
+    @Override
+    public Class<InvoiceDeliveryRequest> payloadType() {
+        return InvoiceDeliveryRequest.class;
+    }
+
+    @Override
+    public void handle(OutboxEvent event, InvoiceDeliveryRequest payload) {
+        deliveryService.createDeliveryForInvoice(event.getAggregateId(), payload);
+    }
+}
@@ -0,0 +1,33 @@
+package com.ezh.Inventory.sales.invoice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tuning for bulk invoice creation ({@code POST /v1/invoice/bulk}).
+ *
+ * <pre>
+ * # application.properties
+ * invoice.bulk.max-invoices=500
+ * invoice.bulk.chunk-size=25
+ * invoice.bulk.parallelism=4
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "invoice.bulk")
+public class InvoiceBulkProperties {
+
+    /** Invoices accepted per request. */
+    private int maxInvoices = 500;
+
+    /** Invoices posted per transaction; a failing chunk is retried one invoice at a time. */
+    private int chunkSize = 25;
+
+    /**
+     * Chunks running at the same time, each on its own virtual thread and connection. Keep it
+     * well below the connection pool size.
+     */
+    private int parallelism = 4;
+}
@@ -1,6 +1,7 @@
 package com.ezh.Inventory.sales.invoice.controller;
 
 
+import com.ezh.Inventory.sales.invoice.dto.BulkInvoiceResultDto;
 import com.ezh.Inventory.sales.invoice.dto.InvoiceDto;
 import com.ezh.Inventory.sales.invoice.dto.InvoiceFilter;
 import com.ezh.Inventory.sales.invoice.dto.InvoiceStats;
@@ -8,6 +9,7 @@ import com.ezh.Inventory.sales.invoice.entity.Invoice;
 import com.ezh.Inventory.sales.invoice.repository.InvoiceRepository;
 import com.ezh.Inventory.sales.invoice.service.InvoiceService;
 import com.ezh.Inventory.utils.common.CommonResponse;
+import com.ezh.Inventory.utils.common.CursorPage;
 import com.ezh.Inventory.utils.common.ResponseResource;
 import com.ezh.Inventory.utils.common.client.AuthServiceClient;
 import com.ezh.Inventory.utils.common.dto.TenantDto;
@@ -22,6 +24,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.Map;
@@ -44,6 +47,13 @@ public class InvoiceController {
         return ResponseResource.success(HttpStatus.CREATED, response, "Invoice created successfully");
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseResource<BulkInvoiceResultDto> createInvoices(@RequestBody List<InvoiceDto> invoices) throws CommonException {
+        log.info("Entering createInvoices with {} invoices", invoices != null ? invoices.size() : 0);
+        BulkInvoiceResultDto response = invoiceService.createInvoices(invoices);
+        return ResponseResource.success(HttpStatus.OK, response, "Bulk invoices processed");
+    }
+
     @PostMapping(value = "/{invoiceId}/update", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseResource<CommonResponse<?>> updateInvoice(@PathVariable Long invoiceId,
                                                              @RequestBody InvoiceDto invoiceDto) throws CommonException {
@@ -67,6 +77,14 @@ public class InvoiceController {
         return ResponseResource.success(HttpStatus.OK, response, "Invoice fetched successfully");
     }
 
+    @PostMapping(value = "/all/scroll", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseResource<CursorPage<InvoiceDto>> scrollInvoices(@RequestParam(defaultValue = "20") Integer size,
+                                                                   @RequestBody InvoiceFilter filter) throws CommonException {
+        log.info("scroll invoices with size {}", size);
+        CursorPage<InvoiceDto> response = invoiceService.scrollInvoices(filter, size);
+        return ResponseResource.success(HttpStatus.OK, response, "Invoice fetched successfully");
+    }
+
     @PostMapping(value = "/search", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseResource<List<InvoiceDto>> searchInvoice(@RequestBody InvoiceFilter filter) throws CommonException {
         log.info("Searching invoices with filter: {}", filter);
@@ -76,9 +94,9 @@ public class InvoiceController {
 
 
     @PostMapping(value = "/download", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<byte[]> downloadInvoicesExcel(@RequestBody InvoiceFilter filter) throws CommonException {
+    public ResponseEntity<StreamingResponseBody> downloadInvoicesExcel(@RequestBody InvoiceFilter filter) throws CommonException {
         log.info("Downloading invoice report in excel with filter: {}", filter);
-        byte[] response = invoiceService.downloadInvoicesExcel(filter);
+        StreamingResponseBody response = invoiceService.downloadInvoicesExcel(filter);
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=invoices.xlsx")
                 .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
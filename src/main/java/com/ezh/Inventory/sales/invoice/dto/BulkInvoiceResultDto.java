@@ -0,0 +1,30 @@
+package com.ezh.Inventory.sales.invoice.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkInvoiceResultDto {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<InvoiceResult> results;    // One per submitted invoice, in request order
+
+    @Getter
+    @Setter
+    @Builder
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class InvoiceResult {
+        private int index;                  // Position in the request
+        private boolean success;
+        private Long invoiceId;
+        private String invoiceNumber;
+        private String message;             // Failure reason
+    }
+}
@@ -0,0 +1,58 @@
+package com.ezh.Inventory.sales.invoice.repository;
+
+import com.ezh.Inventory.sales.invoice.entity.InvoiceItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Inserts the lines of posted invoices as one JDBC batch, which the driver rewrites into
+ * multi-row statements. IDENTITY ids keep Hibernate from batching these inserts.
+ */
+@Repository
+@RequiredArgsConstructor
+public class InvoiceItemJdbcRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /** Lines of several invoices may be mixed; each is written against its own saved invoice. */
+    public void insertItems(List<InvoiceItem> items) {
+        if (items.isEmpty()) return;
+
+        SqlParameterSource[] params = items.stream()
+                .map(item -> {
+                    item.setUuid(UUID.randomUUID().toString());
+                    return new MapSqlParameterSource()
+                            .addValue("uuid", item.getUuid())
+                            .addValue("invoiceId", item.getInvoice().getId())
+                            .addValue("soItemId", item.getSoItemId())
+                            .addValue("itemId", item.getItemId())
+                            .addValue("itemName", item.getItemName())
+                            .addValue("sku", item.getSku())
+                            .addValue("batchNumber", item.getBatchNumber())
+                            .addValue("quantity", item.getQuantity())
+                            .addValue("unitPrice", item.getUnitPrice())
+                            .addValue("discountRate", item.getDiscountRate())
+                            .addValue("discountAmount", item.getDiscountAmount())
+                            .addValue("taxRate", item.getTaxRate())
+                            .addValue("taxAmount", item.getTaxAmount())
+                            .addValue("lineTotal", item.getLineTotal())
+                            .addValue("returnedQuantity", item.getReturnedQuantity());
+                })
+                .toArray(SqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO invoice_item (uuid, created_at, updated_at, is_deleted, invoice_id, so_item_id, item_id,
+                                          item_name, sku, batch_number, quantity, unit_price, discount_rate,
+                                          discount_amount, tax_rate, tax_amount, line_total, returned_quantity)
+                VALUES (:uuid, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, false, :invoiceId, :soItemId, :itemId,
+                        :itemName, :sku, :batchNumber, :quantity, :unitPrice, :discountRate,
+                        :discountAmount, :taxRate, :taxAmount, :lineTotal, :returnedQuantity)
+                """, params);
+    }
+}
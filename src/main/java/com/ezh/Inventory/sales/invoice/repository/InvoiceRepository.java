@@ -3,26 +3,40 @@ package com.ezh.Inventory.sales.invoice.repository;
 import com.ezh.Inventory.sales.invoice.entity.Invoice;
 import com.ezh.Inventory.sales.invoice.entity.InvoicePaymentStatus;
 import com.ezh.Inventory.sales.invoice.entity.InvoiceStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
+public interface InvoiceRepository extends JpaRepository<Invoice, Long>, JpaSpecificationExecutor<Invoice> {
 
     Boolean existsByInvoiceNumber(String invoiceNumber);
 
     @Query("SELECT i.invoiceNumber FROM Invoice i WHERE i.id = :invoiceId")
     String findInvoiceNumberById(@Param("invoiceId") Long invoiceId);
 
+    // Stock lock keys, read before the document's transaction opens
+    @Query("SELECT i.warehouseId FROM Invoice i WHERE i.id = :invoiceId")
+    Optional<Long> findWarehouseId(@Param("invoiceId") Long invoiceId);
+
+    @Query("SELECT it.itemId FROM InvoiceItem it WHERE it.invoice.id = :invoiceId")
+    List<Long> findItemIds(@Param("invoiceId") Long invoiceId);
+
     Optional<Invoice> findByIdAndTenantId(Long id, Long tenantId);
 
     Page<Invoice> findByTenantId(Long tenantId, Pageable pageable);
@@ -30,25 +44,6 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
     @Query("SELECT SUM(i.balance) FROM Invoice i WHERE i.customerId = :customerId AND i.tenantId = :tenantId")
     BigDecimal getTotalBalanceByCustomer(@Param("customerId") Long customerId, @Param("tenantId") Long tenantId);
 
-    @Query("""
-            SELECT i FROM Invoice i
-            WHERE i.tenantId = :tenantId
-              AND (:id IS NULL OR i.id = :id)
-              AND (:invoiceNumber IS NULL OR i.invoiceNumber = :invoiceNumber)
-              AND (:salesOrderId IS NULL OR i.salesOrder.id = :salesOrderId)
-              AND (:statuses IS NULL OR i.status IN :statuses)
-              AND (:customerId IS NULL OR i.customerId = :customerId)
-              AND (:warehouseId IS NULL OR i.warehouseId = :warehouseId)
-            """)
-    List<Invoice> searchInvoices(
-            @Param("tenantId") Long tenantId,
-            @Param("id") Long id,
-            @Param("invoiceNumber") String invoiceNumber,
-            @Param("salesOrderId") Long salesOrderId,
-            @Param("statuses") List<InvoiceStatus> statuses,
-            @Param("customerId") Long customerId,
-            @Param("warehouseId") Long warehouseId);
-
     @Query("""
                 SELECT i FROM Invoice i
                 WHERE i.tenantId = :tenantId
@@ -67,8 +62,10 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
             @Param("warehouseId") Long warehouseId,
             Pageable pageable);
 
+    // Lists and scrolls filter through FilterSpecification; exports keep a static query for the fetch-size hint
     @Query("""
             SELECT i FROM Invoice i
+            LEFT JOIN FETCH i.salesOrder
             WHERE i.tenantId = :tenantId
               AND (:id IS NULL OR i.id = :id)
               AND (:salesOrderId IS NULL OR i.salesOrder.id = :salesOrderId)
@@ -85,40 +82,10 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
                     OR LOWER(i.invoiceNumber) LIKE LOWER(CONCAT('%', CAST(:searchQuery AS string), '%'))
                     OR LOWER(i.remarks) LIKE LOWER(CONCAT('%', CAST(:searchQuery AS string), '%'))
                   )
+            ORDER BY i.createdAt DESC, i.id DESC
             """)
-    Page<Invoice> getAllInvoices(
-            @Param("tenantId") Long tenantId,
-            @Param("id") Long id,
-            @Param("salesOrderId") Long salesOrderId,
-            @Param("statuses") List<InvoiceStatus> statuses,
-            @Param("paymentStatuses") List<InvoicePaymentStatus> paymentStatuses,
-            @Param("customerId") Long customerId,
-            @Param("warehouseId") Long warehouseId,
-            @Param("searchQuery") String searchQuery,
-            @Param("fromDate") LocalDateTime fromDate,
-            @Param("toDate") LocalDateTime toDate,
-            Pageable pageable);
-
-    @Query("""
-            SELECT i FROM Invoice i
-            WHERE i.tenantId = :tenantId
-              AND (:id IS NULL OR i.id = :id)
-              AND (:salesOrderId IS NULL OR i.salesOrder.id = :salesOrderId)
-              AND (:statuses IS NULL OR i.status IN :statuses)
-              AND (:paymentStatuses IS NULL OR i.paymentStatus IN :paymentStatuses)
-              AND (:customerId IS NULL OR i.customerId = :customerId)
-              AND (:warehouseId IS NULL OR i.warehouseId = :warehouseId)
-              AND (
-                    (CAST(:fromDate AS timestamp) IS NULL OR i.createdAt >= :fromDate)
-                    AND (CAST(:toDate AS timestamp) IS NULL OR i.createdAt <= :toDate)
-                  )
-              AND (
-                    CAST(:searchQuery AS string) IS NULL
-                    OR LOWER(i.invoiceNumber) LIKE LOWER(CONCAT('%', CAST(:searchQuery AS string), '%'))
-                    OR LOWER(i.remarks) LIKE LOWER(CONCAT('%', CAST(:searchQuery AS string), '%'))
-                  )
-            """)
-    List<Invoice> getAllInvoices(
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Invoice> streamInvoicesForExport(
             @Param("tenantId") Long tenantId,
             @Param("id") Long id,
             @Param("salesOrderId") Long salesOrderId,
@@ -131,21 +98,22 @@ public interface InvoiceRepository extends JpaRepository<Invoice, Long> {
             @Param("toDate") LocalDateTime toDate);
 
 
+    // Read from the sales_daily_rollup read model: one row per tenant, day, warehouse and customer
     @Query("""
             SELECT
-                COALESCE(SUM(i.grandTotal), 0) AS totalInvoiceValue,
-                COALESCE(SUM(i.amountPaid), 0) AS collectedAmount,
-                COALESCE(SUM(i.balance), 0) AS uncollectedAmount,
-                COUNT(CASE WHEN i.status = 'PENDING' THEN 1 END) AS pendingCount,
-                COUNT(CASE WHEN i.deliveryStatus = 'PENDING' THEN 1 END) AS pendingDeliveryCount
-            FROM Invoice i
-            WHERE i.tenantId = :tenantId
-              AND (CAST(:fromDate AS timestamp) IS NULL OR i.createdAt >= :fromDate)
-              AND (CAST(:toDate AS timestamp) IS NULL OR i.createdAt <= :toDate)
+                COALESCE(SUM(r.invoiceValue), 0) AS totalInvoiceValue,
+                COALESCE(SUM(r.invoiceCollected), 0) AS collectedAmount,
+                COALESCE(SUM(r.invoiceBalance), 0) AS uncollectedAmount,
+                COALESCE(SUM(r.invoicePendingCount), 0) AS pendingCount,
+                COALESCE(SUM(r.invoicePendingDeliveryCount), 0) AS pendingDeliveryCount
+            FROM SalesDailyRollup r
+            WHERE r.tenantId = :tenantId
+              AND (CAST(:fromDate AS date) IS NULL OR r.reportDate >= :fromDate)
+              AND (CAST(:toDate AS date) IS NULL OR r.reportDate <= :toDate)
             """)
     com.ezh.Inventory.sales.invoice.dto.InvoiceStats getDashboardStats(
             @Param("tenantId") Long tenantId,
-            @Param("fromDate") LocalDateTime fromDate,
-            @Param("toDate") LocalDateTime toDate);
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate);
 
 }
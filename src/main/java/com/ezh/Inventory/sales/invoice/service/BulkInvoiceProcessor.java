@@ -0,0 +1,184 @@
+package com.ezh.Inventory.sales.invoice.service;
+
+import com.ezh.Inventory.sales.invoice.config.InvoiceBulkProperties;
+import com.ezh.Inventory.sales.invoice.dto.BulkInvoiceResultDto;
+import com.ezh.Inventory.sales.invoice.dto.BulkInvoiceResultDto.InvoiceResult;
+import com.ezh.Inventory.sales.invoice.dto.InvoiceDto;
+import com.ezh.Inventory.sales.invoice.dto.InvoiceItemDto;
+import com.ezh.Inventory.sales.invoice.entity.Invoice;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Posts a batch of one tenant's invoices, e.g. a van route closed at end of day.
+ *
+ * <p>Invoices that share an item or a sales order are put in the same lane and keep their request
+ * order, so stock for an item is always allocated to the earlier invoice first. Lanes run in
+ * parallel on virtual threads, one transaction per chunk of
+ * {@link InvoiceBulkProperties#getChunkSize()} invoices through {@link InvoicePostingPipeline#postAllLocked},
+ * which takes the stock locks of the whole chunk before opening it. A chunk that fails is rolled
+ * back and its invoices are retried one by one, so one bad invoice only fails itself.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BulkInvoiceProcessor {
+
+    private final InvoicePostingPipeline invoicePostingPipeline;
+    private final InvoiceBulkProperties properties;
+
+    public BulkInvoiceResultDto process(List<InvoiceDto> dtos, Long tenantId) {
+        InvoiceResult[] results = new InvoiceResult[dtos.size()];
+        List<List<Integer>> lanes = planLanes(dtos, Math.max(1, properties.getParallelism()));
+
+        // Virtual threads do not inherit the caller's security context; the services read the tenant from it
+        try (ExecutorService executor = new DelegatingSecurityContextExecutorService(
+                Executors.newVirtualThreadPerTaskExecutor(), SecurityContextHolder.getContext())) {
+            for (List<Integer> lane : lanes) {
+                executor.execute(() -> runLane(lane, dtos, tenantId, results));
+            }
+        }
+
+        int succeeded = 0;
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = failure(i, "Invoice was not processed");
+            } else if (results[i].isSuccess()) {
+                succeeded++;
+            }
+        }
+        log.info("Bulk invoices for tenant {}: {} of {} posted in {} lane(s)", tenantId, succeeded, results.length,
+                lanes.size());
+
+        return BulkInvoiceResultDto.builder()
+                .total(results.length)
+                .succeeded(succeeded)
+                .failed(results.length - succeeded)
+                .results(Arrays.asList(results))
+                .build();
+    }
+
+    private void runLane(List<Integer> lane, List<InvoiceDto> dtos, Long tenantId, InvoiceResult[] results) {
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        for (int from = 0; from < lane.size(); from += chunkSize) {
+            List<Integer> chunk = lane.subList(from, Math.min(from + chunkSize, lane.size()));
+            List<InvoiceDto> chunkDtos = chunk.stream().map(dtos::get).toList();
+            try {
+                List<Invoice> invoices = invoicePostingPipeline.postAllLocked(chunkDtos, tenantId);
+                for (int i = 0; i < chunk.size(); i++) {
+                    results[chunk.get(i)] = success(chunk.get(i), invoices.get(i));
+                }
+            } catch (RuntimeException e) {
+                if (chunk.size() == 1) {
+                    results[chunk.get(0)] = failure(chunk.get(0), e.getMessage());
+                    continue;
+                }
+                log.warn("Bulk invoice chunk of {} failed ({}), retrying one by one", chunk.size(), e.getMessage());
+                for (Integer index : chunk) {
+                    results[index] = postOne(index, dtos.get(index), tenantId);
+                }
+            }
+        }
+    }
+
+    private InvoiceResult postOne(int index, InvoiceDto dto, Long tenantId) {
+        try {
+            Invoice invoice = invoicePostingPipeline.postAllLocked(List.of(dto), tenantId).getFirst();
+            return success(index, invoice);
+        } catch (RuntimeException e) {
+            return failure(index, e.getMessage());
+        }
+    }
+
+    /**
+     * Splits invoices into lanes: invoices connected through a shared item or sales order form one
+     * group, kept in request order, and groups are spread over the lanes by line count.
+     */
+    private static List<List<Integer>> planLanes(List<InvoiceDto> dtos, int laneCount) {
+        int[] parent = new int[dtos.size()];
+        for (int i = 0; i < parent.length; i++) parent[i] = i;
+
+        Map<Long, Integer> firstInvoiceByItem = new HashMap<>();
+        Map<Long, Integer> firstInvoiceBySalesOrder = new HashMap<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            Long salesOrderId = dtos.get(i).getSalesOrderId();
+            if (salesOrderId != null) {
+                Integer first = firstInvoiceBySalesOrder.putIfAbsent(salesOrderId, i);
+                if (first != null) {
+                    parent[root(parent, i)] = root(parent, first);
+                }
+            }
+            List<InvoiceItemDto> lines = dtos.get(i).getItems();
+            if (lines == null) continue;
+            for (InvoiceItemDto line : lines) {
+                Integer first = firstInvoiceByItem.putIfAbsent(line.getItemId(), i);
+                if (first != null) {
+                    parent[root(parent, i)] = root(parent, first);
+                }
+            }
+        }
+
+        Map<Integer, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            groups.computeIfAbsent(root(parent, i), r -> new ArrayList<>()).add(i);
+        }
+
+        List<List<Integer>> byWeight = new ArrayList<>(groups.values());
+        byWeight.sort(Comparator.comparingInt((List<Integer> g) -> weight(g, dtos)).reversed());
+
+        List<List<Integer>> lanes = new ArrayList<>();
+        int[] laneWeights = new int[Math.min(laneCount, byWeight.size())];
+        for (int i = 0; i < laneWeights.length; i++) lanes.add(new ArrayList<>());
+        for (List<Integer> group : byWeight) {
+            int lightest = 0;
+            for (int i = 1; i < laneWeights.length; i++) {
+                if (laneWeights[i] < laneWeights[lightest]) lightest = i;
+            }
+            lanes.get(lightest).addAll(group);
+            laneWeights[lightest] += weight(group, dtos);
+        }
+        lanes.forEach(Collections::sort);
+        return lanes;
+    }
+
+    private static int root(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private static int weight(List<Integer> group, List<InvoiceDto> dtos) {
+        int lines = 0;
+        for (Integer index : group) {
+            List<InvoiceItemDto> items = dtos.get(index).getItems();
+            lines += items != null ? items.size() : 0;
+        }
+        return Math.max(lines, 1);
+    }
+
+    private static InvoiceResult success(int index, Invoice invoice) {
+        return InvoiceResult.builder()
+                .index(index)
+                .success(true)
+                .invoiceId(invoice.getId())
+                .invoiceNumber(invoice.getInvoiceNumber())
+                .build();
+    }
+
+    private static InvoiceResult failure(int index, String message) {
+        return InvoiceResult.builder()
+                .index(index)
+                .success(false)
+                .message(message)
+                .build();
+    }
+}
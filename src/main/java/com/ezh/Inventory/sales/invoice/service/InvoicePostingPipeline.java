@@ -0,0 +1,388 @@
+package com.ezh.Inventory.sales.invoice.service;
+
+import com.ezh.Inventory.common.outbox.entity.OutboxEventType;
+import com.ezh.Inventory.common.outbox.service.OutboxPublisher;
+import com.ezh.Inventory.items.dto.ItemMetadata;
+import com.ezh.Inventory.items.service.ItemMetadataCache;
+import com.ezh.Inventory.sales.delivery.dto.InvoiceDeliveryRequest;
+import com.ezh.Inventory.sales.delivery.service.DeliveryService;
+import com.ezh.Inventory.sales.invoice.dto.InvoiceDto;
+import com.ezh.Inventory.sales.invoice.dto.InvoiceItemDto;
+import com.ezh.Inventory.sales.invoice.entity.*;
+import com.ezh.Inventory.sales.invoice.repository.InvoiceItemJdbcRepository;
+import com.ezh.Inventory.sales.invoice.repository.InvoiceRepository;
+import com.ezh.Inventory.sales.order.entity.SalesOrder;
+import com.ezh.Inventory.sales.order.entity.SalesOrderItem;
+import com.ezh.Inventory.sales.order.entity.SalesOrderSource;
+import com.ezh.Inventory.sales.order.entity.SalesOrderStatus;
+import com.ezh.Inventory.sales.order.repository.SalesOrderJdbcRepository;
+import com.ezh.Inventory.sales.order.repository.SalesOrderRepository;
+import com.ezh.Inventory.sales.rollup.service.SalesRollupAggregator;
+import com.ezh.Inventory.stock.dto.StockPostingResult;
+import com.ezh.Inventory.stock.dto.StockReservationLineDto;
+import com.ezh.Inventory.stock.dto.StockUpdateDto;
+import com.ezh.Inventory.stock.entity.MovementType;
+import com.ezh.Inventory.stock.entity.ReferenceType;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
+import com.ezh.Inventory.stock.service.StockLockManager;
+import com.ezh.Inventory.stock.service.StockReservationService;
+import com.ezh.Inventory.stock.service.StockService;
+import com.ezh.Inventory.utils.DocumentFinancialCalculator;
+import com.ezh.Inventory.utils.common.DocPrefix;
+import com.ezh.Inventory.utils.common.DocumentNumberUtil;
+import com.ezh.Inventory.utils.exception.BadRequestException;
+import com.ezh.Inventory.utils.exception.CommonException;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Posts new invoices with a fixed number of round trips per invoice, whatever their line count.
+ *
+ * <ol>
+ *     <li>Item masters for all lines are resolved together through {@link ItemMetadataCache}.</li>
+ *     <li>Lines and totals are computed in memory; the delivery type settles the invoice status
+ *     before anything is written, so the header is inserted once and never re-saved.</li>
+ *     <li>Stock for all lines is allocated in one {@link StockService#postMovements} call, and the
+ *     batches it consumed are set on the lines before they are inserted. The stock locks of those
+ *     lines must be held before the transaction opens, see {@link #postAllLocked}.</li>
+ *     <li>Invoice lines and (for direct invoices) sales-order lines are JDBC batches; sales-order
+ *     invoiced quantities and statuses are two set-based updates.</li>
+ *     <li>Deliveries are not created here: an INVOICE_DELIVERY outbox event per invoice, written in
+ *     one batch, has them created after commit, so the stock rows locked above are released
+ *     sooner.</li>
+ * </ol>
+ *
+ * <p>Returned invoices are managed but their {@code items} collections are left empty: lines are
+ * written with JDBC and adding them would cascade a second insert. Likewise sales orders and their
+ * lines in the persistence context are not updated; re-read them if needed.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InvoicePostingPipeline {
+
+    private final InvoiceRepository invoiceRepository;
+    private final InvoiceItemJdbcRepository invoiceItemJdbcRepository;
+    private final SalesOrderRepository salesOrderRepository;
+    private final SalesOrderJdbcRepository salesOrderJdbcRepository;
+    private final ItemMetadataCache itemMetadataCache;
+    private final StockService stockService;
+    private final StockReservationService stockReservationService;
+    private final DeliveryService deliveryService;
+    private final OutboxPublisher outboxPublisher;
+    private final SalesRollupAggregator salesRollupAggregator;
+    private final StockLockManager stockLockManager;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * {@link #postAll} in a new transaction, opened once the stock locks of every line of every
+     * invoice are held.
+     */
+    public List<Invoice> postAllLocked(List<InvoiceDto> dtos, Long tenantId) {
+        return stockLockManager.withLocks(tenantId, stockKeys(dtos, tenantId),
+                () -> transactionTemplate.execute(status -> postAll(dtos, tenantId)));
+    }
+
+    /**
+     * Posts several invoices of one tenant together: item masters are resolved in one call, stock
+     * for all their lines is allocated in one posting (in list order, so an earlier invoice is
+     * served first), and lines, sales-order updates and delivery events are shared batches. Per
+     * invoice only the headers (sales order for direct invoices, invoice) cost their own statements.
+     *
+     * @return the saved invoices, in the order of {@code dtos}
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<Invoice> postAll(List<InvoiceDto> dtos, Long tenantId) {
+        List<Long> itemIds = new ArrayList<>();
+        for (InvoiceDto dto : dtos) {
+            if (dto.getItems() == null || dto.getItems().isEmpty()) {
+                throw new BadRequestException("Invoice must have at least one item");
+            }
+            dto.getItems().forEach(line -> itemIds.add(line.getItemId()));
+        }
+        Map<Long, ItemMetadata> itemsById = itemMetadataCache.getAll(tenantId, itemIds);
+
+        List<Invoice> invoices = new ArrayList<>(dtos.size());
+        Map<Long, InvoiceDeliveryRequest> deliveries = new LinkedHashMap<>();
+        List<InvoiceItem> lines = new ArrayList<>(itemIds.size());
+        for (InvoiceDto dto : dtos) {
+            // Get or Auto-Create Sales Order
+            OrderLines order = dto.getSalesOrderId() != null
+                    ? openSalesOrder(dto.getSalesOrderId(), tenantId)
+                    : createDirectSalesOrder(dto, tenantId, itemsById);
+
+            Invoice invoice = newInvoice(dto, tenantId, order.getSalesOrder());
+            lines.addAll(calculateFinancials(invoice, dto, order.getItemsById(), itemsById));
+            InvoiceDeliveryRequest delivery = deliveryService.prepareDeliveryForInvoice(invoice, dto);
+
+            invoiceRepository.save(invoice);
+            invoices.add(invoice);
+            deliveries.put(invoice.getId(), delivery);
+            // The order's status is refreshed below; both rows are recomputed at commit
+            salesRollupAggregator.recordSalesOrder(order.getSalesOrder());
+            salesRollupAggregator.recordInvoice(invoice);
+        }
+
+        postStockAndRecordBatches(lines);
+        invoiceItemJdbcRepository.insertItems(lines);
+        outboxPublisher.publishAll(OutboxEventType.INVOICE_DELIVERY, tenantId, deliveries);
+
+        Map<Long, Integer> invoicedBySoItemId = new HashMap<>();
+        Map<Long, List<InvoiceItem>> linesBySalesOrderId = new LinkedHashMap<>();
+        for (InvoiceItem line : lines) {
+            invoicedBySoItemId.merge(line.getSoItemId(), line.getQuantity(), Integer::sum);
+            linesBySalesOrderId.computeIfAbsent(line.getInvoice().getSalesOrder().getId(), id -> new ArrayList<>())
+                    .add(line);
+        }
+        salesOrderJdbcRepository.addInvoicedQuantities(invoicedBySoItemId);
+        Map<Long, SalesOrderStatus> statuses = salesOrderJdbcRepository.refreshInvoicingStatus(linesBySalesOrderId.keySet());
+        linesBySalesOrderId.forEach((salesOrderId, orderLines) ->
+                convertReservations(salesOrderId, orderLines, statuses.get(salesOrderId)));
+
+        log.info("Posted {} invoice(s) with {} lines", invoices.size(), lines.size());
+        return invoices;
+    }
+
+    /**
+     * Prices the dto lines against the given sales-order lines and sets the invoice totals.
+     * Item masters are resolved in one call; sales-order lines are not modified.
+     *
+     * @return the new lines, not yet attached to {@code invoice}
+     */
+    public List<InvoiceItem> priceLines(Invoice invoice, InvoiceDto dto, Map<Long, SalesOrderItem> soItemsById) {
+        List<Long> itemIds = dto.getItems() != null
+                ? dto.getItems().stream().map(InvoiceItemDto::getItemId).toList()
+                : List.of();
+        return calculateFinancials(invoice, dto, soItemsById,
+                itemMetadataCache.getAll(invoice.getTenantId(), itemIds));
+    }
+
+    // Invoices of a sales order ship from its warehouse; one postAll will reject is skipped
+    private Set<StockKey> stockKeys(List<InvoiceDto> dtos, Long tenantId) {
+        Set<StockKey> keys = new TreeSet<>();
+        for (InvoiceDto dto : dtos) {
+            if (dto.getItems() == null) continue;
+            Long warehouseId = dto.getSalesOrderId() != null
+                    ? salesOrderRepository.findWarehouseId(dto.getSalesOrderId(), tenantId).orElse(null)
+                    : dto.getWarehouseId();
+            keys.addAll(StockKey.forItems(warehouseId, dto.getItems().stream().map(InvoiceItemDto::getItemId).toList()));
+        }
+        return keys;
+    }
+
+    private OrderLines openSalesOrder(Long salesOrderId, Long tenantId) {
+        SalesOrder so = salesOrderRepository.findByIdAndTenantId(salesOrderId, tenantId)
+                .orElseThrow(() -> new CommonException("Sales order not found", HttpStatus.NOT_FOUND));
+
+        if (so.getStatus() == SalesOrderStatus.FULLY_INVOICED || so.getStatus() == SalesOrderStatus.CANCELLED) {
+            throw new BadRequestException("Sales Order is already completed or cancelled");
+        }
+
+        Map<Long, SalesOrderItem> itemsById = new HashMap<>();
+        for (SalesOrderItem item : so.getItems()) {
+            itemsById.put(item.getId(), item);
+        }
+        return new OrderLines(so, itemsById);
+    }
+
+    /**
+     * Direct invoice: creates the sales order behind it. The header is saved on its own and its
+     * lines in one batch; the new line ids are written back into the dto so the invoice lines can
+     * reference them.
+     */
+    private OrderLines createDirectSalesOrder(InvoiceDto dto, Long tenantId, Map<Long, ItemMetadata> itemsById) {
+        if (dto.getWarehouseId() == null) {
+            throw new BadRequestException("Warehouse ID is required for direct invoices");
+        }
+
+        SalesOrder newSo = new SalesOrder();
+        newSo.setTenantId(tenantId);
+        newSo.setWarehouseId(dto.getWarehouseId());
+        newSo.setCustomerId(dto.getCustomerId());
+        newSo.setOrderNumber(DocumentNumberUtil.generate(DocPrefix.SO));
+        newSo.setOrderDate(new Date());
+        newSo.setStatus(SalesOrderStatus.CREATED);
+        newSo.setSource(SalesOrderSource.DIRECT_SALES);
+        newSo.setRemarks("Auto-generated from Direct Invoice");
+        newSo.setItems(new ArrayList<>());
+
+        List<SalesOrderItem> soItems = new ArrayList<>(dto.getItems().size());
+        BigDecimal grossTotal = BigDecimal.ZERO;
+
+        for (InvoiceItemDto itemDto : dto.getItems()) {
+            ItemMetadata itemMaster = itemsById.get(itemDto.getItemId());
+            if (itemMaster == null) {
+                throw new CommonException("Item not found", HttpStatus.NOT_FOUND);
+            }
+
+            BigDecimal price = itemDto.getUnitPrice() != null ? itemDto.getUnitPrice() : itemMaster.getSellingPrice();
+            BigDecimal lineGross = price.multiply(BigDecimal.valueOf(itemDto.getQuantity()));
+
+            SalesOrderItem soItem = new SalesOrderItem();
+            soItem.setSalesOrder(newSo);
+            soItem.setItemId(itemMaster.getId());
+            soItem.setItemName(itemMaster.getName());
+            soItem.setOrderedQty(itemDto.getQuantity());
+            soItem.setInvoicedQty(0);
+            soItem.setQuantity(itemDto.getQuantity());
+            soItem.setUnitPrice(price);
+            soItem.setDiscountRate(itemDto.getDiscountRate() != null ? itemDto.getDiscountRate() : BigDecimal.ZERO);
+            soItem.setTaxRate(itemDto.getTaxRate() != null ? itemDto.getTaxRate() : BigDecimal.ZERO);
+
+            // Simplified line total for direct SO creation (Real math runs in Invoice)
+            soItem.setLineTotal(lineGross);
+
+            soItems.add(soItem);
+            grossTotal = grossTotal.add(lineGross);
+        }
+
+        newSo.setItemGrossTotal(grossTotal);
+        newSo.setGrandTotal(grossTotal);
+
+        SalesOrder savedSo = salesOrderRepository.save(newSo);
+        salesOrderJdbcRepository.insertItems(savedSo.getId(), soItems);
+
+        Map<Long, SalesOrderItem> soItemsById = new HashMap<>();
+        for (int i = 0; i < soItems.size(); i++) {
+            dto.getItems().get(i).setSoItemId(soItems.get(i).getId());
+            soItemsById.put(soItems.get(i).getId(), soItems.get(i));
+        }
+        return new OrderLines(savedSo, soItemsById);
+    }
+
+    private Invoice newInvoice(InvoiceDto dto, Long tenantId, SalesOrder salesOrder) {
+        Invoice invoice = new Invoice();
+        invoice.setTenantId(tenantId);
+        invoice.setWarehouseId(salesOrder.getWarehouseId());
+        invoice.setInvoiceNumber(DocumentNumberUtil.generate(DocPrefix.INV));
+        invoice.setInvoiceDate(dto.getInvoiceDate() != null ? dto.getInvoiceDate() : new Date());
+        invoice.setSalesOrder(salesOrder);
+        invoice.setCustomerId(salesOrder.getCustomerId());
+        invoice.setStatus(InvoiceStatus.PENDING);
+        invoice.setPaymentStatus(InvoicePaymentStatus.UNPAID);
+        invoice.setDeliveryStatus(InvoiceDeliveryStatus.PENDING);
+        invoice.setInvoiceType(InvoiceType.CREDIT);
+        invoice.setRemarks(dto.getRemarks());
+        invoice.setItems(new ArrayList<>());
+        return invoice;
+    }
+
+    /**
+     * THE UNIFIED FINANCIAL PIPELINE
+     * 1. Maps DTO items to Entities
+     * 2. Calculates Line Level Math (Rate -> Amount)
+     * 3. Aggregates Item Totals
+     * 4. Calculates Header Level Math (Flat Adjustments)
+     * Steps 2-4 run in one pass through {@link DocumentFinancialCalculator}.
+     */
+    private List<InvoiceItem> calculateFinancials(Invoice invoice, InvoiceDto dto,
+                                                  Map<Long, SalesOrderItem> soItemsById,
+                                                  Map<Long, ItemMetadata> itemsById) {
+        List<InvoiceItem> lines = new ArrayList<>(dto.getItems() != null ? dto.getItems().size() : 0);
+        DocumentFinancialCalculator calculator = new DocumentFinancialCalculator();
+
+        if (dto.getItems() != null) {
+            for (InvoiceItemDto itemDto : dto.getItems()) {
+
+                // A. Validate & Fetch Master Data
+                SalesOrderItem soItem = soItemsById.get(itemDto.getSoItemId());
+                if (soItem == null) {
+                    throw new BadRequestException("Invalid SO Line Item ID");
+                }
+
+                ItemMetadata itemMaster = itemsById.get(itemDto.getItemId());
+                if (itemMaster == null) {
+                    throw new CommonException("Item not found", HttpStatus.NOT_FOUND);
+                }
+
+                // B. Build Entity
+                InvoiceItem invItem = new InvoiceItem();
+                invItem.setInvoice(invoice);
+                invItem.setSoItemId(soItem.getId());
+                invItem.setItemId(itemMaster.getId());
+                invItem.setItemName(itemMaster.getName());
+                invItem.setSku(itemMaster.getSku());
+                invItem.setBatchNumber(itemDto.getBatchNumber()); // User can override batch
+
+                // C. Line Calculations (AbstractFinancialLine)
+                BigDecimal price = itemDto.getUnitPrice() != null ? itemDto.getUnitPrice() : soItem.getUnitPrice();
+                lines.add(calculator.addLine(invItem, price, itemDto.getQuantity(),
+                        itemDto.getDiscountRate(), itemDto.getTaxRate()));
+            }
+        }
+
+        // Aggregates & Header Level Flat Adjustments (base is the sum of line totals, the Net Bill)
+        calculator.applyTo(invoice, dto.getFlatDiscountRate(), dto.getFlatTaxRate());
+        invoice.setGrandTotal(invoice.getGrandTotal().max(BigDecimal.ZERO));
+
+        // Initial Balance is full amount
+        if (invoice.getId() == null) {
+            invoice.setBalance(invoice.getGrandTotal());
+            invoice.setAmountPaid(BigDecimal.ZERO);
+        }
+        return lines;
+    }
+
+    /**
+     * Deducts stock for all lines in one batched posting and writes the batches actually
+     * consumed back onto the lines, before they are inserted.
+     */
+    private void postStockAndRecordBatches(List<InvoiceItem> lines) {
+        List<StockUpdateDto> movements = new ArrayList<>(lines.size());
+        for (InvoiceItem line : lines) {
+            Invoice invoice = line.getInvoice();
+            movements.add(StockUpdateDto.builder()
+                    .itemId(line.getItemId())
+                    .warehouseId(invoice.getWarehouseId())
+                    .quantity(line.getQuantity())
+                    .transactionType(MovementType.OUT)
+                    .referenceType(ReferenceType.SALE)
+                    .referenceId(invoice.getId())
+                    .batchNumber(line.getBatchNumber())
+                    .reservationReferenceId(invoice.getSalesOrder() != null ? invoice.getSalesOrder().getId() : null)
+                    .build());
+        }
+
+        List<StockPostingResult> postings = stockService.postMovements(movements);
+        for (int i = 0; i < lines.size(); i++) {
+            String consumedBatch = postings.get(i).getBatchNumber();
+            if (consumedBatch != null) {
+                lines.get(i).setBatchNumber(consumedBatch);
+            }
+        }
+    }
+
+    /**
+     * The invoiced quantity has left stock, so the order's hold on it is converted.
+     * Once the order is fully invoiced any leftover hold is released.
+     */
+    private void convertReservations(Long salesOrderId, List<InvoiceItem> lines, SalesOrderStatus status) {
+        List<StockReservationLineDto> reservationLines = lines.stream()
+                .map(item -> StockReservationLineDto.builder()
+                        .referenceLineId(item.getSoItemId())
+                        .itemId(item.getItemId())
+                        .quantity(item.getQuantity())
+                        .build())
+                .toList();
+        stockReservationService.convert(salesOrderId, reservationLines);
+
+        if (status == SalesOrderStatus.FULLY_INVOICED) {
+            stockReservationService.release(salesOrderId);
+        }
+    }
+
+    @Value
+    private static class OrderLines {
+        SalesOrder salesOrder;
+        Map<Long, SalesOrderItem> itemsById;
+    }
+}
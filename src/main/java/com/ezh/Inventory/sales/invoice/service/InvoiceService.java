@@ -1,12 +1,15 @@
 package com.ezh.Inventory.sales.invoice.service;
 
+import com.ezh.Inventory.sales.invoice.dto.BulkInvoiceResultDto;
 import com.ezh.Inventory.sales.invoice.dto.InvoiceDto;
 import com.ezh.Inventory.sales.invoice.dto.InvoiceFilter;
 import com.ezh.Inventory.sales.invoice.dto.InvoiceStats;
 import com.ezh.Inventory.sales.invoice.entity.InvoiceStatus;
 import com.ezh.Inventory.utils.common.CommonResponse;
+import com.ezh.Inventory.utils.common.CursorPage;
 import com.ezh.Inventory.utils.exception.CommonException;
 import org.springframework.data.domain.Page;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -14,17 +17,21 @@ public interface InvoiceService {
 
     CommonResponse<?> createInvoice(InvoiceDto dto) throws CommonException;
 
+    BulkInvoiceResultDto createInvoices(List<InvoiceDto> dtos) throws CommonException;
+
     CommonResponse<?> updateInvoice(Long id, InvoiceDto dto) throws CommonException;
 
     InvoiceDto getInvoiceById(Long invoiceId) throws CommonException;
 
     Page<InvoiceDto> getAllInvoices(InvoiceFilter filter, Integer page, Integer size) throws CommonException;
 
+    CursorPage<InvoiceDto> scrollInvoices(InvoiceFilter filter, Integer size) throws CommonException;
+
     List<InvoiceDto> searchInvoices(InvoiceFilter filter) throws CommonException;
 
     CommonResponse<?> updateInvoiceStatus(Long invoiceId, InvoiceStatus status) throws CommonException;
 
-    byte[] downloadInvoicesExcel(InvoiceFilter filter) throws CommonException;
+    StreamingResponseBody downloadInvoicesExcel(InvoiceFilter filter) throws CommonException;
 
     InvoiceStats getStats(InvoiceFilter filter) throws CommonException;
 }
@@ -1,30 +1,36 @@
 package com.ezh.Inventory.sales.invoice.service;
 
-import com.ezh.Inventory.items.entity.Item;
-import com.ezh.Inventory.items.repository.ItemRepository;
-import com.ezh.Inventory.sales.delivery.service.DeliveryService;
+import com.ezh.Inventory.sales.invoice.config.InvoiceBulkProperties;
 import com.ezh.Inventory.sales.invoice.dto.*;
 import com.ezh.Inventory.sales.invoice.entity.*;
 import com.ezh.Inventory.sales.invoice.repository.InvoiceRepository;
 import com.ezh.Inventory.sales.invoice.utils.InvoiceExportUtils;
 import com.ezh.Inventory.sales.order.entity.SalesOrder;
 import com.ezh.Inventory.sales.order.entity.SalesOrderItem;
-import com.ezh.Inventory.sales.order.entity.SalesOrderSource;
 import com.ezh.Inventory.sales.order.entity.SalesOrderStatus;
 import com.ezh.Inventory.sales.order.repository.SalesOrderItemRepository;
 import com.ezh.Inventory.sales.order.repository.SalesOrderRepository;
+import com.ezh.Inventory.sales.rollup.service.SalesRollupAggregator;
+import com.ezh.Inventory.stock.dto.StockPostingResult;
+import com.ezh.Inventory.stock.dto.StockReservationLineDto;
 import com.ezh.Inventory.stock.dto.StockUpdateDto;
 import com.ezh.Inventory.stock.entity.MovementType;
 import com.ezh.Inventory.stock.entity.ReferenceType;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
+import com.ezh.Inventory.stock.service.StockLockManager;
+import com.ezh.Inventory.stock.service.StockReservationService;
 import com.ezh.Inventory.stock.service.StockService;
 import com.ezh.Inventory.utils.UserContextUtil;
 import com.ezh.Inventory.utils.common.CommonResponse;
-import com.ezh.Inventory.utils.common.DocPrefix;
-import com.ezh.Inventory.utils.common.DocumentNumberUtil;
+import com.ezh.Inventory.utils.common.CursorPage;
+import com.ezh.Inventory.utils.common.FilterSpecification;
+import com.ezh.Inventory.utils.common.KeysetCursor;
 import com.ezh.Inventory.utils.common.client.AuthServiceClient;
 import com.ezh.Inventory.utils.common.dto.UserMiniDto;
 import com.ezh.Inventory.utils.exception.BadRequestException;
 import com.ezh.Inventory.utils.exception.CommonException;
+import com.ezh.Inventory.utils.export.ExportFormat;
+import com.ezh.Inventory.utils.export.StreamingExporter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -33,9 +39,9 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.*;
 
 @Slf4j
@@ -46,60 +52,25 @@ public class InvoiceServiceImpl implements InvoiceService {
     private final InvoiceRepository invoiceRepository;
     private final SalesOrderRepository salesOrderRepository;
     private final SalesOrderItemRepository salesOrderItemRepository;
-    private final ItemRepository itemRepository;
     private final StockService stockService;
-    private final DeliveryService deliveryService;
+    private final StockReservationService stockReservationService;
+    private final StreamingExporter streamingExporter;
+    private final InvoicePostingPipeline invoicePostingPipeline;
+    private final BulkInvoiceProcessor bulkInvoiceProcessor;
+    private final InvoiceBulkProperties invoiceBulkProperties;
     private final AuthServiceClient authServiceClient;
+    private final SalesRollupAggregator salesRollupAggregator;
+    private final StockLockManager stockLockManager;
+    private final TransactionTemplate transactionTemplate;
 
 
+    // Not @Transactional: the item locks are taken first, then the transaction is opened
     @Override
-    @Transactional
     public CommonResponse<?> createInvoice(InvoiceDto dto) throws CommonException {
         Long tenantId = UserContextUtil.getTenantIdOrThrow();
 
-        // Get or Auto-Create Sales Order (Restored Logic)
-        SalesOrder salesOrder = getOrCreateSalesOrder(dto, tenantId);
-
-        // 2. Initialize Header
-        Invoice invoice = new Invoice();
-        invoice.setTenantId(tenantId);
-        invoice.setWarehouseId(salesOrder.getWarehouseId());
-        invoice.setInvoiceNumber(DocumentNumberUtil.generate(DocPrefix.INV));
-        invoice.setInvoiceDate(dto.getInvoiceDate() != null ? dto.getInvoiceDate() : new Date());
-        invoice.setSalesOrder(salesOrder);
-        invoice.setCustomerId(salesOrder.getCustomerId());
-        invoice.setStatus(InvoiceStatus.PENDING);
-        invoice.setPaymentStatus(InvoicePaymentStatus.UNPAID);
-        invoice.setDeliveryStatus(InvoiceDeliveryStatus.PENDING);
-        invoice.setInvoiceType(InvoiceType.CREDIT);
-        invoice.setRemarks(dto.getRemarks());
-        invoice.setItems(new ArrayList<>());
-
-        // 3. Process Items & Calculate Financials
-        processAndCalculateFinancials(invoice, dto);
-
-        // 4. Save to generate ID
-        invoice = invoiceRepository.save(invoice);
-
-        // 5. Deduct Stock (Using unified helper) and persist actual batch consumed
-        for (InvoiceItem item : invoice.getItems()) {
-            String consumedBatch = updateStockHelper(
-                    invoice.getWarehouseId(),
-                    invoice.getId(),
-                    item.getItemId(),
-                    item.getQuantity(),
-                    MovementType.OUT,
-                    item.getBatchNumber()
-            );
-            item.setBatchNumber(consumedBatch);
-        }
-        invoiceRepository.save(invoice);
-
-        // create delivery for invoice
-        deliveryService.createDeliveryForInvoice(invoice, dto);
-
-        // 6. Update Sales Order Status (Partially/Fully Invoiced)
-        updateSalesOrderStatus(salesOrder);
+        // Resolve items once, post stock for all lines in one call, write lines in batches
+        Invoice invoice = invoicePostingPipeline.postAllLocked(List.of(dto), tenantId).getFirst();
 
         return CommonResponse.builder()
                 .id(invoice.getId().toString())
@@ -107,12 +78,39 @@ public class InvoiceServiceImpl implements InvoiceService {
                 .build();
     }
 
+    @Override
+    public BulkInvoiceResultDto createInvoices(List<InvoiceDto> dtos) throws CommonException {
+        Long tenantId = UserContextUtil.getTenantIdOrThrow();
+
+        if (dtos == null || dtos.isEmpty()) {
+            throw new BadRequestException("At least one invoice is required");
+        }
+        if (dtos.size() > invoiceBulkProperties.getMaxInvoices()) {
+            throw new BadRequestException("At most " + invoiceBulkProperties.getMaxInvoices() + " invoices per request");
+        }
+
+        // Chunks run in their own transactions, so this method has none
+        return bulkInvoiceProcessor.process(dtos, tenantId);
+    }
+
 
+    // Not @Transactional: the item locks are taken first, then the transaction is opened
     @Override
-    @Transactional
     public CommonResponse<?> updateInvoice(Long id, InvoiceDto dto) throws CommonException {
         Long tenantId = UserContextUtil.getTenantIdOrThrow();
 
+        // Old lines go back into stock and the new ones come out: lock both sets in one go
+        Set<Long> itemIds = new HashSet<>(invoiceRepository.findItemIds(id));
+        if (dto.getItems() != null) {
+            dto.getItems().forEach(line -> itemIds.add(line.getItemId()));
+        }
+        Set<StockKey> keys = StockKey.forItems(invoiceRepository.findWarehouseId(id).orElse(null), itemIds);
+
+        return stockLockManager.withLocks(tenantId, keys,
+                () -> transactionTemplate.execute(status -> applyInvoiceUpdate(tenantId, id, dto)));
+    }
+
+    private CommonResponse<?> applyInvoiceUpdate(Long tenantId, Long id, InvoiceDto dto) {
         Invoice invoice = invoiceRepository.findByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new CommonException("Invoice not found", HttpStatus.NOT_FOUND));
 
@@ -126,10 +124,10 @@ public class InvoiceServiceImpl implements InvoiceService {
         }
 
         // --- FIX: Revert old stock AND Revert old SO Quantities ---
-        for (InvoiceItem oldItem : invoice.getItems()) {
-            // 1. Revert Stock
-            updateStockHelper(invoice.getWarehouseId(), invoice.getId(), oldItem.getItemId(), oldItem.getQuantity(), MovementType.IN, oldItem.getBatchNumber());
+        // 1. Revert Stock for all old lines in one batched posting
+        postStockAndRecordBatches(invoice, invoice.getItems(), MovementType.IN);
 
+        for (InvoiceItem oldItem : invoice.getItems()) {
             // 2. Revert Sales Order Invoiced Qty (Fetch from memory to keep sync)
             if (invoice.getSalesOrder() != null && oldItem.getSoItemId() != null) {
                 SalesOrderItem soItemToRevert = invoice.getSalesOrder().getItems().stream()
@@ -145,25 +143,25 @@ public class InvoiceServiceImpl implements InvoiceService {
 
         invoice.getItems().clear();
 
-        processAndCalculateFinancials(invoice, dto);
+        Map<Long, SalesOrderItem> soItemsById = new HashMap<>();
+        for (SalesOrderItem soItem : invoice.getSalesOrder().getItems()) {
+            soItemsById.put(soItem.getId(), soItem);
+        }
+        for (InvoiceItem newItem : invoicePostingPipeline.priceLines(invoice, dto, soItemsById)) {
+            invoice.getItems().add(newItem);
+            SalesOrderItem soItem = soItemsById.get(newItem.getSoItemId());
+            soItem.setInvoicedQty(soItem.getInvoicedQty() + newItem.getQuantity());
+        }
 
         invoiceRepository.save(invoice);
 
-        for (InvoiceItem newItem : invoice.getItems()) {
-            String consumedBatch = updateStockHelper(
-                    invoice.getWarehouseId(),
-                    invoice.getId(),
-                    newItem.getItemId(),
-                    newItem.getQuantity(),
-                    MovementType.OUT,
-                    newItem.getBatchNumber()
-            );
-            newItem.setBatchNumber(consumedBatch);
-        }
+        postStockAndRecordBatches(invoice, invoice.getItems(), MovementType.OUT);
         invoiceRepository.save(invoice);
+        salesRollupAggregator.recordInvoice(invoice);
 
         if (invoice.getSalesOrder() != null) {
             updateSalesOrderStatus(invoice.getSalesOrder());
+            convertReservations(invoice, invoice.getSalesOrder());
         }
 
         return CommonResponse.builder()
@@ -189,21 +187,9 @@ public class InvoiceServiceImpl implements InvoiceService {
     public Page<InvoiceDto> getAllInvoices(InvoiceFilter filter, Integer page, Integer size) {
         Long tenantId = UserContextUtil.getTenantIdOrThrow();
 
-        Pageable pageable = PageRequest.of(page, size);
+        Pageable pageable = PageRequest.of(page, size, FilterSpecification.NEWEST_FIRST);
 
-        Page<Invoice> invoices = invoiceRepository.getAllInvoices(
-                tenantId,
-                filter.getId(),
-                filter.getSalesOrderId(),
-                filter.getInvStatuses(),
-                filter.getPaymentStatus(),
-                filter.getCustomerId(),
-                filter.getWarehouseId(),
-                filter.getSearchQuery(),
-                filter.getStartDateTime(),
-                filter.getEndDateTime(),
-                pageable
-        );
+        Page<Invoice> invoices = invoiceRepository.findAll(invoiceFilter(tenantId, filter).build(), pageable);
 
         Map<Long, UserMiniDto> customerMap = new HashMap<>();
         List<Long> customerIds = invoices.getContent().stream()
@@ -216,6 +202,31 @@ public class InvoiceServiceImpl implements InvoiceService {
         return invoices.map(inv -> mapToDto(inv, finalMap, true));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<InvoiceDto> scrollInvoices(InvoiceFilter filter, Integer size) throws CommonException {
+        int pageSize = CursorPage.clampSize(size);
+        Long tenantId = UserContextUtil.getTenantIdOrThrow();
+        KeysetCursor cursor = filter.getKeysetCursor();
+
+        FilterSpecification<Invoice> spec = invoiceFilter(tenantId, filter);
+        Long total = filter.isTotalRequested() ? invoiceRepository.count(spec.build()) : null;
+
+        List<Invoice> invoices = invoiceRepository.findBy(spec.after(cursor).build(),
+                query -> query.sortBy(FilterSpecification.NEWEST_FIRST).limit(pageSize + 1).all());
+
+        List<Long> customerIds = invoices.stream()
+                .map(Invoice::getCustomerId)
+                .distinct()
+                .toList();
+        Map<Long, UserMiniDto> customerMap = customerIds.isEmpty()
+                ? new HashMap<>()
+                : authServiceClient.getBulkUserDetails(customerIds);
+
+        return CursorPage.of(invoices, pageSize, Invoice::getCreatedAt, Invoice::getId,
+                inv -> mapToDto(inv, customerMap, true), total);
+    }
+
 
     @Override
     @Transactional
@@ -226,6 +237,7 @@ public class InvoiceServiceImpl implements InvoiceService {
 
         invoice.setStatus(status);
         invoiceRepository.save(invoice);
+        salesRollupAggregator.recordInvoice(invoice);
 
         return CommonResponse.builder()
                 .message("Invoice status updated successfully")
@@ -239,15 +251,14 @@ public class InvoiceServiceImpl implements InvoiceService {
 
         Long tenantId = UserContextUtil.getTenantIdOrThrow();
 
-        List<Invoice> invoices = invoiceRepository.searchInvoices(
-                tenantId,
-                filter.getId(),
-                filter.getInvoiceNumber(),
-                filter.getSalesOrderId(),
-                filter.getInvStatuses(),
-                filter.getCustomerId(),
-                filter.getWarehouseId()
-        );
+        List<Invoice> invoices = invoiceRepository.findAll(FilterSpecification.<Invoice>forTenant(tenantId)
+                .equal("id", filter.getId())
+                .equal("invoiceNumber", filter.getInvoiceNumber())
+                .equal("salesOrder.id", filter.getSalesOrderId())
+                .in("status", filter.getInvStatuses())
+                .equal("customerId", filter.getCustomerId())
+                .equal("warehouseId", filter.getWarehouseId())
+                .build());
         final Map<Long, UserMiniDto> finalMap = new HashMap<>();
         return invoices.stream().map(inv -> mapToDto(inv, finalMap, false)).toList();
     }
@@ -260,32 +271,29 @@ public class InvoiceServiceImpl implements InvoiceService {
 
         return invoiceRepository.getDashboardStats(
                 tenantId,
-                filter.getStartDateTime(),
-                filter.getEndDateTime()
+                filter.getFromDate(),
+                filter.getToDate()
         );
     }
 
 
     @Override
-    @Transactional(readOnly = true)
-    public byte[] downloadInvoicesExcel(InvoiceFilter filter) throws CommonException {
+    public StreamingResponseBody downloadInvoicesExcel(InvoiceFilter filter) throws CommonException {
         Long tenantId = UserContextUtil.getTenantIdOrThrow();
 
-        List<Invoice> invoices = invoiceRepository.getAllInvoices(
-                tenantId,
-                filter.getId(),
-                filter.getSalesOrderId(),
-                filter.getInvStatuses(),
-                filter.getPaymentStatus(),
-                filter.getCustomerId(),
-                filter.getWarehouseId(),
-                filter.getSearchQuery(),
-                filter.getStartDateTime(),
-                filter.getEndDateTime()
-        );
-
-        List<InvoiceExcelRowDto> rows = invoices.stream()
-                .map(invoice -> InvoiceExcelRowDto.builder()
+        return streamingExporter.export(ExportFormat.XLSX, InvoiceExportUtils.SHEET_NAME, InvoiceExportUtils.COLUMNS,
+                () -> invoiceRepository.streamInvoicesForExport(
+                        tenantId,
+                        filter.getId(),
+                        filter.getSalesOrderId(),
+                        filter.getInvStatuses(),
+                        filter.getPaymentStatus(),
+                        filter.getCustomerId(),
+                        filter.getWarehouseId(),
+                        filter.getSearchQuery(),
+                        filter.getStartDateTime(),
+                        filter.getEndDateTime()),
+                invoice -> InvoiceExcelRowDto.builder()
                         .id(invoice.getId())
                         .invoiceNumber(invoice.getInvoiceNumber())
                         .invoiceDate(invoice.getInvoiceDate())
@@ -302,10 +310,7 @@ public class InvoiceServiceImpl implements InvoiceService {
                         .amountPaid(invoice.getAmountPaid())
                         .balance(invoice.getBalance())
                         .remarks(invoice.getRemarks())
-                        .build())
-                .toList();
-
-        return InvoiceExportUtils.toExcel(rows).readAllBytes();
+                        .build());
     }
 
     private void updateSalesOrderStatus(SalesOrder salesOrder) {
@@ -340,21 +345,71 @@ public class InvoiceServiceImpl implements InvoiceService {
 
         // Only one save is needed to flush all changes to the database
         salesOrderRepository.save(salesOrder);
+        salesRollupAggregator.recordSalesOrder(salesOrder);
     }
 
-    private String updateStockHelper(Long warehouseId, Long invoiceId, Long itemId, int qty, MovementType type, String batch) {
-        StockUpdateDto stockUpdate = StockUpdateDto.builder()
-                .itemId(itemId)
-                .warehouseId(warehouseId)
-                .quantity(qty)
-                .transactionType(type)
-                .referenceType(ReferenceType.SALE)
-                .referenceId(invoiceId)
-                .batchNumber(batch)
-                .build();
-        CommonResponse<?> response = stockService.updateStock(stockUpdate);
-        Object data = response != null ? response.getData() : null;
-        return data != null ? data.toString() : batch;
+    /**
+     * The invoiced quantity has left stock, so the order's hold on it is converted.
+     * Once the order is fully invoiced any leftover hold is released.
+     */
+    private void convertReservations(Invoice invoice, SalesOrder salesOrder) {
+        List<StockReservationLineDto> lines = invoice.getItems().stream()
+                .map(item -> StockReservationLineDto.builder()
+                        .referenceLineId(item.getSoItemId())
+                        .itemId(item.getItemId())
+                        .quantity(item.getQuantity())
+                        .build())
+                .toList();
+        stockReservationService.convert(salesOrder.getId(), lines);
+
+        if (salesOrder.getStatus() == SalesOrderStatus.FULLY_INVOICED) {
+            stockReservationService.release(salesOrder.getId());
+        }
+    }
+
+    /**
+     * Posts one stock movement per invoice line in a single batched call.
+     * For OUT the batches actually consumed are written back onto the lines;
+     * IN reverts the lines against the batches they consumed.
+     */
+    private void postStockAndRecordBatches(Invoice invoice, List<InvoiceItem> items, MovementType type) {
+        List<StockUpdateDto> movements = new ArrayList<>(items.size());
+        for (InvoiceItem item : items) {
+            movements.add(StockUpdateDto.builder()
+                    .itemId(item.getItemId())
+                    .warehouseId(invoice.getWarehouseId())
+                    .quantity(item.getQuantity())
+                    .transactionType(type)
+                    .referenceType(ReferenceType.SALE)
+                    .referenceId(invoice.getId())
+                    .batchNumber(item.getBatchNumber())
+                    .reservationReferenceId(type == MovementType.OUT && invoice.getSalesOrder() != null
+                            ? invoice.getSalesOrder().getId() : null)
+                    .build());
+        }
+
+        List<StockPostingResult> postings = stockService.postMovements(movements);
+
+        if (type == MovementType.OUT) {
+            for (int i = 0; i < items.size(); i++) {
+                String consumedBatch = postings.get(i).getBatchNumber();
+                if (consumedBatch != null) {
+                    items.get(i).setBatchNumber(consumedBatch);
+                }
+            }
+        }
+    }
+
+    private static FilterSpecification<Invoice> invoiceFilter(Long tenantId, InvoiceFilter filter) {
+        return FilterSpecification.<Invoice>forTenant(tenantId)
+                .equal("id", filter.getId())
+                .equal("salesOrder.id", filter.getSalesOrderId())
+                .in("status", filter.getInvStatuses())
+                .in("paymentStatus", filter.getPaymentStatus())
+                .equal("customerId", filter.getCustomerId())
+                .equal("warehouseId", filter.getWarehouseId())
+                .createdBetween(filter.getStartDateTime(), filter.getEndDateTime())
+                .search(filter.getSearchQuery(), "invoiceNumber", "remarks");
     }
 
     private InvoiceDto mapToDto(Invoice invoice, Map<Long, UserMiniDto> customerMap, boolean includeContact) {
@@ -437,192 +492,4 @@ public class InvoiceServiceImpl implements InvoiceService {
                 .items(itemDtos)
                 .build();
     }
-
-    /**
-     * THE UNIFIED FINANCIAL PIPELINE
-     * 1. Maps DTO items to Entities
-     * 2. Calculates Line Level Math (Rate -> Amount)
-     * 3. Aggregates Item Totals
-     * 4. Calculates Header Level Math (Flat Adjustments)
-     */
-    private void processAndCalculateFinancials(Invoice invoice, InvoiceDto dto) {
-        BigDecimal itemGrossTotal = BigDecimal.ZERO;
-        BigDecimal itemTotalDiscount = BigDecimal.ZERO;
-        BigDecimal itemTotalTax = BigDecimal.ZERO;
-
-        if (dto.getItems() != null) {
-            for (InvoiceItemDto itemDto : dto.getItems()) {
-
-                // A. Validate & Fetch Master Data
-                SalesOrderItem soItem = invoice.getSalesOrder().getItems().stream()
-                        .filter(item -> item.getId().equals(itemDto.getSoItemId()))
-                        .findFirst()
-                        .orElseThrow(() -> new BadRequestException("Invalid SO Line Item ID"));
-
-                Item itemMaster = itemRepository.findById(itemDto.getItemId())
-                        .orElseThrow(() -> new CommonException("Item not found", HttpStatus.NOT_FOUND));
-
-
-                // B. Line Calculations
-                BigDecimal qty = BigDecimal.valueOf(itemDto.getQuantity());
-                BigDecimal price = itemDto.getUnitPrice() != null ? itemDto.getUnitPrice() : soItem.getUnitPrice();
-
-                // Gross
-                BigDecimal grossPrice = price.multiply(qty);
-
-                // Discount (Rate -> Amount)
-                BigDecimal discRate = itemDto.getDiscountRate() != null ? itemDto.getDiscountRate() : BigDecimal.ZERO;
-                BigDecimal discAmt = grossPrice.multiply(discRate).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
-
-                // Tax (Rate -> Amount on Taxable Value)
-                BigDecimal taxableValue = grossPrice.subtract(discAmt);
-                BigDecimal taxRate = itemDto.getTaxRate() != null ? itemDto.getTaxRate() : BigDecimal.ZERO;
-                BigDecimal taxAmt = taxableValue.multiply(taxRate).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
-
-                // Line Total
-                BigDecimal lineTotal = taxableValue.add(taxAmt);
-
-                // C. Build Entity
-                InvoiceItem invItem = new InvoiceItem();
-                invItem.setInvoice(invoice);
-                invItem.setSoItemId(soItem.getId());
-                invItem.setItemId(itemMaster.getId());
-                invItem.setItemName(itemMaster.getName());
-                invItem.setSku(itemMaster.getSku());
-                invItem.setBatchNumber(itemDto.getBatchNumber()); // User can override batch
-
-                // Financials (AbstractFinancialLine)
-                invItem.setQuantity(itemDto.getQuantity());
-                invItem.setUnitPrice(price);
-                invItem.setDiscountRate(discRate);
-                invItem.setDiscountAmount(discAmt);
-                invItem.setTaxRate(taxRate);
-                invItem.setTaxAmount(taxAmt);
-                invItem.setLineTotal(lineTotal);
-
-                invoice.getItems().add(invItem);
-                soItem.setInvoicedQty(soItem.getInvoicedQty() + itemDto.getQuantity());
-
-                // Accumulate
-                itemGrossTotal = itemGrossTotal.add(grossPrice);
-                itemTotalDiscount = itemTotalDiscount.add(discAmt);
-                itemTotalTax = itemTotalTax.add(taxAmt);
-            }
-        }
-
-        // Set Aggregates
-        invoice.setItemGrossTotal(itemGrossTotal);
-        invoice.setItemTotalDiscount(itemTotalDiscount);
-        invoice.setItemTotalTax(itemTotalTax);
-
-        // --- Header Level Flat Adjustments ---
-
-        // Base for flat calc is usually the sum of line totals (Net Bill)
-        BigDecimal lineSum = invoice.getItems().stream()
-                .map(InvoiceItem::getLineTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Flat Discount
-        BigDecimal flatDiscRate = dto.getFlatDiscountRate() != null ? dto.getFlatDiscountRate() : BigDecimal.ZERO;
-        BigDecimal flatDiscAmt = lineSum.multiply(flatDiscRate).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
-        invoice.setFlatDiscountRate(flatDiscRate);
-        invoice.setFlatDiscountAmount(flatDiscAmt);
-
-        // Flat Tax (on discounted bill)
-        BigDecimal discountedBill = lineSum.subtract(flatDiscAmt);
-        BigDecimal flatTaxRate = dto.getFlatTaxRate() != null ? dto.getFlatTaxRate() : BigDecimal.ZERO;
-        BigDecimal flatTaxAmt = discountedBill.multiply(flatTaxRate).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
-        invoice.setFlatTaxRate(flatTaxRate);
-        invoice.setFlatTaxAmount(flatTaxAmt);
-
-        // Grand Total
-        BigDecimal grandTotal = discountedBill.add(flatTaxAmt);
-        invoice.setGrandTotal(grandTotal.max(BigDecimal.ZERO));
-
-        // Initial Balance is full amount
-        if (invoice.getId() == null) {
-            invoice.setBalance(invoice.getGrandTotal());
-            invoice.setAmountPaid(BigDecimal.ZERO);
-        }
-    }
-
-
-    /**
-     * RESTORED: Get or Auto-Create Sales Order Logic
-     * Updated to support the new Rate/Amount structure.
-     */
-    private SalesOrder getOrCreateSalesOrder(InvoiceDto dto, Long tenantId) {
-        // Scenario 1: Invoice generated from existing SO
-        if (dto.getSalesOrderId() != null) {
-            SalesOrder so = salesOrderRepository.findByIdAndTenantId(dto.getSalesOrderId(), tenantId)
-                    .orElseThrow(() -> new CommonException("Sales order not found", HttpStatus.NOT_FOUND));
-
-            if (so.getStatus() == SalesOrderStatus.FULLY_INVOICED || so.getStatus() == SalesOrderStatus.CANCELLED) {
-                throw new BadRequestException("Sales Order is already completed or cancelled");
-            }
-            return so;
-        }
-
-        // Scenario 2: Direct Invoice (Creates an SO behind the scenes)
-        if (dto.getWarehouseId() == null) {
-            throw new BadRequestException("Warehouse ID is required for direct invoices");
-        }
-
-        // A. Create Header (Using Setters to match inheritance)
-        SalesOrder newSo = new SalesOrder();
-        newSo.setTenantId(tenantId);
-        newSo.setWarehouseId(dto.getWarehouseId());
-        newSo.setCustomerId(dto.getCustomerId());
-        newSo.setOrderNumber(DocumentNumberUtil.generate(DocPrefix.SO));
-        newSo.setOrderDate(new Date());
-        newSo.setStatus(SalesOrderStatus.CREATED);
-        newSo.setSource(SalesOrderSource.DIRECT_SALES);
-        newSo.setRemarks("Auto-generated from Direct Invoice");
-        newSo.setItems(new ArrayList<>());
-
-        BigDecimal grossTotal = BigDecimal.ZERO;
-
-        for (InvoiceItemDto itemDto : dto.getItems()) {
-            Item itemMaster = itemRepository.findById(itemDto.getItemId())
-                    .orElseThrow(() -> new CommonException("Item not found", HttpStatus.NOT_FOUND));
-
-            BigDecimal price = itemDto.getUnitPrice() != null ? itemDto.getUnitPrice() : itemMaster.getSellingPrice();
-            BigDecimal lineGross = price.multiply(BigDecimal.valueOf(itemDto.getQuantity()));
-
-            // Build Item via Setters
-            SalesOrderItem soItem = new SalesOrderItem();
-            soItem.setSalesOrder(newSo);
-            soItem.setItemId(itemMaster.getId());
-            soItem.setItemName(itemMaster.getName());
-            soItem.setOrderedQty(itemDto.getQuantity());
-            soItem.setQuantity(itemDto.getQuantity());
-            soItem.setInvoicedQty(0);
-
-            // Financials
-            soItem.setQuantity(itemDto.getQuantity());
-            soItem.setUnitPrice(price);
-            soItem.setDiscountRate(itemDto.getDiscountRate() != null ? itemDto.getDiscountRate() : BigDecimal.ZERO);
-            soItem.setTaxRate(itemDto.getTaxRate() != null ? itemDto.getTaxRate() : BigDecimal.ZERO);
-
-            // Simplified line total for direct SO creation (Real math runs in Invoice)
-            soItem.setLineTotal(lineGross);
-
-            newSo.getItems().add(soItem);
-            grossTotal = grossTotal.add(lineGross);
-        }
-
-        newSo.setItemGrossTotal(grossTotal);
-        newSo.setGrandTotal(grossTotal);
-
-        // Save to generate IDs
-        SalesOrder savedSo = salesOrderRepository.save(newSo);
-
-        // B. CRITICAL: Inject new SO Item IDs back into the DTO
-        // This ensures the Invoice logic can find the parent SO line.
-        for (int i = 0; i < savedSo.getItems().size(); i++) {
-            dto.getItems().get(i).setSoItemId(savedSo.getItems().get(i).getId());
-        }
-
-        return savedSo;
-    }
 }
@@ -8,6 +8,7 @@ import com.ezh.Inventory.sales.order.entity.SalesOrderStatus;
 import com.ezh.Inventory.sales.order.service.SalesOrderService;
 import com.ezh.Inventory.utils.common.CommonFilter;
 import com.ezh.Inventory.utils.common.CommonResponse;
+import com.ezh.Inventory.utils.common.CursorPage;
 import com.ezh.Inventory.utils.common.ResponseResource;
 import com.ezh.Inventory.utils.exception.CommonException;
 import lombok.AllArgsConstructor;
@@ -18,6 +19,7 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -58,6 +60,14 @@ public class SalesOrderController {
         return ResponseResource.success(HttpStatus.OK, response, "Sales Orders Fetched Successfully");
     }
 
+    @PostMapping(value = "/all/scroll", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseResource<CursorPage<SalesOrderDto>> scrollSalesOrders(@RequestParam(defaultValue = "20") Integer size,
+                                                                         @RequestBody SalesOrderFilter filter) throws CommonException {
+        log.info("Scrolling Sales Orders, size: {}", size);
+        CursorPage<SalesOrderDto> response = salesOrderService.scrollSalesOrders(filter, size);
+        return ResponseResource.success(HttpStatus.OK, response, "Sales Orders Fetched Successfully");
+    }
+
     @PostMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseResource<List<SalesOrderDto>> searchSalesOrders(@RequestBody SalesOrderFilter filter) throws CommonException {
         log.info("Fetching Sales Orders using filters with: {}", filter);
@@ -82,9 +92,9 @@ public class SalesOrderController {
 
 
     @PostMapping(value = "/bulk/download")
-    public ResponseEntity<byte[]> downloadSalesOrdersExcel(@RequestBody SalesOrderFilter filter) throws CommonException {
+    public ResponseEntity<StreamingResponseBody> downloadSalesOrdersExcel(@RequestBody SalesOrderFilter filter) throws CommonException {
         log.info("Downloading Sales Orders report in excel with filter: {}", filter);
-        byte[] response = salesOrderService.downloadSalesOrdersExcel(filter);
+        StreamingResponseBody response = salesOrderService.downloadSalesOrdersExcel(filter);
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=sales_orders.xlsx")
                 .contentType(MediaType.parseMediaType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet"))
@@ -0,0 +1,130 @@
+package com.ezh.Inventory.sales.order.repository;
+
+import com.ezh.Inventory.sales.order.entity.SalesOrderItem;
+import com.ezh.Inventory.sales.order.entity.SalesOrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.*;
+
+/**
+ * Set-based writes of sales-order lines during invoice posting. IDENTITY ids keep Hibernate from
+ * batching inserts, and dirty-checking the order's lines costs one UPDATE per line, so both go
+ * through JDBC on the connection of the surrounding transaction.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SalesOrderJdbcRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Inserts the lines of a new order in one batch. Ids are drawn from the table's sequence up
+     * front and set on the lines, so callers can reference them straight away.
+     */
+    public void insertItems(Long salesOrderId, List<SalesOrderItem> items) {
+        if (items.isEmpty()) return;
+
+        List<Long> ids = jdbcTemplate.queryForList("""
+                SELECT nextval(pg_get_serial_sequence('sales_order_item', 'id')) FROM generate_series(1, :count)
+                """, new MapSqlParameterSource("count", items.size()), Long.class);
+
+        SqlParameterSource[] params = new SqlParameterSource[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            SalesOrderItem item = items.get(i);
+            item.setId(ids.get(i));
+            item.setUuid(UUID.randomUUID().toString());
+            params[i] = new MapSqlParameterSource()
+                    .addValue("id", item.getId())
+                    .addValue("uuid", item.getUuid())
+                    .addValue("salesOrderId", salesOrderId)
+                    .addValue("itemId", item.getItemId())
+                    .addValue("itemName", item.getItemName())
+                    .addValue("orderedQty", item.getOrderedQty())
+                    .addValue("invoicedQty", item.getInvoicedQty())
+                    .addValue("quantity", item.getQuantity())
+                    .addValue("unitPrice", item.getUnitPrice())
+                    .addValue("discountRate", item.getDiscountRate())
+                    .addValue("discountAmount", item.getDiscountAmount())
+                    .addValue("taxRate", item.getTaxRate())
+                    .addValue("taxAmount", item.getTaxAmount())
+                    .addValue("lineTotal", item.getLineTotal());
+        }
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO sales_order_item (id, uuid, created_at, updated_at, is_deleted, sales_order_id, item_id,
+                                              item_name, ordered_qty, invoiced_qty, quantity, unit_price, discount_rate,
+                                              discount_amount, tax_rate, tax_amount, line_total)
+                VALUES (:id, :uuid, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, false, :salesOrderId, :itemId,
+                        :itemName, :orderedQty, :invoicedQty, :quantity, :unitPrice, :discountRate,
+                        :discountAmount, :taxRate, :taxAmount, :lineTotal)
+                """, params);
+    }
+
+    /**
+     * Adds invoiced quantities to sales-order lines in one statement. The increment is applied
+     * in SQL, so concurrent invoices against the same order do not overwrite each other.
+     *
+     * @param invoicedBySoItemId quantity per sales-order line id, one entry per line
+     */
+    public void addInvoicedQuantities(Map<Long, Integer> invoicedBySoItemId) {
+        if (invoicedBySoItemId.isEmpty()) return;
+
+        List<Long> ids = new ArrayList<>(invoicedBySoItemId.size());
+        List<Integer> quantities = new ArrayList<>(invoicedBySoItemId.size());
+        invoicedBySoItemId.forEach((id, qty) -> {
+            ids.add(id);
+            quantities.add(qty);
+        });
+
+        jdbcTemplate.update("""
+                UPDATE sales_order_item soi
+                SET invoiced_qty = soi.invoiced_qty + u.qty, updated_at = CURRENT_TIMESTAMP
+                FROM unnest(CAST(:ids AS bigint[]), CAST(:quantities AS int[])) AS u(id, qty)
+                WHERE soi.id = u.id
+                """, new MapSqlParameterSource()
+                .addValue("ids", toPgArray(ids))
+                .addValue("quantities", toPgArray(quantities)));
+    }
+
+    /**
+     * Derives each order's invoicing status from its lines and stores it: fully invoiced when
+     * every line is, partially when any line has been invoiced, otherwise pending.
+     *
+     * @return the stored status by sales-order id
+     */
+    public Map<Long, SalesOrderStatus> refreshInvoicingStatus(Collection<Long> salesOrderIds) {
+        Map<Long, SalesOrderStatus> statuses = new HashMap<>();
+        if (salesOrderIds.isEmpty()) return statuses;
+
+        jdbcTemplate.query("""
+                UPDATE sales_order so
+                SET status = CASE
+                        WHEN t.all_invoiced THEN 'FULLY_INVOICED'
+                        WHEN t.any_invoiced THEN 'PARTIALLY_INVOICED'
+                        ELSE 'PENDING' END,
+                    updated_at = CURRENT_TIMESTAMP
+                FROM (SELECT sales_order_id,
+                             bool_and(invoiced_qty >= ordered_qty) AS all_invoiced,
+                             bool_or(invoiced_qty > 0) AS any_invoiced
+                      FROM sales_order_item
+                      WHERE sales_order_id = ANY(CAST(:ids AS bigint[]))
+                      GROUP BY sales_order_id) t
+                WHERE so.id = t.sales_order_id
+                RETURNING so.id, so.status
+                """, new MapSqlParameterSource("ids", toPgArray(new ArrayList<>(salesOrderIds))),
+                rs -> {
+                    statuses.put(rs.getLong("id"), SalesOrderStatus.valueOf(rs.getString("status")));
+                });
+        return statuses;
+    }
+
+    private static String toPgArray(List<?> values) {
+        StringJoiner joiner = new StringJoiner(",", "{", "}");
+        values.forEach(v -> joiner.add(String.valueOf(v)));
+        return joiner.toString();
+    }
+}
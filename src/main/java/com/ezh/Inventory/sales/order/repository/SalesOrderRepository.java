@@ -5,76 +5,41 @@ import com.ezh.Inventory.sales.order.dto.SalesOrderStats;
 import com.ezh.Inventory.sales.order.entity.SalesOrder;
 import com.ezh.Inventory.sales.order.entity.SalesOrderSource;
 import com.ezh.Inventory.sales.order.entity.SalesOrderStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface SalesOrderRepository extends JpaRepository<SalesOrder, Long> {
+public interface SalesOrderRepository extends JpaRepository<SalesOrder, Long>, JpaSpecificationExecutor<SalesOrder> {
 
     Optional<SalesOrder> findByIdAndTenantId(Long id, Long tenantId);
 
-    Optional<SalesOrder> findByOrderNumberAndTenantId(String OrderNumber, Long tenantId);
-
-    Page<SalesOrder> findByTenantId(Long tenantId, Pageable pageable);
+    // Stock lock keys, read before the document's transaction opens
+    @Query("SELECT so.warehouseId FROM SalesOrder so WHERE so.id = :id AND so.tenantId = :tenantId")
+    Optional<Long> findWarehouseId(@Param("id") Long id, @Param("tenantId") Long tenantId);
 
-    @Query("""
-            SELECT so FROM SalesOrder so
-            WHERE so.tenantId = :tenantId
-              AND (:id IS NULL OR so.id = :id)
-              AND (:soNumber IS NULL OR so.orderNumber = :soNumber)
-              AND (:statuses IS NULL OR so.status IN :statuses)
-              AND (:customerId IS NULL OR so.customerId = :customerId)
-              AND (:warehouseId IS NULL OR so.warehouseId = :warehouseId)
-            """)
-    List<SalesOrder> getAllSalesOrders(
-            @Param("tenantId") Long tenantId,
-            @Param("id") Long id,
-            @Param("soNumber") String soNumber,
-            @Param("statuses") List<SalesOrderStatus> statuses,
-            @Param("customerId") Long customerId,
-            @Param("warehouseId") Long warehouseId
-    );
+    @Query("SELECT i.itemId FROM SalesOrderItem i WHERE i.salesOrder.id = :id")
+    List<Long> findItemIds(@Param("id") Long id);
 
+    Optional<SalesOrder> findByOrderNumberAndTenantId(String OrderNumber, Long tenantId);
 
-    @Query("""
-            SELECT so FROM SalesOrder so
-            WHERE so.tenantId = :tenantId
-              AND (:id IS NULL OR so.id = :id)
-              AND (:statuses IS NULL OR so.status IN :statuses)
-              AND (:sources IS NULL OR so.source IN :sources)
-              AND (:customerId IS NULL OR so.customerId = :customerId)
-              AND (:warehouseId IS NULL OR so.warehouseId = :warehouseId)
-              AND (
-                    (CAST(:fromDate AS timestamp) IS NULL OR so.createdAt >= :fromDate)
-                    AND (CAST(:toDate AS timestamp) IS NULL OR so.createdAt <= :toDate)
-                  )
-              AND (
-                    CAST(:searchQuery AS string) IS NULL
-                    OR LOWER(so.orderNumber) LIKE LOWER(CONCAT('%', CAST(:searchQuery AS string), '%'))
-                    OR LOWER(so.remarks) LIKE LOWER(CONCAT('%', CAST(:searchQuery AS string), '%'))
-                  )
-            """)
-    Page<SalesOrder> getAllSalesOrders(
-            @Param("tenantId") Long tenantId,
-            @Param("id") Long id,
-            @Param("statuses") List<SalesOrderStatus> statuses,
-            @Param("sources") List<SalesOrderSource> sources,
-            @Param("customerId") Long customerId,
-            @Param("warehouseId") Long warehouseId,
-            @Param("searchQuery") String searchQuery,
-            @Param("fromDate") LocalDateTime fromDate,
-            @Param("toDate") LocalDateTime toDate,
-            Pageable pageable
-    );
+    Page<SalesOrder> findByTenantId(Long tenantId, Pageable pageable);
 
+    // Lists and scrolls filter through FilterSpecification; exports keep a static query for the fetch-size hint
     @Query("""
             SELECT so FROM SalesOrder so
             WHERE so.tenantId = :tenantId
@@ -92,8 +57,10 @@ public interface SalesOrderRepository extends JpaRepository<SalesOrder, Long> {
                     OR LOWER(so.orderNumber) LIKE LOWER(CONCAT('%', CAST(:searchQuery AS string), '%'))
                     OR LOWER(so.remarks) LIKE LOWER(CONCAT('%', CAST(:searchQuery AS string), '%'))
                   )
+            ORDER BY so.createdAt DESC, so.id DESC
             """)
-    List<SalesOrder> getAllSalesOrders(
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<SalesOrder> streamSalesOrdersForExport(
             @Param("tenantId") Long tenantId,
             @Param("id") Long id,
             @Param("statuses") List<SalesOrderStatus> statuses,
@@ -105,70 +72,72 @@ public interface SalesOrderRepository extends JpaRepository<SalesOrder, Long> {
             @Param("toDate") LocalDateTime toDate
     );
 
+    // Dashboards read the sales_daily_rollup read model: one row per tenant, day, warehouse and customer
     @Query("""
             SELECT
-                COUNT(so) AS totalSalesOrders,
-                COUNT(CASE WHEN so.status IN ('PARTIALLY_INVOICED', 'FULLY_INVOICED') THEN 1 END) AS convertedToInvoice
-            FROM SalesOrder so
-            WHERE so.tenantId = :tenantId
-              AND (:customerId IS NULL OR so.customerId = :customerId)
-              AND (:warehouseId IS NULL OR so.warehouseId = :warehouseId)
-              AND (CAST(:fromDate AS timestamp) IS NULL OR so.createdAt >= :fromDate)
-              AND (CAST(:toDate AS timestamp) IS NULL OR so.createdAt <= :toDate)
+                COALESCE(SUM(r.soCount), 0) AS totalSalesOrders,
+                COALESCE(SUM(r.soConvertedCount), 0) AS convertedToInvoice
+            FROM SalesDailyRollup r
+            WHERE r.tenantId = :tenantId
+              AND (:customerId IS NULL OR r.customerId = :customerId)
+              AND (:warehouseId IS NULL OR r.warehouseId = :warehouseId)
+              AND (CAST(:fromDate AS date) IS NULL OR r.reportDate >= :fromDate)
+              AND (CAST(:toDate AS date) IS NULL OR r.reportDate <= :toDate)
             """)
     SalesConversionCountProjection countSalesOrderConversion(
             @Param("tenantId") Long tenantId,
             @Param("customerId") Long customerId,
             @Param("warehouseId") Long warehouseId,
-            @Param("fromDate") LocalDateTime fromDate,
-            @Param("toDate") LocalDateTime toDate
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate
     );
 
     @Query("""
             SELECT
-                FUNCTION('DATE', so.createdAt) AS reportDate,
-                COUNT(so) AS totalSalesOrders,
-                COUNT(CASE WHEN so.status IN ('PARTIALLY_INVOICED', 'FULLY_INVOICED') THEN 1 END) AS convertedToInvoice,
-                SUM(so.grandTotal) AS totalSalesValue,
-                SUM(CASE WHEN so.status IN ('PARTIALLY_INVOICED', 'FULLY_INVOICED') THEN so.grandTotal ELSE 0 END) AS convertedSalesValue,
-                COUNT(CASE WHEN so.status = 'PENDING_APPROVAL' THEN 1 END) AS pendingApprovalCount,
-                COUNT(CASE WHEN so.status IN ('CANCELLED', 'REJECTED') THEN 1 END) AS cancelledRejectedCount
-            FROM SalesOrder so
-            WHERE so.tenantId = :tenantId
-              AND (:customerId IS NULL OR so.customerId = :customerId)
-              AND (:warehouseId IS NULL OR so.warehouseId = :warehouseId)
-              AND (CAST(:fromDate AS timestamp) IS NULL OR so.createdAt >= :fromDate)
-              AND (CAST(:toDate AS timestamp) IS NULL OR so.createdAt <= :toDate)
-            GROUP BY FUNCTION('DATE', so.createdAt)
-            ORDER BY FUNCTION('DATE', so.createdAt)
+                r.reportDate AS reportDate,
+                SUM(r.soCount) AS totalSalesOrders,
+                SUM(r.soConvertedCount) AS convertedToInvoice,
+                SUM(r.soValue) AS totalSalesValue,
+                SUM(r.soConvertedValue) AS convertedSalesValue,
+                SUM(r.soPendingApprovalCount) AS pendingApprovalCount,
+                SUM(r.soCancelledCount) AS cancelledRejectedCount
+            FROM SalesDailyRollup r
+            WHERE r.tenantId = :tenantId
+              AND (:customerId IS NULL OR r.customerId = :customerId)
+              AND (:warehouseId IS NULL OR r.warehouseId = :warehouseId)
+              AND (CAST(:fromDate AS date) IS NULL OR r.reportDate >= :fromDate)
+              AND (CAST(:toDate AS date) IS NULL OR r.reportDate <= :toDate)
+            GROUP BY r.reportDate
+            HAVING SUM(r.soCount) > 0
+            ORDER BY r.reportDate
             """)
     List<SalesConversionDateProjection> getSalesOrderConversionReport(
             @Param("tenantId") Long tenantId,
             @Param("customerId") Long customerId,
             @Param("warehouseId") Long warehouseId,
-            @Param("fromDate") LocalDateTime fromDate,
-            @Param("toDate") LocalDateTime toDate
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate
     );
 
 
     @Query("""
-            SELECT 
-                COALESCE(SUM(so.grandTotal), 0) AS totalValue,
-                COALESCE(SUM(CASE WHEN so.status IN ('PARTIALLY_INVOICED', 'FULLY_INVOICED') THEN so.grandTotal ELSE 0 END), 0) AS convertedSalesValue,
-                COUNT(so) AS totalSalesOrders,
-                COUNT(CASE WHEN so.status IN ('PARTIALLY_INVOICED', 'FULLY_INVOICED') THEN 1 END) AS convertedToInvoiceCount,
-                COUNT(CASE WHEN so.status = 'CONFIRMED' THEN 1 END) AS confirmedCount,
-                COUNT(CASE WHEN so.status = 'PENDING_APPROVAL' THEN 1 END) AS pendingApprovalCount,
-                COUNT(CASE WHEN so.status IN ('CANCELLED', 'REJECTED') THEN 1 END) AS cancelledCount
-            FROM SalesOrder so
-            WHERE so.tenantId = :tenantId
-              AND (CAST(:fromDate AS timestamp) IS NULL OR so.createdAt >= :fromDate)
-              AND (CAST(:toDate AS timestamp) IS NULL OR so.createdAt <= :toDate)
+            SELECT
+                COALESCE(SUM(r.soValue), 0) AS totalValue,
+                COALESCE(SUM(r.soConvertedValue), 0) AS convertedSalesValue,
+                COALESCE(SUM(r.soCount), 0) AS totalSalesOrders,
+                COALESCE(SUM(r.soConvertedCount), 0) AS convertedToInvoiceCount,
+                COALESCE(SUM(r.soConfirmedCount), 0) AS confirmedCount,
+                COALESCE(SUM(r.soPendingApprovalCount), 0) AS pendingApprovalCount,
+                COALESCE(SUM(r.soCancelledCount), 0) AS cancelledCount
+            FROM SalesDailyRollup r
+            WHERE r.tenantId = :tenantId
+              AND (CAST(:fromDate AS date) IS NULL OR r.reportDate >= :fromDate)
+              AND (CAST(:toDate AS date) IS NULL OR r.reportDate <= :toDate)
             """)
     SalesOrderStats getDashboardStats(
             @Param("tenantId") Long tenantId,
-            @Param("fromDate") LocalDateTime fromDate,
-            @Param("toDate") LocalDateTime toDate
+            @Param("fromDate") LocalDate fromDate,
+            @Param("toDate") LocalDate toDate
     );
 
 }
@@ -7,8 +7,10 @@ import com.ezh.Inventory.sales.order.dto.SalesOrderStats;
 import com.ezh.Inventory.sales.order.entity.SalesOrderStatus;
 import com.ezh.Inventory.utils.common.CommonFilter;
 import com.ezh.Inventory.utils.common.CommonResponse;
+import com.ezh.Inventory.utils.common.CursorPage;
 import com.ezh.Inventory.utils.exception.CommonException;
 import org.springframework.data.domain.Page;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -24,11 +26,13 @@ public interface SalesOrderService {
 
     Page<SalesOrderDto> getAllSalesOrders(SalesOrderFilter filter, int page, int size) throws CommonException;
 
+    CursorPage<SalesOrderDto> scrollSalesOrders(SalesOrderFilter filter, int size) throws CommonException;
+
     List<SalesOrderDto> getAllSalesOrders(SalesOrderFilter filter) throws CommonException;
 
     SalesOrderStats getStats(CommonFilter filter) throws CommonException;
 
-    byte[] downloadSalesOrdersExcel(SalesOrderFilter filter) throws CommonException;
+    StreamingResponseBody downloadSalesOrdersExcel(SalesOrderFilter filter) throws CommonException;
 
     List<SalesConversionReportDto> getSalesOrderConversionReport(CommonFilter filter) throws CommonException;
 
@@ -15,27 +15,39 @@ import com.ezh.Inventory.sales.order.entity.SalesOrderStatus;
 import com.ezh.Inventory.sales.order.repository.SalesConversionDateProjection;
 import com.ezh.Inventory.sales.order.repository.SalesOrderRepository;
 import com.ezh.Inventory.sales.order.utils.SalesOrderExportUtils;
+import com.ezh.Inventory.sales.rollup.service.SalesRollupAggregator;
 import com.ezh.Inventory.security.UserContext;
+import com.ezh.Inventory.stock.dto.StockReservationLineDto;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
+import com.ezh.Inventory.stock.service.StockLockManager;
+import com.ezh.Inventory.stock.service.StockReservationService;
+import com.ezh.Inventory.utils.DocumentFinancialCalculator;
 import com.ezh.Inventory.utils.UserContextUtil;
 import com.ezh.Inventory.utils.common.CommonFilter;
 import com.ezh.Inventory.utils.common.CommonResponse;
+import com.ezh.Inventory.utils.common.CursorPage;
 import com.ezh.Inventory.utils.common.DocPrefix;
 import com.ezh.Inventory.utils.common.DocumentNumberUtil;
+import com.ezh.Inventory.utils.common.FilterSpecification;
+import com.ezh.Inventory.utils.common.KeysetCursor;
 import com.ezh.Inventory.utils.common.client.AuthServiceClient;
 import com.ezh.Inventory.utils.common.dto.UserMiniDto;
 import com.ezh.Inventory.utils.common.events.ApprovalDecisionEvent;
 import com.ezh.Inventory.utils.exception.BadRequestException;
 import com.ezh.Inventory.utils.exception.CommonException;
+import com.ezh.Inventory.utils.export.ExportFormat;
+import com.ezh.Inventory.utils.export.StreamingExporter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
@@ -52,12 +64,21 @@ public class SalesOrderServiceImpl implements SalesOrderService {
     private final ApprovalService approvalService;
     private final AuthServiceClient authServiceClient;
     private final UserContext userContext;
+    private final StockReservationService stockReservationService;
+    private final StreamingExporter streamingExporter;
+    private final SalesRollupAggregator salesRollupAggregator;
+    private final StockLockManager stockLockManager;
+    private final TransactionTemplate transactionTemplate;
 
+    // Not @Transactional: the item locks are taken first, then the transaction is opened
     @Override
-    @Transactional
     public CommonResponse<?> createSalesOrder(SalesOrderDto dto) throws CommonException {
         Long tenantId = UserContextUtil.getTenantIdOrThrow();
+        return stockLockManager.withLocks(tenantId, stockKeys(dto),
+                () -> transactionTemplate.execute(status -> applyCreateSalesOrder(tenantId, dto)));
+    }
 
+    private CommonResponse<?> applyCreateSalesOrder(Long tenantId, SalesOrderDto dto) {
         //Initialize Header
         SalesOrder salesOrder = new SalesOrder();
         salesOrder.setTenantId(tenantId);
@@ -107,6 +128,12 @@ public class SalesOrderServiceImpl implements SalesOrderService {
         }
 
         salesOrderRepository.save(salesOrder);
+        salesRollupAggregator.recordSalesOrder(salesOrder);
+
+        // Confirmed orders hold their stock until invoiced
+        if (salesOrder.getStatus() == SalesOrderStatus.CONFIRMED) {
+            reserveStock(salesOrder);
+        }
 
         return CommonResponse.builder()
                 .id(salesOrder.getId().toString())
@@ -114,11 +141,15 @@ public class SalesOrderServiceImpl implements SalesOrderService {
                 .build();
     }
 
+    // Not @Transactional: the item locks are taken first, then the transaction is opened
     @Override
-    @Transactional
     public CommonResponse<?> updateSalesOrder(Long id, SalesOrderDto dto) throws CommonException {
         Long tenantId = UserContextUtil.getTenantIdOrThrow();
+        return stockLockManager.withLocks(tenantId, stockKeys(dto),
+                () -> transactionTemplate.execute(status -> applySalesOrderUpdate(tenantId, id, dto)));
+    }
 
+    private CommonResponse<?> applySalesOrderUpdate(Long tenantId, Long id, SalesOrderDto dto) {
         SalesOrder salesOrder = salesOrderRepository.findByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new CommonException("Sales Order not found", HttpStatus.NOT_FOUND));
 
@@ -133,6 +164,8 @@ public class SalesOrderServiceImpl implements SalesOrderService {
             throw new BadRequestException("Cannot edit Sales Order when status is: " + salesOrder.getStatus());
         }
 
+        // Before the warehouse or customer changes, so the rollup row it leaves is recomputed too
+        salesRollupAggregator.recordSalesOrder(salesOrder);
         salesOrder.setWarehouseId(dto.getWarehouseId());
         salesOrder.setCustomerId(dto.getCustomerId());
         salesOrder.setRemarks(dto.getRemarks());
@@ -142,6 +175,13 @@ public class SalesOrderServiceImpl implements SalesOrderService {
         processAndCalculateFinancials(salesOrder, dto);
 
         salesOrderRepository.save(salesOrder);
+        salesRollupAggregator.recordSalesOrder(salesOrder);
+
+        // Lines or warehouse may have changed: swap the old hold for a fresh one
+        if (salesOrder.getStatus() == SalesOrderStatus.CONFIRMED) {
+            stockReservationService.release(salesOrder.getId());
+            reserveStock(salesOrder);
+        }
 
         return CommonResponse.builder()
                 .id(salesOrder.getId().toString())
@@ -166,11 +206,8 @@ public class SalesOrderServiceImpl implements SalesOrderService {
     @Transactional(readOnly = true)
     public Page<SalesOrderDto> getAllSalesOrders(SalesOrderFilter filter, int page, int size) {
         Long tenantId = UserContextUtil.getTenantIdOrThrow();
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-        Page<SalesOrder> result = salesOrderRepository.getAllSalesOrders(
-                tenantId, filter.getId(), filter.getSoStatuses(), filter.getSoSource(), filter.getCustomerId(),
-                filter.getWarehouseId(), filter.getSearchQuery(), filter.getStartDateTime(),
-                filter.getEndDateTime(), pageable);
+        Pageable pageable = PageRequest.of(page, size, FilterSpecification.NEWEST_FIRST);
+        Page<SalesOrder> result = salesOrderRepository.findAll(salesOrderFilter(tenantId, filter).build(), pageable);
 
         // 1. Collect all unique Customer IDs from the page
         Set<Long> customerIds = result.getContent().stream()
@@ -188,19 +225,42 @@ public class SalesOrderServiceImpl implements SalesOrderService {
         return result.map(so -> mapToDto(so, customerMapLookup, true));
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<SalesOrderDto> scrollSalesOrders(SalesOrderFilter filter, int size) {
+        int pageSize = CursorPage.clampSize(size);
+        Long tenantId = UserContextUtil.getTenantIdOrThrow();
+        KeysetCursor cursor = filter.getKeysetCursor();
+
+        FilterSpecification<SalesOrder> spec = salesOrderFilter(tenantId, filter);
+        Long total = filter.isTotalRequested() ? salesOrderRepository.count(spec.build()) : null;
+
+        List<SalesOrder> orders = salesOrderRepository.findBy(spec.after(cursor).build(),
+                query -> query.sortBy(FilterSpecification.NEWEST_FIRST).limit(pageSize + 1).all());
+
+        Set<Long> customerIds = orders.stream()
+                .map(SalesOrder::getCustomerId)
+                .collect(Collectors.toSet());
+        Map<Long, UserMiniDto> customerMap = customerIds.isEmpty()
+                ? new HashMap<>()
+                : authServiceClient.getBulkUserDetails(new ArrayList<>(customerIds));
+
+        return CursorPage.of(orders, pageSize, SalesOrder::getCreatedAt, SalesOrder::getId,
+                so -> mapToDto(so, customerMap, true), total);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public List<SalesOrderDto> getAllSalesOrders(SalesOrderFilter filter) throws CommonException {
         Long tenantId = UserContextUtil.getTenantIdOrThrow();
 
-        List<SalesOrder> orders = salesOrderRepository.getAllSalesOrders(
-                tenantId,
-                filter.getId(),
-                filter.getSoNumber(),
-                filter.getSoStatuses(),
-                filter.getCustomerId(),
-                filter.getWarehouseId()
-        );
+        List<SalesOrder> orders = salesOrderRepository.findAll(FilterSpecification.<SalesOrder>forTenant(tenantId)
+                .equal("id", filter.getId())
+                .equal("orderNumber", filter.getSoNumber())
+                .in("status", filter.getSoStatuses())
+                .equal("customerId", filter.getCustomerId())
+                .equal("warehouseId", filter.getWarehouseId())
+                .build());
 
         return orders.stream()
                 .map(so -> mapToDto(so, null, false))
@@ -215,31 +275,28 @@ public class SalesOrderServiceImpl implements SalesOrderService {
 
         return salesOrderRepository.getDashboardStats(
                 tenantId,
-                filter.getStartDateTime(),
-                filter.getEndDateTime()
+                filter.getFromDate(),
+                filter.getToDate()
         );
     }
 
 
     @Override
-    @Transactional(readOnly = true)
-    public byte[] downloadSalesOrdersExcel(SalesOrderFilter filter) throws CommonException {
+    public StreamingResponseBody downloadSalesOrdersExcel(SalesOrderFilter filter) throws CommonException {
         Long tenantId = UserContextUtil.getTenantIdOrThrow();
 
-        List<SalesOrder> orders = salesOrderRepository.getAllSalesOrders(
-                tenantId,
-                filter.getId(),
-                filter.getSoStatuses(),
-                filter.getSoSource(),
-                filter.getCustomerId(),
-                filter.getWarehouseId(),
-                filter.getSearchQuery(),
-                filter.getStartDateTime(),
-                filter.getEndDateTime()
-        );
-
-        List<SalesOrderExcelRowDto> rows = orders.stream()
-                .map(so -> SalesOrderExcelRowDto.builder()
+        return streamingExporter.export(ExportFormat.XLSX, SalesOrderExportUtils.SHEET_NAME, SalesOrderExportUtils.COLUMNS,
+                () -> salesOrderRepository.streamSalesOrdersForExport(
+                        tenantId,
+                        filter.getId(),
+                        filter.getSoStatuses(),
+                        filter.getSoSource(),
+                        filter.getCustomerId(),
+                        filter.getWarehouseId(),
+                        filter.getSearchQuery(),
+                        filter.getStartDateTime(),
+                        filter.getEndDateTime()),
+                so -> SalesOrderExcelRowDto.builder()
                         .id(so.getId())
                         .orderNumber(so.getOrderNumber())
                         .orderDate(so.getOrderDate())
@@ -252,10 +309,7 @@ public class SalesOrderServiceImpl implements SalesOrderService {
                         .itemTotalTax(so.getItemTotalTax())
                         .grandTotal(so.getGrandTotal())
                         .remarks(so.getRemarks())
-                        .build())
-                .toList();
-
-        return SalesOrderExportUtils.toExcel(rows).readAllBytes();
+                        .build());
     }
 
     @Override
@@ -267,8 +321,8 @@ public class SalesOrderServiceImpl implements SalesOrderService {
                 tenantId,
                 null,
                 filter.getWarehouseId(),
-                filter.getStartDateTime(),
-                filter.getEndDateTime()
+                filter.getFromDate(),
+                filter.getToDate()
         );
 
         return projections.stream().map(projection -> {
@@ -296,11 +350,21 @@ public class SalesOrderServiceImpl implements SalesOrderService {
     }
 
 
+    // Not @Transactional: the item locks are taken first, then the transaction is opened
     @Override
-    @Transactional
     public CommonResponse<?> updateStatus(Long id, SalesOrderStatus newStatus) throws CommonException {
         Long tenantId = UserContextUtil.getTenantIdOrThrow();
 
+        // Only confirming reserves stock, for the order's own lines
+        Set<StockKey> keys = newStatus == SalesOrderStatus.CONFIRMED
+                ? StockKey.forItems(salesOrderRepository.findWarehouseId(id, tenantId).orElse(null),
+                salesOrderRepository.findItemIds(id))
+                : Set.of();
+        return stockLockManager.withLocks(tenantId, keys,
+                () -> transactionTemplate.execute(status -> applyStatus(tenantId, id, newStatus)));
+    }
+
+    private CommonResponse<?> applyStatus(Long tenantId, Long id, SalesOrderStatus newStatus) {
         SalesOrder so = salesOrderRepository.findByIdAndTenantId(id, tenantId)
                 .orElseThrow(() -> new CommonException("Order not found", HttpStatus.BAD_REQUEST));
 
@@ -333,6 +397,14 @@ public class SalesOrderServiceImpl implements SalesOrderService {
         so.setStatus(newStatus);
         so.setUpdatedBy(UserContextUtil.getUserUuid());
         salesOrderRepository.save(so);
+        salesRollupAggregator.recordSalesOrder(so);
+
+        // Keep the stock hold in line with the status
+        if (newStatus == SalesOrderStatus.CONFIRMED) {
+            reserveStock(so);
+        } else if (currentStatus == SalesOrderStatus.CONFIRMED) {
+            stockReservationService.release(so.getId());
+        }
 
         return CommonResponse.builder()
                 .message("Order status successfully updated to " + newStatus.name())
@@ -351,6 +423,11 @@ public class SalesOrderServiceImpl implements SalesOrderService {
         SalesOrder so = salesOrderRepository.findById(event.getReferenceId())
                 .orElseThrow(() -> new CommonException("Linked Sales Order not found", HttpStatus.NOT_FOUND));
 
+        // Decisions arrive through the outbox, possibly twice or after the order was cancelled
+        if (so.getStatus() != SalesOrderStatus.PENDING_APPROVAL) {
+            return;
+        }
+
         if (event.getStatus() == ApprovalStatus.APPROVED) {
             so.setStatus(SalesOrderStatus.PENDING);
         } else {
@@ -358,96 +435,82 @@ public class SalesOrderServiceImpl implements SalesOrderService {
         }
 
         salesOrderRepository.save(so);
+        salesRollupAggregator.recordSalesOrder(so);
+    }
+
+    // A confirmed order reserves its lines in the order's warehouse
+    private static Set<StockKey> stockKeys(SalesOrderDto dto) {
+        List<Long> itemIds = dto.getItems() != null
+                ? dto.getItems().stream().map(SalesOrderItemDto::getItemId).toList()
+                : List.of();
+        return StockKey.forItems(dto.getWarehouseId(), itemIds);
+    }
+
+    private void reserveStock(SalesOrder salesOrder) {
+        List<StockReservationLineDto> lines = salesOrder.getItems().stream()
+                .map(item -> StockReservationLineDto.builder()
+                        .referenceLineId(item.getId())
+                        .itemId(item.getItemId())
+                        .quantity(item.getOrderedQty() - (item.getInvoicedQty() != null ? item.getInvoicedQty() : 0))
+                        .build())
+                .toList();
+        stockReservationService.reserve(salesOrder.getId(), salesOrder.getWarehouseId(), lines);
     }
 
     /**
      * THE UNIFIED FINANCIAL PIPELINE
      * Calculates Item Level Math -> Aggregates -> Calculates Header Level Math
+     * (see {@link DocumentFinancialCalculator}). Item masters are resolved in one query.
      */
     private void processAndCalculateFinancials(SalesOrder salesOrder, SalesOrderDto dto) {
-        BigDecimal itemGrossTotal = BigDecimal.ZERO;
-        BigDecimal itemTotalDiscount = BigDecimal.ZERO;
-        BigDecimal itemTotalTax = BigDecimal.ZERO;
-
         if (salesOrder.getItems() == null) {
             salesOrder.setItems(new ArrayList<>());
         } else {
             salesOrder.getItems().clear(); // Clear for updates
         }
 
+        DocumentFinancialCalculator calculator = new DocumentFinancialCalculator();
+
         // --- 1. Process Line Items ---
-        if (dto.getItems() != null) {
+        if (dto.getItems() != null && !dto.getItems().isEmpty()) {
+            List<Long> itemIds = dto.getItems().stream().map(SalesOrderItemDto::getItemId).distinct().toList();
+            Map<Long, Item> itemsById = new HashMap<>();
+            for (Item item : itemRepository.findByIdIn(itemIds)) {
+                itemsById.put(item.getId(), item);
+            }
+
             for (SalesOrderItemDto itemDto : dto.getItems()) {
-                Item itemMaster = itemRepository.findById(itemDto.getItemId())
-                        .orElseThrow(() -> new CommonException("Item ID not found", HttpStatus.BAD_REQUEST));
+                Item itemMaster = itemsById.get(itemDto.getItemId());
+                if (itemMaster == null) {
+                    throw new CommonException("Item ID not found", HttpStatus.BAD_REQUEST);
+                }
 
-                BigDecimal qty = BigDecimal.valueOf(itemDto.getOrderedQty());
                 BigDecimal price = itemDto.getUnitPrice() != null ? itemDto.getUnitPrice() : itemMaster.getSellingPrice();
 
-                // Gross
-                BigDecimal grossPrice = price.multiply(qty);
-
-                // Item Discount
-                BigDecimal discRate = itemDto.getDiscountRate() != null ? itemDto.getDiscountRate() : BigDecimal.ZERO;
-                BigDecimal discAmt = grossPrice.multiply(discRate).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
-
-                // Item Tax (Applied to Taxable Value)
-                BigDecimal taxableValue = grossPrice.subtract(discAmt);
-                BigDecimal taxRate = itemDto.getTaxRate() != null ? itemDto.getTaxRate() : BigDecimal.ZERO;
-                BigDecimal taxAmt = taxableValue.multiply(taxRate).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
-
-                // Line Total
-                BigDecimal lineTotal = taxableValue.add(taxAmt);
-
-                // Create Item Entity
                 SalesOrderItem soItem = new SalesOrderItem();
                 soItem.setSalesOrder(salesOrder);
                 soItem.setItemId(itemMaster.getId());
                 soItem.setItemName(itemMaster.getName());
-                soItem.setQuantity(itemDto.getOrderedQty());
                 soItem.setOrderedQty(itemDto.getOrderedQty());
-                soItem.setUnitPrice(price);
-                soItem.setDiscountRate(discRate);
-                soItem.setDiscountAmount(discAmt);
-                soItem.setTaxRate(taxRate);
-                soItem.setTaxAmount(taxAmt);
-                soItem.setLineTotal(lineTotal);
+                calculator.addLine(soItem, price, itemDto.getOrderedQty(), itemDto.getDiscountRate(), itemDto.getTaxRate());
 
                 salesOrder.getItems().add(soItem);
-
-                // Accumulate totals
-                itemGrossTotal = itemGrossTotal.add(grossPrice);
-                itemTotalDiscount = itemTotalDiscount.add(discAmt);
-                itemTotalTax = itemTotalTax.add(taxAmt);
             }
         }
 
-        salesOrder.setItemGrossTotal(itemGrossTotal);
-        salesOrder.setItemTotalDiscount(itemTotalDiscount);
-        salesOrder.setItemTotalTax(itemTotalTax);
-
-        //Process Header (Flat) Adjustments
-
-        // Base line sum (Total of all item lineTotals)
-        BigDecimal lineSum = salesOrder.getItems().stream()
-                .map(SalesOrderItem::getLineTotal)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        // Flat Discount
-        BigDecimal flatDiscRate = dto.getFlatDiscountRate() != null ? dto.getFlatDiscountRate() : BigDecimal.ZERO;
-        BigDecimal flatDiscAmt = lineSum.multiply(flatDiscRate).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
-        salesOrder.setFlatDiscountRate(flatDiscRate);
-        salesOrder.setFlatDiscountAmount(flatDiscAmt);
-
-        // Flat Tax (Applied on the discounted bill)
-        BigDecimal discountedBill = lineSum.subtract(flatDiscAmt);
-        BigDecimal flatTaxRate = dto.getFlatTaxRate() != null ? dto.getFlatTaxRate() : BigDecimal.ZERO;
-        BigDecimal flatTaxAmt = discountedBill.multiply(flatTaxRate).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
-        salesOrder.setFlatTaxRate(flatTaxRate);
-        salesOrder.setFlatTaxAmount(flatTaxAmt);
+        // --- 2. Aggregates & Header (Flat) Adjustments ---
+        calculator.applyTo(salesOrder, dto.getFlatDiscountRate(), dto.getFlatTaxRate());
+    }
 
-        // Grand Total
-        salesOrder.setGrandTotal(discountedBill.add(flatTaxAmt));
+    private static FilterSpecification<SalesOrder> salesOrderFilter(Long tenantId, SalesOrderFilter filter) {
+        return FilterSpecification.<SalesOrder>forTenant(tenantId)
+                .equal("id", filter.getId())
+                .in("status", filter.getSoStatuses())
+                .in("source", filter.getSoSource())
+                .equal("customerId", filter.getCustomerId())
+                .equal("warehouseId", filter.getWarehouseId())
+                .createdBetween(filter.getStartDateTime(), filter.getEndDateTime())
+                .search(filter.getSearchQuery(), "orderNumber", "remarks");
     }
 
     private SalesOrderDto mapToDto(SalesOrder so, Map<Long, UserMiniDto> customerMap, boolean includeContact) {
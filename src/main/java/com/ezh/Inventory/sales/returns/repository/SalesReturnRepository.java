@@ -16,6 +16,13 @@ import java.util.Optional;
 public interface SalesReturnRepository extends JpaRepository<SalesReturn, Long> {
     Page<SalesReturn> findByTenantId(Long tenantId, Pageable pageable);
 
+    // Stock lock keys, read before the document's transaction opens
+    @Query("SELECT sr.invoice.warehouseId FROM SalesReturn sr WHERE sr.id = :id")
+    Optional<Long> findWarehouseId(@Param("id") Long id);
+
+    @Query("SELECT i.itemId FROM SalesReturnItem i WHERE i.salesReturn.id = :id")
+    List<Long> findItemIds(@Param("id") Long id);
+
     @Query("""
             SELECT sr FROM SalesReturn sr
             WHERE sr.tenantId = :tenantId
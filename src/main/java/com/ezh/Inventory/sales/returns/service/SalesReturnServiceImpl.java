@@ -5,6 +5,7 @@ import com.ezh.Inventory.approval.entity.ApprovalResultStatus;
 import com.ezh.Inventory.approval.entity.ApprovalStatus;
 import com.ezh.Inventory.approval.entity.ApprovalType;
 import com.ezh.Inventory.approval.service.ApprovalService;
+import com.ezh.Inventory.approval.service.ApprovalStockLocks;
 import com.ezh.Inventory.payment.service.CreditNoteService;
 import com.ezh.Inventory.sales.invoice.entity.Invoice;
 import com.ezh.Inventory.sales.invoice.entity.InvoiceItem;
@@ -22,8 +23,8 @@ import com.ezh.Inventory.sales.returns.repository.SalesReturnRepository;
 import com.ezh.Inventory.stock.dto.StockUpdateDto;
 import com.ezh.Inventory.stock.entity.MovementType;
 import com.ezh.Inventory.stock.entity.ReferenceType;
-import com.ezh.Inventory.stock.entity.StockBatch;
-import com.ezh.Inventory.stock.repository.StockBatchRepository;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
+import com.ezh.Inventory.stock.service.StockLockManager;
 import com.ezh.Inventory.stock.service.StockService;
 import com.ezh.Inventory.utils.UserContextUtil;
 import com.ezh.Inventory.utils.common.CommonResponse;
@@ -44,9 +45,11 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -57,23 +60,34 @@ import java.util.stream.Collectors;
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class SalesReturnServiceImpl implements SalesReturnService {
+public class SalesReturnServiceImpl implements SalesReturnService, ApprovalStockLocks {
 
     private final InvoiceRepository invoiceRepository;
     private final SalesReturnRepository salesReturnRepository;
     private final StockService stockService;
     private final PaymentService paymentService;
-    private final StockBatchRepository stockBatchRepository;
     private final AuthServiceClient authServiceClient;
     private final ApprovalService approvalService;
     private final CreditNoteService creditNoteService;
+    private final StockLockManager stockLockManager;
+    private final TransactionTemplate transactionTemplate;
 
+    // Not @Transactional: the item locks are taken first, then the transaction is opened
     @Override
-    @Transactional
     public CommonResponse<?> createSalesReturn(SalesReturnRequestDto request) {
 
         Long tenantId = UserContextUtil.getTenantIdOrThrow();
 
+        List<Long> itemIds = request.getItems() != null
+                ? request.getItems().stream().map(ReturnItemRequest::getItemId).toList()
+                : List.of();
+        Set<StockKey> keys = StockKey.forItems(invoiceRepository.findWarehouseId(request.getInvoiceId()).orElse(null),
+                itemIds);
+        return stockLockManager.withLocks(tenantId, keys,
+                () -> transactionTemplate.execute(status -> applyCreateSalesReturn(tenantId, request)));
+    }
+
+    private CommonResponse<?> applyCreateSalesReturn(Long tenantId, SalesReturnRequestDto request) {
         Invoice invoice = invoiceRepository.findById(request.getInvoiceId())
                 .orElseThrow(() -> new CommonException("Invoice not found", HttpStatus.NOT_FOUND));
 
@@ -204,6 +218,18 @@ public class SalesReturnServiceImpl implements SalesReturnService {
         return mapToDto(salesReturn, customerMap);
     }
 
+    @Override
+    public ApprovalType type() {
+        return ApprovalType.SALES_RETURN;
+    }
+
+    // An approved return puts its lines back into the invoice's warehouse
+    @Override
+    public Collection<StockKey> stockKeys(Long salesReturnId) {
+        return StockKey.forItems(salesReturnRepository.findWarehouseId(salesReturnId).orElse(null),
+                salesReturnRepository.findItemIds(salesReturnId));
+    }
+
     @EventListener
     @Transactional
     public void onApprovalDecision(ApprovalDecisionEvent event) {
@@ -214,6 +240,11 @@ public class SalesReturnServiceImpl implements SalesReturnService {
         SalesReturn salesReturn = salesReturnRepository.findById(event.getReferenceId())
                 .orElseThrow(() -> new CommonException("Linked Sales Return not found", HttpStatus.NOT_FOUND));
 
+        // Decisions arrive through the outbox, possibly twice
+        if (salesReturn.getStatus() != SalesReturnStatus.PENDING_APPROVAL) {
+            return;
+        }
+
         if (event.getStatus() == ApprovalStatus.APPROVED) {
             applyApprovedSalesReturn(salesReturn);
         } else {
@@ -228,6 +259,7 @@ public class SalesReturnServiceImpl implements SalesReturnService {
         }
 
         Invoice invoice = salesReturn.getInvoice();
+        List<StockUpdateDto> stockMovements = new ArrayList<>();
 
         for (SalesReturnItem returnItem : salesReturn.getItems()) {
             InvoiceItem originalSoldItem = resolveInvoiceItem(invoice,
@@ -249,12 +281,12 @@ public class SalesReturnServiceImpl implements SalesReturnService {
 
             originalSoldItem.setReturnedQuantity(alreadyReturned + returnItem.getQuantity());
 
-            String batchNum = returnItem.getBatchNumber();
-            StockBatch batch = stockBatchRepository
-                    .findByItemIdAndBatchNumberAndWarehouseId(returnItem.getItemId(), batchNum, invoice.getWarehouseId())
-                    .orElseThrow(() -> new RuntimeException("Original Batch details not found"));
+            if (returnItem.getBatchNumber() == null || returnItem.getBatchNumber().isBlank()) {
+                throw new CommonException("Original Batch details not found", HttpStatus.BAD_REQUEST);
+            }
 
-            StockUpdateDto stockDto = StockUpdateDto.builder()
+            // Stock goes back into the original batch at that batch's buy price
+            stockMovements.add(StockUpdateDto.builder()
                     .itemId(returnItem.getItemId())
                     .warehouseId(invoice.getWarehouseId())
                     .quantity(returnItem.getQuantity())
@@ -262,13 +294,12 @@ public class SalesReturnServiceImpl implements SalesReturnService {
                     .referenceType(ReferenceType.SALES_RETURN)
                     .referenceId(salesReturn.getId())
                     .remarks("Returned from Invoice " + invoice.getInvoiceNumber())
-                    .batchNumber(batchNum)
-                    .unitPrice(batch.getBuyPrice())
-                    .build();
-
-            stockService.updateStock(stockDto);
+                    .batchNumber(returnItem.getBatchNumber())
+                    .build());
         }
 
+        stockService.postMovements(stockMovements);
+
         creditNoteService.createCreditNote(
                 invoice.getCustomerId(),
                 salesReturn.getTotalAmount(),
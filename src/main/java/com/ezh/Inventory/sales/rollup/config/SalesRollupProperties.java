@@ -0,0 +1,29 @@
+package com.ezh.Inventory.sales.rollup.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Schedule of the nightly {@code sales_daily_rollup} recompute.
+ *
+ * <pre>
+ * # application.properties
+ * sales.rollup.cron=0 15 1 * * *
+ * sales.rollup.recompute-days=35
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "sales.rollup")
+public class SalesRollupProperties {
+
+    /** When the recompute runs. */
+    private String cron = "0 15 1 * * *";
+
+    /**
+     * Days recomputed per run, counting back from today. Documents older than this still update
+     * their rows as they change; only drift on them is left uncorrected.
+     */
+    private int recomputeDays = 35;
+}
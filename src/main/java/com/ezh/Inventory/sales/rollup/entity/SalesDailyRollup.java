@@ -0,0 +1,92 @@
+package com.ezh.Inventory.sales.rollup.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Date;
+
+/**
+ * One row of {@code sales_daily_rollup}: order and invoice measures of the documents a customer
+ * got in one warehouse on one day. Written only through {@code SalesRollupJdbcRepository}; mapped
+ * so the dashboard queries can stay JPQL.
+ */
+@Entity
+@Immutable
+@Table(name = "sales_daily_rollup")
+@IdClass(SalesDailyRollup.Key.class)
+@Getter
+@NoArgsConstructor
+public class SalesDailyRollup {
+
+    @Id
+    @Column(name = "tenant_id")
+    private Long tenantId;
+
+    @Id
+    @Column(name = "report_date")
+    private LocalDate reportDate;
+
+    @Id
+    @Column(name = "warehouse_id")
+    private Long warehouseId;
+
+    @Id
+    @Column(name = "customer_id")
+    private Long customerId;
+
+    @Column(name = "so_count")
+    private Long soCount;
+
+    @Column(name = "so_value")
+    private BigDecimal soValue;
+
+    @Column(name = "so_converted_count")
+    private Long soConvertedCount;
+
+    @Column(name = "so_converted_value")
+    private BigDecimal soConvertedValue;
+
+    @Column(name = "so_confirmed_count")
+    private Long soConfirmedCount;
+
+    @Column(name = "so_pending_approval_count")
+    private Long soPendingApprovalCount;
+
+    @Column(name = "so_cancelled_count")
+    private Long soCancelledCount;
+
+    @Column(name = "invoice_count")
+    private Long invoiceCount;
+
+    @Column(name = "invoice_value")
+    private BigDecimal invoiceValue;
+
+    @Column(name = "invoice_collected")
+    private BigDecimal invoiceCollected;
+
+    @Column(name = "invoice_balance")
+    private BigDecimal invoiceBalance;
+
+    @Column(name = "invoice_pending_count")
+    private Long invoicePendingCount;
+
+    @Column(name = "invoice_pending_delivery_count")
+    private Long invoicePendingDeliveryCount;
+
+    @Column(name = "updated_at")
+    private Date updatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long tenantId;
+        private LocalDate reportDate;
+        private Long warehouseId;
+        private Long customerId;
+    }
+}
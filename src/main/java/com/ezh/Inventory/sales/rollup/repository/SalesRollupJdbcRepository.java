@@ -0,0 +1,184 @@
+package com.ezh.Inventory.sales.rollup.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * JDBC access to the {@code sales_daily_rollup} read model. Every write recomputes rows from
+ * {@code sales_order} and {@code invoice}; nothing is applied as a delta, so a row is right as soon
+ * as it has been recomputed after the last change to its documents.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SalesRollupJdbcRepository {
+
+    private static final String SO_MEASURES = """
+            COUNT(*) AS so_count,
+            COALESCE(SUM(grand_total), 0) AS so_value,
+            COUNT(*) FILTER (WHERE status IN ('PARTIALLY_INVOICED', 'FULLY_INVOICED')) AS so_converted_count,
+            COALESCE(SUM(grand_total) FILTER (WHERE status IN ('PARTIALLY_INVOICED', 'FULLY_INVOICED')), 0) AS so_converted_value,
+            COUNT(*) FILTER (WHERE status = 'CONFIRMED') AS so_confirmed_count,
+            COUNT(*) FILTER (WHERE status = 'PENDING_APPROVAL') AS so_pending_approval_count,
+            COUNT(*) FILTER (WHERE status IN ('CANCELLED', 'REJECTED')) AS so_cancelled_count""";
+
+    private static final String INVOICE_MEASURES = """
+            COUNT(*) AS invoice_count,
+            COALESCE(SUM(grand_total), 0) AS invoice_value,
+            COALESCE(SUM(amount_paid), 0) AS invoice_collected,
+            COALESCE(SUM(balance), 0) AS invoice_balance,
+            COUNT(*) FILTER (WHERE status = 'PENDING') AS invoice_pending_count,
+            COUNT(*) FILTER (WHERE delivery_status = 'PENDING') AS invoice_pending_delivery_count""";
+
+    private static final List<String> MEASURES = List.of(
+            "so_count", "so_value", "so_converted_count", "so_converted_value", "so_confirmed_count",
+            "so_pending_approval_count", "so_cancelled_count",
+            "invoice_count", "invoice_value", "invoice_collected", "invoice_balance",
+            "invoice_pending_count", "invoice_pending_delivery_count");
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Locks the rows of {@code cells}, creating empty ones for new cells, and holds the locks until
+     * the surrounding transaction ends. Rows are locked in {@link Cell} order, whatever order they
+     * are given in, the same order {@link #recomputeDay} locks a day's rows in.
+     */
+    public void lockCells(List<Cell> cells) {
+        List<Cell> sorted = cells.stream().sorted().toList();
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO sales_daily_rollup (tenant_id, report_date, warehouse_id, customer_id)
+                VALUES (:tenantId, :reportDate, :warehouseId, :customerId)
+                ON CONFLICT (tenant_id, report_date, warehouse_id, customer_id)
+                DO UPDATE SET updated_at = sales_daily_rollup.updated_at
+                """, sorted.stream().map(SalesRollupJdbcRepository::cellParams).toArray(MapSqlParameterSource[]::new));
+    }
+
+    /**
+     * Overwrites the (already locked) rows of {@code cells} with measures recomputed from their
+     * documents. Under READ COMMITTED each statement sees every change that committed before the
+     * lock was taken, plus the current transaction's own.
+     */
+    public void recomputeCells(List<Cell> cells) {
+        String documents = """
+                WHERE tenant_id = :tenantId AND warehouse_id = :warehouseId AND customer_id = :customerId
+                  AND created_at >= :dayStart AND created_at < :nextDayStart""";
+        jdbcTemplate.batchUpdate("""
+                UPDATE sales_daily_rollup r
+                SET %s, updated_at = CURRENT_TIMESTAMP
+                FROM (SELECT %s FROM sales_order %s) so,
+                     (SELECT %s FROM invoice %s) inv
+                WHERE r.tenant_id = :tenantId AND r.report_date = :reportDate
+                  AND r.warehouse_id = :warehouseId AND r.customer_id = :customerId
+                """.formatted(setFrom(null), SO_MEASURES, documents, INVOICE_MEASURES, documents),
+                cells.stream().map(SalesRollupJdbcRepository::cellParams).toArray(MapSqlParameterSource[]::new));
+    }
+
+    /**
+     * Recomputes every row of one tenant and day: rows whose measures had drifted are rewritten,
+     * missing rows are added and rows left without documents are removed. Locks the day's
+     * existing rows first, so it serialises with {@link #lockCells} like any other writer.
+     *
+     * @return rows added, corrected or removed
+     */
+    public int recomputeDay(Long tenantId, LocalDate day) {
+        MapSqlParameterSource params = dayParams(tenantId, day);
+        jdbcTemplate.queryForList("""
+                SELECT 1 FROM sales_daily_rollup
+                WHERE tenant_id = :tenantId AND report_date = :reportDate
+                ORDER BY warehouse_id, customer_id
+                FOR UPDATE
+                """, params, Integer.class);
+
+        String documents = "WHERE tenant_id = :tenantId AND created_at >= :dayStart AND created_at < :nextDayStart";
+        String columns = String.join(", ", MEASURES);
+        Integer changed = jdbcTemplate.queryForObject("""
+                WITH so AS (
+                    SELECT warehouse_id, customer_id, %s FROM sales_order %s GROUP BY warehouse_id, customer_id
+                ),
+                inv AS (
+                    SELECT warehouse_id, customer_id, %s FROM invoice %s GROUP BY warehouse_id, customer_id
+                ),
+                fresh AS (
+                    SELECT warehouse_id, customer_id, %s FROM so FULL JOIN inv USING (warehouse_id, customer_id)
+                ),
+                removed AS (
+                    DELETE FROM sales_daily_rollup r
+                    WHERE r.tenant_id = :tenantId AND r.report_date = :reportDate
+                      AND NOT EXISTS (SELECT 1 FROM fresh f
+                                      WHERE f.warehouse_id = r.warehouse_id AND f.customer_id = r.customer_id)
+                    RETURNING 1
+                ),
+                written AS (
+                    INSERT INTO sales_daily_rollup (tenant_id, report_date, warehouse_id, customer_id, %s)
+                    SELECT :tenantId, :reportDate, warehouse_id, customer_id, %s FROM fresh
+                    ON CONFLICT (tenant_id, report_date, warehouse_id, customer_id)
+                    DO UPDATE SET %s, updated_at = CURRENT_TIMESTAMP
+                    WHERE (%s) IS DISTINCT FROM (%s)
+                    RETURNING 1
+                )
+                SELECT (SELECT COUNT(*) FROM removed) + (SELECT COUNT(*) FROM written)
+                """.formatted(SO_MEASURES, documents, INVOICE_MEASURES, documents,
+                        MEASURES.stream().map(m -> "COALESCE(" + m + ", 0) AS " + m).collect(Collectors.joining(", ")),
+                        columns, columns, setFrom("EXCLUDED"),
+                        MEASURES.stream().map(m -> "sales_daily_rollup." + m).collect(Collectors.joining(", ")),
+                        MEASURES.stream().map(m -> "EXCLUDED." + m).collect(Collectors.joining(", "))),
+                params, Integer.class);
+        return changed != null ? changed : 0;
+    }
+
+    /** Tenants with rollup rows on or after {@code from}; read from the rollup, not the document tables. */
+    public List<Long> findTenantIdsSince(LocalDate from) {
+        return jdbcTemplate.queryForList("""
+                SELECT DISTINCT tenant_id FROM sales_daily_rollup WHERE report_date >= :from
+                """, new MapSqlParameterSource("from", Date.valueOf(from)), Long.class);
+    }
+
+    /**
+     * {@code col = src.col} for every measure; {@code src} null means the unqualified columns of the
+     * {@code so} and {@code inv} sub-selects of {@link #recomputeCells}.
+     */
+    private static String setFrom(String src) {
+        return MEASURES.stream()
+                .map(m -> m + " = " + (src != null ? src : m.startsWith("so_") ? "so" : "inv") + "." + m)
+                .collect(Collectors.joining(", "));
+    }
+
+    private static MapSqlParameterSource cellParams(Cell cell) {
+        return dayParams(cell.getTenantId(), cell.getReportDate())
+                .addValue("warehouseId", cell.getWarehouseId())
+                .addValue("customerId", cell.getCustomerId());
+    }
+
+    private static MapSqlParameterSource dayParams(Long tenantId, LocalDate day) {
+        return new MapSqlParameterSource()
+                .addValue("tenantId", tenantId)
+                .addValue("reportDate", Date.valueOf(day))
+                .addValue("dayStart", Timestamp.valueOf(day.atStartOfDay()))
+                .addValue("nextDayStart", Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+    }
+
+    /** One rollup row: a customer's documents in one warehouse on one day. */
+    @Value
+    public static class Cell implements Comparable<Cell> {
+        Long tenantId;
+        LocalDate reportDate;
+        Long warehouseId;
+        Long customerId;
+
+        @Override
+        public int compareTo(Cell o) {
+            int cmp = tenantId.compareTo(o.tenantId);
+            if (cmp == 0) cmp = reportDate.compareTo(o.reportDate);
+            if (cmp == 0) cmp = warehouseId.compareTo(o.warehouseId);
+            return cmp != 0 ? cmp : customerId.compareTo(o.customerId);
+        }
+    }
+}
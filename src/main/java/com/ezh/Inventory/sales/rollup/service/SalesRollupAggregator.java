@@ -0,0 +1,124 @@
+package com.ezh.Inventory.sales.rollup.service;
+
+import com.ezh.Inventory.sales.invoice.entity.Invoice;
+import com.ezh.Inventory.sales.order.entity.SalesOrder;
+import com.ezh.Inventory.sales.rollup.repository.SalesRollupJdbcRepository;
+import com.ezh.Inventory.sales.rollup.repository.SalesRollupJdbcRepository.Cell;
+import com.ezh.Inventory.stock.service.StockDashboardAggregator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Keeps {@code sales_daily_rollup} in step with sales orders and invoices.
+ *
+ * <p>Services record every document they create or whose status or amounts they change. The
+ * (tenant, day, warehouse, customer) rows those documents fall into are collected for the current
+ * transaction and recomputed right before it commits: pending JPA changes are flushed, the rows are
+ * locked in key order, then recomputed from the documents. Whichever transaction locks a row last
+ * recomputes it after the others have committed, so concurrent changes are never lost. It runs
+ * after {@link StockDashboardAggregator}, so every transaction takes the read model locks in the
+ * same order.
+ *
+ * <p>Record a document before changing its warehouse or customer as well as after, so the row it
+ * leaves is recomputed too.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SalesRollupAggregator implements Ordered {
+
+    public static final int ORDER = StockDashboardAggregator.ORDER + 100;
+
+    private final SalesRollupJdbcRepository salesRollupJdbcRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    public void recordSalesOrder(SalesOrder salesOrder) {
+        record(salesOrder.getTenantId(), salesOrder.getCreatedAt(), salesOrder.getWarehouseId(),
+                salesOrder.getCustomerId());
+    }
+
+    public void recordInvoice(Invoice invoice) {
+        record(invoice.getTenantId(), invoice.getCreatedAt(), invoice.getWarehouseId(), invoice.getCustomerId());
+    }
+
+    private void record(Long tenantId, Date createdAt, Long warehouseId, Long customerId) {
+        // Not yet inserted: the row is created now, so it falls on today
+        LocalDate day = createdAt != null
+                ? new Timestamp(createdAt.getTime()).toLocalDateTime().toLocalDate()
+                : LocalDate.now();
+        Cell cell = new Cell(tenantId, day, warehouseId, customerId);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(List.of(cell));
+            return;
+        }
+
+        Buffer buffer = (Buffer) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new Buffer();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(buffer);
+        }
+        buffer.cells.add(cell);
+    }
+
+    private void apply(List<Cell> cells) {
+        salesRollupJdbcRepository.lockCells(cells);
+        salesRollupJdbcRepository.recomputeCells(cells);
+        log.debug("Recomputed {} sales rollup rows", cells.size());
+    }
+
+    /** Rows touched by one transaction; recomputed in {@link #beforeCommit} so they commit or roll back with it. */
+    private final class Buffer implements TransactionSynchronization {
+        private final Set<Cell> cells = new TreeSet<>();
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(SalesRollupAggregator.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(SalesRollupAggregator.this, this);
+        }
+
+        @Override
+        public int getOrder() {
+            return ORDER;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // The recompute reads the documents with SQL: write out what JPA still holds first
+            entityManager.flush();
+            apply(new ArrayList<>(cells));
+            cells.clear();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(SalesRollupAggregator.this);
+        }
+    }
+}
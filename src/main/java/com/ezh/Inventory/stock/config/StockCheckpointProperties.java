@@ -0,0 +1,37 @@
+package com.ezh.Inventory.stock.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.ZoneId;
+
+/**
+ * Schedule of the stock checkpoint job.
+ *
+ * <pre>
+ * # application.properties
+ * stock.checkpoint.cron=0 30 0 * * *
+ * stock.checkpoint.period=DAY
+ * stock.checkpoint.zone=Asia/Kolkata
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "stock.checkpoint")
+public class StockCheckpointProperties {
+
+    /** How far apart checkpoints are: one per day, or one per month (first of the month). */
+    public enum Period { DAY, MONTH }
+
+    /**
+     * When the job runs. It checkpoints at the latest period boundary that has passed, so run it a
+     * little after midnight to leave in-flight postings time to commit.
+     */
+    private String cron = "0 30 0 * * *";
+
+    private Period period = Period.DAY;
+
+    /** Time zone in which days and months start. */
+    private ZoneId zone = ZoneId.systemDefault();
+}
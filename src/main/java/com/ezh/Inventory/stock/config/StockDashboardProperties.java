@@ -0,0 +1,33 @@
+package com.ezh.Inventory.stock.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tuning for the {@code stock_dashboard_agg} read model.
+ *
+ * <pre>
+ * # application.properties
+ * stock.dashboard.fast-movers=10
+ * stock.dashboard.rebuild-interval-ms=3600000
+ * stock.dashboard.slots=8
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "stock.dashboard")
+public class StockDashboardProperties {
+
+    /** Fast movers kept per warehouse; the dashboard shows the top 5 of these. */
+    private int fastMovers = 10;
+
+    /** How often every aggregate row is recomputed from {@code stock} to correct drift. */
+    private long rebuildIntervalMs = 3_600_000;
+
+    /**
+     * Rows each warehouse aggregate is striped over. A posting locks one slot at random, so more
+     * slots mean fewer postings to the same warehouse waiting on each other at commit.
+     */
+    private int slots = 8;
+}
@@ -0,0 +1,52 @@
+package com.ezh.Inventory.stock.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Tuning for the near-expiry batch scanner.
+ *
+ * <pre>
+ * # application.properties
+ * stock.expiry.horizon-days=30
+ * stock.expiry.critical-days=7
+ * stock.expiry.cycle-interval=24h
+ * stock.expiry.scan-interval-ms=300000
+ * stock.expiry.page-size=500
+ * stock.expiry.max-rows-per-tenant=5000
+ * stock.expiry.max-rows-per-run=20000
+ * stock.expiry.max-run-time=20s
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "stock.expiry")
+public class StockExpiryProperties {
+
+    /** Batches expiring within this many days are reported. */
+    private int horizonDays = 30;
+
+    /** Batches expiring within this many days are reported separately as critical. */
+    private int criticalDays = 7;
+
+    /** How often each tenant is scanned (and alerted) in full. */
+    private Duration cycleInterval = Duration.ofHours(24);
+
+    /** Delay between two scanner runs; a cycle that ran out of budget continues on the next run. */
+    private long scanIntervalMs = 300_000;
+
+    /** Batches read per query (and per transaction). */
+    private int pageSize = 500;
+
+    /** Batches one tenant may consume of a run, so one large tenant cannot starve the others. */
+    private int maxRowsPerTenant = 5_000;
+
+    /** Batches read by one run across all tenants. */
+    private int maxRowsPerRun = 20_000;
+
+    /** Wall-clock limit of one run; the scheduler thread is released after it. */
+    private Duration maxRunTime = Duration.ofSeconds(20);
+}
@@ -0,0 +1,37 @@
+package com.ezh.Inventory.stock.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tuning for the opening-stock import.
+ *
+ * <pre>
+ * # application.properties
+ * stock.opening-import.chunk-size=1000
+ * stock.opening-import.parallelism=2
+ * stock.opening-import.max-errors=1000
+ * stock.opening-import.default-batch-number=OPENING
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "stock.opening-import")
+public class StockImportProperties {
+
+    /** Rows loaded per transaction; also the number of rows held in memory while parsing. */
+    private int chunkSize = 1000;
+
+    /** Imports running at the same time; further uploads queue until one finishes. */
+    private int parallelism = 2;
+
+    /** Rejected rows recorded per job; further rejections are only counted. */
+    private int maxErrors = 1000;
+
+    /**
+     * Batch that rows without a batch number are received into, so unbatched sales can still
+     * allocate the opening quantity.
+     */
+    private String defaultBatchNumber = "OPENING";
+}
@@ -0,0 +1,26 @@
+package com.ezh.Inventory.stock.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tuning for the in-process stock lock manager.
+ *
+ * <pre>
+ * # application.properties
+ * stock.lock.stripes=64
+ * stock.lock.timeout-ms=5000
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "stock.lock")
+public class StockLockProperties {
+
+    /** Number of lock stripes; (tenant, warehouse, item) keys are hashed onto them. */
+    private int stripes = 64;
+
+    /** How long a request waits for a busy stripe before giving up. */
+    private long timeoutMs = 5_000;
+}
@@ -0,0 +1,42 @@
+package com.ezh.Inventory.stock.config;
+
+import com.ezh.Inventory.stock.entity.AllocationStrategy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tuning for the stock posting engine.
+ *
+ * <pre>
+ * # application.properties
+ * stock.posting.max-attempts=5
+ * stock.posting.retry-backoff-ms=15
+ * stock.posting.allocation-strategy=FIFO
+ * stock.posting.tenant-allocation-strategies.42=FEFO
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "stock.posting")
+public class StockPostingProperties {
+
+    /** How many times an IN posting re-reads the stock row when its version changed underneath it. */
+    private int maxAttempts = 5;
+
+    /** Base back-off between attempts; multiplied by the attempt number. */
+    private long retryBackoffMs = 15;
+
+    /** Batch pick order for OUT movements without an explicit batch. */
+    private AllocationStrategy allocationStrategy = AllocationStrategy.FIFO;
+
+    /** Per-tenant override of {@link #allocationStrategy}, keyed by tenant id. */
+    private Map<Long, AllocationStrategy> tenantAllocationStrategies = new HashMap<>();
+
+    public AllocationStrategy allocationStrategyFor(Long tenantId) {
+        return tenantAllocationStrategies.getOrDefault(tenantId, allocationStrategy);
+    }
+}
@@ -0,0 +1,41 @@
+package com.ezh.Inventory.stock.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tuning for the stock consistency reconciler.
+ *
+ * <pre>
+ * # application.properties
+ * stock.reconcile.cron=0 0 3 * * *
+ * stock.reconcile.parallelism=2
+ * stock.reconcile.auto-repair=false
+ * stock.reconcile.fetch-size=1000
+ * stock.reconcile.max-issues=10000
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "stock.reconcile")
+public class StockReconcileProperties {
+
+    /** When every tenant is reconciled; nightly by default. */
+    private String cron = "0 0 3 * * *";
+
+    /** Tenants reconciled at the same time; each holds one connection for its scan. */
+    private int parallelism = 2;
+
+    /**
+     * Whether the nightly run repairs stock rows from the ledger. Repairs are compare-and-set on
+     * the row version read by the scan, so a row posted to since is left for the next run.
+     */
+    private boolean autoRepair = false;
+
+    /** JDBC fetch size of the mismatch scan. */
+    private int fetchSize = 1000;
+
+    /** Issues recorded per run; further mismatches are only counted. */
+    private int maxIssues = 10_000;
+}
@@ -0,0 +1,36 @@
+package com.ezh.Inventory.stock.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Tuning for the reorder-point engine.
+ *
+ * <pre>
+ * # application.properties
+ * stock.reorder.scan-interval-ms=300000
+ * stock.reorder.chunk-size=1000
+ * stock.reorder.change-lag=10m
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "stock.reorder")
+public class StockReorderProperties {
+
+    /** Delay between two incremental scans. */
+    private long scanIntervalMs = 300_000;
+
+    /** Reorder points evaluated (and drafted) per transaction. */
+    private int chunkSize = 1000;
+
+    /**
+     * Overlap subtracted from the previous scan start. {@code stock.updated_at} is the posting
+     * transaction's start time, so a long posting can commit a change stamped before the previous
+     * scan; re-evaluating such rows is harmless because open requests count as incoming stock.
+     */
+    private Duration changeLag = Duration.ofMinutes(10);
+}
@@ -0,0 +1,32 @@
+package com.ezh.Inventory.stock.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Tuning for sales order stock reservations.
+ *
+ * <pre>
+ * # application.properties
+ * stock.reservation.ttl=72h
+ * stock.reservation.sweep-interval-ms=60000
+ * stock.reservation.sweep-batch-size=500
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "stock.reservation")
+public class StockReservationProperties {
+
+    /** How long a confirmed order holds its stock before the sweeper releases it. */
+    private Duration ttl = Duration.ofHours(72);
+
+    /** Delay between two sweeper runs. */
+    private long sweepIntervalMs = 60_000;
+
+    /** Reservations expired per sweeper transaction. */
+    private int sweepBatchSize = 500;
+}
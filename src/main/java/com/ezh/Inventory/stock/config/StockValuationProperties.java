@@ -0,0 +1,37 @@
+package com.ezh.Inventory.stock.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tuning for the stock valuation engine.
+ *
+ * <pre>
+ * # application.properties
+ * stock.valuation.parallelism=4
+ * stock.valuation.partition-size=500
+ * stock.valuation.fetch-size=1000
+ * stock.valuation.cron=0 0 2 1 * *
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "stock.valuation")
+public class StockValuationProperties {
+
+    /**
+     * Worker threads of the valuation pool. Every worker holds a database connection while it
+     * values its partition, so keep this well below the Hikari pool size.
+     */
+    private int parallelism = 4;
+
+    /** Maximum (warehouse, item) keys valued by one partition. */
+    private int partitionSize = 500;
+
+    /** JDBC fetch size used when streaming batch rows. */
+    private int fetchSize = 1000;
+
+    /** When every tenant is valued; the first of the month by default. */
+    private String cron = "0 0 2 1 * *";
+}
@@ -2,22 +2,30 @@ package com.ezh.Inventory.stock.controller;
 
 import com.ezh.Inventory.stock.dto.*;
 import com.ezh.Inventory.stock.entity.AdjustmentStatus;
+import com.ezh.Inventory.stock.service.OpeningStockImportService;
+import com.ezh.Inventory.stock.service.ReorderPointService;
 import com.ezh.Inventory.stock.service.StockAdjustmentService;
+import com.ezh.Inventory.stock.service.StockReservationService;
 import com.ezh.Inventory.stock.service.StockService;
+import com.ezh.Inventory.stock.service.StockTransferService;
 import com.ezh.Inventory.utils.common.CommonResponse;
+import com.ezh.Inventory.utils.common.CursorPage;
 import com.ezh.Inventory.utils.common.ResponseResource;
 import com.ezh.Inventory.utils.exception.CommonException;
+import com.ezh.Inventory.utils.export.ExportFormat;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.InputStreamResource;
-import org.springframework.core.io.Resource;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @Slf4j
@@ -29,6 +37,10 @@ public class StockController {
 
     private final StockService stockService;
     private final StockAdjustmentService stockAdjustmentService;
+    private final StockReservationService stockReservationService;
+    private final ReorderPointService reorderPointService;
+    private final StockTransferService stockTransferService;
+    private final OpeningStockImportService openingStockImportService;
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseResource<CommonResponse<?>> stockUpdate(@RequestBody StockUpdateDto stockUpdateDto) throws CommonException {
@@ -60,22 +72,25 @@ public class StockController {
         return ResponseResource.success(HttpStatus.OK, response, "fetched all stock ledger");
     }
 
+    @PostMapping(value = "/ledger/scroll", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseResource<CursorPage<StockLedgerDto>> scrollStockTransactions(@RequestParam(defaultValue = "20") Integer size,
+                                                                                @RequestBody StockLedgerFilter filter) throws CommonException {
+        log.info("Entered scroll stockTransactions with {}", filter);
+        CursorPage<StockLedgerDto> response = stockService.scrollStockTransactions(filter, size);
+        return ResponseResource.success(HttpStatus.OK, response, "fetched stock ledger page");
+    }
+
     @PostMapping(value = "/ledger/download", consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Resource> downloadStockTransactions(@RequestBody StockLedgerFilter filter,
-                                                              @RequestParam(defaultValue = "excel") String format) {
+    public ResponseEntity<StreamingResponseBody> downloadStockTransactions(@RequestBody StockLedgerFilter filter,
+                                                                           @RequestParam(defaultValue = "excel") String format) {
         log.info("Entered stock ledger download with format {} and filter {}", format, filter);
 
-        boolean isCsvFormat = "csv".equalsIgnoreCase(format);
-        String extension = isCsvFormat ? "csv" : "xlsx";
-        String mediaType = isCsvFormat
-                ? "text/csv"
-                : "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
-
-        InputStreamResource file = new InputStreamResource(stockService.downloadStockLedger(filter, format));
+        ExportFormat exportFormat = ExportFormat.fromParam(format);
+        StreamingResponseBody body = stockService.downloadStockLedger(filter, exportFormat);
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=stock_ledger." + extension)
-                .contentType(MediaType.parseMediaType(mediaType))
-                .body(file);
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=stock_ledger." + exportFormat.getExtension())
+                .contentType(MediaType.parseMediaType(exportFormat.getMediaType()))
+                .body(body);
     }
 
     @PostMapping(path = "/adjustment", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
@@ -108,10 +123,83 @@ public class StockController {
         return ResponseResource.success(HttpStatus.OK, response, "Stock adjustment status updated successfully");
     }
 
+    @PostMapping(path = "/transfer", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseResource<CommonResponse<?>> createStockTransfer(@RequestBody StockTransferDto stockTransferDto) throws CommonException {
+        log.info("Entered createStockTransfer from warehouse {} to {}", stockTransferDto.getSourceWarehouseId(),
+                stockTransferDto.getTargetWarehouseId());
+        CommonResponse<?> response = stockTransferService.createTransfer(stockTransferDto);
+        return ResponseResource.success(HttpStatus.CREATED, response, "Stock transfer posted successfully");
+    }
+
+    @GetMapping(path = "/transfer/{transferId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseResource<StockTransferDto> getStockTransferById(@PathVariable Long transferId) throws CommonException {
+        log.info("Entered getStockTransferById with id {}", transferId);
+        StockTransferDto response = stockTransferService.getTransferById(transferId);
+        return ResponseResource.success(HttpStatus.OK, response, "Stock transfer fetched successfully");
+    }
+
     @GetMapping(path = "/summary/{warehouseId}", produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseResource<StockDashboardDto> getStockDashboard(@PathVariable Long warehouseId) throws CommonException {
         log.info("Entered get getStockDashboard with {}", warehouseId);
         StockDashboardDto response = stockService.getStockDashboard(warehouseId);
         return ResponseResource.success(HttpStatus.OK, response, "fetched Stock Dashboard stats");
     }
+
+    @GetMapping(path = "/as-of/{warehouseId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseResource<List<StockAsOfDto>> getStockAsOf(@PathVariable Long warehouseId,
+                                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) throws CommonException {
+        log.info("Entered get getStockAsOf with warehouse {} and date {}", warehouseId, date);
+        List<StockAsOfDto> response = stockService.getStockAsOf(warehouseId, date);
+        return ResponseResource.success(HttpStatus.OK, response, "fetched stock as of date");
+    }
+
+    @PostMapping(path = "/valuation", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseResource<StockValuationRunDto> runValuation() throws CommonException {
+        log.info("Entered runValuation");
+        StockValuationRunDto response = stockService.runValuation();
+        return ResponseResource.success(HttpStatus.OK, response, "Stock valuation completed");
+    }
+
+    @PostMapping(path = "/reconcile", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseResource<StockReconcileRunDto> reconcileStock(@RequestParam(defaultValue = "false") boolean repair) throws CommonException {
+        log.info("Entered reconcileStock with repair {}", repair);
+        StockReconcileRunDto response = stockService.reconcileStock(repair);
+        return ResponseResource.success(HttpStatus.OK, response, "Stock reconciliation completed");
+    }
+
+    @PostMapping(path = "/reorder-points", consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseResource<CommonResponse<?>> saveReorderPoints(@RequestBody List<ReorderPointDto> points) throws CommonException {
+        log.info("Entered saveReorderPoints with {} points", points.size());
+        CommonResponse<?> response = reorderPointService.saveReorderPoints(points);
+        return ResponseResource.success(HttpStatus.OK, response, "Reorder points saved successfully");
+    }
+
+    @GetMapping(path = "/reorder-points/{warehouseId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseResource<List<ReorderPointDto>> getReorderPoints(@PathVariable Long warehouseId) throws CommonException {
+        log.info("Entered getReorderPoints with warehouse {}", warehouseId);
+        List<ReorderPointDto> response = reorderPointService.getReorderPoints(warehouseId);
+        return ResponseResource.success(HttpStatus.OK, response, "fetched reorder points");
+    }
+
+    @PostMapping(path = "/opening-stock/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseResource<CommonResponse<?>> importOpeningStock(@RequestParam("file") MultipartFile file) throws CommonException {
+        log.info("Entered importOpeningStock with file {}", file.getOriginalFilename());
+        CommonResponse<?> response = openingStockImportService.startImport(file);
+        return ResponseResource.success(HttpStatus.ACCEPTED, response, response.getMessage());
+    }
+
+    @GetMapping(path = "/opening-stock/import/{jobId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseResource<StockImportJobDto> getOpeningStockImport(@PathVariable Long jobId) throws CommonException {
+        log.info("Entered getOpeningStockImport with job {}", jobId);
+        StockImportJobDto response = openingStockImportService.getImportJob(jobId);
+        return ResponseResource.success(HttpStatus.OK, response, "fetched import job");
+    }
+
+    @GetMapping(path = "/available/{warehouseId}/{itemId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseResource<AvailableToPromiseDto> getAvailableToPromise(@PathVariable Long warehouseId,
+                                                                         @PathVariable Long itemId) throws CommonException {
+        log.info("Entered get getAvailableToPromise with warehouse {} and item {}", warehouseId, itemId);
+        AvailableToPromiseDto response = stockReservationService.getAvailableToPromise(warehouseId, itemId);
+        return ResponseResource.success(HttpStatus.OK, response, "fetched available to promise");
+    }
 }
@@ -0,0 +1,16 @@
+package com.ezh.Inventory.stock.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class AvailableToPromiseDto {
+    private Long warehouseId;
+    private Long itemId;
+    private Integer onHandQty;      // stock.closing_qty
+    private Integer reservedQty;    // Active reservations
+    private Integer availableQty;   // onHandQty - reservedQty
+}
@@ -0,0 +1,20 @@
+package com.ezh.Inventory.stock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Quantity taken from one batch by an OUT movement, with the cost it was taken at.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class BatchAllocation {
+    private Long batchId;
+    private String batchNumber;
+    private Integer quantity;
+    private BigDecimal unitCost;
+}
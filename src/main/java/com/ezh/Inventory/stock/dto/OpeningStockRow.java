@@ -0,0 +1,18 @@
+package com.ezh.Inventory.stock.dto;
+
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+/** One data row of an opening-stock upload; {@code error} is set when the row cannot be imported. */
+@Data
+public class OpeningStockRow {
+    private long rowNumber;         // 1-based, as shown by Excel
+    private Long itemId;
+    private Long warehouseId;
+    private Integer quantity;
+    private BigDecimal unitCost;    // Falls back to the item's purchase price
+    private String batchNumber;
+    private Long expiryDate;        // Epoch millis, like stock_batch.expiry_date
+    private String error;
+}
@@ -0,0 +1,17 @@
+package com.ezh.Inventory.stock.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReorderPointDto {
+    private Long warehouseId;
+    private Long itemId;
+    private Long vendorId;
+    private Integer minQty;     // Reorder when on hand + open PO + open PRQ qty is at or below this
+    private Integer maxQty;     // Draft up to this level
+    private Boolean isActive;
+}
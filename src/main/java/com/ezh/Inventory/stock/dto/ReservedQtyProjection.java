@@ -0,0 +1,8 @@
+package com.ezh.Inventory.stock.dto;
+
+public interface ReservedQtyProjection {
+    Long getTenantId();
+    Long getWarehouseId();
+    Long getItemId();
+    Long getReservedQty();
+}
@@ -0,0 +1,21 @@
+package com.ezh.Inventory.stock.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockAsOfDto {
+    private Long itemId;
+    private String itemName;
+    private Long warehouseId;
+    private Integer closingQty;
+    private BigDecimal averageCost;   // From the checkpoint the figure was replayed from
+    private BigDecimal stockValue;
+    private Date checkpointAt;        // Null when no checkpoint existed yet and the whole ledger was folded
+}
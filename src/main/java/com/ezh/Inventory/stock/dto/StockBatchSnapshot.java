@@ -0,0 +1,13 @@
+package com.ezh.Inventory.stock.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Scalar read of a stock batch used by the posting engine, always fresh from the database.
+ */
+public interface StockBatchSnapshot {
+    Long getId();
+    String getBatchNumber();
+    Integer getRemainingQty();
+    BigDecimal getBuyPrice();
+}
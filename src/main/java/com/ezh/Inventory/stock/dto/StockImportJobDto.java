@@ -0,0 +1,34 @@
+package com.ezh.Inventory.stock.dto;
+
+import lombok.*;
+
+import java.util.Date;
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockImportJobDto {
+    private Long jobId;
+    private String fileName;
+    private String status;              // QUEUED, RUNNING, COMPLETED, FAILED
+    private Long totalRows;             // Data rows read so far
+    private Long importedRows;
+    private Long failedRows;
+    private String message;
+    private Date createdAt;
+    private Date startedAt;
+    private Date finishedAt;
+    private List<RowError> errors;      // First rejected rows, capped per job
+
+    @Getter
+    @Setter
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class RowError {
+        private Long rowNumber;
+        private String message;
+    }
+}
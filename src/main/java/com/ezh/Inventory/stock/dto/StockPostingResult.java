@@ -0,0 +1,23 @@
+package com.ezh.Inventory.stock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Outcome of a single movement applied by the posting engine, enough to write the ledger row.
+ */
+@Getter
+@Builder
+@AllArgsConstructor
+public class StockPostingResult {
+    private Integer beforeQty;
+    private Integer afterQty;
+    private BigDecimal unitCost;      // Cost recorded on the ledger (batch price or WAC)
+    private BigDecimal averageCost;   // WAC on the stock row after the movement
+    private String batchNumber;       // Batch(es) actually touched, comma separated for FIFO/FEFO picks
+    private List<BatchAllocation> allocations; // Per-batch quantities and costs of an OUT movement
+}
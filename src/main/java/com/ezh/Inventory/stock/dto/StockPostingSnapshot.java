@@ -0,0 +1,15 @@
+package com.ezh.Inventory.stock.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Scalar read of a stock row used by the posting engine.
+ * Being a projection it always hits the database and never returns a stale managed entity.
+ */
+public interface StockPostingSnapshot {
+    Long getId();
+    Integer getClosingQty();
+    Integer getOutQty();
+    BigDecimal getAverageCost();
+    Long getVersion();
+}
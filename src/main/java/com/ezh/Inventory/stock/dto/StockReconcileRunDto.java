@@ -0,0 +1,19 @@
+package com.ezh.Inventory.stock.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockReconcileRunDto {
+    private Long runId;
+    private Long rowsChecked;
+    private Long mismatches;            // Stock rows breaking at least one invariant
+    private Long batchSumMismatches;    // closing_qty != SUM(batch remaining_qty)
+    private Long ledgerMismatches;      // closing_qty != latest ledger after_qty
+    private Long movementMismatches;    // opening + in - out != closing
+    private Long repaired;
+    private Long elapsedMs;
+}
@@ -0,0 +1,16 @@
+package com.ezh.Inventory.stock.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockReservationLineDto {
+    private Long referenceLineId;   // Sales order item id
+    private Long itemId;
+    private Integer quantity;
+}
@@ -0,0 +1,24 @@
+package com.ezh.Inventory.stock.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockTransferDto {
+    private Long id;
+    private String transferNumber;
+    private Long sourceWarehouseId;
+    private Long targetWarehouseId;
+    private Date transferDate;
+    private Long totalQty;
+    private BigDecimal totalValue;
+    private String remarks;
+    private List<StockTransferItemDto> items;   // On create: requested lines; on read: batch slices moved
+}
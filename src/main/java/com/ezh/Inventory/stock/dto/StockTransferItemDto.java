@@ -0,0 +1,19 @@
+package com.ezh.Inventory.stock.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockTransferItemDto {
+    private Long itemId;
+    private String itemName;
+    private String batchNumber;     // Optional on create: without it batches are picked FIFO / FEFO
+    private Integer quantity;
+    private BigDecimal unitCost;
+    private Long expiryDate;
+}
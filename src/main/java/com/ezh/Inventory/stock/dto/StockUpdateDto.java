@@ -23,4 +23,5 @@ public class StockUpdateDto {
     private ReferenceType referenceType;      // Who triggered stock change? (GRN, SALE, TRANSFER, ADJUSTMENT, sold etc.)
     private Long referenceId;          // ID of the document that triggered stock change
     private String remarks;
+    private Long reservationReferenceId; // Sales order whose reservation this OUT converts; its own hold does not block it
 }
@@ -0,0 +1,23 @@
+package com.ezh.Inventory.stock.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockValuationRunDto {
+    private Long runId;
+    private Integer partitions;
+    private Integer itemCount;
+    private Long rowsScanned;        // Ledger + batch rows read
+    private Long elapsedMs;
+    private Long rowsPerSecond;
+    private BigDecimal fifoValue;
+    private BigDecimal wacValue;
+    private BigDecimal batchValue;
+    private BigDecimal bookValue;    // Sum of stock.stock_value, for comparison
+}
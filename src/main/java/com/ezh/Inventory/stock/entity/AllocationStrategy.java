@@ -0,0 +1,6 @@
+package com.ezh.Inventory.stock.entity;
+
+public enum AllocationStrategy {
+    FIFO,   // First In First Out - oldest batch (created_at) first
+    FEFO    // First Expired First Out - earliest expiry_date first, undated batches last
+}
@@ -0,0 +1,8 @@
+package com.ezh.Inventory.stock.entity;
+
+public enum ReservationStatus {
+    ACTIVE,     // Holding stock, counted against available-to-promise
+    CONVERTED,  // Consumed by an invoice
+    RELEASED,   // Order cancelled or edited
+    EXPIRED     // TTL passed, released by the sweeper
+}
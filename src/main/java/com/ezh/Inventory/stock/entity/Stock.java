@@ -4,6 +4,7 @@ import com.ezh.Inventory.utils.common.CommonSerializable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.*;
 
 import java.math.BigDecimal;
@@ -43,4 +44,8 @@ public class Stock extends CommonSerializable {
 
     @Column(name = "stock_value", precision = 18, scale = 2)
     private BigDecimal stockValue = BigDecimal.ZERO;
+
+    @Version
+    @Column(name = "version")
+    private Long version; // Bumped on every posting, used as compare-and-set guard for WAC recalculation
 }
@@ -0,0 +1,46 @@
+package com.ezh.Inventory.stock.entity;
+
+import com.ezh.Inventory.utils.common.CommonSerializable;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.util.Date;
+
+@Entity
+@Table(name = "stock_reservation")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockReservation extends CommonSerializable {
+
+    @Column(name = "tenant_id", nullable = false)
+    private Long tenantId;
+
+    @Column(name = "warehouse_id", nullable = false)
+    private Long warehouseId;
+
+    @Column(name = "item_id", nullable = false)
+    private Long itemId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "reference_type", nullable = false)
+    private ReferenceType referenceType;
+
+    @Column(name = "reference_id", nullable = false)  // SALES_ORDER_ID
+    private Long referenceId;
+
+    @Column(name = "reference_line_id")  // SALES_ORDER_ITEM_ID
+    private Long referenceLineId;
+
+    @Column(name = "quantity", nullable = false)
+    private Integer quantity;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private ReservationStatus status;
+
+    @Column(name = "expires_at", nullable = false)
+    private Date expiresAt;
+}
@@ -0,0 +1,42 @@
+package com.ezh.Inventory.stock.entity;
+
+import com.ezh.Inventory.utils.common.CommonSerializable;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.Date;
+
+@Entity
+@Table(name = "stock_transfer")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockTransfer extends CommonSerializable {
+
+    @Column(name = "tenant_id")
+    private Long tenantId;
+
+    @Column(name = "transfer_number", unique = true)
+    private String transferNumber; // e.g., TRF-250101-AB12
+
+    @Column(name = "source_warehouse_id")
+    private Long sourceWarehouseId;
+
+    @Column(name = "target_warehouse_id")
+    private Long targetWarehouseId;
+
+    @Column(name = "transfer_date")
+    private Date transferDate;
+
+    @Column(name = "total_qty")
+    private Long totalQty;
+
+    @Column(name = "total_value", precision = 18, scale = 2)
+    private BigDecimal totalValue; // Sum of quantity * batch cost moved
+
+    @Column(name = "remarks")
+    private String remarks;
+}
@@ -0,0 +1,35 @@
+package com.ezh.Inventory.stock.entity;
+
+import com.ezh.Inventory.utils.common.CommonSerializable;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Entity
+@Table(name = "stock_transfer_item")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class StockTransferItem extends CommonSerializable {
+
+    @Column(name = "transfer_id", nullable = false)
+    private Long transferId;
+
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Column(name = "batch_number")
+    private String batchNumber; // Same batch number in source and target warehouse
+
+    @Column(name = "quantity")
+    private Integer quantity;
+
+    @Column(name = "unit_cost", precision = 18, scale = 2)
+    private BigDecimal unitCost; // Batch buy price, carried over to the target batch
+
+    @Column(name = "expiry_date")
+    private Long expiryDate;
+}
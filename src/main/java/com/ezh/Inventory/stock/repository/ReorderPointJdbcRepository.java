@@ -0,0 +1,163 @@
+package com.ezh.Inventory.stock.repository;
+
+import com.ezh.Inventory.stock.dto.ReorderPointDto;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC access to {@code reorder_point} and the reorder engine's incremental scan state.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReorderPointJdbcRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public void upsert(Long tenantId, Long userId, List<ReorderPointDto> points) {
+        if (points.isEmpty()) return;
+        SqlParameterSource[] params = points.stream()
+                .map(p -> new MapSqlParameterSource()
+                        .addValue("tenantId", tenantId)
+                        .addValue("warehouseId", p.getWarehouseId())
+                        .addValue("itemId", p.getItemId())
+                        .addValue("vendorId", p.getVendorId())
+                        .addValue("minQty", p.getMinQty())
+                        .addValue("maxQty", p.getMaxQty())
+                        .addValue("isActive", p.getIsActive() == null || p.getIsActive())
+                        .addValue("createdBy", userId))
+                .toArray(SqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO reorder_point (tenant_id, warehouse_id, item_id, vendor_id, min_qty, max_qty, is_active, created_by)
+                VALUES (:tenantId, :warehouseId, :itemId, :vendorId, :minQty, :maxQty, :isActive, :createdBy)
+                ON CONFLICT (tenant_id, warehouse_id, item_id) DO UPDATE SET
+                    vendor_id = EXCLUDED.vendor_id,
+                    min_qty = EXCLUDED.min_qty,
+                    max_qty = EXCLUDED.max_qty,
+                    is_active = EXCLUDED.is_active,
+                    updated_at = CURRENT_TIMESTAMP
+                """, params);
+    }
+
+    public List<ReorderPointDto> findByWarehouse(Long tenantId, Long warehouseId) {
+        return jdbcTemplate.query("""
+                SELECT warehouse_id, item_id, vendor_id, min_qty, max_qty, is_active
+                FROM reorder_point
+                WHERE tenant_id = :tenantId AND warehouse_id = :warehouseId
+                ORDER BY item_id
+                """, new MapSqlParameterSource()
+                .addValue("tenantId", tenantId)
+                .addValue("warehouseId", warehouseId), (rs, i) -> ReorderPointDto.builder()
+                .warehouseId(rs.getLong("warehouse_id"))
+                .itemId(rs.getLong("item_id"))
+                .vendorId(rs.getLong("vendor_id"))
+                .minQty(rs.getInt("min_qty"))
+                .maxQty(rs.getInt("max_qty"))
+                .isActive(rs.getBoolean("is_active"))
+                .build());
+    }
+
+    public List<Long> findTenantIds() {
+        return jdbcTemplate.queryForList("SELECT DISTINCT tenant_id FROM reorder_point WHERE is_active",
+                new MapSqlParameterSource(), Long.class);
+    }
+
+    /** Database clock, in the same (local) terms as {@code stock.updated_at}. */
+    public Timestamp now() {
+        return jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP", new MapSqlParameterSource(), Timestamp.class);
+    }
+
+    public Optional<Timestamp> findLastStartedAt(Long tenantId) {
+        return jdbcTemplate.queryForList("SELECT last_started_at FROM reorder_scan_state WHERE tenant_id = :tenantId",
+                new MapSqlParameterSource("tenantId", tenantId), Timestamp.class).stream().findFirst();
+    }
+
+    public void saveLastStartedAt(Long tenantId, Timestamp startedAt) {
+        jdbcTemplate.update("""
+                INSERT INTO reorder_scan_state (tenant_id, last_started_at) VALUES (:tenantId, :startedAt)
+                ON CONFLICT (tenant_id) DO UPDATE SET last_started_at = EXCLUDED.last_started_at, updated_at = CURRENT_TIMESTAMP
+                """, new MapSqlParameterSource()
+                .addValue("tenantId", tenantId)
+                .addValue("startedAt", startedAt));
+    }
+
+    /**
+     * Active reorder points whose stock row or policy changed since {@code since}, after the
+     * cursor key, with on-hand, open PO (ordered - received) and open PRQ quantities.
+     */
+    public List<ReorderCandidate> findChangedCandidates(Long tenantId, Timestamp since, StockKey after, int limit) {
+        return jdbcTemplate.query("""
+                WITH changed AS (
+                    SELECT warehouse_id, item_id FROM stock WHERE tenant_id = :tenantId AND updated_at >= :since
+                    UNION
+                    SELECT warehouse_id, item_id FROM reorder_point WHERE tenant_id = :tenantId AND updated_at >= :since
+                )
+                SELECT rp.warehouse_id, rp.item_id, rp.vendor_id, rp.min_qty, rp.max_qty, rp.created_by,
+                       COALESCE(s.closing_qty, 0) AS on_hand,
+                       COALESCE((SELECT SUM(GREATEST(poi.ordered_qty - poi.received_qty, 0))
+                                 FROM purchase_order_item poi
+                                 JOIN purchase_order po ON po.id = poi.purchase_order_id
+                                 WHERE poi.item_id = rp.item_id AND po.tenant_id = :tenantId
+                                   AND po.warehouse_id = rp.warehouse_id
+                                   AND po.po_status NOT IN ('COMPLETED', 'CANCELLED')
+                                   AND COALESCE(po.is_deleted, false) = false), 0) AS open_po_qty,
+                       COALESCE((SELECT SUM(pri.requested_qty)
+                                 FROM purchase_request_item pri
+                                 JOIN purchase_request pr ON pr.id = pri.purchase_request_id
+                                 WHERE pri.item_id = rp.item_id AND pr.tenant_id = :tenantId
+                                   AND pr.warehouse_id = rp.warehouse_id
+                                   AND pr.status IN ('DRAFT', 'PENDING', 'APPROVAL_PENDING', 'APPROVED')
+                                   AND COALESCE(pr.is_deleted, false) = false), 0) AS open_prq_qty
+                FROM changed c
+                JOIN reorder_point rp ON rp.tenant_id = :tenantId AND rp.warehouse_id = c.warehouse_id AND rp.item_id = c.item_id
+                LEFT JOIN stock s ON s.tenant_id = :tenantId AND s.warehouse_id = rp.warehouse_id AND s.item_id = rp.item_id
+                WHERE rp.is_active
+                  AND (rp.warehouse_id, rp.item_id) > (:afterWarehouseId, :afterItemId)
+                ORDER BY rp.warehouse_id, rp.item_id
+                LIMIT :limit
+                """, new MapSqlParameterSource()
+                .addValue("tenantId", tenantId)
+                .addValue("since", since)
+                .addValue("afterWarehouseId", after.getWarehouseId())
+                .addValue("afterItemId", after.getItemId())
+                .addValue("limit", limit), (rs, i) -> {
+            ReorderCandidate c = new ReorderCandidate();
+            c.setKey(new StockKey(rs.getLong("warehouse_id"), rs.getLong("item_id")));
+            c.setVendorId(rs.getLong("vendor_id"));
+            c.setMinQty(rs.getInt("min_qty"));
+            c.setMaxQty(rs.getInt("max_qty"));
+            c.setCreatedBy(rs.getLong("created_by"));
+            c.setOnHand(rs.getLong("on_hand"));
+            c.setOpenPoQty(rs.getLong("open_po_qty"));
+            c.setOpenPrqQty(rs.getLong("open_prq_qty"));
+            return c;
+        });
+    }
+
+    @Data
+    public static class ReorderCandidate {
+        private StockKey key;
+        private Long vendorId;
+        private int minQty;
+        private int maxQty;
+        private Long createdBy;
+        private long onHand;
+        private long openPoQty;
+        private long openPrqQty;
+
+        /** Quantity to draft to bring the pipeline up to {@code maxQty}, or 0 above the reorder point. */
+        public int shortfall() {
+            long pipeline = onHand + openPoQty + openPrqQty;
+            return pipeline <= minQty ? (int) (maxQty - pipeline) : 0;
+        }
+    }
+}
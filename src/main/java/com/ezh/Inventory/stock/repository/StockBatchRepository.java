@@ -1,12 +1,15 @@
 package com.ezh.Inventory.stock.repository;
 
+import com.ezh.Inventory.stock.dto.StockBatchSnapshot;
 import com.ezh.Inventory.stock.dto.StockSearchProjection;
 import com.ezh.Inventory.stock.entity.StockBatch;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +21,8 @@ public interface StockBatchRepository extends JpaRepository<StockBatch, Long> {
 
     Optional<StockBatch> findFirstByItemIdAndBatchNumberAndTenantId(Long itemId, String batchNumber, Long tenantId);
 
+    List<StockBatch> findByTenantIdAndItemIdInAndBatchNumberIn(Long tenantId, Collection<Long> itemIds, Collection<String> batchNumbers);
+
     List<StockBatch> findByItemIdAndWarehouseIdAndRemainingQtyGreaterThanOrderByCreatedAtAsc(Long itemId, Long warehouseId, Integer minQty);
 
     // Find all available batches for an item (Useful for FIFO)
@@ -50,4 +55,24 @@ public interface StockBatchRepository extends JpaRepository<StockBatch, Long> {
             @Param("warehouseId") Long warehouseId,
             @Param("itemId") Long itemId,
             @Param("query") String query);
-}
\ No newline at end of file
+
+    // --- Posting engine primitives (see StockPostingEngine) ---
+
+    @Query("SELECT b.id AS id, b.batchNumber AS batchNumber, b.remainingQty AS remainingQty, b.buyPrice AS buyPrice " +
+            "FROM StockBatch b WHERE b.tenantId = :tenantId AND b.warehouseId = :warehouseId " +
+            "AND b.itemId = :itemId AND b.batchNumber = :batchNumber")
+    Optional<StockBatchSnapshot> findBatchSnapshot(@Param("tenantId") Long tenantId,
+                                                   @Param("warehouseId") Long warehouseId,
+                                                   @Param("itemId") Long itemId,
+                                                   @Param("batchNumber") String batchNumber);
+
+    // Conditional decrement, never lets remaining_qty go negative
+    @Modifying
+    @Query("UPDATE StockBatch b SET b.remainingQty = b.remainingQty - :qty " +
+            "WHERE b.id = :id AND b.remainingQty >= :qty")
+    int deductIfAvailable(@Param("id") Long id, @Param("qty") int qty);
+
+    @Modifying
+    @Query("UPDATE StockBatch b SET b.remainingQty = b.remainingQty + :qty WHERE b.id = :id")
+    int addRemainingQty(@Param("id") Long id, @Param("qty") int qty);
+}
@@ -0,0 +1,138 @@
+package com.ezh.Inventory.stock.repository;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * JDBC access to {@code stock_checkpoint}. Both the checkpoint writer and the as-of read start from
+ * the latest checkpoint before the requested instant and fold only the ledger rows after it, so
+ * their cost follows the number of items and recent movements, not the size of the ledger.
+ *
+ * <p>All bounds are half-open: a checkpoint at {@code T} covers ledger rows with
+ * {@code created_at < T}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockCheckpointJdbcRepository {
+
+    private static final String SIGNED_QTY = "CASE WHEN l.transaction_type = 'OUT' THEN -l.quantity ELSE l.quantity END";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public List<Long> findTenantIdsWithStock() {
+        return jdbcTemplate.queryForList("SELECT DISTINCT tenant_id FROM stock", new MapSqlParameterSource(), Long.class);
+    }
+
+    public boolean exists(Long tenantId, Timestamp at) {
+        Boolean exists = jdbcTemplate.queryForObject("""
+                SELECT EXISTS (SELECT 1 FROM stock_checkpoint WHERE tenant_id = :tenantId AND checkpoint_at = :at)
+                """, params(tenantId, at), Boolean.class);
+        return Boolean.TRUE.equals(exists);
+    }
+
+    /**
+     * Writes the tenant's checkpoint at {@code at} (previous checkpoint plus the ledger since), in
+     * one statement.
+     *
+     * @return number of non-zero (warehouse, item) rows written
+     */
+    public int writeCheckpoint(Long tenantId, Timestamp at) {
+        return jdbcTemplate.update("""
+                WITH prev AS (
+                    SELECT MAX(checkpoint_at) AS at FROM stock_checkpoint
+                    WHERE tenant_id = :tenantId AND checkpoint_at < :at
+                ),
+                base AS (
+                    SELECT c.warehouse_id, c.item_id, c.closing_qty
+                    FROM stock_checkpoint c
+                    JOIN prev ON c.checkpoint_at = prev.at
+                    WHERE c.tenant_id = :tenantId
+                ),
+                delta AS (
+                    SELECT l.warehouse_id, l.item_id, SUM(%s) AS qty
+                    FROM stock_ledger l
+                    CROSS JOIN prev
+                    WHERE l.tenant_id = :tenantId
+                      AND (prev.at IS NULL OR l.created_at >= prev.at)
+                      AND l.created_at < :at
+                    GROUP BY l.warehouse_id, l.item_id
+                ),
+                closing AS (
+                    SELECT COALESCE(b.warehouse_id, d.warehouse_id) AS warehouse_id,
+                           COALESCE(b.item_id, d.item_id) AS item_id,
+                           COALESCE(b.closing_qty, 0) + COALESCE(d.qty, 0) AS closing_qty
+                    FROM base b
+                    FULL JOIN delta d ON d.warehouse_id = b.warehouse_id AND d.item_id = b.item_id
+                )
+                INSERT INTO stock_checkpoint (tenant_id, warehouse_id, item_id, checkpoint_at, closing_qty, average_cost)
+                SELECT :tenantId, c.warehouse_id, c.item_id, :at, c.closing_qty, s.average_cost
+                FROM closing c
+                LEFT JOIN stock s ON s.tenant_id = :tenantId AND s.warehouse_id = c.warehouse_id AND s.item_id = c.item_id
+                WHERE c.closing_qty <> 0
+                ON CONFLICT DO NOTHING
+                """.formatted(SIGNED_QTY), params(tenantId, at));
+    }
+
+    /** Closing quantity per item of one warehouse for ledger rows before {@code at}; zero rows are left out. */
+    public List<AsOfRow> findAsOf(Long tenantId, Long warehouseId, Timestamp at) {
+        return jdbcTemplate.query("""
+                WITH cp AS (
+                    SELECT MAX(checkpoint_at) AS at FROM stock_checkpoint
+                    WHERE tenant_id = :tenantId AND checkpoint_at <= :at
+                ),
+                base AS (
+                    SELECT c.item_id, c.closing_qty, c.average_cost
+                    FROM stock_checkpoint c
+                    JOIN cp ON c.checkpoint_at = cp.at
+                    WHERE c.tenant_id = :tenantId AND c.warehouse_id = :warehouseId
+                ),
+                delta AS (
+                    SELECT l.item_id, SUM(%s) AS qty
+                    FROM stock_ledger l
+                    CROSS JOIN cp
+                    WHERE l.tenant_id = :tenantId AND l.warehouse_id = :warehouseId
+                      AND (cp.at IS NULL OR l.created_at >= cp.at)
+                      AND l.created_at < :at
+                    GROUP BY l.item_id
+                )
+                SELECT COALESCE(b.item_id, d.item_id) AS item_id,
+                       COALESCE(b.closing_qty, 0) + COALESCE(d.qty, 0) AS closing_qty,
+                       COALESCE(b.average_cost, s.average_cost) AS average_cost,
+                       (SELECT at FROM cp) AS checkpoint_at
+                FROM base b
+                FULL JOIN delta d ON d.item_id = b.item_id
+                LEFT JOIN stock s ON s.tenant_id = :tenantId AND s.warehouse_id = :warehouseId
+                                 AND s.item_id = COALESCE(b.item_id, d.item_id)
+                WHERE COALESCE(b.closing_qty, 0) + COALESCE(d.qty, 0) <> 0
+                ORDER BY item_id
+                """.formatted(SIGNED_QTY), params(tenantId, at).addValue("warehouseId", warehouseId), (rs, i) -> {
+            AsOfRow row = new AsOfRow();
+            row.setItemId(rs.getLong("item_id"));
+            row.setClosingQty(rs.getInt("closing_qty"));
+            row.setAverageCost(rs.getBigDecimal("average_cost"));
+            row.setCheckpointAt(rs.getTimestamp("checkpoint_at"));
+            return row;
+        });
+    }
+
+    private static MapSqlParameterSource params(Long tenantId, Timestamp at) {
+        return new MapSqlParameterSource()
+                .addValue("tenantId", tenantId)
+                .addValue("at", at);
+    }
+
+    @Data
+    public static class AsOfRow {
+        private Long itemId;
+        private int closingQty;
+        private BigDecimal averageCost;
+        private Timestamp checkpointAt;
+    }
+}
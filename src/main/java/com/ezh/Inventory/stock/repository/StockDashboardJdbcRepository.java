@@ -0,0 +1,197 @@
+package com.ezh.Inventory.stock.repository;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Array;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * JDBC access to the {@code stock_dashboard_agg} read model. Each tenant and warehouse is striped
+ * over several slot rows whose totals add up; a stock id may appear in the fast movers of more than
+ * one slot, and its largest {@code out_qty} is the current one. Fast movers are two parallel
+ * {@code bigint[]} columns, stock ids and their {@code out_qty}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockDashboardJdbcRepository {
+
+    private static final String COLUMNS = """
+            tenant_id, warehouse_id, slot, total_value, total_in_qty, total_out_qty, out_of_stock_count,
+            fast_mover_stock_ids, fast_mover_out_qtys""";
+
+    private static final RowMapper<AggRow> ROW_MAPPER = (rs, i) -> {
+        AggRow row = new AggRow();
+        row.setTenantId(rs.getLong("tenant_id"));
+        row.setWarehouseId(rs.getLong("warehouse_id"));
+        row.setSlot(rs.getInt("slot"));
+        row.setTotalValue(rs.getBigDecimal("total_value"));
+        row.setTotalInQty(rs.getLong("total_in_qty"));
+        row.setTotalOutQty(rs.getLong("total_out_qty"));
+        row.setOutOfStockCount(rs.getLong("out_of_stock_count"));
+        row.setFastMoverStockIds(toLongs(rs.getArray("fast_mover_stock_ids")));
+        row.setFastMoverOutQtys(toLongs(rs.getArray("fast_mover_out_qtys")));
+        return row;
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Returns one slot row of the aggregate, creating an empty one if needed, and holds its row lock
+     * until the surrounding transaction ends.
+     */
+    public AggRow lockForUpdate(Long tenantId, Long warehouseId, int slot) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO stock_dashboard_agg (tenant_id, warehouse_id, slot)
+                VALUES (:tenantId, :warehouseId, :slot)
+                ON CONFLICT (tenant_id, warehouse_id, slot) DO UPDATE SET updated_at = stock_dashboard_agg.updated_at
+                RETURNING %s
+                """.formatted(COLUMNS), keyParams(tenantId, warehouseId).addValue("slot", slot), ROW_MAPPER);
+    }
+
+    /**
+     * Locks every slot row of the warehouse, creating slots {@code 0 .. slots - 1} if missing, in
+     * slot order. Rows of slots beyond {@code slots} (left from a larger setting) are locked too.
+     */
+    public List<AggRow> lockAllSlots(Long tenantId, Long warehouseId, int slots) {
+        MapSqlParameterSource params = keyParams(tenantId, warehouseId).addValue("slots", slots);
+        jdbcTemplate.update("""
+                INSERT INTO stock_dashboard_agg (tenant_id, warehouse_id, slot)
+                SELECT :tenantId, :warehouseId, s FROM generate_series(0, :slots - 1) AS s
+                ON CONFLICT (tenant_id, warehouse_id, slot) DO NOTHING
+                """, params);
+        return jdbcTemplate.query("""
+                SELECT %s FROM stock_dashboard_agg
+                WHERE tenant_id = :tenantId AND warehouse_id = :warehouseId
+                ORDER BY slot
+                FOR UPDATE
+                """.formatted(COLUMNS), params, ROW_MAPPER);
+    }
+
+    public void update(AggRow row) {
+        jdbcTemplate.update("""
+                UPDATE stock_dashboard_agg
+                SET total_value = :totalValue, total_in_qty = :totalInQty, total_out_qty = :totalOutQty,
+                    out_of_stock_count = :outOfStockCount,
+                    fast_mover_stock_ids = CAST(:fastMoverStockIds AS bigint[]),
+                    fast_mover_out_qtys = CAST(:fastMoverOutQtys AS bigint[]),
+                    updated_at = CURRENT_TIMESTAMP
+                WHERE tenant_id = :tenantId AND warehouse_id = :warehouseId AND slot = :slot
+                """, keyParams(row.getTenantId(), row.getWarehouseId())
+                .addValue("slot", row.getSlot())
+                .addValue("totalValue", row.getTotalValue())
+                .addValue("totalInQty", row.getTotalInQty())
+                .addValue("totalOutQty", row.getTotalOutQty())
+                .addValue("outOfStockCount", row.getOutOfStockCount())
+                .addValue("fastMoverStockIds", toPgArray(row.getFastMoverStockIds()))
+                .addValue("fastMoverOutQtys", toPgArray(row.getFastMoverOutQtys())));
+    }
+
+    /**
+     * Every slot row; callers add them up.
+     *
+     * @param warehouseId null for every warehouse of the tenant
+     */
+    public List<AggRow> findByTenant(Long tenantId, Long warehouseId) {
+        return jdbcTemplate.query("""
+                SELECT %s FROM stock_dashboard_agg
+                WHERE tenant_id = :tenantId AND (CAST(:warehouseId AS bigint) IS NULL OR warehouse_id = :warehouseId)
+                """.formatted(COLUMNS), keyParams(tenantId, warehouseId), ROW_MAPPER);
+    }
+
+    /** Every (tenant, warehouse) that has stock rows or an aggregate row. */
+    public List<Long[]> findAllKeys() {
+        return jdbcTemplate.query("""
+                SELECT DISTINCT tenant_id, warehouse_id FROM stock
+                UNION
+                SELECT DISTINCT tenant_id, warehouse_id FROM stock_dashboard_agg
+                """, new MapSqlParameterSource(),
+                (rs, i) -> new Long[]{rs.getLong("tenant_id"), rs.getLong("warehouse_id")});
+    }
+
+    /**
+     * Overwrites slot 0 of the (already locked, see {@link #lockAllSlots}) aggregate with totals
+     * recomputed from {@code stock} and zeroes the other slots. Under READ COMMITTED this sees every
+     * posting that committed before the locks were taken; later postings apply their own deltas
+     * once the locks are released.
+     *
+     * @return slot 0, which now holds the whole aggregate
+     */
+    public AggRow recompute(Long tenantId, Long warehouseId, int fastMovers) {
+        jdbcTemplate.update("""
+                UPDATE stock_dashboard_agg
+                SET total_value = 0, total_in_qty = 0, total_out_qty = 0, out_of_stock_count = 0,
+                    fast_mover_stock_ids = '{}', fast_mover_out_qtys = '{}',
+                    rebuilt_at = CURRENT_TIMESTAMP, updated_at = CURRENT_TIMESTAMP
+                WHERE tenant_id = :tenantId AND warehouse_id = :warehouseId AND slot <> 0
+                """, keyParams(tenantId, warehouseId));
+        return jdbcTemplate.queryForObject("""
+                WITH totals AS (
+                    SELECT COALESCE(SUM(stock_value), 0) AS sum_value,
+                           COALESCE(SUM(in_qty), 0) AS sum_in,
+                           COALESCE(SUM(out_qty), 0) AS sum_out,
+                           COUNT(*) FILTER (WHERE closing_qty <= 0) AS count_out_of_stock
+                    FROM stock
+                    WHERE tenant_id = :tenantId AND warehouse_id = :warehouseId
+                ),
+                top AS (
+                    SELECT id, out_qty FROM stock
+                    WHERE tenant_id = :tenantId AND warehouse_id = :warehouseId
+                    ORDER BY out_qty DESC, id
+                    LIMIT :fastMovers
+                )
+                UPDATE stock_dashboard_agg
+                SET total_value = t.sum_value, total_in_qty = t.sum_in, total_out_qty = t.sum_out,
+                    out_of_stock_count = t.count_out_of_stock,
+                    fast_mover_stock_ids = COALESCE((SELECT array_agg(id ORDER BY out_qty DESC, id) FROM top), '{}'),
+                    fast_mover_out_qtys = COALESCE((SELECT array_agg(CAST(out_qty AS bigint) ORDER BY out_qty DESC, id) FROM top), '{}'),
+                    rebuilt_at = CURRENT_TIMESTAMP, updated_at = CURRENT_TIMESTAMP
+                FROM totals t
+                WHERE tenant_id = :tenantId AND warehouse_id = :warehouseId AND slot = 0
+                RETURNING %s
+                """.formatted(COLUMNS),
+                keyParams(tenantId, warehouseId).addValue("fastMovers", fastMovers), ROW_MAPPER);
+    }
+
+    private static MapSqlParameterSource keyParams(Long tenantId, Long warehouseId) {
+        return new MapSqlParameterSource()
+                .addValue("tenantId", tenantId)
+                .addValue("warehouseId", warehouseId);
+    }
+
+    private static List<Long> toLongs(Array array) throws SQLException {
+        if (array == null) return new ArrayList<>();
+        Object[] values = (Object[]) array.getArray();
+        List<Long> longs = new ArrayList<>(values.length);
+        for (Object v : values) {
+            longs.add(((Number) v).longValue());
+        }
+        return longs;
+    }
+
+    private static String toPgArray(List<?> values) {
+        StringJoiner joiner = new StringJoiner(",", "{", "}");
+        values.forEach(v -> joiner.add(String.valueOf(v)));
+        return joiner.toString();
+    }
+
+    /** Mutable copy of one aggregate slot row. */
+    @Data
+    public static class AggRow {
+        private Long tenantId;
+        private Long warehouseId;
+        private int slot;
+        private BigDecimal totalValue;
+        private long totalInQty;
+        private long totalOutQty;
+        private long outOfStockCount;
+        private List<Long> fastMoverStockIds;
+        private List<Long> fastMoverOutQtys;
+    }
+}
@@ -0,0 +1,147 @@
+package com.ezh.Inventory.stock.repository;
+
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * JDBC access for the expiry scanner: keyset pages over the open-batch expiry index and the
+ * per-tenant scan state in {@code stock_expiry_scan}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockExpiryJdbcRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Tenants with open batches expiring before {@code horizon} whose cycle is unfinished or due,
+     * least recently scanned first.
+     */
+    public List<Long> findTenantsToScan(long horizon, Timestamp dueBefore) {
+        return jdbcTemplate.queryForList("""
+                SELECT t.tenant_id
+                FROM (SELECT DISTINCT tenant_id FROM stock_batch
+                      WHERE remaining_qty > 0 AND expiry_date IS NOT NULL AND expiry_date < :horizon) t
+                LEFT JOIN stock_expiry_scan s ON s.tenant_id = t.tenant_id
+                WHERE s.tenant_id IS NULL OR s.status = 'SCANNING' OR s.completed_at < :dueBefore
+                ORDER BY s.updated_at NULLS FIRST, t.tenant_id
+                """, new MapSqlParameterSource()
+                .addValue("horizon", horizon)
+                .addValue("dueBefore", dueBefore), Long.class);
+    }
+
+    public Optional<ScanState> findState(Long tenantId) {
+        return jdbcTemplate.query("SELECT * FROM stock_expiry_scan WHERE tenant_id = :tenantId FOR UPDATE",
+                new MapSqlParameterSource("tenantId", tenantId), (rs, i) -> toState(rs)).stream().findFirst();
+    }
+
+    public void saveState(ScanState state) {
+        jdbcTemplate.update("""
+                INSERT INTO stock_expiry_scan (tenant_id, status, cycle_started_at, cursor_expiry_date, cursor_batch_id,
+                                               expired_batches, expired_qty, critical_batches, critical_qty,
+                                               upcoming_batches, upcoming_qty, completed_at, updated_at)
+                VALUES (:tenantId, :status, :cycleStartedAt, :cursorExpiryDate, :cursorBatchId,
+                        :expiredBatches, :expiredQty, :criticalBatches, :criticalQty,
+                        :upcomingBatches, :upcomingQty, :completedAt, CURRENT_TIMESTAMP)
+                ON CONFLICT (tenant_id) DO UPDATE SET
+                    status = EXCLUDED.status,
+                    cycle_started_at = EXCLUDED.cycle_started_at,
+                    cursor_expiry_date = EXCLUDED.cursor_expiry_date,
+                    cursor_batch_id = EXCLUDED.cursor_batch_id,
+                    expired_batches = EXCLUDED.expired_batches,
+                    expired_qty = EXCLUDED.expired_qty,
+                    critical_batches = EXCLUDED.critical_batches,
+                    critical_qty = EXCLUDED.critical_qty,
+                    upcoming_batches = EXCLUDED.upcoming_batches,
+                    upcoming_qty = EXCLUDED.upcoming_qty,
+                    completed_at = EXCLUDED.completed_at,
+                    updated_at = CURRENT_TIMESTAMP
+                """, new MapSqlParameterSource()
+                .addValue("tenantId", state.getTenantId())
+                .addValue("status", state.getStatus())
+                .addValue("cycleStartedAt", state.getCycleStartedAt())
+                .addValue("cursorExpiryDate", state.getCursorExpiryDate())
+                .addValue("cursorBatchId", state.getCursorBatchId())
+                .addValue("expiredBatches", state.getExpiredBatches())
+                .addValue("expiredQty", state.getExpiredQty())
+                .addValue("criticalBatches", state.getCriticalBatches())
+                .addValue("criticalQty", state.getCriticalQty())
+                .addValue("upcomingBatches", state.getUpcomingBatches())
+                .addValue("upcomingQty", state.getUpcomingQty())
+                .addValue("completedAt", state.getCompletedAt()));
+    }
+
+    /** Next page of open batches after the cursor (exclusive) that expire before {@code horizon}. */
+    public List<ExpiringBatch> findPage(Long tenantId, long cursorExpiryDate, long cursorBatchId, long horizon, int limit) {
+        return jdbcTemplate.query("""
+                SELECT id, expiry_date, remaining_qty
+                FROM stock_batch
+                WHERE tenant_id = :tenantId
+                  AND remaining_qty > 0 AND expiry_date IS NOT NULL
+                  AND expiry_date < :horizon
+                  AND (expiry_date, id) > (:cursorExpiryDate, :cursorBatchId)
+                ORDER BY expiry_date, id
+                LIMIT :limit
+                """, new MapSqlParameterSource()
+                .addValue("tenantId", tenantId)
+                .addValue("cursorExpiryDate", cursorExpiryDate)
+                .addValue("cursorBatchId", cursorBatchId)
+                .addValue("horizon", horizon)
+                .addValue("limit", limit), (rs, i) -> {
+            ExpiringBatch batch = new ExpiringBatch();
+            batch.setId(rs.getLong("id"));
+            batch.setExpiryDate(rs.getLong("expiry_date"));
+            batch.setRemainingQty(rs.getInt("remaining_qty"));
+            return batch;
+        });
+    }
+
+    private static ScanState toState(ResultSet rs) throws SQLException {
+        ScanState state = new ScanState();
+        state.setTenantId(rs.getLong("tenant_id"));
+        state.setStatus(rs.getString("status"));
+        state.setCycleStartedAt(rs.getLong("cycle_started_at"));
+        state.setCursorExpiryDate(rs.getObject("cursor_expiry_date", Long.class));
+        state.setCursorBatchId(rs.getObject("cursor_batch_id", Long.class));
+        state.setExpiredBatches(rs.getLong("expired_batches"));
+        state.setExpiredQty(rs.getLong("expired_qty"));
+        state.setCriticalBatches(rs.getLong("critical_batches"));
+        state.setCriticalQty(rs.getLong("critical_qty"));
+        state.setUpcomingBatches(rs.getLong("upcoming_batches"));
+        state.setUpcomingQty(rs.getLong("upcoming_qty"));
+        state.setCompletedAt(rs.getTimestamp("completed_at"));
+        return state;
+    }
+
+    @Data
+    public static class ScanState {
+        private Long tenantId;
+        private String status;
+        private long cycleStartedAt;
+        private Long cursorExpiryDate;
+        private Long cursorBatchId;
+        private long expiredBatches;
+        private long expiredQty;
+        private long criticalBatches;
+        private long criticalQty;
+        private long upcomingBatches;
+        private long upcomingQty;
+        private Timestamp completedAt;
+    }
+
+    @Data
+    public static class ExpiringBatch {
+        private Long id;
+        private long expiryDate;
+        private int remainingQty;
+    }
+}
@@ -0,0 +1,194 @@
+package com.ezh.Inventory.stock.repository;
+
+import com.ezh.Inventory.stock.dto.StockImportJobDto;
+import com.ezh.Inventory.stock.dto.StockImportJobDto.RowError;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Opening-stock import jobs and the set-based writes of one import chunk. Stock rows and batches
+ * are JDBC batches, which the driver rewrites into multi-row statements, so a chunk costs the same
+ * few round trips whatever its size.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockImportJdbcRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public Long createJob(Long tenantId, String fileName, Long createdBy) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO stock_import_job (tenant_id, file_name, status, created_by, created_at)
+                VALUES (:tenantId, :fileName, 'QUEUED', :createdBy, CURRENT_TIMESTAMP)
+                RETURNING id
+                """, new MapSqlParameterSource()
+                .addValue("tenantId", tenantId)
+                .addValue("fileName", fileName)
+                .addValue("createdBy", createdBy), Long.class);
+    }
+
+    public void markRunning(Long jobId) {
+        jdbcTemplate.update("""
+                UPDATE stock_import_job SET status = 'RUNNING', started_at = CURRENT_TIMESTAMP WHERE id = :id
+                """, new MapSqlParameterSource("id", jobId));
+    }
+
+    /** Adds one chunk's counts; runs in the chunk's transaction so progress commits with the data. */
+    public void addProgress(Long jobId, long rows, long imported, long failed) {
+        jdbcTemplate.update("""
+                UPDATE stock_import_job
+                SET total_rows = total_rows + :rows, imported_rows = imported_rows + :imported,
+                    failed_rows = failed_rows + :failed
+                WHERE id = :id
+                """, new MapSqlParameterSource()
+                .addValue("id", jobId)
+                .addValue("rows", rows)
+                .addValue("imported", imported)
+                .addValue("failed", failed));
+    }
+
+    public void finishJob(Long jobId, String status, String message) {
+        jdbcTemplate.update("""
+                UPDATE stock_import_job SET status = :status, message = :message, finished_at = CURRENT_TIMESTAMP
+                WHERE id = :id
+                """, new MapSqlParameterSource()
+                .addValue("id", jobId)
+                .addValue("status", status)
+                .addValue("message", message));
+    }
+
+    public Optional<StockImportJobDto> findJob(Long tenantId, Long jobId) {
+        return jdbcTemplate.query("""
+                SELECT id, file_name, status, total_rows, imported_rows, failed_rows, message,
+                       created_at, started_at, finished_at
+                FROM stock_import_job
+                WHERE id = :id AND tenant_id = :tenantId
+                """, new MapSqlParameterSource()
+                .addValue("id", jobId)
+                .addValue("tenantId", tenantId), (rs, i) -> StockImportJobDto.builder()
+                .jobId(rs.getLong("id"))
+                .fileName(rs.getString("file_name"))
+                .status(rs.getString("status"))
+                .totalRows(rs.getLong("total_rows"))
+                .importedRows(rs.getLong("imported_rows"))
+                .failedRows(rs.getLong("failed_rows"))
+                .message(rs.getString("message"))
+                .createdAt(rs.getTimestamp("created_at"))
+                .startedAt(rs.getTimestamp("started_at"))
+                .finishedAt(rs.getTimestamp("finished_at"))
+                .build()).stream().findFirst();
+    }
+
+    public List<RowError> findErrors(Long jobId, int limit) {
+        return jdbcTemplate.query("""
+                SELECT row_number, message FROM stock_import_error
+                WHERE job_id = :jobId
+                ORDER BY row_number
+                LIMIT :limit
+                """, new MapSqlParameterSource()
+                .addValue("jobId", jobId)
+                .addValue("limit", limit), (rs, i) -> new RowError(rs.getLong("row_number"), rs.getString("message")));
+    }
+
+    public void insertErrors(Long jobId, List<RowError> errors) {
+        if (errors.isEmpty()) return;
+        SqlParameterSource[] params = errors.stream()
+                .map(e -> new MapSqlParameterSource()
+                        .addValue("jobId", jobId)
+                        .addValue("rowNumber", e.getRowNumber())
+                        .addValue("message", truncate(e.getMessage())))
+                .toArray(SqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO stock_import_error (job_id, row_number, message) VALUES (:jobId, :rowNumber, :message)
+                """, params);
+    }
+
+    /**
+     * Adds the opening quantity to each locked stock row and writes its new closing quantity and
+     * weighted average cost.
+     */
+    public void addOpeningQuantities(Collection<OpeningUpdate> updates) {
+        if (updates.isEmpty()) return;
+        SqlParameterSource[] params = updates.stream()
+                .map(u -> new MapSqlParameterSource()
+                        .addValue("id", u.getStockId())
+                        .addValue("openingQty", u.getOpeningQty())
+                        .addValue("closingQty", u.getClosingQty())
+                        .addValue("averageCost", u.getAverageCost())
+                        .addValue("stockValue", u.getAverageCost().multiply(BigDecimal.valueOf(u.getClosingQty()))))
+                .toArray(SqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate("""
+                UPDATE stock
+                SET opening_qty = opening_qty + :openingQty, closing_qty = :closingQty,
+                    average_cost = :averageCost, stock_value = :stockValue,
+                    version = version + 1, updated_at = CURRENT_TIMESTAMP
+                WHERE id = :id
+                """, params);
+    }
+
+    /**
+     * Receives the opening quantities into their batches. An existing batch with the same number
+     * keeps its buy price and expiry and grows by the quantity. Callers merge rows per batch first:
+     * the rewritten multi-row insert cannot touch the same batch twice.
+     */
+    public void upsertBatches(Long tenantId, Collection<OpeningBatch> batches) {
+        if (batches.isEmpty()) return;
+        SqlParameterSource[] params = batches.stream()
+                .map(b -> new MapSqlParameterSource()
+                        .addValue("uuid", UUID.randomUUID().toString())
+                        .addValue("tenantId", tenantId)
+                        .addValue("warehouseId", b.getWarehouseId())
+                        .addValue("itemId", b.getItemId())
+                        .addValue("batchNumber", b.getBatchNumber())
+                        .addValue("buyPrice", b.getBuyPrice())
+                        .addValue("qty", b.getQuantity())
+                        .addValue("expiryDate", b.getExpiryDate()))
+                .toArray(SqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO stock_batch (uuid, created_at, updated_at, is_deleted, item_id, warehouse_id, tenant_id,
+                                         batch_number, buy_price, initial_qty, remaining_qty, expiry_date)
+                VALUES (:uuid, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, false, :itemId, :warehouseId, :tenantId,
+                        :batchNumber, :buyPrice, :qty, :qty, :expiryDate)
+                ON CONFLICT (batch_number, warehouse_id, item_id, tenant_id) DO UPDATE
+                SET initial_qty = stock_batch.initial_qty + EXCLUDED.initial_qty,
+                    remaining_qty = stock_batch.remaining_qty + EXCLUDED.remaining_qty,
+                    updated_at = CURRENT_TIMESTAMP
+                """, params);
+    }
+
+    private static String truncate(String message) {
+        if (message == null) return "";
+        return message.length() <= 500 ? message : message.substring(0, 500);
+    }
+
+    @Value
+    public static class OpeningUpdate {
+        Long stockId;
+        int openingQty;
+        int closingQty;
+        BigDecimal averageCost;
+    }
+
+    @Value
+    public static class OpeningBatch {
+        Long warehouseId;
+        Long itemId;
+        String batchNumber;
+        BigDecimal buyPrice;
+        int quantity;
+        Long expiryDate;
+    }
+}
@@ -2,45 +2,33 @@ package com.ezh.Inventory.stock.repository;
 
 import com.ezh.Inventory.stock.entity.MovementType;
 import com.ezh.Inventory.stock.entity.StockLedger;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface StockLedgerRepository extends JpaRepository<StockLedger, Long> {
+public interface StockLedgerRepository extends JpaRepository<StockLedger, Long>, JpaSpecificationExecutor<StockLedger> {
 
     Page<StockLedger> findByTenantId(Long tenantId, Pageable pageable);
 
-    @Query("""
-            SELECT s FROM StockLedger s
-            WHERE s.tenantId = :tenantId
-            AND (:id IS NULL OR s.id = :id)
-            AND (:warehouseId IS NULL OR s.warehouseId = :warehouseId)
-            AND (CAST(:transactionTypes AS text) IS NULL OR s.transactionType IN :transactionTypes)
-            AND (CAST(:referenceType AS text) IS NULL OR s.referenceType IN :referenceType)
-            AND (:searchQuery IS NULL OR 
-                LOWER(s.uuid) LIKE LOWER(CAST(CONCAT('%', :searchQuery, '%') AS text)))
-            AND (CAST(:fromDate AS timestamp) IS NULL OR s.createdAt >= :fromDate)
-            AND (CAST(:toDate AS timestamp) IS NULL OR s.createdAt <= :toDate)
-            """)
-    Page<StockLedger> findAllStockLedger(
-            @Param("tenantId") Long tenantId,
-            @Param("id") Long id,
-            @Param("warehouseId") Long warehouseId,
-            @Param("transactionTypes") List<MovementType> transactionTypes,
-            @Param("referenceType") List<String> referenceType,
-            @Param("searchQuery") String searchQuery,
-            @Param("fromDate") LocalDateTime fromDate,
-            @Param("toDate") LocalDateTime toDate,
-            Pageable pageable
-    );
+    // Ledger rows are batch-inserted at commit without their generated id; read it back by uuid
+    @Query("SELECT s.id FROM StockLedger s WHERE s.uuid = :uuid")
+    Optional<Long> findIdByUuid(@Param("uuid") String uuid);
 
+    // Lists and scrolls filter through FilterSpecification; exports keep a static query for the fetch-size hint
+    // uuid is always stored lower case: only the term is lower-cased, so the trigram index on uuid applies
     @Query("""
             SELECT s FROM StockLedger s
             WHERE s.tenantId = :tenantId
@@ -49,12 +37,13 @@ public interface StockLedgerRepository extends JpaRepository<StockLedger, Long>
             AND (CAST(:transactionTypes AS text) IS NULL OR s.transactionType IN :transactionTypes)
             AND (CAST(:referenceType AS text) IS NULL OR s.referenceType IN :referenceType)
             AND (:searchQuery IS NULL OR
-                LOWER(s.uuid) LIKE LOWER(CAST(CONCAT('%', :searchQuery, '%') AS text)))
+                s.uuid LIKE LOWER(CAST(CONCAT('%', :searchQuery, '%') AS text)))
             AND (CAST(:fromDate AS timestamp) IS NULL OR s.createdAt >= :fromDate)
             AND (CAST(:toDate AS timestamp) IS NULL OR s.createdAt <= :toDate)
-            ORDER BY s.createdAt DESC
+            ORDER BY s.createdAt DESC, s.id DESC
             """)
-    List<StockLedger> findAllStockLedgerForDownload(
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<StockLedger> streamStockLedgerForDownload(
             @Param("tenantId") Long tenantId,
             @Param("id") Long id,
             @Param("warehouseId") Long warehouseId,
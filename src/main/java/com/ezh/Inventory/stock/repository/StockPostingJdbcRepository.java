@@ -0,0 +1,342 @@
+package com.ezh.Inventory.stock.repository;
+
+import com.ezh.Inventory.stock.dto.BatchAllocation;
+import com.ezh.Inventory.stock.entity.AllocationStrategy;
+import com.ezh.Inventory.stock.entity.StockLedger;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.*;
+
+/**
+ * Set-based JDBC access for multi-line stock posting.
+ *
+ * <p>Runs on the connection of the surrounding JPA transaction. Rows are read as plain holders
+ * (never as managed entities) and written back with JDBC batches, so a document costs a fixed
+ * number of round trips instead of several per line.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockPostingJdbcRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Creates missing stock rows for the given (warehouseId, itemId) keys in one statement.
+     *
+     * @return the keys whose row was created here (rows created concurrently by others are not included)
+     */
+    public Set<StockKey> insertMissingStockRows(Long tenantId, Collection<StockKey> keys) {
+        if (keys.isEmpty()) return Set.of();
+
+        List<Long> warehouseIds = new ArrayList<>(keys.size());
+        List<Long> itemIds = new ArrayList<>(keys.size());
+        keys.forEach(k -> {
+            warehouseIds.add(k.getWarehouseId());
+            itemIds.add(k.getItemId());
+        });
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tenantId", tenantId)
+                .addValue("warehouseIds", toPgArray(warehouseIds))
+                .addValue("itemIds", toPgArray(itemIds));
+
+        return new HashSet<>(jdbcTemplate.query("""
+                INSERT INTO stock (uuid, created_at, updated_at, is_deleted, item_id, tenant_id, warehouse_id,
+                                   opening_qty, in_qty, out_qty, closing_qty, average_cost, stock_value, version)
+                SELECT CAST(gen_random_uuid() AS varchar), CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, false,
+                       k.item_id, :tenantId, k.warehouse_id, 0, 0, 0, 0, 0, 0, 0
+                FROM unnest(CAST(:warehouseIds AS bigint[]), CAST(:itemIds AS bigint[])) AS k(warehouse_id, item_id)
+                ON CONFLICT (item_id, warehouse_id, tenant_id) DO NOTHING
+                RETURNING warehouse_id, item_id
+                """, params, (rs, i) -> new StockKey(rs.getLong("warehouse_id"), rs.getLong("item_id"))));
+    }
+
+    /**
+     * Reads and row-locks every stock row of the document in one statement.
+     * Rows are locked in id order, so two documents touching the same items cannot deadlock.
+     */
+    public Map<StockKey, StockRow> lockStockRows(Long tenantId, Collection<StockKey> keys) {
+        Map<StockKey, StockRow> rows = new HashMap<>();
+        if (keys.isEmpty()) return rows;
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tenantId", tenantId)
+                .addValue("keys", toTuples(keys));
+
+        jdbcTemplate.query("""
+                SELECT id, item_id, warehouse_id, in_qty, out_qty, closing_qty, average_cost
+                FROM stock
+                WHERE tenant_id = :tenantId AND (warehouse_id, item_id) IN (:keys)
+                ORDER BY id
+                FOR UPDATE
+                """, params, rs -> {
+            StockRow row = new StockRow();
+            row.setId(rs.getLong("id"));
+            row.setItemId(rs.getLong("item_id"));
+            row.setWarehouseId(rs.getLong("warehouse_id"));
+            row.setInQty(rs.getInt("in_qty"));
+            row.setOutQty(rs.getInt("out_qty"));
+            row.setClosingQty(rs.getInt("closing_qty"));
+            BigDecimal avg = rs.getBigDecimal("average_cost");
+            row.setAverageCost(avg != null ? avg : BigDecimal.ZERO);
+            rows.put(new StockKey(row.getWarehouseId(), row.getItemId()), row);
+        });
+        return rows;
+    }
+
+    /**
+     * Active reservations on the given rows, per sales order. Must be called after
+     * {@link #lockStockRows}: reserving locks the same rows, so no hold can be added until commit.
+     */
+    public Map<StockKey, Map<Long, Integer>> findActiveReservations(Long tenantId, Collection<StockKey> keys) {
+        Map<StockKey, Map<Long, Integer>> reserved = new HashMap<>();
+        if (keys.isEmpty()) return reserved;
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tenantId", tenantId)
+                .addValue("keys", toTuples(keys));
+
+        jdbcTemplate.query("""
+                SELECT warehouse_id, item_id, reference_id, SUM(quantity) AS quantity
+                FROM stock_reservation
+                WHERE tenant_id = :tenantId AND (warehouse_id, item_id) IN (:keys) AND status = 'ACTIVE'
+                GROUP BY warehouse_id, item_id, reference_id
+                """, params, rs -> {
+            reserved.computeIfAbsent(new StockKey(rs.getLong("warehouse_id"), rs.getLong("item_id")), k -> new HashMap<>())
+                    .put(rs.getLong("reference_id"), rs.getInt("quantity"));
+        });
+        return reserved;
+    }
+
+    /**
+     * Loads the explicitly named batches of a document (returns, specific-batch sales).
+     * FIFO/FEFO picks never load batches, they go through {@link #allocateBatches}.
+     * Must be called after {@link #lockStockRows}.
+     */
+    public Map<StockKey, List<BatchRow>> findNamedBatches(Long tenantId, Collection<StockKey> keys, Collection<String> namedBatches) {
+        Map<StockKey, List<BatchRow>> batches = new HashMap<>();
+        if (keys.isEmpty() || namedBatches.isEmpty()) return batches;
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tenantId", tenantId)
+                .addValue("keys", toTuples(keys))
+                .addValue("named", namedBatches);
+
+        jdbcTemplate.query("""
+                SELECT id, item_id, warehouse_id, batch_number, remaining_qty, buy_price
+                FROM stock_batch
+                WHERE tenant_id = :tenantId AND (warehouse_id, item_id) IN (:keys)
+                  AND batch_number IN (:named)
+                """, params, rs -> {
+            BatchRow batch = new BatchRow();
+            batch.setId(rs.getLong("id"));
+            batch.setBatchNumber(rs.getString("batch_number"));
+            batch.setRemainingQty(rs.getInt("remaining_qty"));
+            batch.setBuyPrice(rs.getBigDecimal("buy_price"));
+            batches.computeIfAbsent(new StockKey(rs.getLong("warehouse_id"), rs.getLong("item_id")), k -> new ArrayList<>())
+                    .add(batch);
+        });
+        return batches;
+    }
+
+    /**
+     * Set-based batch allocation: for every (warehouse, item) demand, walks the open batches in
+     * pick order with a running sum, keeps only the batches needed to cover the demand and deducts
+     * them in the same statement. Only the touched batches are written.
+     *
+     * <p>Rows come back unordered; {@link AllocatedRow#getConsumedBefore()} gives their pick order.
+     */
+    public List<AllocatedRow> allocateBatches(Long tenantId, AllocationStrategy strategy, Map<StockKey, Integer> demand) {
+        if (demand.isEmpty()) return List.of();
+
+        List<Long> warehouseIds = new ArrayList<>(demand.size());
+        List<Long> itemIds = new ArrayList<>(demand.size());
+        List<Integer> qtys = new ArrayList<>(demand.size());
+        demand.forEach((key, qty) -> {
+            warehouseIds.add(key.getWarehouseId());
+            itemIds.add(key.getItemId());
+            qtys.add(qty);
+        });
+
+        String pickOrder = strategy == AllocationStrategy.FEFO
+                ? "b.expiry_date ASC NULLS LAST, b.created_at, b.id"
+                : "b.created_at, b.id";
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tenantId", tenantId)
+                .addValue("warehouseIds", toPgArray(warehouseIds))
+                .addValue("itemIds", toPgArray(itemIds))
+                .addValue("qtys", toPgArray(qtys));
+
+        return jdbcTemplate.query("""
+                WITH demand AS (
+                    SELECT * FROM unnest(CAST(:warehouseIds AS bigint[]), CAST(:itemIds AS bigint[]), CAST(:qtys AS int[]))
+                        AS d(warehouse_id, item_id, qty)
+                ),
+                candidates AS (
+                    SELECT b.id, b.warehouse_id, b.item_id, b.batch_number, b.buy_price, b.remaining_qty, d.qty,
+                           SUM(b.remaining_qty) OVER (PARTITION BY b.warehouse_id, b.item_id ORDER BY %s
+                                                      ROWS BETWEEN UNBOUNDED PRECEDING AND CURRENT ROW)
+                               - b.remaining_qty AS consumed_before
+                    FROM stock_batch b
+                    JOIN demand d ON d.warehouse_id = b.warehouse_id AND d.item_id = b.item_id
+                    WHERE b.tenant_id = :tenantId AND b.remaining_qty > 0
+                ),
+                picked AS (
+                    SELECT id, warehouse_id, item_id, batch_number, buy_price, consumed_before,
+                           LEAST(remaining_qty, qty - consumed_before) AS take
+                    FROM candidates
+                    WHERE consumed_before < qty
+                )
+                UPDATE stock_batch sb
+                SET remaining_qty = sb.remaining_qty - p.take, updated_at = CURRENT_TIMESTAMP
+                FROM picked p
+                WHERE sb.id = p.id
+                RETURNING p.id, p.warehouse_id, p.item_id, p.batch_number, p.buy_price, p.take, p.consumed_before
+                """.formatted(pickOrder), params, (rs, i) -> new AllocatedRow(
+                new StockKey(rs.getLong("warehouse_id"), rs.getLong("item_id")),
+                rs.getLong("consumed_before"),
+                BatchAllocation.builder()
+                        .batchId(rs.getLong("id"))
+                        .batchNumber(rs.getString("batch_number"))
+                        .quantity(rs.getInt("take"))
+                        .unitCost(rs.getBigDecimal("buy_price"))
+                        .build()));
+    }
+
+    public void updateStockRows(Collection<StockRow> rows) {
+        if (rows.isEmpty()) return;
+        SqlParameterSource[] params = rows.stream()
+                .map(r -> new MapSqlParameterSource()
+                        .addValue("id", r.getId())
+                        .addValue("inQty", r.getInQty())
+                        .addValue("outQty", r.getOutQty())
+                        .addValue("closingQty", r.getClosingQty())
+                        .addValue("averageCost", r.getAverageCost())
+                        .addValue("stockValue", r.getAverageCost().multiply(BigDecimal.valueOf(r.getClosingQty()))))
+                .toArray(SqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate("""
+                UPDATE stock
+                SET in_qty = :inQty, out_qty = :outQty, closing_qty = :closingQty,
+                    average_cost = :averageCost, stock_value = :stockValue,
+                    version = version + 1, updated_at = CURRENT_TIMESTAMP
+                WHERE id = :id
+                """, params);
+    }
+
+    public void updateBatchRows(Collection<BatchRow> batches) {
+        if (batches.isEmpty()) return;
+        SqlParameterSource[] params = batches.stream()
+                .map(b -> new MapSqlParameterSource()
+                        .addValue("id", b.getId())
+                        .addValue("remainingQty", b.getRemainingQty()))
+                .toArray(SqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate("""
+                UPDATE stock_batch SET remaining_qty = :remainingQty, updated_at = CURRENT_TIMESTAMP WHERE id = :id
+                """, params);
+    }
+
+    public void insertLedgers(List<StockLedger> ledgers) {
+        if (ledgers.isEmpty()) return;
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        SqlParameterSource[] params = ledgers.stream()
+                .map(l -> new MapSqlParameterSource()
+                        .addValue("uuid", l.getUuid() != null ? l.getUuid() : UUID.randomUUID().toString())
+                        .addValue("createdAt", now)
+                        .addValue("itemId", l.getItemId())
+                        .addValue("tenantId", l.getTenantId())
+                        .addValue("warehouseId", l.getWarehouseId())
+                        .addValue("transactionType", l.getTransactionType().name())
+                        .addValue("quantity", l.getQuantity())
+                        .addValue("referenceType", l.getReferenceType() != null ? l.getReferenceType().name() : null)
+                        .addValue("referenceId", l.getReferenceId())
+                        .addValue("beforeQty", l.getBeforeQty())
+                        .addValue("afterQty", l.getAfterQty())
+                        .addValue("unitPrice", l.getUnitPrice())
+                        .addValue("totalValue", l.getTotalValue()))
+                .toArray(SqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO stock_ledger (uuid, created_at, updated_at, is_deleted, item_id, tenant_id, warehouse_id,
+                                          transaction_type, quantity, reference_type, reference_id,
+                                          before_qty, after_qty, unit_price, total_value)
+                VALUES (:uuid, :createdAt, :createdAt, false, :itemId, :tenantId, :warehouseId,
+                        :transactionType, :quantity, :referenceType, :referenceId,
+                        :beforeQty, :afterQty, :unitPrice, :totalValue)
+                """, params);
+    }
+
+    private static String toPgArray(List<?> values) {
+        StringJoiner joiner = new StringJoiner(",", "{", "}");
+        values.forEach(v -> joiner.add(String.valueOf(v)));
+        return joiner.toString();
+    }
+
+    private static List<Object[]> toTuples(Collection<StockKey> keys) {
+        return keys.stream().map(k -> new Object[]{k.getWarehouseId(), k.getItemId()}).toList();
+    }
+
+    /** Identifies one stock row of a tenant. */
+    @Value
+    public static class StockKey implements Comparable<StockKey> {
+        Long warehouseId;
+        Long itemId;
+
+        /** Keys of the items in one warehouse, without duplicates; none if the warehouse is unknown. */
+        public static Set<StockKey> forItems(Long warehouseId, Collection<Long> itemIds) {
+            Set<StockKey> keys = new TreeSet<>();
+            if (warehouseId == null || itemIds == null) return keys;
+            for (Long itemId : itemIds) {
+                if (itemId != null) keys.add(new StockKey(warehouseId, itemId));
+            }
+            return keys;
+        }
+
+        @Override
+        public int compareTo(StockKey o) {
+            int cmp = warehouseId.compareTo(o.warehouseId);
+            return cmp != 0 ? cmp : itemId.compareTo(o.itemId);
+        }
+    }
+
+    /** One batch slice taken by {@link #allocateBatches}. */
+    @Value
+    public static class AllocatedRow {
+        StockKey key;
+        long consumedBefore;
+        BatchAllocation allocation;
+    }
+
+    /** Mutable in-memory copy of a locked stock row. */
+    @Data
+    public static class StockRow {
+        private Long id;
+        private Long itemId;
+        private Long warehouseId;
+        private int inQty;
+        private int outQty;
+        private int closingQty;
+        private BigDecimal averageCost;
+        private boolean dirty;
+    }
+
+    /** Mutable in-memory copy of a stock batch. */
+    @Data
+    public static class BatchRow {
+        private Long id;
+        private String batchNumber;
+        private int remainingQty;
+        private BigDecimal buyPrice;
+        private boolean dirty;
+    }
+}
@@ -0,0 +1,174 @@
+package com.ezh.Inventory.stock.repository;
+
+import com.ezh.Inventory.stock.config.StockReconcileProperties;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
+import lombok.Data;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * JDBC access for the stock reconciler. The mismatch scan is a single aggregate statement per
+ * tenant, streamed with a cursor and taking no row locks; it reads one consistent snapshot, and
+ * since ledger rows are written in the posting transaction, a posting is either fully visible to
+ * it or not at all.
+ */
+@Repository
+public class StockReconcileJdbcRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate streamingTemplate;
+
+    public StockReconcileJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate, StockReconcileProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Postgres only streams with a fetch size (inside a transaction); keep it off the shared template
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getJdbcTemplate().getDataSource());
+        streaming.setFetchSize(properties.getFetchSize());
+        this.streamingTemplate = new NamedParameterJdbcTemplate(streaming);
+    }
+
+    public List<Long> findTenantIdsWithStock() {
+        return jdbcTemplate.queryForList("SELECT DISTINCT tenant_id FROM stock", new MapSqlParameterSource(), Long.class);
+    }
+
+    public Long createRun(Long tenantId, boolean autoRepair) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO stock_reconciliation_run (tenant_id, status, auto_repair)
+                VALUES (:tenantId, 'RUNNING', :autoRepair) RETURNING id
+                """, new MapSqlParameterSource()
+                .addValue("tenantId", tenantId)
+                .addValue("autoRepair", autoRepair), Long.class);
+    }
+
+    public void finishRun(Long runId, String status, long rowsChecked, long mismatches, long repaired, long elapsedMs) {
+        jdbcTemplate.update("""
+                UPDATE stock_reconciliation_run
+                SET status = :status, rows_checked = :rowsChecked, mismatches = :mismatches, repaired = :repaired,
+                    elapsed_ms = :elapsedMs, finished_at = CURRENT_TIMESTAMP
+                WHERE id = :runId
+                """, new MapSqlParameterSource()
+                .addValue("runId", runId)
+                .addValue("status", status)
+                .addValue("rowsChecked", rowsChecked)
+                .addValue("mismatches", mismatches)
+                .addValue("repaired", repaired)
+                .addValue("elapsedMs", elapsedMs));
+    }
+
+    public long countStockRows(Long tenantId) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM stock WHERE tenant_id = :tenantId",
+                new MapSqlParameterSource("tenantId", tenantId), Long.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Streams the tenant's stock rows that break at least one invariant. The latest ledger row is
+     * an index probe per stock row rather than a sort over the whole ledger.
+     */
+    public void streamMismatches(Long tenantId, Consumer<Mismatch> consumer) {
+        streamingTemplate.query("""
+                WITH batch_sums AS (
+                    SELECT warehouse_id, item_id, SUM(remaining_qty) AS batch_qty
+                    FROM stock_batch
+                    WHERE tenant_id = :tenantId
+                    GROUP BY warehouse_id, item_id
+                )
+                SELECT s.id, s.version, s.warehouse_id, s.item_id,
+                       s.opening_qty, s.in_qty, s.out_qty, s.closing_qty,
+                       b.batch_qty, l.after_qty
+                FROM stock s
+                LEFT JOIN batch_sums b ON b.warehouse_id = s.warehouse_id AND b.item_id = s.item_id
+                LEFT JOIN LATERAL (
+                    SELECT after_qty FROM stock_ledger
+                    WHERE tenant_id = s.tenant_id AND warehouse_id = s.warehouse_id AND item_id = s.item_id
+                    ORDER BY created_at DESC, id DESC
+                    LIMIT 1
+                ) l ON true
+                WHERE s.tenant_id = :tenantId
+                  AND ((b.batch_qty IS NOT NULL AND b.batch_qty <> s.closing_qty)
+                       OR (l.after_qty IS NOT NULL AND l.after_qty <> s.closing_qty)
+                       OR s.opening_qty + s.in_qty - s.out_qty <> s.closing_qty)
+                """, new MapSqlParameterSource("tenantId", tenantId), rs -> {
+            Mismatch m = new Mismatch();
+            m.setStockId(rs.getLong("id"));
+            m.setVersion(rs.getLong("version"));
+            m.setKey(new StockKey(rs.getLong("warehouse_id"), rs.getLong("item_id")));
+            m.setOpeningQty(rs.getLong("opening_qty"));
+            m.setInQty(rs.getLong("in_qty"));
+            m.setOutQty(rs.getLong("out_qty"));
+            m.setClosingQty(rs.getLong("closing_qty"));
+            m.setBatchQty(rs.getObject("batch_qty", Long.class));
+            m.setLedgerQty(rs.getObject("after_qty", Long.class));
+            consumer.accept(m);
+        });
+    }
+
+    /**
+     * Sets closing quantity to the ledger's and derives opening quantity so the movement sum
+     * holds, only if the row is unchanged since the scan.
+     *
+     * @return whether the row was repaired
+     */
+    public boolean repairFromLedger(Mismatch m) {
+        return jdbcTemplate.update("""
+                UPDATE stock
+                SET closing_qty = :ledgerQty,
+                    opening_qty = :ledgerQty - in_qty + out_qty,
+                    stock_value = COALESCE(average_cost, 0) * :ledgerQty,
+                    version = version + 1,
+                    updated_at = CURRENT_TIMESTAMP
+                WHERE id = :id AND version = :version
+                """, new MapSqlParameterSource()
+                .addValue("id", m.getStockId())
+                .addValue("version", m.getVersion())
+                .addValue("ledgerQty", m.getLedgerQty())) == 1;
+    }
+
+    public void insertIssues(Long runId, Long tenantId, List<Issue> issues) {
+        if (issues.isEmpty()) return;
+        SqlParameterSource[] params = issues.stream()
+                .map(i -> new MapSqlParameterSource()
+                        .addValue("runId", runId)
+                        .addValue("tenantId", tenantId)
+                        .addValue("warehouseId", i.getKey().getWarehouseId())
+                        .addValue("itemId", i.getKey().getItemId())
+                        .addValue("checkType", i.getCheckType())
+                        .addValue("expectedQty", i.getExpectedQty())
+                        .addValue("actualQty", i.getActualQty())
+                        .addValue("repaired", i.isRepaired()))
+                .toArray(SqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO stock_reconciliation_issue (run_id, tenant_id, warehouse_id, item_id, check_type,
+                                                        expected_qty, actual_qty, repaired)
+                VALUES (:runId, :tenantId, :warehouseId, :itemId, :checkType, :expectedQty, :actualQty, :repaired)
+                """, params);
+    }
+
+    @Data
+    public static class Mismatch {
+        private Long stockId;
+        private long version;
+        private StockKey key;
+        private long openingQty;
+        private long inQty;
+        private long outQty;
+        private long closingQty;
+        private Long batchQty;    // Null when the item has no batches
+        private Long ledgerQty;   // Null when the item has no ledger rows
+    }
+
+    @Data
+    public static class Issue {
+        private StockKey key;
+        private String checkType;
+        private long expectedQty;
+        private long actualQty;
+        private boolean repaired;
+    }
+}
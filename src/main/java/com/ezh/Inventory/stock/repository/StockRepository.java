@@ -1,16 +1,17 @@
 package com.ezh.Inventory.stock.repository;
 
+import com.ezh.Inventory.stock.dto.StockPostingSnapshot;
 import com.ezh.Inventory.stock.entity.Stock;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 @Repository
@@ -22,20 +23,62 @@ public interface StockRepository extends JpaRepository<Stock, Long> {
 
     Page<Stock> findByTenantId(Long tenantId, Pageable pageable);
 
-    // 1. Total Stock Value
-    @Query("SELECT COALESCE(SUM(s.stockValue), 0) FROM Stock s WHERE s.tenantId = :tenantId AND (:warehouseId IS NULL OR s.warehouseId = :warehouseId)")
-    BigDecimal getTotalStockValue(@Param("tenantId") Long tenantId, @Param("warehouseId") Long warehouseId);
+    // --- Posting engine primitives (see StockPostingEngine) ---
 
-    // 2. Net Stock Movement (Returns a projection or Object array with Total IN and Total OUT)
-    @Query("SELECT COALESCE(SUM(s.inQty), 0) as totalIn, COALESCE(SUM(s.outQty), 0) as totalOut FROM Stock s WHERE s.tenantId = :tenantId AND (:warehouseId IS NULL OR s.warehouseId = :warehouseId)")
-    Map<String, Object> getStockMovementSummary(@Param("tenantId") Long tenantId, @Param("warehouseId") Long warehouseId);
-    // Note: If using Map<String, Object> is tricky with your JPA version, use a Projection Interface.
+    @Query("SELECT s.id AS id, s.closingQty AS closingQty, s.outQty AS outQty, s.averageCost AS averageCost, s.version AS version " +
+            "FROM Stock s WHERE s.tenantId = :tenantId AND s.warehouseId = :warehouseId AND s.itemId = :itemId")
+    Optional<StockPostingSnapshot> findPostingSnapshot(@Param("tenantId") Long tenantId,
+                                                       @Param("warehouseId") Long warehouseId,
+                                                       @Param("itemId") Long itemId);
 
-    // 3. Out of Stock Count
-    @Query("SELECT COUNT(s) FROM Stock s WHERE s.tenantId = :tenantId AND s.closingQty <= 0 AND (:warehouseId IS NULL OR s.warehouseId = :warehouseId)")
-    long countOutOfStockItems(@Param("tenantId") Long tenantId, @Param("warehouseId") Long warehouseId);
+    // Creates the empty stock row for first-time IN; concurrent creators collapse onto the unique key
+    @Modifying
+    @Query(value = """
+            INSERT INTO stock (uuid, created_at, updated_at, is_deleted, item_id, tenant_id, warehouse_id,
+                               opening_qty, in_qty, out_qty, closing_qty, average_cost, stock_value, version)
+            VALUES (CAST(gen_random_uuid() AS varchar), CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, false,
+                    :itemId, :tenantId, :warehouseId, 0, 0, 0, 0, 0, 0, 0)
+            ON CONFLICT (item_id, warehouse_id, tenant_id) DO NOTHING
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("tenantId") Long tenantId,
+                       @Param("warehouseId") Long warehouseId,
+                       @Param("itemId") Long itemId);
 
-    // 4. Fast Moving Items (High Out Qty)
-    @Query("SELECT s FROM Stock s WHERE s.tenantId = :tenantId AND (:warehouseId IS NULL OR s.warehouseId = :warehouseId) ORDER BY s.outQty DESC")
-    List<Stock> findFastMovingItems(@Param("tenantId") Long tenantId, @Param("warehouseId") Long warehouseId, Pageable pageable);
+    // Atomic conditional OUT: only succeeds while enough unreserved stock is on hand, takes the row lock until commit
+    @Modifying
+    @Query(value = """
+            UPDATE stock
+            SET closing_qty = closing_qty - :qty,
+                out_qty = out_qty + :qty,
+                stock_value = COALESCE(average_cost, 0) * (closing_qty - :qty),
+                version = version + 1,
+                updated_at = CURRENT_TIMESTAMP
+            WHERE tenant_id = :tenantId AND warehouse_id = :warehouseId AND item_id = :itemId
+              AND closing_qty - COALESCE((SELECT SUM(r.quantity) FROM stock_reservation r
+                                          WHERE r.tenant_id = stock.tenant_id
+                                            AND r.warehouse_id = stock.warehouse_id
+                                            AND r.item_id = stock.item_id
+                                            AND r.status = 'ACTIVE'), 0) >= :qty
+            """, nativeQuery = true)
+    int deductIfAvailable(@Param("tenantId") Long tenantId,
+                          @Param("warehouseId") Long warehouseId,
+                          @Param("itemId") Long itemId,
+                          @Param("qty") int qty);
+
+    // Version-guarded IN: returns 0 when another posting changed the row after our snapshot was read
+    @Modifying
+    @Query(value = """
+            UPDATE stock
+            SET closing_qty = closing_qty + :qty,
+                in_qty = in_qty + :qty,
+                average_cost = :averageCost,
+                stock_value = :averageCost * (closing_qty + :qty),
+                version = version + 1,
+                updated_at = CURRENT_TIMESTAMP
+            WHERE id = :id AND version = :version
+            """, nativeQuery = true)
+    int addIfVersionMatches(@Param("id") Long id,
+                            @Param("version") Long version,
+                            @Param("qty") int qty,
+                            @Param("averageCost") BigDecimal averageCost);
 }
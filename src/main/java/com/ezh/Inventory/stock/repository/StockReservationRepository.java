@@ -0,0 +1,45 @@
+package com.ezh.Inventory.stock.repository;
+
+import com.ezh.Inventory.stock.dto.ReservedQtyProjection;
+import com.ezh.Inventory.stock.entity.ReservationStatus;
+import com.ezh.Inventory.stock.entity.StockReservation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface StockReservationRepository extends JpaRepository<StockReservation, Long> {
+
+    List<StockReservation> findByTenantIdAndReferenceIdAndStatusOrderByIdAsc(Long tenantId, Long referenceId,
+                                                                             ReservationStatus status);
+
+    // Reserved quantity of the given items, read under the stock row lock when reserving
+    @Query("SELECT r.tenantId AS tenantId, r.warehouseId AS warehouseId, r.itemId AS itemId, SUM(r.quantity) AS reservedQty " +
+            "FROM StockReservation r WHERE r.tenantId = :tenantId AND r.warehouseId = :warehouseId " +
+            "AND r.itemId IN :itemIds AND r.status = com.ezh.Inventory.stock.entity.ReservationStatus.ACTIVE " +
+            "GROUP BY r.tenantId, r.warehouseId, r.itemId")
+    List<ReservedQtyProjection> sumActiveByItems(@Param("tenantId") Long tenantId,
+                                                 @Param("warehouseId") Long warehouseId,
+                                                 @Param("itemIds") Collection<Long> itemIds);
+
+    // Full rebuild of the in-memory reserved quantity index
+    @Query("SELECT r.tenantId AS tenantId, r.warehouseId AS warehouseId, r.itemId AS itemId, SUM(r.quantity) AS reservedQty " +
+            "FROM StockReservation r WHERE r.status = com.ezh.Inventory.stock.entity.ReservationStatus.ACTIVE " +
+            "GROUP BY r.tenantId, r.warehouseId, r.itemId")
+    List<ReservedQtyProjection> sumAllActive();
+
+    // Expired holds, locked so that two sweepers never expire the same row
+    @Query(value = """
+            SELECT * FROM stock_reservation
+            WHERE status = 'ACTIVE' AND expires_at < :now
+            ORDER BY expires_at
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<StockReservation> lockExpired(@Param("now") Date now, @Param("limit") int limit);
+}
@@ -0,0 +1,13 @@
+package com.ezh.Inventory.stock.repository;
+
+import com.ezh.Inventory.stock.entity.StockTransferItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface StockTransferItemRepository extends JpaRepository<StockTransferItem, Long> {
+
+    List<StockTransferItem> findByTransferIdOrderById(Long transferId);
+}
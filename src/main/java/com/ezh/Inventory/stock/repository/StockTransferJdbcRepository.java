@@ -0,0 +1,94 @@
+package com.ezh.Inventory.stock.repository;
+
+import com.ezh.Inventory.stock.entity.StockTransferItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.UUID;
+
+/**
+ * Batched writes of stock transfers: target batches carried over from the source warehouse and
+ * the transfer's batch slices. Both are JDBC batches so a transfer of thousands of lines stays a
+ * handful of round trips.
+ */
+@Repository
+@RequiredArgsConstructor
+public class StockTransferJdbcRepository {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /** Expiry date of source batches by id (batch number and cost come with the allocation). */
+    public Map<Long, Long> findExpiryDates(Collection<Long> batchIds) {
+        Map<Long, Long> expiry = new HashMap<>();
+        if (batchIds.isEmpty()) return expiry;
+        jdbcTemplate.query("""
+                SELECT id, expiry_date FROM stock_batch WHERE id = ANY(CAST(:ids AS bigint[]))
+                """, new MapSqlParameterSource("ids", toPgArray(batchIds)),
+                rs -> { expiry.put(rs.getLong("id"), rs.getObject("expiry_date", Long.class)); });
+        return expiry;
+    }
+
+    /**
+     * Makes sure every slice has a batch with the same number in the target warehouse. New batches
+     * take the source's buy price and expiry; {@code initial_qty} grows by the quantity received so
+     * the batch shows what arrived, while {@code remaining_qty} is left to the IN posting.
+     */
+    public void upsertTargetBatches(Long tenantId, Long targetWarehouseId, List<StockTransferItem> slices) {
+        if (slices.isEmpty()) return;
+        SqlParameterSource[] params = slices.stream()
+                .map(s -> new MapSqlParameterSource()
+                        .addValue("uuid", UUID.randomUUID().toString())
+                        .addValue("tenantId", tenantId)
+                        .addValue("warehouseId", targetWarehouseId)
+                        .addValue("itemId", s.getItemId())
+                        .addValue("batchNumber", s.getBatchNumber())
+                        .addValue("buyPrice", s.getUnitCost())
+                        .addValue("qty", s.getQuantity())
+                        .addValue("expiryDate", s.getExpiryDate()))
+                .toArray(SqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO stock_batch (uuid, created_at, updated_at, is_deleted, item_id, warehouse_id, tenant_id,
+                                         batch_number, buy_price, initial_qty, remaining_qty, expiry_date)
+                VALUES (:uuid, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, false, :itemId, :warehouseId, :tenantId,
+                        :batchNumber, :buyPrice, :qty, 0, :expiryDate)
+                ON CONFLICT (batch_number, warehouse_id, item_id, tenant_id) DO UPDATE
+                SET initial_qty = stock_batch.initial_qty + EXCLUDED.initial_qty, updated_at = CURRENT_TIMESTAMP
+                """, params);
+    }
+
+    public void insertItems(Long transferId, List<StockTransferItem> slices) {
+        if (slices.isEmpty()) return;
+        SqlParameterSource[] params = slices.stream()
+                .map(s -> new MapSqlParameterSource()
+                        .addValue("uuid", UUID.randomUUID().toString())
+                        .addValue("transferId", transferId)
+                        .addValue("itemId", s.getItemId())
+                        .addValue("batchNumber", s.getBatchNumber())
+                        .addValue("quantity", s.getQuantity())
+                        .addValue("unitCost", s.getUnitCost())
+                        .addValue("expiryDate", s.getExpiryDate()))
+                .toArray(SqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO stock_transfer_item (uuid, created_at, updated_at, is_deleted, transfer_id, item_id,
+                                                 batch_number, quantity, unit_cost, expiry_date)
+                VALUES (:uuid, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, false, :transferId, :itemId,
+                        :batchNumber, :quantity, :unitCost, :expiryDate)
+                """, params);
+    }
+
+    private static String toPgArray(Collection<?> values) {
+        StringJoiner joiner = new StringJoiner(",", "{", "}");
+        values.forEach(v -> joiner.add(String.valueOf(v)));
+        return joiner.toString();
+    }
+}
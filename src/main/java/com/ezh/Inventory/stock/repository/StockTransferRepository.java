@@ -0,0 +1,13 @@
+package com.ezh.Inventory.stock.repository;
+
+import com.ezh.Inventory.stock.entity.StockTransfer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface StockTransferRepository extends JpaRepository<StockTransfer, Long> {
+
+    Optional<StockTransfer> findByIdAndTenantId(Long id, Long tenantId);
+}
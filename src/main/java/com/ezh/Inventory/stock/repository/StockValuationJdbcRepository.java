@@ -0,0 +1,182 @@
+package com.ezh.Inventory.stock.repository;
+
+import com.ezh.Inventory.stock.config.StockValuationProperties;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
+import lombok.Data;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * JDBC access for the stock valuation engine. Partition reads are bounded by a (warehouse, item)
+ * key range so several partitions of one tenant can be valued concurrently on their own
+ * connections; batch rows are streamed with a cursor instead of being loaded at once.
+ */
+@Repository
+public class StockValuationJdbcRepository {
+
+    private static final String KEY_RANGE = """
+            (%1$s.warehouse_id, %1$s.item_id) >= (:fromWarehouseId, :fromItemId)
+            AND (%1$s.warehouse_id, %1$s.item_id) <= (:toWarehouseId, :toItemId)""";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate streamingTemplate;
+
+    public StockValuationJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate, StockValuationProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Postgres only streams with a fetch size (inside a transaction); keep it off the shared template
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getJdbcTemplate().getDataSource());
+        streaming.setFetchSize(properties.getFetchSize());
+        this.streamingTemplate = new NamedParameterJdbcTemplate(streaming);
+    }
+
+    public Long createRun(Long tenantId) {
+        return jdbcTemplate.queryForObject("""
+                INSERT INTO stock_valuation_run (tenant_id, status) VALUES (:tenantId, 'RUNNING') RETURNING id
+                """, new MapSqlParameterSource("tenantId", tenantId), Long.class);
+    }
+
+    public void finishRun(Long runId, String status, int partitions, int itemCount, long rowsScanned, long elapsedMs) {
+        jdbcTemplate.update("""
+                UPDATE stock_valuation_run
+                SET status = :status, partitions = :partitions, item_count = :itemCount,
+                    rows_scanned = :rowsScanned, elapsed_ms = :elapsedMs, finished_at = CURRENT_TIMESTAMP
+                WHERE id = :runId
+                """, new MapSqlParameterSource()
+                .addValue("runId", runId)
+                .addValue("status", status)
+                .addValue("partitions", partitions)
+                .addValue("itemCount", itemCount)
+                .addValue("rowsScanned", rowsScanned)
+                .addValue("elapsedMs", elapsedMs));
+    }
+
+    public List<Long> findTenantIdsWithStock() {
+        return jdbcTemplate.queryForList("SELECT DISTINCT tenant_id FROM stock", new MapSqlParameterSource(), Long.class);
+    }
+
+    /** Every stock row of the tenant in key order; these keys are what the run partitions. */
+    public List<BookRow> findBookRows(Long tenantId) {
+        return jdbcTemplate.query("""
+                SELECT warehouse_id, item_id, average_cost, stock_value
+                FROM stock
+                WHERE tenant_id = :tenantId
+                ORDER BY warehouse_id, item_id
+                """, new MapSqlParameterSource("tenantId", tenantId), (rs, i) -> {
+            BookRow row = new BookRow();
+            row.setKey(new StockKey(rs.getLong("warehouse_id"), rs.getLong("item_id")));
+            row.setAverageCost(rs.getBigDecimal("average_cost"));
+            row.setStockValue(rs.getBigDecimal("stock_value"));
+            return row;
+        });
+    }
+
+    /** On-hand quantity per key from the ledger, with the number of ledger rows folded into it. */
+    public Map<StockKey, LedgerSum> sumLedger(Long tenantId, StockKey from, StockKey to) {
+        Map<StockKey, LedgerSum> sums = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT l.warehouse_id, l.item_id,
+                       SUM(CASE WHEN l.transaction_type = 'OUT' THEN -l.quantity ELSE l.quantity END) AS qty,
+                       COUNT(*) AS row_count
+                FROM stock_ledger l
+                WHERE l.tenant_id = :tenantId AND %s
+                GROUP BY l.warehouse_id, l.item_id
+                """.formatted(KEY_RANGE.formatted("l")), rangeParams(tenantId, from, to), rs -> {
+            LedgerSum sum = new LedgerSum();
+            sum.setQty(rs.getLong("qty"));
+            sum.setRowCount(rs.getLong("row_count"));
+            sums.put(new StockKey(rs.getLong("warehouse_id"), rs.getLong("item_id")), sum);
+        });
+        return sums;
+    }
+
+    /** Streams every batch in the range grouped by key, newest receipt first within a key. */
+    public void streamBatches(Long tenantId, StockKey from, StockKey to, Consumer<BatchLayer> consumer) {
+        streamingTemplate.query("""
+                SELECT b.warehouse_id, b.item_id, b.buy_price, b.initial_qty, b.remaining_qty
+                FROM stock_batch b
+                WHERE b.tenant_id = :tenantId AND %s
+                ORDER BY b.warehouse_id, b.item_id, b.created_at DESC, b.id DESC
+                """.formatted(KEY_RANGE.formatted("b")), rangeParams(tenantId, from, to), rs -> {
+            BatchLayer layer = new BatchLayer();
+            layer.setKey(new StockKey(rs.getLong("warehouse_id"), rs.getLong("item_id")));
+            layer.setBuyPrice(rs.getBigDecimal("buy_price"));
+            layer.setInitialQty(rs.getInt("initial_qty"));
+            layer.setRemainingQty(rs.getInt("remaining_qty"));
+            consumer.accept(layer);
+        });
+    }
+
+    public void insertSnapshots(Long runId, Long tenantId, List<SnapshotRow> rows) {
+        if (rows.isEmpty()) return;
+        SqlParameterSource[] params = rows.stream()
+                .map(r -> new MapSqlParameterSource()
+                        .addValue("runId", runId)
+                        .addValue("tenantId", tenantId)
+                        .addValue("warehouseId", r.getKey().getWarehouseId())
+                        .addValue("itemId", r.getKey().getItemId())
+                        .addValue("onHandQty", r.getOnHandQty())
+                        .addValue("fifoValue", r.getFifoValue())
+                        .addValue("wacUnitCost", r.getWacUnitCost())
+                        .addValue("wacValue", r.getWacValue())
+                        .addValue("batchValue", r.getBatchValue())
+                        .addValue("bookValue", r.getBookValue()))
+                .toArray(SqlParameterSource[]::new);
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO stock_valuation_snapshot (run_id, tenant_id, warehouse_id, item_id, on_hand_qty,
+                                                      fifo_value, wac_unit_cost, wac_value, batch_value, book_value)
+                VALUES (:runId, :tenantId, :warehouseId, :itemId, :onHandQty,
+                        :fifoValue, :wacUnitCost, :wacValue, :batchValue, :bookValue)
+                """, params);
+    }
+
+    private static MapSqlParameterSource rangeParams(Long tenantId, StockKey from, StockKey to) {
+        return new MapSqlParameterSource()
+                .addValue("tenantId", tenantId)
+                .addValue("fromWarehouseId", from.getWarehouseId())
+                .addValue("fromItemId", from.getItemId())
+                .addValue("toWarehouseId", to.getWarehouseId())
+                .addValue("toItemId", to.getItemId());
+    }
+
+    @Data
+    public static class BookRow {
+        private StockKey key;
+        private BigDecimal averageCost;
+        private BigDecimal stockValue;
+    }
+
+    @Data
+    public static class LedgerSum {
+        private long qty;
+        private long rowCount;
+    }
+
+    @Data
+    public static class BatchLayer {
+        private StockKey key;
+        private BigDecimal buyPrice;
+        private int initialQty;
+        private int remainingQty;
+    }
+
+    @Data
+    public static class SnapshotRow {
+        private StockKey key;
+        private int onHandQty;
+        private BigDecimal fifoValue;
+        private BigDecimal wacUnitCost;
+        private BigDecimal wacValue;
+        private BigDecimal batchValue;
+        private BigDecimal bookValue;
+    }
+}
@@ -0,0 +1,12 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.stock.dto.StockImportJobDto;
+import com.ezh.Inventory.utils.common.CommonResponse;
+import com.ezh.Inventory.utils.exception.CommonException;
+import org.springframework.web.multipart.MultipartFile;
+
+public interface OpeningStockImportService {
+
+    CommonResponse<?> startImport(MultipartFile file) throws CommonException;
+    StockImportJobDto getImportJob(Long jobId) throws CommonException;
+}
@@ -0,0 +1,315 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.items.dto.ItemMetadata;
+import com.ezh.Inventory.items.service.ItemMetadataCache;
+import com.ezh.Inventory.stock.config.StockImportProperties;
+import com.ezh.Inventory.stock.dto.OpeningStockRow;
+import com.ezh.Inventory.stock.dto.StockImportJobDto;
+import com.ezh.Inventory.stock.dto.StockImportJobDto.RowError;
+import com.ezh.Inventory.stock.entity.MovementType;
+import com.ezh.Inventory.stock.entity.ReferenceType;
+import com.ezh.Inventory.stock.entity.StockLedger;
+import com.ezh.Inventory.stock.repository.StockImportJdbcRepository;
+import com.ezh.Inventory.stock.repository.StockImportJdbcRepository.OpeningBatch;
+import com.ezh.Inventory.stock.repository.StockImportJdbcRepository.OpeningUpdate;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockRow;
+import com.ezh.Inventory.stock.utils.OpeningStockExcelReader;
+import com.ezh.Inventory.utils.common.CommonResponse;
+import com.ezh.Inventory.utils.common.Status;
+import com.ezh.Inventory.utils.exception.CommonException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import static com.ezh.Inventory.utils.UserContextUtil.getTenantIdOrThrow;
+import static com.ezh.Inventory.utils.UserContextUtil.getUserIdOrThrow;
+
+/**
+ * Loads opening stock from an XLSX upload in the background.
+ *
+ * <p>The upload is spooled to a temp file and the job id returned at once. A worker streams the
+ * sheet in chunks ({@link OpeningStockExcelReader}); each chunk is validated against the
+ * {@link ItemMetadataCache} and written in its own transaction: stock rows are created and locked
+ * through the posting engine, then opening quantities, batches and {@code OPENING_STOCK} ledger
+ * rows go out as JDBC batches. A failed chunk is rolled back and reported without stopping the
+ * rest of the file. Progress and rejected rows are kept in {@code stock_import_job} and
+ * {@code stock_import_error}.
+ */
+@Slf4j
+@Service
+public class OpeningStockImportServiceImpl implements OpeningStockImportService {
+
+    private static final int ERRORS_RETURNED = 100;
+
+    private final StockImportJdbcRepository stockImportJdbcRepository;
+    private final StockPostingEngine stockPostingEngine;
+    private final StockLockManager stockLockManager;
+    private final StockLedgerAppender stockLedgerAppender;
+    private final StockDashboardAggregator stockDashboardAggregator;
+    private final ItemMetadataCache itemMetadataCache;
+    private final TransactionTemplate transactionTemplate;
+    private final StockImportProperties properties;
+    private final ExecutorService executor;
+
+    public OpeningStockImportServiceImpl(StockImportJdbcRepository stockImportJdbcRepository,
+                                         StockPostingEngine stockPostingEngine,
+                                         StockLockManager stockLockManager,
+                                         StockLedgerAppender stockLedgerAppender,
+                                         StockDashboardAggregator stockDashboardAggregator,
+                                         ItemMetadataCache itemMetadataCache,
+                                         TransactionTemplate transactionTemplate,
+                                         StockImportProperties properties) {
+        this.stockImportJdbcRepository = stockImportJdbcRepository;
+        this.stockPostingEngine = stockPostingEngine;
+        this.stockLockManager = stockLockManager;
+        this.stockLedgerAppender = stockLedgerAppender;
+        this.stockDashboardAggregator = stockDashboardAggregator;
+        this.itemMetadataCache = itemMetadataCache;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.executor = Executors.newFixedThreadPool(properties.getParallelism());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public CommonResponse<?> startImport(MultipartFile file) throws CommonException {
+        if (file == null || file.isEmpty() || !OpeningStockExcelReader.TYPE.equals(file.getContentType())) {
+            throw new CommonException("Please upload a valid Excel file (.xlsx)", HttpStatus.BAD_REQUEST);
+        }
+        Long tenantId = getTenantIdOrThrow();
+        Long userId = getUserIdOrThrow();
+
+        // The multipart file is gone once the request ends, the worker reads its own copy
+        Path spool;
+        try {
+            spool = Files.createTempFile("opening-stock-", ".xlsx");
+            file.transferTo(spool);
+        } catch (IOException e) {
+            throw new CommonException("Upload failed: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+
+        Long jobId = stockImportJdbcRepository.createJob(tenantId, file.getOriginalFilename(), userId);
+        try {
+            executor.execute(() -> runJob(tenantId, jobId, spool));
+        } catch (RejectedExecutionException e) {
+            stockImportJdbcRepository.finishJob(jobId, "FAILED", "Import could not be started");
+            deleteQuietly(spool);
+            throw new CommonException("Import could not be started", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+
+        return CommonResponse.builder()
+                .id(jobId.toString())
+                .status(Status.SUCCESS)
+                .message("Opening stock import queued")
+                .build();
+    }
+
+    @Override
+    public StockImportJobDto getImportJob(Long jobId) throws CommonException {
+        Long tenantId = getTenantIdOrThrow();
+        StockImportJobDto job = stockImportJdbcRepository.findJob(tenantId, jobId)
+                .orElseThrow(() -> new CommonException("Import job not found", HttpStatus.NOT_FOUND));
+        job.setErrors(stockImportJdbcRepository.findErrors(jobId, ERRORS_RETURNED));
+        return job;
+    }
+
+    private void runJob(Long tenantId, Long jobId, Path spool) {
+        long start = System.currentTimeMillis();
+        JobProgress progress = new JobProgress();
+        try {
+            stockImportJdbcRepository.markRunning(jobId);
+            long rows = OpeningStockExcelReader.read(spool.toFile(), properties.getChunkSize(),
+                    chunk -> importChunk(tenantId, jobId, chunk, progress));
+            stockImportJdbcRepository.finishJob(jobId, "COMPLETED",
+                    (rows - progress.failed) + " of " + rows + " rows imported");
+            log.info("Opening stock import {} for tenant {}: {} rows, {} failed in {} ms",
+                    jobId, tenantId, rows, progress.failed, System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.error("Opening stock import {} failed for tenant {}", jobId, tenantId, e);
+            stockImportJdbcRepository.finishJob(jobId, "FAILED", e.getMessage());
+        } finally {
+            deleteQuietly(spool);
+        }
+    }
+
+    private void importChunk(Long tenantId, Long jobId, List<OpeningStockRow> chunk, JobProgress progress) {
+        List<OpeningStockRow> valid = validate(tenantId, chunk);
+        List<RowError> errors = progress.cap(chunk.stream()
+                .filter(row -> row.getError() != null)
+                .map(row -> new RowError(row.getRowNumber(), row.getError()))
+                .toList());
+        int failed = chunk.size() - valid.size();
+
+        Set<StockKey> keys = new TreeSet<>();
+        valid.forEach(row -> keys.add(new StockKey(row.getWarehouseId(), row.getItemId())));
+
+        try {
+            stockLockManager.withLocks(tenantId, keys, () -> transactionTemplate.execute(status -> {
+                writeChunk(tenantId, jobId, keys, valid);
+                stockImportJdbcRepository.insertErrors(jobId, errors);
+                stockImportJdbcRepository.addProgress(jobId, chunk.size(), valid.size(), failed);
+                return null;
+            }));
+            progress.failed += failed;
+        } catch (Exception e) {
+            log.warn("Opening stock import {}: rows {}-{} rolled back", jobId,
+                    chunk.get(0).getRowNumber(), chunk.get(chunk.size() - 1).getRowNumber(), e);
+            List<RowError> chunkError = progress.cap(List.of(new RowError(chunk.get(0).getRowNumber(),
+                    "Rows " + chunk.get(0).getRowNumber() + "-" + chunk.get(chunk.size() - 1).getRowNumber()
+                            + " not imported: " + e.getMessage())));
+            transactionTemplate.executeWithoutResult(status -> {
+                stockImportJdbcRepository.insertErrors(jobId, chunkError);
+                stockImportJdbcRepository.addProgress(jobId, chunk.size(), 0, chunk.size());
+            });
+            progress.failed += chunk.size();
+        }
+    }
+
+    /** Sets {@code error} on rows that cannot be imported and returns the others, with their cost resolved. */
+    private List<OpeningStockRow> validate(Long tenantId, List<OpeningStockRow> chunk) {
+        Map<Long, ItemMetadata> items = itemMetadataCache.getAll(tenantId, chunk.stream()
+                .filter(row -> row.getError() == null)
+                .map(OpeningStockRow::getItemId)
+                .toList());
+
+        List<OpeningStockRow> valid = new ArrayList<>(chunk.size());
+        for (OpeningStockRow row : chunk) {
+            if (row.getError() != null) continue;
+            ItemMetadata item = items.get(row.getItemId());
+
+            if (row.getItemId() == null) {
+                row.setError("Item ID is required");
+            } else if (item == null) {
+                row.setError("Item " + row.getItemId() + " not found");
+            } else if (Boolean.FALSE.equals(item.getIsActive())) {
+                row.setError("Item " + row.getItemId() + " is inactive");
+            } else if (row.getWarehouseId() == null) {
+                row.setError("Warehouse ID is required");
+            } else if (row.getQuantity() == null || row.getQuantity() <= 0) {
+                row.setError("Quantity must be greater than zero");
+            } else if (row.getUnitCost() != null && row.getUnitCost().signum() < 0) {
+                row.setError("Unit Cost cannot be negative");
+            } else if (row.getBatchNumber() != null && row.getBatchNumber().length() > 100) {
+                row.setError("Batch Number is longer than 100 characters");
+            } else {
+                if (row.getUnitCost() == null) {
+                    row.setUnitCost(item.getPurchasePrice() != null ? item.getPurchasePrice() : BigDecimal.ZERO);
+                }
+                if (row.getBatchNumber() == null) {
+                    row.setBatchNumber(properties.getDefaultBatchNumber());
+                }
+                valid.add(row);
+            }
+        }
+        return valid;
+    }
+
+    private void writeChunk(Long tenantId, Long jobId, Set<StockKey> keys, List<OpeningStockRow> rows) {
+        if (rows.isEmpty()) return;
+
+        // 1. Create missing stock rows and lock all of them
+        Map<StockKey, StockRow> stock = stockPostingEngine.lockRows(tenantId, keys, keys);
+
+        // 2. Apply every row in memory, in file order, merging quantities per stock row and batch
+        Map<StockKey, Integer> opening = new HashMap<>();
+        Map<StockKey, Map<String, OpeningBatch>> batches = new HashMap<>();
+        List<StockLedger> ledgers = new ArrayList<>(rows.size());
+        for (OpeningStockRow row : rows) {
+            StockKey key = new StockKey(row.getWarehouseId(), row.getItemId());
+            StockRow stockRow = stock.get(key);
+            int qty = row.getQuantity();
+            int beforeQty = stockRow.getClosingQty();
+            BigDecimal beforeAvgCost = stockRow.getAverageCost();
+
+            stockRow.setAverageCost(weightedAverage(beforeAvgCost, beforeQty, row.getUnitCost(), qty));
+            stockRow.setClosingQty(beforeQty + qty);
+            opening.merge(key, qty, Integer::sum);
+
+            batches.computeIfAbsent(key, k -> new LinkedHashMap<>()).merge(row.getBatchNumber(),
+                    new OpeningBatch(key.getWarehouseId(), key.getItemId(), row.getBatchNumber(),
+                            row.getUnitCost(), qty, row.getExpiryDate()),
+                    (first, next) -> new OpeningBatch(first.getWarehouseId(), first.getItemId(), first.getBatchNumber(),
+                            first.getBuyPrice(), first.getQuantity() + next.getQuantity(), first.getExpiryDate()));
+
+            ledgers.add(StockLedger.builder()
+                    .tenantId(tenantId)
+                    .warehouseId(key.getWarehouseId())
+                    .itemId(key.getItemId())
+                    .transactionType(MovementType.IN)
+                    .quantity(qty)
+                    .referenceType(ReferenceType.OPENING_STOCK)
+                    .referenceId(jobId)
+                    .beforeQty(beforeQty)
+                    .afterQty(stockRow.getClosingQty())
+                    .unitPrice(row.getUnitCost())
+                    .build());
+
+            stockDashboardAggregator.recordIn(tenantId, key.getWarehouseId(), qty, beforeQty, stockRow.getClosingQty(),
+                    stockValue(stockRow.getAverageCost(), stockRow.getClosingQty()).subtract(stockValue(beforeAvgCost, beforeQty)));
+        }
+
+        // 3. Stock rows, batches and ledger as JDBC batches
+        stockImportJdbcRepository.addOpeningQuantities(opening.entrySet().stream()
+                .map(e -> {
+                    StockRow row = stock.get(e.getKey());
+                    return new OpeningUpdate(row.getId(), e.getValue(), row.getClosingQty(), row.getAverageCost());
+                })
+                .toList());
+        stockImportJdbcRepository.upsertBatches(tenantId, batches.values().stream()
+                .flatMap(byNumber -> byNumber.values().stream())
+                .toList());
+        stockLedgerAppender.append(ledgers);
+    }
+
+    private static BigDecimal weightedAverage(BigDecimal currentAvgCost, int beforeQty, BigDecimal price, int qty) {
+        if (price.signum() <= 0 || beforeQty + qty <= 0) {
+            return currentAvgCost;
+        }
+        return currentAvgCost.multiply(BigDecimal.valueOf(beforeQty))
+                .add(price.multiply(BigDecimal.valueOf(qty)))
+                .divide(BigDecimal.valueOf((long) beforeQty + qty), 2, RoundingMode.HALF_UP);
+    }
+
+    private static BigDecimal stockValue(BigDecimal averageCost, int qty) {
+        return averageCost.multiply(BigDecimal.valueOf(qty)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete import spool file {}", path, e);
+        }
+    }
+
+    /** Per-job counters; a job runs on one worker thread. */
+    private final class JobProgress {
+        private long failed;
+        private int errorsRecorded;
+
+        private List<RowError> cap(List<RowError> errors) {
+            int room = Math.max(0, properties.getMaxErrors() - errorsRecorded);
+            List<RowError> kept = errors.size() <= room ? errors : errors.subList(0, room);
+            errorsRecorded += kept.size();
+            return kept;
+        }
+    }
+}
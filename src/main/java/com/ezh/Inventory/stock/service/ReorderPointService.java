@@ -0,0 +1,13 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.stock.dto.ReorderPointDto;
+import com.ezh.Inventory.utils.common.CommonResponse;
+import com.ezh.Inventory.utils.exception.CommonException;
+
+import java.util.List;
+
+public interface ReorderPointService {
+
+    CommonResponse<?> saveReorderPoints(List<ReorderPointDto> points) throws CommonException;
+    List<ReorderPointDto> getReorderPoints(Long warehouseId) throws CommonException;
+}
@@ -0,0 +1,53 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.stock.dto.ReorderPointDto;
+import com.ezh.Inventory.stock.repository.ReorderPointJdbcRepository;
+import com.ezh.Inventory.utils.common.CommonResponse;
+import com.ezh.Inventory.utils.exception.BadRequestException;
+import com.ezh.Inventory.utils.exception.CommonException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static com.ezh.Inventory.utils.UserContextUtil.getTenantIdOrThrow;
+import static com.ezh.Inventory.utils.UserContextUtil.getUserIdOrThrow;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReorderPointServiceImpl implements ReorderPointService {
+
+    private final ReorderPointJdbcRepository reorderPointJdbcRepository;
+
+    @Override
+    @Transactional
+    public CommonResponse<?> saveReorderPoints(List<ReorderPointDto> points) throws CommonException {
+        if (points == null || points.isEmpty()) {
+            throw new BadRequestException("At least one reorder point is required");
+        }
+        for (ReorderPointDto point : points) {
+            if (point.getWarehouseId() == null || point.getItemId() == null || point.getVendorId() == null) {
+                throw new BadRequestException("Warehouse, item and vendor are required for every reorder point");
+            }
+            if (point.getMinQty() == null || point.getMaxQty() == null
+                    || point.getMinQty() < 0 || point.getMaxQty() <= point.getMinQty()) {
+                throw new BadRequestException("Invalid min/max quantity for item " + point.getItemId());
+            }
+        }
+
+        reorderPointJdbcRepository.upsert(getTenantIdOrThrow(), getUserIdOrThrow(), points);
+
+        return CommonResponse.builder()
+                .message(points.size() + " reorder points saved")
+                .build();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ReorderPointDto> getReorderPoints(Long warehouseId) throws CommonException {
+        return reorderPointJdbcRepository.findByWarehouse(getTenantIdOrThrow(), warehouseId);
+    }
+}
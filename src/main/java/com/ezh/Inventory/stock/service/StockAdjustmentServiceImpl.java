@@ -6,14 +6,17 @@ import com.ezh.Inventory.approval.entity.ApprovalResultStatus;
 import com.ezh.Inventory.approval.entity.ApprovalStatus;
 import com.ezh.Inventory.approval.entity.ApprovalType;
 import com.ezh.Inventory.approval.service.ApprovalService;
+import com.ezh.Inventory.approval.service.ApprovalStockLocks;
 import com.ezh.Inventory.items.repository.ItemRepository;
 import com.ezh.Inventory.stock.dto.*;
 import com.ezh.Inventory.stock.entity.*;
 import com.ezh.Inventory.stock.repository.StockAdjustmentRepository;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
 import com.ezh.Inventory.stock.repository.StockRepository;
 import com.ezh.Inventory.utils.common.CommonResponse;
 import com.ezh.Inventory.utils.common.DocPrefix;
 import com.ezh.Inventory.utils.common.DocumentNumberUtil;
+import com.ezh.Inventory.utils.common.FilterSpecification;
 import com.ezh.Inventory.utils.common.Status;
 import com.ezh.Inventory.utils.common.events.ApprovalDecisionEvent;
 import com.ezh.Inventory.utils.exception.BadRequestException;
@@ -29,11 +32,14 @@ import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static com.ezh.Inventory.utils.UserContextUtil.getTenantIdOrThrow;
@@ -41,19 +47,30 @@ import static com.ezh.Inventory.utils.UserContextUtil.getTenantIdOrThrow;
 @Slf4j
 @Service
 @RequiredArgsConstructor
-public class StockAdjustmentServiceImpl implements StockAdjustmentService {
+public class StockAdjustmentServiceImpl implements StockAdjustmentService, ApprovalStockLocks {
 
     private final StockRepository stockRepository;
     private final StockService stockService;
     private final StockAdjustmentRepository stockAdjustmentRepository;
     private final ItemRepository itemRepository;
     private final ApprovalService approvalService;
+    private final StockLockManager stockLockManager;
+    private final TransactionTemplate transactionTemplate;
 
+    // Not @Transactional: the item locks are taken first, then the transaction is opened
     @Override
-    @Transactional
     public CommonResponse<?> createStockAdjustment(StockAdjustmentCreateDto dto) throws CommonException {
         Long tenantId = getTenantIdOrThrow();
 
+        List<Long> itemIds = dto.getItems() != null
+                ? dto.getItems().stream().map(StockAdjustmentItemDto::getItemId).toList()
+                : List.of();
+        Set<StockKey> keys = StockKey.forItems(dto.getWarehouseId(), itemIds);
+        return stockLockManager.withLocks(tenantId, keys,
+                () -> transactionTemplate.execute(status -> applyCreateStockAdjustment(tenantId, dto)));
+    }
+
+    private CommonResponse<?> applyCreateStockAdjustment(Long tenantId, StockAdjustmentCreateDto dto) {
         // 1. Initialize Header (Default to PENDING_APPROVAL or DRAFT initially)
         StockAdjustment adjustment = StockAdjustment.builder()
                 .tenantId(tenantId)
@@ -194,22 +211,16 @@ public class StockAdjustmentServiceImpl implements StockAdjustmentService {
     @Transactional(readOnly = true)
     public Page<StockAdjustmentListDto> getAllStockAdjustments(StockFilterDto filter, Integer page, Integer size) {
         Long tenantId = getTenantIdOrThrow();
-        Pageable pageable = PageRequest.of(page, size);
-        // Sanitize Lists: Convert empty lists to null so the JPQL "IS NULL" check works
-        List<AdjustmentStatus> statuses = (filter.getStockAdjustmentStatuses() != null && !filter.getStockAdjustmentStatuses().isEmpty())
-                ? filter.getStockAdjustmentStatuses() : null;
-
-        Page<StockAdjustment> adjustments = stockAdjustmentRepository.findAllStockAdjustment(
-                tenantId,
-                filter.getId(),
-                filter.getStockAdjustmentNumber(),
-                statuses,
-                filter.getWarehouseId(),
-                filter.getSearchQuery(),
-                filter.getStartDateTime(),
-                filter.getEndDateTime(),
-                pageable
-        );
+        Pageable pageable = PageRequest.of(page, size, FilterSpecification.NEWEST_FIRST);
+
+        Page<StockAdjustment> adjustments = stockAdjustmentRepository.findAll(FilterSpecification.<StockAdjustment>forTenant(tenantId)
+                .equal("id", filter.getId())
+                .equal("adjustmentNumber", filter.getStockAdjustmentNumber())
+                .in("adjustmentStatus", filter.getStockAdjustmentStatuses())
+                .equal("warehouseId", filter.getWarehouseId())
+                .createdBetween(filter.getStartDateTime(), filter.getEndDateTime())
+                .search(filter.getSearchQuery(), "adjustmentNumber", "reference")
+                .build(), pageable);
 
         return adjustments.map(adj -> StockAdjustmentListDto.builder()
                 .id(adj.getId())
@@ -222,9 +233,16 @@ public class StockAdjustmentServiceImpl implements StockAdjustmentService {
                 .build());
     }
 
+    // Not @Transactional: the item locks are taken first, then the transaction is opened
     @Override
-    @Transactional
     public void approveStockAdjustment(Long adjustmentId) throws CommonException {
+        stockLockManager.withLocks(getTenantIdOrThrow(), stockKeys(adjustmentId), () -> {
+            transactionTemplate.executeWithoutResult(status -> applyApproval(adjustmentId));
+            return null;
+        });
+    }
+
+    private void applyApproval(Long adjustmentId) {
         StockAdjustment adjustment = stockAdjustmentRepository.findById(adjustmentId)
                 .orElseThrow(() -> new CommonException("Adjustment not found", HttpStatus.NOT_FOUND));
 
@@ -324,8 +342,20 @@ public class StockAdjustmentServiceImpl implements StockAdjustmentService {
     }
 
 
+    @Override
+    public ApprovalType type() {
+        return ApprovalType.STOCK_ADJUSTMENT;
+    }
+
+    @Override
+    public Collection<StockKey> stockKeys(Long adjustmentId) {
+        return StockKey.forItems(stockAdjustmentRepository.findWarehouseId(adjustmentId).orElse(null),
+                stockAdjustmentRepository.findItemIds(adjustmentId));
+    }
+
     /**
-     * This method runs automatically when an event is published
+     * This method runs automatically when an event is published. The outbox handler took the
+     * stock locks of an approved adjustment before opening this transaction.
      */
     @EventListener
     @Transactional
@@ -336,9 +366,17 @@ public class StockAdjustmentServiceImpl implements StockAdjustmentService {
             return;
         }
 
+        StockAdjustment adjustment = stockAdjustmentRepository.findById(event.getReferenceId())
+                .orElseThrow(() -> new CommonException("Adjustment not found", HttpStatus.NOT_FOUND));
+
+        // Decisions arrive through the outbox, possibly twice or after the adjustment was cancelled
+        if (adjustment.getAdjustmentStatus() != AdjustmentStatus.PENDING_APPROVAL) {
+            return;
+        }
+
         // 2. Handle the decision
         if (event.getStatus() == ApprovalStatus.APPROVED) {
-            approveStockAdjustment(event.getReferenceId());
+            applyApproval(event.getReferenceId());
         } else if (event.getStatus() == ApprovalStatus.REJECTED) {
             rejectStockAdjustment(event.getReferenceId());
         }
@@ -348,16 +386,14 @@ public class StockAdjustmentServiceImpl implements StockAdjustmentService {
      * Applies the actual inventory changes based on the adjustment items.
      */
     private void applyStockMovements(StockAdjustment adjustment, Long warehouseId) {
+        List<StockUpdateDto> movements = new ArrayList<>();
         for (StockAdjustmentItem item : adjustment.getAdjustmentItems()) {
             int difference = item.getDifferenceQty();
 
             if (difference != 0) {
                 MovementType movementType = (difference > 0) ? MovementType.IN : MovementType.OUT;
 
-                // Fetch current cost again to be safe, or store it in line item
-                // For simplicity, we assume the update service handles cost retrieval or it is passed
-
-                StockUpdateDto updateDto = StockUpdateDto.builder()
+                movements.add(StockUpdateDto.builder()
                         .itemId(item.getItemId())
                         .warehouseId(warehouseId)
                         .quantity(Math.abs(difference))
@@ -365,11 +401,12 @@ public class StockAdjustmentServiceImpl implements StockAdjustmentService {
                         .referenceType(ReferenceType.ADJUSTMENT)
                         .referenceId(adjustment.getId())
                         .batchNumber(null) // Pass batch if stored in item
-                        .build();
-
-                stockService.updateStock(updateDto);
+                        .build());
             }
         }
+
+        // All lines of the adjustment are posted in one batched call
+        stockService.postMovements(movements);
     }
 
     private Stock createNewStock(Long itemId, Long warehouseId) {
@@ -0,0 +1,68 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.stock.config.StockPostingProperties;
+import com.ezh.Inventory.stock.dto.BatchAllocation;
+import com.ezh.Inventory.stock.entity.AllocationStrategy;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.AllocatedRow;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
+import com.ezh.Inventory.utils.exception.BadRequestException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Picks batches for OUT movements that did not name a batch.
+ *
+ * <p>Allocation is one set-based statement for all items of a document: it only reads the open
+ * batches needed to cover each demand and deducts exactly those, instead of loading every open
+ * batch and saving them one by one. Pick order is FIFO ({@code created_at}) or FEFO
+ * ({@code expiry_date}), chosen per tenant by {@link StockPostingProperties#allocationStrategyFor}.
+ *
+ * <p>Callers must already hold the lock on the stock rows of the demanded items.
+ */
+@Component
+@RequiredArgsConstructor
+public class StockBatchAllocator {
+
+    private final StockPostingJdbcRepository stockPostingJdbcRepository;
+    private final StockPostingProperties properties;
+
+    /**
+     * @param demand quantity to take per (warehouse, item)
+     * @return the batch slices taken per (warehouse, item), in pick order
+     */
+    public Map<StockKey, List<BatchAllocation>> allocate(Long tenantId, Map<StockKey, Integer> demand) {
+        if (demand.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        AllocationStrategy strategy = properties.allocationStrategyFor(tenantId);
+        List<AllocatedRow> rows = stockPostingJdbcRepository.allocateBatches(tenantId, strategy, demand);
+
+        Map<StockKey, List<AllocatedRow>> byKey = new HashMap<>();
+        for (AllocatedRow row : rows) {
+            byKey.computeIfAbsent(row.getKey(), k -> new ArrayList<>()).add(row);
+        }
+
+        Map<StockKey, List<BatchAllocation>> allocations = new HashMap<>();
+        for (Map.Entry<StockKey, Integer> entry : demand.entrySet()) {
+            List<AllocatedRow> picked = byKey.getOrDefault(entry.getKey(), List.of());
+            if (picked.isEmpty()) {
+                throw new BadRequestException("No batches available with stock for item " + entry.getKey().getItemId());
+            }
+
+            int allocated = picked.stream().mapToInt(r -> r.getAllocation().getQuantity()).sum();
+            if (allocated < entry.getValue()) {
+                throw new BadRequestException("Data Inconsistency: Global stock says available, but Batches are empty.");
+            }
+
+            allocations.put(entry.getKey(), picked.stream()
+                    .sorted(Comparator.comparingLong(AllocatedRow::getConsumedBefore))
+                    .map(AllocatedRow::getAllocation)
+                    .toList());
+        }
+        return allocations;
+    }
+}
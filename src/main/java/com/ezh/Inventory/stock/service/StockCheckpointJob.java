@@ -0,0 +1,58 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.stock.config.StockCheckpointProperties;
+import com.ezh.Inventory.stock.repository.StockCheckpointJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+
+/**
+ * Writes a {@code stock_checkpoint} per tenant at the latest passed period boundary. Each
+ * checkpoint is folded from the previous one and the ledger since, in its own transaction, and a
+ * boundary that already has a checkpoint is skipped, so re-running (or running late) is safe.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockCheckpointJob {
+
+    private final StockCheckpointJdbcRepository stockCheckpointJdbcRepository;
+    private final StockCheckpointProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    @Scheduled(cron = "${stock.checkpoint.cron:0 30 0 * * *}")
+    public void checkpointAll() {
+        try {
+            Timestamp at = Timestamp.from(latestBoundary().toInstant());
+            int written = 0;
+            for (Long tenantId : stockCheckpointJdbcRepository.findTenantIdsWithStock()) {
+                written += checkpoint(tenantId, at);
+            }
+            log.info("Wrote {} stock checkpoint rows at {}", written, at);
+        } catch (Exception e) {
+            log.error("Stock checkpoint job failed", e);
+        }
+    }
+
+    public int checkpoint(Long tenantId, Timestamp at) {
+        Integer rows = transactionTemplate.execute(status ->
+                stockCheckpointJdbcRepository.exists(tenantId, at)
+                        ? 0
+                        : stockCheckpointJdbcRepository.writeCheckpoint(tenantId, at));
+        return rows != null ? rows : 0;
+    }
+
+    private ZonedDateTime latestBoundary() {
+        LocalDate today = LocalDate.now(properties.getZone());
+        LocalDate boundary = properties.getPeriod() == StockCheckpointProperties.Period.MONTH
+                ? today.withDayOfMonth(1)
+                : today;
+        return boundary.atStartOfDay(properties.getZone());
+    }
+}
@@ -0,0 +1,181 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.stock.config.StockDashboardProperties;
+import com.ezh.Inventory.stock.repository.StockDashboardJdbcRepository;
+import com.ezh.Inventory.stock.repository.StockDashboardJdbcRepository.AggRow;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Keeps {@code stock_dashboard_agg} in step with stock postings.
+ *
+ * <p>{@link StockPostingEngine} records the effect of every movement here. Deltas are summed per
+ * warehouse for the current transaction and applied right before it commits: one locked read and
+ * one update per touched warehouse, in (tenant, warehouse) order, on a slot row picked at random,
+ * so concurrent postings to one warehouse rarely wait on each other. Stock rows are always locked
+ * before the aggregate row, so postings cannot deadlock on it. Read models that lock rows at commit
+ * run in a fixed {@link #ORDER}: this one first, then
+ * {@link com.ezh.Inventory.sales.rollup.service.SalesRollupAggregator}.
+ *
+ * <p>Fast movers are an exact top-N because {@code out_qty} only ever grows: an OUT movement
+ * carries the new absolute {@code out_qty} of its stock row, which is merged into the stored list.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockDashboardAggregator implements Ordered {
+
+    public static final int ORDER = Ordered.HIGHEST_PRECEDENCE + 100;
+
+    private final StockDashboardJdbcRepository stockDashboardJdbcRepository;
+    private final StockDashboardProperties properties;
+
+    @Override
+    public int getOrder() {
+        return ORDER;
+    }
+
+    /** A stock row was created with zero quantity; it counts as out of stock until it receives stock. */
+    public void recordCreated(Long tenantId, Long warehouseId) {
+        record(tenantId, warehouseId, delta -> delta.outOfStock++);
+    }
+
+    public void recordIn(Long tenantId, Long warehouseId, int qty, int beforeQty, int afterQty, BigDecimal valueDelta) {
+        record(tenantId, warehouseId, delta -> {
+            delta.inQty += qty;
+            delta.value = delta.value.add(valueDelta);
+            delta.outOfStock += outOfStockChange(beforeQty, afterQty);
+        });
+    }
+
+    /** @param outQtyAfter {@code out_qty} of the stock row after this movement */
+    public void recordOut(Long tenantId, Long warehouseId, Long stockId, int qty, int beforeQty, int afterQty,
+                          BigDecimal valueDelta, int outQtyAfter) {
+        record(tenantId, warehouseId, delta -> {
+            delta.outQty += qty;
+            delta.value = delta.value.add(valueDelta);
+            delta.outOfStock += outOfStockChange(beforeQty, afterQty);
+            delta.movers.merge(stockId, (long) outQtyAfter, Math::max);
+        });
+    }
+
+    private static int outOfStockChange(int beforeQty, int afterQty) {
+        if (beforeQty > 0 && afterQty <= 0) return 1;
+        if (beforeQty <= 0 && afterQty > 0) return -1;
+        return 0;
+    }
+
+    private void record(Long tenantId, Long warehouseId, Consumer<Delta> change) {
+        WarehouseKey key = new WarehouseKey(tenantId, warehouseId);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            Delta delta = new Delta();
+            change.accept(delta);
+            apply(Map.of(key, delta));
+            return;
+        }
+
+        Buffer buffer = (Buffer) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new Buffer();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(buffer);
+        }
+        change.accept(buffer.deltas.computeIfAbsent(key, k -> new Delta()));
+    }
+
+    private void apply(Map<WarehouseKey, Delta> deltas) {
+        for (Map.Entry<WarehouseKey, Delta> entry : deltas.entrySet()) {
+            WarehouseKey key = entry.getKey();
+            Delta delta = entry.getValue();
+
+            int slot = ThreadLocalRandom.current().nextInt(Math.max(properties.getSlots(), 1));
+            AggRow row = stockDashboardJdbcRepository.lockForUpdate(key.getTenantId(), key.getWarehouseId(), slot);
+            row.setTotalValue(row.getTotalValue().add(delta.value));
+            row.setTotalInQty(row.getTotalInQty() + delta.inQty);
+            row.setTotalOutQty(row.getTotalOutQty() + delta.outQty);
+            row.setOutOfStockCount(row.getOutOfStockCount() + delta.outOfStock);
+            if (!delta.movers.isEmpty()) {
+                mergeFastMovers(row, delta.movers);
+            }
+            stockDashboardJdbcRepository.update(row);
+        }
+        log.debug("Applied stock dashboard deltas for {} warehouses", deltas.size());
+    }
+
+    private void mergeFastMovers(AggRow row, Map<Long, Long> movers) {
+        Map<Long, Long> merged = new HashMap<>();
+        for (int i = 0; i < row.getFastMoverStockIds().size(); i++) {
+            merged.put(row.getFastMoverStockIds().get(i), row.getFastMoverOutQtys().get(i));
+        }
+        movers.forEach((stockId, outQty) -> merged.merge(stockId, outQty, Math::max));
+
+        List<Map.Entry<Long, Long>> top = merged.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(properties.getFastMovers())
+                .toList();
+        row.setFastMoverStockIds(top.stream().map(Map.Entry::getKey).toList());
+        row.setFastMoverOutQtys(top.stream().map(Map.Entry::getValue).toList());
+    }
+
+    @Value
+    private static class WarehouseKey implements Comparable<WarehouseKey> {
+        Long tenantId;
+        Long warehouseId;
+
+        @Override
+        public int compareTo(WarehouseKey o) {
+            int cmp = tenantId.compareTo(o.tenantId);
+            return cmp != 0 ? cmp : warehouseId.compareTo(o.warehouseId);
+        }
+    }
+
+    private static final class Delta {
+        private BigDecimal value = BigDecimal.ZERO;
+        private long inQty;
+        private long outQty;
+        private long outOfStock;
+        private final Map<Long, Long> movers = new HashMap<>();
+    }
+
+    /** Deltas of one transaction; applied in {@link #beforeCommit} so they commit or roll back with it. */
+    private final class Buffer implements TransactionSynchronization {
+        private final Map<WarehouseKey, Delta> deltas = new TreeMap<>();
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(StockDashboardAggregator.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(StockDashboardAggregator.this, this);
+        }
+
+        @Override
+        public int getOrder() {
+            return ORDER;
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            apply(deltas);
+            deltas.clear();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(StockDashboardAggregator.this);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.stock.config.StockDashboardProperties;
+import com.ezh.Inventory.stock.repository.StockDashboardJdbcRepository;
+import com.ezh.Inventory.stock.repository.StockDashboardJdbcRepository.AggRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recomputes every {@code stock_dashboard_agg} row from {@code stock} so incremental drift
+ * (rounding, manual fixes in the database) cannot accumulate. Each warehouse is its own short
+ * transaction that locks all its slot rows first, so concurrent postings are neither lost nor
+ * counted twice; the totals land in slot 0 and the other slots start again from zero. Rows that had drifted are logged and counted in {@code stock.dashboard.drift}.
+ */
+@Slf4j
+@Component
+public class StockDashboardRebuilder {
+
+    private final StockDashboardJdbcRepository stockDashboardJdbcRepository;
+    private final StockDashboardProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter driftCounter;
+
+    public StockDashboardRebuilder(StockDashboardJdbcRepository stockDashboardJdbcRepository,
+                                   StockDashboardProperties properties,
+                                   TransactionTemplate transactionTemplate,
+                                   MeterRegistry meterRegistry) {
+        this.stockDashboardJdbcRepository = stockDashboardJdbcRepository;
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+        this.driftCounter = Counter.builder("stock.dashboard.drift")
+                .description("Dashboard aggregate rows corrected by the periodic rebuild")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${stock.dashboard.rebuild-interval-ms:3600000}",
+            initialDelayString = "${stock.dashboard.rebuild-interval-ms:3600000}")
+    public void rebuildAll() {
+        try {
+            List<Long[]> keys = stockDashboardJdbcRepository.findAllKeys();
+            for (Long[] key : keys) {
+                rebuild(key[0], key[1]);
+            }
+            log.info("Rebuilt stock dashboard aggregates for {} warehouses", keys.size());
+        } catch (Exception e) {
+            log.error("Stock dashboard rebuild failed", e);
+        }
+    }
+
+    public void rebuild(Long tenantId, Long warehouseId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            AggRow before = combine(stockDashboardJdbcRepository.lockAllSlots(tenantId, warehouseId,
+                    Math.max(properties.getSlots(), 1)));
+            AggRow after = stockDashboardJdbcRepository.recompute(tenantId, warehouseId, properties.getFastMovers());
+            if (drifted(before, after)) {
+                driftCounter.increment();
+                log.warn("Stock dashboard drift for tenant {} warehouse {}: was {}, now {}",
+                        tenantId, warehouseId, before, after);
+            }
+        });
+    }
+
+    // Adds up the slot rows of one warehouse, keeping the top fast movers like a single row would
+    private AggRow combine(List<AggRow> slots) {
+        AggRow total = new AggRow();
+        total.setTotalValue(BigDecimal.ZERO);
+        Map<Long, Long> movers = new HashMap<>();
+        for (AggRow slot : slots) {
+            total.setTenantId(slot.getTenantId());
+            total.setWarehouseId(slot.getWarehouseId());
+            total.setTotalValue(total.getTotalValue().add(slot.getTotalValue()));
+            total.setTotalInQty(total.getTotalInQty() + slot.getTotalInQty());
+            total.setTotalOutQty(total.getTotalOutQty() + slot.getTotalOutQty());
+            total.setOutOfStockCount(total.getOutOfStockCount() + slot.getOutOfStockCount());
+            for (int i = 0; i < slot.getFastMoverStockIds().size(); i++) {
+                movers.merge(slot.getFastMoverStockIds().get(i), slot.getFastMoverOutQtys().get(i), Math::max);
+            }
+        }
+        List<Map.Entry<Long, Long>> top = movers.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(properties.getFastMovers())
+                .toList();
+        total.setFastMoverStockIds(top.stream().map(Map.Entry::getKey).toList());
+        total.setFastMoverOutQtys(top.stream().map(Map.Entry::getValue).toList());
+        return total;
+    }
+
+    private static boolean drifted(AggRow before, AggRow after) {
+        return before.getTotalValue().compareTo(after.getTotalValue()) != 0
+                || before.getTotalInQty() != after.getTotalInQty()
+                || before.getTotalOutQty() != after.getTotalOutQty()
+                || before.getOutOfStockCount() != after.getOutOfStockCount()
+                || !before.getFastMoverStockIds().equals(after.getFastMoverStockIds());
+    }
+}
@@ -0,0 +1,189 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.notifications.common.entity.NotificationType;
+import com.ezh.Inventory.notifications.common.service.NotificationService;
+import com.ezh.Inventory.stock.config.StockExpiryProperties;
+import com.ezh.Inventory.stock.repository.StockExpiryJdbcRepository;
+import com.ezh.Inventory.stock.repository.StockExpiryJdbcRepository.ExpiringBatch;
+import com.ezh.Inventory.stock.repository.StockExpiryJdbcRepository.ScanState;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds open batches that have expired or expire soon and sends each tenant one grouped alert per
+ * cycle (expired / critical / upcoming) through {@link NotificationService}.
+ *
+ * <p>Batches are read in keyset pages over the {@code (tenant_id, expiry_date)} open-batch index,
+ * one short transaction per page. Every run is bounded by a row budget per tenant, a row budget
+ * for the run and a wall-clock limit; a tenant whose cycle runs out of budget keeps its cursor and
+ * partial totals in {@code stock_expiry_scan} and continues on the next run, so a tenant with
+ * hundreds of thousands of batches never holds the scheduler thread.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockExpiryScanner {
+
+    private static final String SCANNING = "SCANNING";
+    private static final String IDLE = "IDLE";
+
+    private final StockExpiryJdbcRepository stockExpiryJdbcRepository;
+    private final StockExpiryProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationService notificationService;
+
+    @Scheduled(fixedDelayString = "${stock.expiry.scan-interval-ms:300000}",
+            initialDelayString = "${stock.expiry.scan-interval-ms:300000}")
+    public void scan() {
+        try {
+            long now = System.currentTimeMillis();
+            long deadline = System.nanoTime() + properties.getMaxRunTime().toNanos();
+            int runBudget = properties.getMaxRowsPerRun();
+
+            List<Long> tenantIds = stockExpiryJdbcRepository.findTenantsToScan(
+                    now + days(properties.getHorizonDays()), new Timestamp(now - properties.getCycleInterval().toMillis()));
+
+            for (int i = 0; i < tenantIds.size(); i++) {
+                Long tenantId = tenantIds.get(i);
+                if (runBudget <= 0 || System.nanoTime() > deadline) {
+                    log.info("Expiry scan budget used up, {} tenants continue on the next run", tenantIds.size() - i);
+                    break;
+                }
+                try {
+                    runBudget -= scanTenant(tenantId, Math.min(runBudget, properties.getMaxRowsPerTenant()), deadline, now);
+                } catch (Exception e) {
+                    log.error("Expiry scan failed for tenant {}", tenantId, e);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Stock expiry scan failed", e);
+        }
+    }
+
+    /** @return batches read for the tenant in this run */
+    private int scanTenant(Long tenantId, int budget, long deadline, long now) {
+        int read = 0;
+        while (read < budget && System.nanoTime() <= deadline) {
+            int limit = Math.min(properties.getPageSize(), budget - read);
+            PageResult page = transactionTemplate.execute(status -> scanPage(tenantId, limit, now));
+            if (page == null) {
+                return read;
+            }
+            read += page.read;
+            if (page.completed != null) {
+                alert(page.completed);
+                finishCycle(page.completed);
+                return read;
+            }
+        }
+        return read;
+    }
+
+    private PageResult scanPage(Long tenantId, int limit, long now) {
+        ScanState state = stockExpiryJdbcRepository.findState(tenantId).orElse(null);
+        if (state == null || IDLE.equals(state.getStatus())) {
+            if (state != null && state.getCompletedAt() != null
+                    && state.getCompletedAt().getTime() > now - properties.getCycleInterval().toMillis()) {
+                return null; // Finished by another instance since the tenant was listed
+            }
+            state = newCycle(tenantId, now);
+        }
+
+        long cycleStart = state.getCycleStartedAt();
+        long criticalBefore = cycleStart + days(properties.getCriticalDays());
+        List<ExpiringBatch> batches = stockExpiryJdbcRepository.findPage(tenantId,
+                state.getCursorExpiryDate() != null ? state.getCursorExpiryDate() : Long.MIN_VALUE,
+                state.getCursorBatchId() != null ? state.getCursorBatchId() : Long.MIN_VALUE,
+                cycleStart + days(properties.getHorizonDays()), limit);
+
+        for (ExpiringBatch batch : batches) {
+            if (batch.getExpiryDate() < cycleStart) {
+                state.setExpiredBatches(state.getExpiredBatches() + 1);
+                state.setExpiredQty(state.getExpiredQty() + batch.getRemainingQty());
+            } else if (batch.getExpiryDate() < criticalBefore) {
+                state.setCriticalBatches(state.getCriticalBatches() + 1);
+                state.setCriticalQty(state.getCriticalQty() + batch.getRemainingQty());
+            } else {
+                state.setUpcomingBatches(state.getUpcomingBatches() + 1);
+                state.setUpcomingQty(state.getUpcomingQty() + batch.getRemainingQty());
+            }
+        }
+        if (!batches.isEmpty()) {
+            ExpiringBatch last = batches.get(batches.size() - 1);
+            state.setCursorExpiryDate(last.getExpiryDate());
+            state.setCursorBatchId(last.getId());
+        }
+        // The cycle stays SCANNING until its alert is sent, so a failed send is retried next run
+        stockExpiryJdbcRepository.saveState(state);
+
+        PageResult result = new PageResult();
+        result.read = batches.size();
+        result.completed = batches.size() < limit ? state : null;
+        return result;
+    }
+
+    private void alert(ScanState state) {
+        if (state.getExpiredBatches() + state.getCriticalBatches() + state.getUpcomingBatches() == 0) {
+            return;
+        }
+
+        LocalDate asOf = LocalDate.ofInstant(Instant.ofEpochMilli(state.getCycleStartedAt()), ZoneId.systemDefault());
+        List<String> lines = new ArrayList<>();
+        if (state.getExpiredBatches() > 0) {
+            lines.add(state.getExpiredBatches() + " batches (" + state.getExpiredQty() + " units) have expired");
+        }
+        if (state.getCriticalBatches() > 0) {
+            lines.add(state.getCriticalBatches() + " batches (" + state.getCriticalQty() + " units) expire within "
+                    + properties.getCriticalDays() + " days");
+        }
+        if (state.getUpcomingBatches() > 0) {
+            lines.add(state.getUpcomingBatches() + " batches (" + state.getUpcomingQty() + " units) expire within "
+                    + properties.getHorizonDays() + " days");
+        }
+
+        notificationService.sendToOrg(
+                state.getTenantId().toString(),
+                "Stock expiry alert: " + asOf,
+                "As of " + asOf + ", " + String.join("; ", lines) + ".",
+                state.getExpiredBatches() + state.getCriticalBatches() > 0 ? NotificationType.WARNING : NotificationType.INFO
+        );
+    }
+
+    private void finishCycle(ScanState state) {
+        state.setStatus(IDLE);
+        state.setCursorExpiryDate(null);
+        state.setCursorBatchId(null);
+        state.setCompletedAt(new Timestamp(System.currentTimeMillis()));
+        transactionTemplate.executeWithoutResult(status -> stockExpiryJdbcRepository.saveState(state));
+        log.info("Expiry scan cycle for tenant {} done: {} expired, {} critical, {} upcoming batches",
+                state.getTenantId(), state.getExpiredBatches(), state.getCriticalBatches(), state.getUpcomingBatches());
+    }
+
+    private static ScanState newCycle(Long tenantId, long now) {
+        ScanState state = new ScanState();
+        state.setTenantId(tenantId);
+        state.setStatus(SCANNING);
+        state.setCycleStartedAt(now);
+        return state;
+    }
+
+    private static long days(int days) {
+        return Duration.ofDays(days).toMillis();
+    }
+
+    private static class PageResult {
+        private int read;
+        private ScanState completed; // Set when this page finished the cycle
+    }
+}
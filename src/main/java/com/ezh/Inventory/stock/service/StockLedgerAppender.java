@@ -0,0 +1,109 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.stock.entity.StockLedger;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Write-behind appender for {@code stock_ledger}.
+ *
+ * <p>Ledger rows are collected for the current transaction and written in one JDBC batch right
+ * before it commits (the driver rewrites the batch into multi-row inserts). IDENTITY ids keep
+ * Hibernate from batching these inserts, and every row used to be its own round trip.
+ *
+ * <p>Rows get their uuid and {@code totalValue} when appended; their id stays null, so a caller
+ * that reports it reads it back by uuid once the transaction has committed.
+ * Publishes {@code stock.ledger.flush} (latency) and {@code stock.ledger.flush.size} (rows).
+ */
+@Slf4j
+@Component
+public class StockLedgerAppender {
+
+    private final StockPostingJdbcRepository stockPostingJdbcRepository;
+    private final Timer flushTimer;
+    private final DistributionSummary flushSize;
+
+    public StockLedgerAppender(StockPostingJdbcRepository stockPostingJdbcRepository, MeterRegistry meterRegistry) {
+        this.stockPostingJdbcRepository = stockPostingJdbcRepository;
+        this.flushTimer = Timer.builder("stock.ledger.flush")
+                .description("Time to write the buffered ledger rows of one transaction")
+                .register(meterRegistry);
+        this.flushSize = DistributionSummary.builder("stock.ledger.flush.size")
+                .description("Ledger rows written per flush")
+                .register(meterRegistry);
+    }
+
+    public void append(List<StockLedger> ledgers) {
+        if (ledgers.isEmpty()) return;
+        ledgers.forEach(this::prepare);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            writeRows(ledgers);
+            return;
+        }
+
+        Buffer buffer = (Buffer) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new Buffer();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(buffer);
+        }
+        buffer.rows.addAll(ledgers);
+    }
+
+    private void prepare(StockLedger ledger) {
+        if (ledger.getUuid() == null) {
+            ledger.setUuid(UUID.randomUUID().toString());
+        }
+        if (ledger.getTotalValue() == null && ledger.getUnitPrice() != null && ledger.getQuantity() != null) {
+            ledger.setTotalValue(ledger.getUnitPrice()
+                    .multiply(BigDecimal.valueOf(ledger.getQuantity()))
+                    .setScale(2, RoundingMode.HALF_UP));
+        }
+    }
+
+    private void writeRows(List<StockLedger> rows) {
+        if (rows.isEmpty()) return;
+        flushTimer.record(() -> stockPostingJdbcRepository.insertLedgers(rows));
+        flushSize.record(rows.size());
+        log.debug("Flushed {} stock ledger rows", rows.size());
+    }
+
+    /** Rows of one transaction; written in {@link #beforeCommit} so they commit or roll back with it. */
+    private final class Buffer implements TransactionSynchronization {
+        private final List<StockLedger> rows = new ArrayList<>();
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(StockLedgerAppender.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(StockLedgerAppender.this, this);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            writeRows(rows);
+            rows.clear();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(StockLedgerAppender.this);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.stock.config.StockLockProperties;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
+import com.ezh.Inventory.utils.exception.CommonException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Serializes stock work per (tenant, warehouse, item) inside this JVM.
+ *
+ * <p>Requests for the same item queue here instead of on the Postgres row lock, so they do not
+ * hold a pooled connection while they wait. Keys are hashed onto a fixed set of
+ * {@link ReentrantLock} stripes. A document takes all its stripes at once, in ascending stripe
+ * order and before its transaction opens, which keeps two multi-item documents from deadlocking
+ * each other.
+ *
+ * <p>Per stripe it publishes {@code stock.lock.wait} and {@code stock.lock.hold} timers,
+ * a {@code stock.lock.contended} counter and a {@code stock.lock.queue} gauge.
+ */
+@Slf4j
+@Component
+public class StockLockManager {
+
+    private final long timeoutMs;
+    private final ReentrantLock[] stripes;
+    private final Timer[] waitTimers;
+    private final Timer[] holdTimers;
+    private final Counter[] contended;
+
+    public StockLockManager(StockLockProperties properties, MeterRegistry meterRegistry) {
+        int count = Math.max(1, properties.getStripes());
+        this.timeoutMs = properties.getTimeoutMs();
+        this.stripes = new ReentrantLock[count];
+        this.waitTimers = new Timer[count];
+        this.holdTimers = new Timer[count];
+        this.contended = new Counter[count];
+
+        for (int i = 0; i < count; i++) {
+            String stripe = String.valueOf(i);
+            ReentrantLock lock = new ReentrantLock();
+            stripes[i] = lock;
+            waitTimers[i] = Timer.builder("stock.lock.wait").tag("stripe", stripe)
+                    .description("Time spent waiting for a stock lock stripe").register(meterRegistry);
+            holdTimers[i] = Timer.builder("stock.lock.hold").tag("stripe", stripe)
+                    .description("Time a stock lock stripe was held").register(meterRegistry);
+            contended[i] = Counter.builder("stock.lock.contended").tag("stripe", stripe)
+                    .description("Acquisitions that found the stripe already held").register(meterRegistry);
+            Gauge.builder("stock.lock.queue", lock, ReentrantLock::getQueueLength).tag("stripe", stripe)
+                    .description("Threads queued on the stripe").register(meterRegistry);
+        }
+    }
+
+    /**
+     * Runs {@code action} while holding the stripes of every key, and releases them once it
+     * returns; {@code action} opens and commits the transaction that does the stock work.
+     *
+     * <p>A document passes all its keys in this one call, before its transaction opens: waiting
+     * here then holds no pooled connection, and no document can hold some stripes while queuing
+     * for more. Code inside the transaction checks its keys with {@link #requireHeld}.
+     *
+     * @throws IllegalStateException inside an open transaction
+     */
+    public <T> T withLocks(Long tenantId, Collection<StockKey> keys, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Stock locks must be taken before the transaction opens");
+        }
+
+        Lease lease = acquire(tenantId, keys);
+        try {
+            return action.get();
+        } finally {
+            lease.release();
+        }
+    }
+
+    /**
+     * Checks that the current thread holds the stripes of every key, i.e. that the document
+     * being posted took them with {@link #withLocks} before its transaction opened.
+     *
+     * @throws CommonException (409) if one is missing, typically because the document's lines
+     *                         changed between reading its keys and opening the transaction
+     */
+    public void requireHeld(Long tenantId, Collection<StockKey> keys) {
+        for (StockKey key : keys) {
+            int index = stripeOf(tenantId, key);
+            if (!stripes[index].isHeldByCurrentThread()) {
+                log.warn("Stock lock stripe {} for {} not taken before the transaction opened", index, key);
+                throw new CommonException("Stock lines changed while the document was posted, please retry",
+                        HttpStatus.CONFLICT);
+            }
+        }
+    }
+
+    private Lease acquire(Long tenantId, Collection<StockKey> keys) {
+        int[] indexes = keys.stream()
+                .mapToInt(key -> stripeOf(tenantId, key))
+                .distinct()
+                .sorted()
+                .toArray();
+
+        int acquired = 0;
+        try {
+            for (int index : indexes) {
+                lockStripe(index);
+                acquired++;
+            }
+        } catch (RuntimeException e) {
+            for (int i = acquired - 1; i >= 0; i--) {
+                stripes[indexes[i]].unlock();
+            }
+            throw e;
+        }
+        return new Lease(indexes, System.nanoTime());
+    }
+
+    private void lockStripe(int index) {
+        ReentrantLock lock = stripes[index];
+        if (lock.tryLock()) {
+            waitTimers[index].record(0, TimeUnit.NANOSECONDS);
+            return;
+        }
+
+        contended[index].increment();
+        long start = System.nanoTime();
+        boolean locked;
+        try {
+            locked = lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CommonException("Interrupted while waiting for stock lock", e, HttpStatus.SERVICE_UNAVAILABLE);
+        } finally {
+            waitTimers[index].record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        if (!locked) {
+            log.warn("Timed out after {} ms waiting for stock lock stripe {}", timeoutMs, index);
+            throw new CommonException("Stock is busy, please retry", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    private int stripeOf(Long tenantId, StockKey key) {
+        int h = Objects.hash(tenantId, key.getWarehouseId(), key.getItemId());
+        return Math.floorMod(h ^ (h >>> 16), stripes.length);
+    }
+
+    private final class Lease {
+        private final int[] indexes;
+        private final long acquiredAt;
+
+        private Lease(int[] indexes, long acquiredAt) {
+            this.indexes = indexes;
+            this.acquiredAt = acquiredAt;
+        }
+
+        private void release() {
+            long heldNanos = System.nanoTime() - acquiredAt;
+            for (int i = indexes.length - 1; i >= 0; i--) {
+                holdTimers[indexes[i]].record(heldNanos, TimeUnit.NANOSECONDS);
+                stripes[indexes[i]].unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,438 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.stock.config.StockPostingProperties;
+import com.ezh.Inventory.stock.dto.BatchAllocation;
+import com.ezh.Inventory.stock.dto.StockBatchSnapshot;
+import com.ezh.Inventory.stock.dto.StockPostingResult;
+import com.ezh.Inventory.stock.dto.StockPostingSnapshot;
+import com.ezh.Inventory.stock.dto.StockUpdateDto;
+import com.ezh.Inventory.stock.entity.MovementType;
+import com.ezh.Inventory.stock.repository.StockBatchRepository;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.BatchRow;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockRow;
+import com.ezh.Inventory.stock.repository.StockRepository;
+import com.ezh.Inventory.utils.exception.BadRequestException;
+import com.ezh.Inventory.utils.exception.CommonException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Applies stock deltas atomically against the {@code stock} and {@code stock_batch} rows.
+ *
+ * <ul>
+ *   <li>OUT is a single conditional {@code UPDATE ... WHERE closing_qty - reserved >= qty}; it can never
+ *       oversell or take stock held for a sales order, and it holds the stock row lock until the
+ *       surrounding transaction commits.</li>
+ *   <li>IN recalculates WAC from a snapshot and writes it back guarded by {@code version}; a concurrent
+ *       posting makes the write miss and the engine re-reads and retries, bounded by
+ *       {@link StockPostingProperties#getMaxAttempts()}.</li>
+ *   <li>Batch rows are only touched after the stock row is locked, so batch picks for one
+ *       (tenant, warehouse, item) are serialized across transactions. Unbatched OUT picks go
+ *       through {@link StockBatchAllocator} (FIFO or FEFO per tenant).</li>
+ *   <li>{@link #postAll} handles a whole document: it locks every stock row of the document in one
+ *       {@code SELECT ... FOR UPDATE}, applies all lines in memory and writes back with JDBC batches.
+ *       OUT lines are checked against the stock not reserved for other orders; a line that names
+ *       the order it invoices ({@link StockUpdateDto#getReservationReferenceId()}) may use that
+ *       order's own hold.</li>
+ *   <li>Every movement is also handed to {@link StockDashboardAggregator}, which keeps the dashboard
+ *       read model current at commit.</li>
+ * </ul>
+ *
+ * Must run inside the caller's transaction.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockPostingEngine {
+
+    private static final BigDecimal ZERO = BigDecimal.ZERO;
+
+    private final StockRepository stockRepository;
+    private final StockBatchRepository stockBatchRepository;
+    private final StockPostingJdbcRepository stockPostingJdbcRepository;
+    private final StockBatchAllocator stockBatchAllocator;
+    private final StockPostingProperties properties;
+    private final StockDashboardAggregator stockDashboardAggregator;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public StockPostingResult postIn(Long tenantId, Long warehouseId, Long itemId, int qty,
+                                     BigDecimal unitPrice, String batchNumber) {
+
+        BigDecimal transactionPrice = unitPrice != null ? unitPrice : ZERO;
+
+        // If a specific batch is provided (e.g. sales return), qty goes back to that batch at its own cost
+        StockBatchSnapshot batch = null;
+        if (hasBatch(batchNumber)) {
+            batch = stockBatchRepository.findBatchSnapshot(tenantId, warehouseId, itemId, batchNumber)
+                    .orElseThrow(() -> new BadRequestException("Batch " + batchNumber + " not found"));
+            transactionPrice = batch.getBuyPrice() != null ? batch.getBuyPrice() : ZERO;
+        }
+        // Note: when no batch is provided (GRN flow), batch creation is handled by GoodsReceiptService
+
+        if (stockRepository.insertIfAbsent(tenantId, warehouseId, itemId) == 1) {
+            stockDashboardAggregator.recordCreated(tenantId, warehouseId);
+        }
+
+        for (int attempt = 1; attempt <= properties.getMaxAttempts(); attempt++) {
+            StockPostingSnapshot snapshot = stockRepository.findPostingSnapshot(tenantId, warehouseId, itemId)
+                    .orElseThrow(() -> new CommonException("Stock row missing for item " + itemId, HttpStatus.INTERNAL_SERVER_ERROR));
+
+            int beforeQty = snapshot.getClosingQty();
+            BigDecimal currentAvgCost = snapshot.getAverageCost() != null ? snapshot.getAverageCost() : ZERO;
+            BigDecimal newAvgCost = weightedAverage(currentAvgCost, beforeQty, transactionPrice, qty);
+
+            if (stockRepository.addIfVersionMatches(snapshot.getId(), snapshot.getVersion(), qty, newAvgCost) == 1) {
+                if (batch != null) {
+                    stockBatchRepository.addRemainingQty(batch.getId(), qty);
+                }
+                stockDashboardAggregator.recordIn(tenantId, warehouseId, qty, beforeQty, beforeQty + qty,
+                        valueChange(currentAvgCost, beforeQty, newAvgCost, beforeQty + qty));
+                return StockPostingResult.builder()
+                        .beforeQty(beforeQty)
+                        .afterQty(beforeQty + qty)
+                        .unitCost(currentAvgCost)
+                        .averageCost(newAvgCost)
+                        .batchNumber(batchNumber)
+                        .build();
+            }
+
+            log.debug("WAC version conflict on item {} warehouse {} (attempt {})", itemId, warehouseId, attempt);
+            backOff(attempt);
+        }
+
+        throw new CommonException("Stock for item " + itemId + " is being updated concurrently, please retry",
+                HttpStatus.CONFLICT);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public StockPostingResult postOut(Long tenantId, Long warehouseId, Long itemId, int qty, String batchNumber) {
+
+        // Check and deduct global availability in one statement
+        if (stockRepository.deductIfAvailable(tenantId, warehouseId, itemId, qty) == 0) {
+            int current = stockRepository.findPostingSnapshot(tenantId, warehouseId, itemId)
+                    .map(StockPostingSnapshot::getClosingQty)
+                    .orElse(0);
+            StockKey key = new StockKey(warehouseId, itemId);
+            int reserved = stockPostingJdbcRepository.findActiveReservations(tenantId, List.of(key))
+                    .getOrDefault(key, Map.of()).values().stream().mapToInt(Integer::intValue).sum();
+            throw notEnoughStock(current, reserved);
+        }
+
+        // Row is locked by us now, this read is consistent until commit
+        StockPostingSnapshot snapshot = stockRepository.findPostingSnapshot(tenantId, warehouseId, itemId)
+                .orElseThrow(() -> new CommonException("Stock row missing for item " + itemId, HttpStatus.INTERNAL_SERVER_ERROR));
+        int afterQty = snapshot.getClosingQty();
+        BigDecimal averageCost = snapshot.getAverageCost() != null ? snapshot.getAverageCost() : ZERO;
+
+        BigDecimal costForLedger = averageCost; // Default to WAC
+        List<BatchAllocation> allocations;
+
+        if (hasBatch(batchNumber)) {
+            // CASE 1: Caller wants a specific batch (e.g., "BATCH-001")
+            StockBatchSnapshot batch = stockBatchRepository.findBatchSnapshot(tenantId, warehouseId, itemId, batchNumber)
+                    .orElseThrow(() -> new BadRequestException("Batch " + batchNumber + " not found"));
+
+            if (stockBatchRepository.deductIfAvailable(batch.getId(), qty) == 0) {
+                throw new BadRequestException("Not enough stock in Batch " + batchNumber);
+            }
+            costForLedger = batch.getBuyPrice();
+            allocations = List.of(BatchAllocation.builder()
+                    .batchId(batch.getId())
+                    .batchNumber(batch.getBatchNumber())
+                    .quantity(qty)
+                    .unitCost(batch.getBuyPrice())
+                    .build());
+        } else {
+            // CASE 2: No batch provided. AUTO-PICK (FIFO / FEFO)
+            StockKey key = new StockKey(warehouseId, itemId);
+            allocations = stockBatchAllocator.allocate(tenantId, Map.of(key, qty)).get(key);
+        }
+
+        stockDashboardAggregator.recordOut(tenantId, warehouseId, snapshot.getId(), qty, afterQty + qty, afterQty,
+                valueChange(averageCost, afterQty + qty, averageCost, afterQty), snapshot.getOutQty());
+
+        return StockPostingResult.builder()
+                .beforeQty(afterQty + qty)
+                .afterQty(afterQty)
+                .unitCost(costForLedger)
+                .averageCost(averageCost)
+                .batchNumber(joinBatchNumbers(allocations))
+                .allocations(allocations)
+                .build();
+    }
+
+    /**
+     * Applies every movement of a document against prefetched, locked rows and flushes the changed
+     * stock and batch rows with JDBC batches. Lines without a batch are allocated afterwards in one
+     * set-based call for the whole document. Results are returned in input order.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<StockPostingResult> postAll(Long tenantId, List<StockUpdateDto> movements) {
+
+        // Pending entity changes (e.g. a freshly saved GRN batch) must be visible to the JDBC reads below
+        stockRepository.flush();
+
+        Set<StockKey> keys = new TreeSet<>();
+        Set<StockKey> inKeys = new TreeSet<>();
+        Set<StockKey> outKeys = new TreeSet<>();
+        Set<String> namedBatches = new HashSet<>();
+        for (StockUpdateDto dto : movements) {
+            StockKey key = new StockKey(dto.getWarehouseId(), dto.getItemId());
+            keys.add(key);
+            if (dto.getTransactionType() != MovementType.OUT) inKeys.add(key);
+            else outKeys.add(key);
+            if (hasBatch(dto.getBatchNumber())) namedBatches.add(dto.getBatchNumber());
+        }
+
+        // 1. Prefetch: create missing rows for IN, lock all rows, load named batches and the holds on OUT rows
+        Map<StockKey, StockRow> rows = lockRows(tenantId, keys, inKeys);
+        Map<StockKey, List<BatchRow>> batches = stockPostingJdbcRepository.findNamedBatches(tenantId, keys, namedBatches);
+        Map<StockKey, Map<Long, Integer>> reservations = stockPostingJdbcRepository.findActiveReservations(tenantId, outKeys);
+
+        // 2. Apply every line in memory; unbatched OUT lines only record their demand
+        StockPostingResult[] results = new StockPostingResult[movements.size()];
+        Map<StockKey, Integer> demand = new LinkedHashMap<>();
+        for (int i = 0; i < movements.size(); i++) {
+            StockUpdateDto dto = movements.get(i);
+            StockKey key = new StockKey(dto.getWarehouseId(), dto.getItemId());
+            StockRow row = rows.get(key);
+            List<BatchRow> itemBatches = batches.getOrDefault(key, List.of());
+
+            if (dto.getTransactionType() == MovementType.OUT) {
+                results[i] = applyOut(row, itemBatches, reservations.getOrDefault(key, Map.of()), dto);
+                if (!hasBatch(dto.getBatchNumber())) {
+                    demand.merge(key, dto.getQuantity(), Integer::sum);
+                }
+                stockDashboardAggregator.recordOut(tenantId, row.getWarehouseId(), row.getId(), dto.getQuantity(),
+                        results[i].getBeforeQty(), results[i].getAfterQty(),
+                        valueChange(row.getAverageCost(), results[i].getBeforeQty(), row.getAverageCost(), results[i].getAfterQty()),
+                        row.getOutQty());
+            } else {
+                results[i] = applyIn(row, itemBatches, dto);
+                stockDashboardAggregator.recordIn(tenantId, row.getWarehouseId(), dto.getQuantity(),
+                        results[i].getBeforeQty(), results[i].getAfterQty(),
+                        valueChange(results[i].getUnitCost(), results[i].getBeforeQty(), row.getAverageCost(), results[i].getAfterQty()));
+            }
+            row.setDirty(true);
+        }
+
+        // 3. Flush stock rows and named batches
+        stockPostingJdbcRepository.updateStockRows(rows.values().stream().filter(StockRow::isDirty).toList());
+        stockPostingJdbcRepository.updateBatchRows(batches.values().stream()
+                .flatMap(List::stream)
+                .filter(BatchRow::isDirty)
+                .toList());
+
+        // 4. One allocation for every unbatched OUT line, split back onto the lines in order
+        Map<StockKey, List<BatchAllocation>> allocated = stockBatchAllocator.allocate(tenantId, demand);
+        Map<StockKey, Deque<BatchAllocation>> remaining = new HashMap<>();
+        allocated.forEach((key, slices) -> remaining.put(key, new ArrayDeque<>(slices)));
+
+        for (int i = 0; i < movements.size(); i++) {
+            StockUpdateDto dto = movements.get(i);
+            if (dto.getTransactionType() == MovementType.OUT && !hasBatch(dto.getBatchNumber())) {
+                List<BatchAllocation> lineAllocations = takeAllocations(
+                        remaining.get(new StockKey(dto.getWarehouseId(), dto.getItemId())), dto.getQuantity());
+                results[i] = StockPostingResult.builder()
+                        .beforeQty(results[i].getBeforeQty())
+                        .afterQty(results[i].getAfterQty())
+                        .unitCost(results[i].getUnitCost())
+                        .averageCost(results[i].getAverageCost())
+                        .batchNumber(joinBatchNumbers(lineAllocations))
+                        .allocations(lineAllocations)
+                        .build();
+            }
+        }
+
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Creates the missing stock rows of {@code inKeys} and locks every row of {@code keys} in id
+     * order. Callers that post several {@link #postAll} calls in one transaction (e.g. a transfer's
+     * OUT then IN legs) take all their locks up front with this, so the later calls only re-lock
+     * rows they already hold and cannot deadlock against each other.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<StockKey, StockRow> lockRows(Long tenantId, Collection<StockKey> keys, Collection<StockKey> inKeys) {
+        Set<StockKey> created = stockPostingJdbcRepository.insertMissingStockRows(tenantId, inKeys);
+        created.forEach(key -> stockDashboardAggregator.recordCreated(tenantId, key.getWarehouseId()));
+        return stockPostingJdbcRepository.lockStockRows(tenantId, keys);
+    }
+
+    private StockPostingResult applyIn(StockRow row, List<BatchRow> itemBatches, StockUpdateDto dto) {
+        int qty = dto.getQuantity();
+        BigDecimal transactionPrice = dto.getUnitPrice() != null ? dto.getUnitPrice() : ZERO;
+
+        if (hasBatch(dto.getBatchNumber())) {
+            BatchRow batch = findBatch(itemBatches, dto.getBatchNumber());
+            batch.setRemainingQty(batch.getRemainingQty() + qty);
+            batch.setDirty(true);
+            transactionPrice = batch.getBuyPrice() != null ? batch.getBuyPrice() : ZERO;
+        }
+
+        int beforeQty = row.getClosingQty();
+        BigDecimal currentAvgCost = row.getAverageCost();
+        row.setAverageCost(weightedAverage(currentAvgCost, beforeQty, transactionPrice, qty));
+        row.setInQty(row.getInQty() + qty);
+        row.setClosingQty(beforeQty + qty);
+
+        return StockPostingResult.builder()
+                .beforeQty(beforeQty)
+                .afterQty(row.getClosingQty())
+                .unitCost(currentAvgCost)
+                .averageCost(row.getAverageCost())
+                .batchNumber(dto.getBatchNumber())
+                .build();
+    }
+
+    /**
+     * @param reserved active holds on the row per sales order; the line's own order hold is
+     *                 reduced by what it takes, so later lines of the document see what is left
+     */
+    private StockPostingResult applyOut(StockRow row, List<BatchRow> itemBatches, Map<Long, Integer> reserved,
+                                        StockUpdateDto dto) {
+        int qty = dto.getQuantity();
+        int beforeQty = row != null ? row.getClosingQty() : 0;
+
+        Long ownOrderId = dto.getReservationReferenceId();
+        int ownHold = ownOrderId != null ? reserved.getOrDefault(ownOrderId, 0) : 0;
+        int heldForOthers = reserved.values().stream().mapToInt(Integer::intValue).sum() - ownHold;
+
+        if (row == null || beforeQty - heldForOthers < qty) {
+            throw notEnoughStock(beforeQty, heldForOthers);
+        }
+        if (ownHold > 0) {
+            reserved.put(ownOrderId, ownHold - Math.min(ownHold, qty));
+        }
+
+        BigDecimal costForLedger = row.getAverageCost(); // Default to WAC
+        List<BatchAllocation> allocations = null;       // Unbatched lines are allocated after the flush
+
+        if (hasBatch(dto.getBatchNumber())) {
+            BatchRow batch = findBatch(itemBatches, dto.getBatchNumber());
+            if (batch.getRemainingQty() < qty) {
+                throw new BadRequestException("Not enough stock in Batch " + dto.getBatchNumber());
+            }
+            batch.setRemainingQty(batch.getRemainingQty() - qty);
+            batch.setDirty(true);
+            costForLedger = batch.getBuyPrice();
+            allocations = List.of(BatchAllocation.builder()
+                    .batchId(batch.getId())
+                    .batchNumber(batch.getBatchNumber())
+                    .quantity(qty)
+                    .unitCost(batch.getBuyPrice())
+                    .build());
+        }
+
+        row.setOutQty(row.getOutQty() + qty);
+        row.setClosingQty(beforeQty - qty);
+
+        return StockPostingResult.builder()
+                .beforeQty(beforeQty)
+                .afterQty(row.getClosingQty())
+                .unitCost(costForLedger)
+                .averageCost(row.getAverageCost())
+                .batchNumber(allocations != null ? dto.getBatchNumber() : null)
+                .allocations(allocations)
+                .build();
+    }
+
+    private static BadRequestException notEnoughStock(int onHand, int reserved) {
+        if (reserved > 0) {
+            return new BadRequestException("Not enough stock available. On hand: " + onHand
+                    + ", reserved for sales orders: " + reserved);
+        }
+        return new BadRequestException("Not enough stock available globally. Current: " + onHand);
+    }
+
+    private BatchRow findBatch(List<BatchRow> itemBatches, String batchNumber) {
+        return itemBatches.stream()
+                .filter(b -> batchNumber.equals(b.getBatchNumber()))
+                .findFirst()
+                .orElseThrow(() -> new BadRequestException("Batch " + batchNumber + " not found"));
+    }
+
+    // Splits a line's quantity off the front of its item's allocated slices
+    private List<BatchAllocation> takeAllocations(Deque<BatchAllocation> slices, int qty) {
+        List<BatchAllocation> taken = new ArrayList<>();
+        int needed = qty;
+        while (needed > 0) {
+            BatchAllocation head = slices.pollFirst();
+            int take = Math.min(head.getQuantity(), needed);
+            taken.add(BatchAllocation.builder()
+                    .batchId(head.getBatchId())
+                    .batchNumber(head.getBatchNumber())
+                    .quantity(take)
+                    .unitCost(head.getUnitCost())
+                    .build());
+            if (take < head.getQuantity()) {
+                slices.addFirst(BatchAllocation.builder()
+                        .batchId(head.getBatchId())
+                        .batchNumber(head.getBatchNumber())
+                        .quantity(head.getQuantity() - take)
+                        .unitCost(head.getUnitCost())
+                        .build());
+            }
+            needed -= take;
+        }
+        return taken;
+    }
+
+    private String joinBatchNumbers(List<BatchAllocation> allocations) {
+        return allocations.stream()
+                .map(BatchAllocation::getBatchNumber)
+                .distinct()
+                .collect(Collectors.joining(","));
+    }
+
+    // Change of stock_value (average cost x closing qty, stored at scale 2) caused by one movement
+    private static BigDecimal valueChange(BigDecimal beforeAvgCost, int beforeQty, BigDecimal afterAvgCost, int afterQty) {
+        return stockValue(afterAvgCost, afterQty).subtract(stockValue(beforeAvgCost, beforeQty));
+    }
+
+    private static BigDecimal stockValue(BigDecimal averageCost, int qty) {
+        return averageCost.multiply(BigDecimal.valueOf(qty)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    private BigDecimal weightedAverage(BigDecimal currentAvgCost, int beforeQty, BigDecimal price, int qty) {
+        if (price.compareTo(ZERO) <= 0) {
+            return currentAvgCost;
+        }
+        BigDecimal newTotalValue = currentAvgCost.multiply(BigDecimal.valueOf(beforeQty))
+                .add(price.multiply(BigDecimal.valueOf(qty)));
+        BigDecimal newTotalQty = BigDecimal.valueOf((long) beforeQty + qty);
+
+        if (newTotalQty.compareTo(ZERO) <= 0) {
+            return currentAvgCost;
+        }
+        return newTotalValue.divide(newTotalQty, 2, RoundingMode.HALF_UP);
+    }
+
+    private void backOff(int attempt) {
+        if (attempt >= properties.getMaxAttempts() || properties.getRetryBackoffMs() <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(properties.getRetryBackoffMs() * attempt);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CommonException("Interrupted while posting stock", e, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    private boolean hasBatch(String batchNumber) {
+        return batchNumber != null && !batchNumber.isEmpty();
+    }
+}
@@ -0,0 +1,179 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.stock.config.StockReconcileProperties;
+import com.ezh.Inventory.stock.dto.StockReconcileRunDto;
+import com.ezh.Inventory.stock.repository.StockReconcileJdbcRepository;
+import com.ezh.Inventory.stock.repository.StockReconcileJdbcRepository.Issue;
+import com.ezh.Inventory.stock.repository.StockReconcileJdbcRepository.Mismatch;
+import com.ezh.Inventory.utils.exception.CommonException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks, per tenant, that {@code stock}, {@code stock_batch} and {@code stock_ledger} agree:
+ * <ul>
+ *   <li>BATCH_SUM: closing quantity equals the sum of the item's batch remaining quantities
+ *       (items without batches are skipped);</li>
+ *   <li>LEDGER_AFTER: closing quantity equals {@code after_qty} of the latest ledger row;</li>
+ *   <li>MOVEMENT_SUM: opening + in - out equals closing quantity.</li>
+ * </ul>
+ * Mismatches are streamed from one lock-free aggregate query and recorded in
+ * {@code stock_reconciliation_issue}. With repair on, a row whose ledger is known is set to the
+ * ledger quantity (opening quantity absorbs the difference) by a compare-and-set on its version;
+ * batch sums are only reported, since the scan cannot tell which batch is wrong. Repaired rows
+ * reach the dashboard aggregate with its next rebuild. The nightly run reconciles tenants in
+ * parallel on a small dedicated pool.
+ */
+@Slf4j
+@Component
+public class StockReconciler {
+
+    static final String BATCH_SUM = "BATCH_SUM";
+    static final String LEDGER_AFTER = "LEDGER_AFTER";
+    static final String MOVEMENT_SUM = "MOVEMENT_SUM";
+
+    private final StockReconcileJdbcRepository stockReconcileJdbcRepository;
+    private final StockReconcileProperties properties;
+    private final TransactionTemplate readOnlyTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService executor;
+    private final Counter mismatchCounter;
+
+    public StockReconciler(StockReconcileJdbcRepository stockReconcileJdbcRepository,
+                           StockReconcileProperties properties,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry) {
+        this.stockReconcileJdbcRepository = stockReconcileJdbcRepository;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTemplate.setReadOnly(true);
+        this.executor = Executors.newFixedThreadPool(properties.getParallelism());
+        this.mismatchCounter = Counter.builder("stock.reconcile.mismatches")
+                .description("Stock rows found breaking a stock / batch / ledger invariant")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Scheduled(cron = "${stock.reconcile.cron:0 0 3 * * *}")
+    public void reconcileAll() {
+        try {
+            List<CompletableFuture<Void>> runs = new ArrayList<>();
+            for (Long tenantId : stockReconcileJdbcRepository.findTenantIdsWithStock()) {
+                runs.add(CompletableFuture.runAsync(() -> {
+                    try {
+                        reconcile(tenantId, properties.isAutoRepair());
+                    } catch (Exception e) {
+                        log.error("Stock reconciliation failed for tenant {}", tenantId, e);
+                    }
+                }, executor));
+            }
+            // Wait so the next nightly run cannot overlap this one
+            CompletableFuture.allOf(runs.toArray(CompletableFuture[]::new)).join();
+        } catch (Exception e) {
+            log.error("Stock reconciliation failed", e);
+        }
+    }
+
+    public StockReconcileRunDto reconcile(Long tenantId, boolean repair) {
+        long started = System.nanoTime();
+        Long runId = stockReconcileJdbcRepository.createRun(tenantId, repair);
+
+        List<Mismatch> kept = new ArrayList<>();
+        long[] counts = new long[4]; // mismatched rows, batch, ledger, movement
+        long rowsChecked;
+        try {
+            rowsChecked = stockReconcileJdbcRepository.countStockRows(tenantId);
+            readOnlyTemplate.executeWithoutResult(status -> stockReconcileJdbcRepository.streamMismatches(tenantId, m -> {
+                counts[0]++;
+                if (batchBroken(m)) counts[1]++;
+                if (ledgerBroken(m)) counts[2]++;
+                if (movementBroken(m)) counts[3]++;
+                if (kept.size() < properties.getMaxIssues()) {
+                    kept.add(m);
+                }
+            }));
+        } catch (RuntimeException e) {
+            stockReconcileJdbcRepository.finishRun(runId, "FAILED", 0, 0, 0, elapsedMs(started));
+            throw new CommonException("Stock reconciliation failed: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+
+        List<Issue> issues = new ArrayList<>();
+        long repaired = 0;
+        for (Mismatch m : kept) {
+            boolean fixed = repair && m.getLedgerQty() != null && (ledgerBroken(m) || movementBroken(m))
+                    && stockReconcileJdbcRepository.repairFromLedger(m);
+            if (fixed) repaired++;
+            if (batchBroken(m)) issues.add(issue(m, BATCH_SUM, m.getBatchQty(), false));
+            if (ledgerBroken(m)) issues.add(issue(m, LEDGER_AFTER, m.getLedgerQty(), fixed));
+            if (movementBroken(m)) {
+                issues.add(issue(m, MOVEMENT_SUM, m.getOpeningQty() + m.getInQty() - m.getOutQty(), fixed));
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> stockReconcileJdbcRepository.insertIssues(runId, tenantId, issues));
+
+        long elapsedMs = elapsedMs(started);
+        stockReconcileJdbcRepository.finishRun(runId, "COMPLETED", rowsChecked, counts[0], repaired, elapsedMs);
+        mismatchCounter.increment(counts[0]);
+        if (counts[0] > 0) {
+            log.warn("Stock reconciliation run {} for tenant {}: {} of {} rows mismatched "
+                            + "(batch {}, ledger {}, movement {}), {} repaired",
+                    runId, tenantId, counts[0], rowsChecked, counts[1], counts[2], counts[3], repaired);
+        }
+
+        return StockReconcileRunDto.builder()
+                .runId(runId)
+                .rowsChecked(rowsChecked)
+                .mismatches(counts[0])
+                .batchSumMismatches(counts[1])
+                .ledgerMismatches(counts[2])
+                .movementMismatches(counts[3])
+                .repaired(repaired)
+                .elapsedMs(elapsedMs)
+                .build();
+    }
+
+    private static boolean batchBroken(Mismatch m) {
+        return m.getBatchQty() != null && m.getBatchQty() != m.getClosingQty();
+    }
+
+    private static boolean ledgerBroken(Mismatch m) {
+        return m.getLedgerQty() != null && m.getLedgerQty() != m.getClosingQty();
+    }
+
+    private static boolean movementBroken(Mismatch m) {
+        return m.getOpeningQty() + m.getInQty() - m.getOutQty() != m.getClosingQty();
+    }
+
+    private static Issue issue(Mismatch m, String checkType, long expectedQty, boolean repaired) {
+        Issue issue = new Issue();
+        issue.setKey(m.getKey());
+        issue.setCheckType(checkType);
+        issue.setExpectedQty(expectedQty);
+        issue.setActualQty(m.getClosingQty());
+        issue.setRepaired(repaired);
+        return issue;
+    }
+
+    private static long elapsedMs(long started) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+    }
+}
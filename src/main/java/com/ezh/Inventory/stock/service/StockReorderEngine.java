@@ -0,0 +1,150 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.items.dto.ItemMetadata;
+import com.ezh.Inventory.items.service.ItemMetadataCache;
+import com.ezh.Inventory.purchase.prq.dto.PurchaseRequestDto;
+import com.ezh.Inventory.purchase.prq.dto.PurchaseRequestItemDto;
+import com.ezh.Inventory.purchase.prq.entity.PrqSource;
+import com.ezh.Inventory.purchase.prq.service.PurchaseRequestService;
+import com.ezh.Inventory.stock.config.StockReorderProperties;
+import com.ezh.Inventory.stock.repository.ReorderPointJdbcRepository;
+import com.ezh.Inventory.stock.repository.ReorderPointJdbcRepository.ReorderCandidate;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drafts purchase requests for items that fell to their reorder point.
+ *
+ * <p>Scans are incremental per tenant: only reorder points whose stock row or policy changed
+ * since the previous scan are evaluated, in key-ordered chunks of one transaction each. A point
+ * is short when on hand plus open PO quantity (ordered - received) plus open PRQ quantity is at or
+ * below {@code min_qty}; it is drafted up to {@code max_qty}. Counting open requests as incoming
+ * keeps a re-evaluated item from being drafted twice. Short items of a chunk are grouped into one
+ * draft per (warehouse, vendor) and created through {@link PurchaseRequestService}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockReorderEngine {
+
+    private static final StockKey START = new StockKey(Long.MIN_VALUE, Long.MIN_VALUE);
+
+    private final ReorderPointJdbcRepository reorderPointJdbcRepository;
+    private final PurchaseRequestService purchaseRequestService;
+    private final ItemMetadataCache itemMetadataCache;
+    private final StockReorderProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    @Scheduled(fixedDelayString = "${stock.reorder.scan-interval-ms:300000}",
+            initialDelayString = "${stock.reorder.scan-interval-ms:300000}")
+    public void scanAll() {
+        try {
+            for (Long tenantId : reorderPointJdbcRepository.findTenantIds()) {
+                try {
+                    scan(tenantId);
+                } catch (Exception e) {
+                    log.error("Reorder scan failed for tenant {}", tenantId, e);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Reorder scan failed", e);
+        }
+    }
+
+    public void scan(Long tenantId) {
+        Timestamp startedAt = reorderPointJdbcRepository.now();
+        Timestamp since = reorderPointJdbcRepository.findLastStartedAt(tenantId)
+                .map(last -> new Timestamp(last.getTime() - properties.getChangeLag().toMillis()))
+                .orElse(new Timestamp(0));
+
+        StockKey cursor = START;
+        int evaluated = 0;
+        int drafted = 0;
+        while (true) {
+            StockKey after = cursor;
+            ChunkResult chunk = transactionTemplate.execute(status -> draftChunk(tenantId, since, after));
+            if (chunk == null || chunk.evaluated == 0) {
+                break;
+            }
+            evaluated += chunk.evaluated;
+            drafted += chunk.drafted;
+            cursor = chunk.last;
+            if (chunk.evaluated < properties.getChunkSize()) {
+                break;
+            }
+        }
+
+        reorderPointJdbcRepository.saveLastStartedAt(tenantId, startedAt);
+        if (evaluated > 0) {
+            log.info("Reorder scan for tenant {}: {} changed points evaluated, {} purchase requests drafted",
+                    tenantId, evaluated, drafted);
+        }
+    }
+
+    private ChunkResult draftChunk(Long tenantId, Timestamp since, StockKey after) {
+        List<ReorderCandidate> candidates = reorderPointJdbcRepository.findChangedCandidates(
+                tenantId, since, after, properties.getChunkSize());
+
+        ChunkResult result = new ChunkResult();
+        result.evaluated = candidates.size();
+        if (candidates.isEmpty()) {
+            return result;
+        }
+        result.last = candidates.get(candidates.size() - 1).getKey();
+
+        List<ReorderCandidate> shortItems = candidates.stream().filter(c -> c.shortfall() > 0).toList();
+        if (shortItems.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, ItemMetadata> items = itemMetadataCache.getAll(tenantId,
+                shortItems.stream().map(c -> c.getKey().getItemId()).toList());
+
+        // One draft per (warehouse, vendor); LinkedHashMap keeps the key order of the scan
+        Map<List<Long>, PurchaseRequestDto> drafts = new LinkedHashMap<>();
+        for (ReorderCandidate candidate : shortItems) {
+            ItemMetadata item = items.get(candidate.getKey().getItemId());
+            if (item == null || Boolean.FALSE.equals(item.getIsActive())) {
+                continue;
+            }
+            PurchaseRequestDto draft = drafts.computeIfAbsent(
+                    List.of(candidate.getKey().getWarehouseId(), candidate.getVendorId()),
+                    k -> PurchaseRequestDto.builder()
+                            .warehouseId(candidate.getKey().getWarehouseId())
+                            .vendorId(candidate.getVendorId())
+                            .requestedBy(candidate.getCreatedBy())
+                            .source(PrqSource.REORDER_POINT)
+                            .notes("Drafted automatically from reorder points")
+                            .items(new ArrayList<>())
+                            .build());
+            draft.getItems().add(PurchaseRequestItemDto.builder()
+                    .itemId(item.getId())
+                    .itemName(item.getName())
+                    .requestedQty(candidate.shortfall())
+                    .estimatedUnitPrice(item.getPurchasePrice() != null ? item.getPurchasePrice() : BigDecimal.ZERO)
+                    .build());
+        }
+
+        if (!drafts.isEmpty()) {
+            result.drafted = purchaseRequestService.createDraftPrqs(tenantId, new ArrayList<>(drafts.values())).size();
+        }
+        return result;
+    }
+
+    private static class ChunkResult {
+        private int evaluated;
+        private int drafted;
+        private StockKey last;
+    }
+}
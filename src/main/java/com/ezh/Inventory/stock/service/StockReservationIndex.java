@@ -0,0 +1,115 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.stock.dto.ReservedQtyProjection;
+import com.ezh.Inventory.stock.repository.StockReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory reserved quantity per (tenant, warehouse, item), so an available-to-promise read
+ * is a single map lookup instead of a SUM over {@code stock_reservation}.
+ *
+ * <p>The table stays the source of truth: changes are applied only after the owning transaction
+ * commits, and the index is rebuilt from the table on startup and by the sweeper, which also
+ * heals drift from other application instances.
+ *
+ * <p>A rebuild reads the table under the write side of {@code rebuildLock}; every transaction that
+ * carries index changes holds the read side from just before its commit until its changes are
+ * applied. So a rebuild never sees a change in the table whose delta is still to come (counting
+ * it twice), and never publishes a map that misses a delta applied while it was reading.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockReservationIndex {
+
+    private final StockReservationRepository stockReservationRepository;
+
+    private final ReentrantReadWriteLock rebuildLock = new ReentrantReadWriteLock();
+    private volatile ConcurrentHashMap<Key, Integer> reserved = new ConcurrentHashMap<>();
+
+    public int reservedQty(Long tenantId, Long warehouseId, Long itemId) {
+        return reserved.getOrDefault(new Key(tenantId, warehouseId, itemId), 0);
+    }
+
+    /** Adds {@code delta} (negative to release) once the current transaction has committed. */
+    public void adjustAfterCommit(Long tenantId, Long warehouseId, Long itemId, int delta) {
+        if (delta == 0) return;
+        Key key = new Key(tenantId, warehouseId, itemId);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            rebuildLock.readLock().lock();
+            try {
+                adjust(key, delta);
+            } finally {
+                rebuildLock.readLock().unlock();
+            }
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean locked;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                rebuildLock.readLock().lock();
+                locked = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (!locked) return;
+                try {
+                    if (status == STATUS_COMMITTED) adjust(key, delta);
+                } finally {
+                    rebuildLock.readLock().unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Transactional so the connection is taken before the lock: commits waiting on the lock hold
+     * pool connections, and a rebuild must not wait on the pool while it blocks them.
+     */
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.writeLock().lock();
+        try {
+            ConcurrentHashMap<Key, Integer> fresh = new ConcurrentHashMap<>();
+            for (ReservedQtyProjection row : stockReservationRepository.sumAllActive()) {
+                fresh.put(new Key(row.getTenantId(), row.getWarehouseId(), row.getItemId()),
+                        row.getReservedQty().intValue());
+            }
+            reserved = fresh;
+            log.debug("Stock reservation index rebuilt with {} items", fresh.size());
+        } finally {
+            rebuildLock.writeLock().unlock();
+        }
+    }
+
+    private void adjust(Key key, int delta) {
+        // Per-key atomic; items with nothing reserved are dropped from the map
+        reserved.compute(key, (k, qty) -> {
+            int next = (qty != null ? qty : 0) + delta;
+            return next > 0 ? next : null;
+        });
+    }
+
+    @Value
+    public static class Key {
+        Long tenantId;
+        Long warehouseId;
+        Long itemId;
+    }
+}
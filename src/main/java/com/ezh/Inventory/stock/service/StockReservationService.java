@@ -0,0 +1,17 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.stock.dto.AvailableToPromiseDto;
+import com.ezh.Inventory.stock.dto.StockReservationLineDto;
+import com.ezh.Inventory.utils.exception.CommonException;
+
+import java.util.List;
+
+public interface StockReservationService {
+
+    void reserve(Long salesOrderId, Long warehouseId, List<StockReservationLineDto> lines) throws CommonException;
+    void convert(Long salesOrderId, List<StockReservationLineDto> invoicedLines);
+    void release(Long salesOrderId);
+    AvailableToPromiseDto getAvailableToPromise(Long warehouseId, Long itemId) throws CommonException;
+    int releaseExpired();
+
+}
@@ -0,0 +1,197 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.stock.config.StockReservationProperties;
+import com.ezh.Inventory.stock.dto.AvailableToPromiseDto;
+import com.ezh.Inventory.stock.dto.ReservedQtyProjection;
+import com.ezh.Inventory.stock.dto.StockPostingSnapshot;
+import com.ezh.Inventory.stock.dto.StockReservationLineDto;
+import com.ezh.Inventory.stock.entity.ReferenceType;
+import com.ezh.Inventory.stock.entity.ReservationStatus;
+import com.ezh.Inventory.stock.entity.StockReservation;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockRow;
+import com.ezh.Inventory.stock.repository.StockRepository;
+import com.ezh.Inventory.stock.repository.StockReservationRepository;
+import com.ezh.Inventory.utils.exception.BadRequestException;
+import com.ezh.Inventory.utils.exception.CommonException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.ezh.Inventory.utils.UserContextUtil.getTenantIdOrThrow;
+
+/**
+ * Holds stock for confirmed sales orders.
+ *
+ * <p>Reserving locks the stock rows of the order (same lock the posting engine takes), so the
+ * available-to-promise check and the insert cannot interleave with another reservation or an OUT
+ * posting for the same item. Reads go through {@link StockReservationIndex}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockReservationServiceImpl implements StockReservationService {
+
+    private final StockReservationRepository stockReservationRepository;
+    private final StockRepository stockRepository;
+    private final StockPostingJdbcRepository stockPostingJdbcRepository;
+    private final StockReservationIndex stockReservationIndex;
+    private final StockLockManager stockLockManager;
+    private final StockReservationProperties properties;
+
+    @Override
+    @Transactional
+    public void reserve(Long salesOrderId, Long warehouseId, List<StockReservationLineDto> lines) throws CommonException {
+        Long tenantId = getTenantIdOrThrow();
+
+        Map<Long, Integer> demand = new LinkedHashMap<>();
+        for (StockReservationLineDto line : lines) {
+            if (line.getQuantity() == null || line.getQuantity() <= 0) continue;
+            demand.merge(line.getItemId(), line.getQuantity(), Integer::sum);
+        }
+        if (demand.isEmpty()) return;
+
+        // 1. Lock the stock rows (the sales order service took their stripes before opening the
+        //    transaction), then count what is already promised to other orders
+        Set<StockKey> keys = demand.keySet().stream()
+                .map(itemId -> new StockKey(warehouseId, itemId))
+                .collect(Collectors.toCollection(TreeSet::new));
+        stockLockManager.requireHeld(tenantId, keys);
+        Map<StockKey, StockRow> rows = stockPostingJdbcRepository.lockStockRows(tenantId, keys);
+
+        Map<Long, Long> reservedByItem = stockReservationRepository
+                .sumActiveByItems(tenantId, warehouseId, demand.keySet()).stream()
+                .collect(Collectors.toMap(ReservedQtyProjection::getItemId, ReservedQtyProjection::getReservedQty));
+
+        // 2. Every line must fit into available-to-promise, otherwise nothing is reserved
+        for (Map.Entry<Long, Integer> entry : demand.entrySet()) {
+            StockRow row = rows.get(new StockKey(warehouseId, entry.getKey()));
+            int onHand = row != null ? row.getClosingQty() : 0;
+            long available = onHand - reservedByItem.getOrDefault(entry.getKey(), 0L);
+            if (available < entry.getValue()) {
+                throw new BadRequestException("Not enough stock to reserve item " + entry.getKey() + ". Available: " + available);
+            }
+        }
+
+        // 3. Persist and publish to the index after commit
+        Date expiresAt = new Date(System.currentTimeMillis() + properties.getTtl().toMillis());
+        List<StockReservation> reservations = new ArrayList<>();
+        for (StockReservationLineDto line : lines) {
+            if (line.getQuantity() == null || line.getQuantity() <= 0) continue;
+            reservations.add(StockReservation.builder()
+                    .tenantId(tenantId)
+                    .warehouseId(warehouseId)
+                    .itemId(line.getItemId())
+                    .referenceType(ReferenceType.RESERVATION)
+                    .referenceId(salesOrderId)
+                    .referenceLineId(line.getReferenceLineId())
+                    .quantity(line.getQuantity())
+                    .status(ReservationStatus.ACTIVE)
+                    .expiresAt(expiresAt)
+                    .build());
+        }
+        stockReservationRepository.saveAll(reservations);
+
+        demand.forEach((itemId, qty) -> stockReservationIndex.adjustAfterCommit(tenantId, warehouseId, itemId, qty));
+    }
+
+    @Override
+    @Transactional
+    public void convert(Long salesOrderId, List<StockReservationLineDto> invoicedLines) {
+        Long tenantId = getTenantIdOrThrow();
+
+        List<StockReservation> active = stockReservationRepository
+                .findByTenantIdAndReferenceIdAndStatusOrderByIdAsc(tenantId, salesOrderId, ReservationStatus.ACTIVE);
+        if (active.isEmpty()) return;
+
+        List<StockReservation> changed = new ArrayList<>();
+        for (StockReservationLineDto line : invoicedLines) {
+            int remaining = line.getQuantity() != null ? line.getQuantity() : 0;
+
+            for (StockReservation reservation : active) {
+                if (remaining <= 0) break;
+                if (reservation.getStatus() != ReservationStatus.ACTIVE
+                        || !Objects.equals(reservation.getReferenceLineId(), line.getReferenceLineId())) continue;
+
+                int take = Math.min(remaining, reservation.getQuantity());
+                if (take == reservation.getQuantity()) {
+                    reservation.setStatus(ReservationStatus.CONVERTED);
+                } else {
+                    // Partial invoice: keep the rest on hold, record the converted part separately
+                    reservation.setQuantity(reservation.getQuantity() - take);
+                    changed.add(StockReservation.builder()
+                            .tenantId(tenantId)
+                            .warehouseId(reservation.getWarehouseId())
+                            .itemId(reservation.getItemId())
+                            .referenceType(ReferenceType.RESERVATION)
+                            .referenceId(salesOrderId)
+                            .referenceLineId(reservation.getReferenceLineId())
+                            .quantity(take)
+                            .status(ReservationStatus.CONVERTED)
+                            .expiresAt(reservation.getExpiresAt())
+                            .build());
+                }
+                changed.add(reservation);
+                remaining -= take;
+                stockReservationIndex.adjustAfterCommit(tenantId, reservation.getWarehouseId(), reservation.getItemId(), -take);
+            }
+        }
+        stockReservationRepository.saveAll(changed);
+    }
+
+    @Override
+    @Transactional
+    public void release(Long salesOrderId) {
+        Long tenantId = getTenantIdOrThrow();
+
+        List<StockReservation> active = stockReservationRepository
+                .findByTenantIdAndReferenceIdAndStatusOrderByIdAsc(tenantId, salesOrderId, ReservationStatus.ACTIVE);
+        for (StockReservation reservation : active) {
+            reservation.setStatus(ReservationStatus.RELEASED);
+            stockReservationIndex.adjustAfterCommit(tenantId, reservation.getWarehouseId(), reservation.getItemId(),
+                    -reservation.getQuantity());
+        }
+        stockReservationRepository.saveAll(active);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public AvailableToPromiseDto getAvailableToPromise(Long warehouseId, Long itemId) throws CommonException {
+        Long tenantId = getTenantIdOrThrow();
+
+        int onHand = stockRepository.findPostingSnapshot(tenantId, warehouseId, itemId)
+                .map(StockPostingSnapshot::getClosingQty)
+                .orElse(0);
+        int reserved = stockReservationIndex.reservedQty(tenantId, warehouseId, itemId);
+
+        return AvailableToPromiseDto.builder()
+                .warehouseId(warehouseId)
+                .itemId(itemId)
+                .onHandQty(onHand)
+                .reservedQty(reserved)
+                .availableQty(onHand - reserved)
+                .build();
+    }
+
+    /**
+     * Expires one batch of overdue reservations across all tenants.
+     * Called by {@link StockReservationSweeper}; returns how many rows were expired.
+     */
+    @Override
+    @Transactional
+    public int releaseExpired() {
+        List<StockReservation> expired = stockReservationRepository.lockExpired(new Date(), properties.getSweepBatchSize());
+        for (StockReservation reservation : expired) {
+            reservation.setStatus(ReservationStatus.EXPIRED);
+            stockReservationIndex.adjustAfterCommit(reservation.getTenantId(), reservation.getWarehouseId(),
+                    reservation.getItemId(), -reservation.getQuantity());
+        }
+        stockReservationRepository.saveAll(expired);
+        return expired.size();
+    }
+}
@@ -0,0 +1,41 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.stock.config.StockReservationProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Releases reservations whose TTL has passed and resyncs {@link StockReservationIndex}.
+ * Each batch commits on its own, so a long backlog never holds locks for long.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockReservationSweeper {
+
+    private final StockReservationService stockReservationService;
+    private final StockReservationIndex stockReservationIndex;
+    private final StockReservationProperties properties;
+
+    @Scheduled(fixedDelayString = "${stock.reservation.sweep-interval-ms:60000}",
+            initialDelayString = "${stock.reservation.sweep-interval-ms:60000}")
+    public void sweep() {
+        try {
+            int total = 0;
+            int expired;
+            do {
+                expired = stockReservationService.releaseExpired();
+                total += expired;
+            } while (expired >= properties.getSweepBatchSize());
+
+            if (total > 0) {
+                log.info("Released {} expired stock reservations", total);
+            }
+            stockReservationIndex.rebuild();
+        } catch (Exception e) {
+            log.error("Stock reservation sweep failed", e);
+        }
+    }
+}
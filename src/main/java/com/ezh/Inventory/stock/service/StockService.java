@@ -3,19 +3,27 @@ package com.ezh.Inventory.stock.service;
 
 import com.ezh.Inventory.stock.dto.*;
 import com.ezh.Inventory.utils.common.CommonResponse;
+import com.ezh.Inventory.utils.common.CursorPage;
 import com.ezh.Inventory.utils.exception.CommonException;
+import com.ezh.Inventory.utils.export.ExportFormat;
 import org.springframework.data.domain.Page;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.ByteArrayInputStream;
+import java.time.LocalDate;
 import java.util.List;
 
 public interface StockService {
 
     CommonResponse<?> updateStock(StockUpdateDto stockUpdateDto);
+    List<StockPostingResult> postMovements(List<StockUpdateDto> movements);
     Page<StockDto> getCurrentStock(StockFilterDto filterDto, Integer page, Integer size);
     Page<StockLedgerDto> getStockTransactions(StockLedgerFilter filterDto, Integer page, Integer size);
-    ByteArrayInputStream downloadStockLedger(StockLedgerFilter filterDto, String format);
+    CursorPage<StockLedgerDto> scrollStockTransactions(StockLedgerFilter filterDto, Integer size);
+    StreamingResponseBody downloadStockLedger(StockLedgerFilter filterDto, ExportFormat format);
     List<ItemStockSearchDto> searchItemsWithBatches(StockFilterDto filterDto);
     StockDashboardDto getStockDashboard(Long warehouseId) throws CommonException;
+    List<StockAsOfDto> getStockAsOf(Long warehouseId, LocalDate date) throws CommonException;
+    StockValuationRunDto runValuation() throws CommonException;
+    StockReconcileRunDto reconcileStock(boolean repair) throws CommonException;
 
 }
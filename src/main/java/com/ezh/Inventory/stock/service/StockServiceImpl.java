@@ -1,36 +1,55 @@
 package com.ezh.Inventory.stock.service;
 
-import com.ezh.Inventory.items.repository.ItemRepository;
+import com.ezh.Inventory.items.dto.ItemMetadata;
+import com.ezh.Inventory.items.service.ItemMetadataCache;
+import com.ezh.Inventory.stock.config.StockCheckpointProperties;
 import com.ezh.Inventory.stock.dto.*;
 import com.ezh.Inventory.stock.entity.MovementType;
+import com.ezh.Inventory.stock.entity.ReferenceType;
 import com.ezh.Inventory.stock.entity.Stock;
-import com.ezh.Inventory.stock.entity.StockBatch;
 import com.ezh.Inventory.stock.entity.StockLedger;
 import com.ezh.Inventory.stock.repository.StockBatchRepository;
+import com.ezh.Inventory.stock.repository.StockCheckpointJdbcRepository;
+import com.ezh.Inventory.stock.repository.StockCheckpointJdbcRepository.AsOfRow;
+import com.ezh.Inventory.stock.repository.StockDashboardJdbcRepository;
+import com.ezh.Inventory.stock.repository.StockDashboardJdbcRepository.AggRow;
 import com.ezh.Inventory.stock.repository.StockLedgerRepository;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
 import com.ezh.Inventory.stock.repository.StockRepository;
 import com.ezh.Inventory.stock.utils.StockLedgerExportUtils;
 import com.ezh.Inventory.utils.common.CommonResponse;
+import com.ezh.Inventory.utils.common.CursorPage;
+import com.ezh.Inventory.utils.common.FilterSpecification;
+import com.ezh.Inventory.utils.common.KeysetCursor;
 import com.ezh.Inventory.utils.common.Status;
 import com.ezh.Inventory.utils.exception.BadRequestException;
 import com.ezh.Inventory.utils.exception.CommonException;
+import com.ezh.Inventory.utils.export.ExportFormat;
+import com.ezh.Inventory.utils.export.StreamingExporter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.io.ByteArrayInputStream;
+import java.sql.Timestamp;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import static com.ezh.Inventory.utils.UserContextUtil.getTenantIdOrThrow;
@@ -40,139 +59,129 @@ import static com.ezh.Inventory.utils.UserContextUtil.getTenantIdOrThrow;
 @RequiredArgsConstructor
 public class StockServiceImpl implements StockService {
 
+    private static final int DASHBOARD_FAST_MOVERS = 5;
+
     private final StockRepository stockRepository;
     private final StockLedgerRepository stockLedgerRepository;
     private final StockBatchRepository stockBatchRepository;
-    private final ItemRepository itemRepository;
-
+    private final ItemMetadataCache itemMetadataCache;
+    private final StockPostingEngine stockPostingEngine;
+    private final StockLockManager stockLockManager;
+    private final StockLedgerAppender stockLedgerAppender;
+    private final TransactionTemplate transactionTemplate;
+    private final StreamingExporter streamingExporter;
+    private final StockDashboardJdbcRepository stockDashboardJdbcRepository;
+    private final StockCheckpointJdbcRepository stockCheckpointJdbcRepository;
+    private final StockCheckpointProperties checkpointProperties;
+    private final StockValuationEngine stockValuationEngine;
+    private final StockReconciler stockReconciler;
+
+    // Not @Transactional: the item lock is taken first, then the transaction is opened
     @Override
-    @Transactional
     public CommonResponse<?> updateStock(StockUpdateDto dto) throws CommonException {
 
         if (dto.getQuantity() == null || dto.getQuantity() <= 0) {
             throw new BadRequestException("Invalid quantity");
         }
 
-        // 1. Fetch Stock with LOCK
-        Stock stock = stockRepository
-                .findByItemIdAndWarehouseIdAndTenantId(dto.getItemId(), dto.getWarehouseId(), getTenantIdOrThrow())
-                .orElse(createNewStock(dto.getItemId(), dto.getWarehouseId()));
-
-        int qty = dto.getQuantity();
-        int beforeQty = stock.getClosingQty();
-        BigDecimal transactionPrice = dto.getUnitPrice() != null ? dto.getUnitPrice() : BigDecimal.ZERO;
-
-        // Safe fetch of Average Cost
-        BigDecimal currentAvgCost = stock.getAverageCost() != null ? stock.getAverageCost() : BigDecimal.ZERO;
-
-        // --- 2. Handle IN (Purchase, Returns) ---
-        if (dto.getTransactionType() == MovementType.IN) {
-            // If a specific batch is provided (e.g. sales return), add qty back to that batch
-            if (dto.getBatchNumber() != null && !dto.getBatchNumber().isEmpty()) {
-                StockBatch batch = stockBatchRepository
-                        .findByItemIdAndBatchNumberAndWarehouseId(dto.getItemId(), dto.getBatchNumber(), dto.getWarehouseId())
-                        .orElseThrow(() -> new BadRequestException("Batch " + dto.getBatchNumber() + " not found"));
-
-                batch.setRemainingQty(batch.getRemainingQty() + qty);
-                stockBatchRepository.save(batch);
-
-                transactionPrice = batch.getBuyPrice();
-            }
-            // Note: when no batch is provided (GRN flow), batch creation is handled by GoodsReceiptService
-
-            if (transactionPrice.compareTo(BigDecimal.ZERO) > 0) {
-                BigDecimal currentTotalValue = currentAvgCost.multiply(BigDecimal.valueOf(beforeQty));
-                BigDecimal incomingTotalValue = transactionPrice.multiply(BigDecimal.valueOf(qty));
-
-                BigDecimal newTotalValue = currentTotalValue.add(incomingTotalValue);
-                BigDecimal newTotalQty = BigDecimal.valueOf(beforeQty + qty);
-
-                if (newTotalQty.compareTo(BigDecimal.ZERO) > 0) {
-                    stock.setAverageCost(newTotalValue.divide(newTotalQty, 2, RoundingMode.HALF_UP));
-                }
-            }
-            stock.setInQty(stock.getInQty() + qty);
-            stock.setClosingQty(beforeQty + qty);
-            stock.setStockValue(stock.getAverageCost().multiply(BigDecimal.valueOf(stock.getClosingQty())));
-        }
-
-        // --- 3. Handle OUT (Sales, Adjustments) ---
-        BigDecimal costForLedger = currentAvgCost; // Default to WAC
-        String consumedBatches = dto.getBatchNumber();
-        String finalBatchUsed = dto.getBatchNumber();
-
-        if (dto.getTransactionType() == MovementType.OUT) {
-
-            // Check Global Availability first
-            if (beforeQty < qty) {
-                throw new BadRequestException("Not enough stock available globally. Current: " + beforeQty);
-            }
-
-            boolean isSpecificBatch = dto.getBatchNumber() != null && !dto.getBatchNumber().isEmpty();
-
-            // --- BATCH LOGIC START ---
-            if (isSpecificBatch) {
-                // CASE 1: User wants a specific batch (e.g., "BATCH-001")
-                StockBatch batch = stockBatchRepository
-                        .findByItemIdAndBatchNumberAndWarehouseId(dto.getItemId(), dto.getBatchNumber(), dto.getWarehouseId())
-                        .orElseThrow(() -> new BadRequestException("Batch " + dto.getBatchNumber() + " not found"));
-
-                if (batch.getRemainingQty() < qty) {
-                    throw new BadRequestException("Not enough stock in Batch " + dto.getBatchNumber());
-                }
-
-                batch.setRemainingQty(batch.getRemainingQty() - qty);
-                stockBatchRepository.save(batch);
-
-                // Use specific batch price for ledger
-                costForLedger = batch.getBuyPrice();
-                finalBatchUsed = batch.getBatchNumber();
+        Long tenantId = getTenantIdOrThrow();
+        StockKey key = new StockKey(dto.getWarehouseId(), dto.getItemId());
+        StockLedger ledger = stockLockManager.withLocks(tenantId, List.of(key),
+                () -> transactionTemplate.execute(status -> applyStockUpdate(tenantId, dto)));
 
-            } else {
-                // CASE 2: No batch provided (null). AUTO-PICK (FIFO)
-                // This stops the code from searching for a batch named "null"
-                String allocatedBatchStr = performFifoDeduction(dto.getItemId(), dto.getWarehouseId(), qty);
+        // The ledger row is written as the transaction commits, so its id can only be read back now
+        Long ledgerId = stockLedgerRepository.findIdByUuid(ledger.getUuid()).orElse(null);
+        return CommonResponse.builder()
+                .status(Status.SUCCESS)
+                .data(dto.getBatchNumber())
+                .id(String.valueOf(ledgerId))
+                .message("Stock updated successfully")
+                .build();
+    }
 
-                // IMPORTANT: Update the DTO batch number so it gets returned in the response
-                // This ensures the InvoiceService knows which batches were actually picked
-                dto.setBatchNumber(allocatedBatchStr);
-                finalBatchUsed = allocatedBatchStr;
-            }
-            // --- BATCH LOGIC END ---
+    private StockLedger applyStockUpdate(Long tenantId, StockUpdateDto dto) {
+        int qty = dto.getQuantity();
 
-            stock.setOutQty(stock.getOutQty() + qty);
-            stock.setClosingQty(beforeQty - qty);
-            // Stock Value reduces based on Average, but Ledger records Specific Cost
-            stock.setStockValue(stock.getAverageCost().multiply(BigDecimal.valueOf(stock.getClosingQty())));
-        }
+        // 1. Apply the delta atomically (conditional OUT / version-guarded WAC for IN)
+        StockPostingResult posting = dto.getTransactionType() == MovementType.OUT
+                ? stockPostingEngine.postOut(tenantId, dto.getWarehouseId(), dto.getItemId(), qty, dto.getBatchNumber())
+                : stockPostingEngine.postIn(tenantId, dto.getWarehouseId(), dto.getItemId(), qty, dto.getUnitPrice(), dto.getBatchNumber());
 
-        stockRepository.save(stock);
+        // IMPORTANT: Update the DTO batch number so the caller knows which batches were actually picked
+        dto.setBatchNumber(posting.getBatchNumber());
 
-        // 4. Ledger Entry
+        // 2. Ledger Entry
         StockLedger ledger = StockLedger.builder()
                 .itemId(dto.getItemId())
-                .tenantId(getTenantIdOrThrow())
+                .tenantId(tenantId)
                 .warehouseId(dto.getWarehouseId())
                 .transactionType(dto.getTransactionType())
                 .referenceType(dto.getReferenceType())
                 .referenceId(dto.getReferenceId())
                 .quantity(qty)
-                .beforeQty(beforeQty)
-                .afterQty(stock.getClosingQty())
-                .unitPrice(costForLedger)
+                .beforeQty(posting.getBeforeQty())
+                .afterQty(posting.getAfterQty())
+                .unitPrice(posting.getUnitCost())
                 .build();
 
-        stockLedgerRepository.save(ledger);
+        stockLedgerAppender.append(List.of(ledger));
+        return ledger;
+    }
 
-        return CommonResponse.builder()
-                // here we ddidt sent any data to take in invoice service
-                .status(Status.SUCCESS)
-                .data(finalBatchUsed)
-                .id(String.valueOf(ledger.getId()))
-                .message("Stock updated successfully")
-                .build();
+
+    @Override
+    public List<StockPostingResult> postMovements(List<StockUpdateDto> movements) throws CommonException {
+        if (movements == null || movements.isEmpty()) {
+            return Collections.emptyList();
+        }
+        for (StockUpdateDto dto : movements) {
+            if (dto.getQuantity() == null || dto.getQuantity() <= 0) {
+                throw new BadRequestException("Invalid quantity for item " + dto.getItemId());
+            }
+        }
+
+        Long tenantId = getTenantIdOrThrow();
+        Set<StockKey> keys = movements.stream()
+                .map(dto -> new StockKey(dto.getWarehouseId(), dto.getItemId()))
+                .collect(Collectors.toSet());
+
+        // Inside a document's transaction: the document service locked all its lines before opening it
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            stockLockManager.requireHeld(tenantId, keys);
+            return applyMovements(tenantId, movements);
+        }
+        return stockLockManager.withLocks(tenantId, keys,
+                () -> transactionTemplate.execute(status -> applyMovements(tenantId, movements)));
     }
 
+    private List<StockPostingResult> applyMovements(Long tenantId, List<StockUpdateDto> movements) {
+        // 1. Apply all lines against prefetched, locked rows
+        List<StockPostingResult> postings = stockPostingEngine.postAll(tenantId, movements);
+
+        // 2. Ledger entries, written in one batch when the transaction commits
+        List<StockLedger> ledgers = new ArrayList<>(movements.size());
+        for (int i = 0; i < movements.size(); i++) {
+            StockUpdateDto dto = movements.get(i);
+            StockPostingResult posting = postings.get(i);
+            dto.setBatchNumber(posting.getBatchNumber());
+
+            ledgers.add(StockLedger.builder()
+                    .itemId(dto.getItemId())
+                    .tenantId(tenantId)
+                    .warehouseId(dto.getWarehouseId())
+                    .transactionType(dto.getTransactionType())
+                    .referenceType(dto.getReferenceType())
+                    .referenceId(dto.getReferenceId())
+                    .quantity(dto.getQuantity())
+                    .beforeQty(posting.getBeforeQty())
+                    .afterQty(posting.getAfterQty())
+                    .unitPrice(posting.getUnitCost())
+                    .build());
+        }
+        stockLedgerAppender.append(ledgers);
+
+        return postings;
+    }
 
     @Override
     @Transactional(readOnly = true)
@@ -180,44 +189,47 @@ public class StockServiceImpl implements StockService {
         Long tenantId = getTenantIdOrThrow();
         Pageable pageable = PageRequest.of(page, size);
         Page<Stock> stocks = stockRepository.findByTenantId(tenantId, pageable);
-        return stocks.map(this::convertToDTO);
+        Map<Long, ItemMetadata> items = itemMetadataCache.getAll(tenantId, stocks.map(Stock::getItemId).toList());
+        return stocks.map(stock -> convertToDTO(stock, itemName(items, stock.getItemId())));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Page<StockLedgerDto> getStockTransactions(StockLedgerFilter filterDto, Integer page, Integer size) throws CommonException {
         Long tenantId = getTenantIdOrThrow();
-        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "createdAt"));
-
-        List<MovementType> transactionTypes =
-                (filterDto.getTransactionTypes() == null || filterDto.getTransactionTypes().isEmpty())
-                        ? null
-                        : filterDto.getTransactionTypes();
-
-        List<String> referenceTypes =
-                (filterDto.getReferenceTypes() == null || filterDto.getReferenceTypes().isEmpty())
-                        ? null
-                        : filterDto.getReferenceTypes();
-
-        Page<StockLedger> stockLedger = stockLedgerRepository.findAllStockLedger(
-                tenantId,
-                filterDto.getId(),
-                filterDto.getWarehouseId(),
-                transactionTypes,
-                referenceTypes,
-                filterDto.getSearchQuery(),
-                filterDto.getStartDateTime(),
-                filterDto.getEndDateTime(),
-                pageable
-        );
-        return stockLedger.map(this::convertToDTO);
+        Pageable pageable = PageRequest.of(page, size, FilterSpecification.NEWEST_FIRST);
+
+        Page<StockLedger> stockLedger = stockLedgerRepository.findAll(ledgerFilter(tenantId, filterDto).build(), pageable);
+        Map<Long, ItemMetadata> items = itemMetadataCache.getAll(tenantId, stockLedger.map(StockLedger::getItemId).toList());
+        return stockLedger.map(ledger -> convertToDTO(ledger, itemName(items, ledger.getItemId())));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public ByteArrayInputStream downloadStockLedger(StockLedgerFilter filterDto, String format) {
+    public CursorPage<StockLedgerDto> scrollStockTransactions(StockLedgerFilter filterDto, Integer size) throws CommonException {
+        int pageSize = CursorPage.clampSize(size);
+        Long tenantId = getTenantIdOrThrow();
+        KeysetCursor cursor = filterDto.getKeysetCursor();
+
+        FilterSpecification<StockLedger> spec = ledgerFilter(tenantId, filterDto);
+
+        // Counting is opt-in: it is the slow part on large ledgers
+        Long total = filterDto.isTotalRequested() ? stockLedgerRepository.count(spec.build()) : null;
+
+        List<StockLedger> rows = stockLedgerRepository.findBy(spec.after(cursor).build(),
+                query -> query.sortBy(FilterSpecification.NEWEST_FIRST).limit(pageSize + 1).all());
+
+        Map<Long, ItemMetadata> items = itemMetadataCache.getAll(tenantId, rows.stream().map(StockLedger::getItemId).toList());
+        return CursorPage.of(rows, pageSize, StockLedger::getCreatedAt, StockLedger::getId,
+                ledger -> convertToDTO(ledger, itemName(items, ledger.getItemId())), total);
+    }
+
+    @Override
+    public StreamingResponseBody downloadStockLedger(StockLedgerFilter filterDto, ExportFormat format) {
         Long tenantId = getTenantIdOrThrow();
-        List<StockLedgerDto> ledgerDtos = stockLedgerRepository.findAllStockLedgerForDownload(
+
+        return streamingExporter.export(format, StockLedgerExportUtils.SHEET_NAME, StockLedgerExportUtils.COLUMNS,
+                () -> stockLedgerRepository.streamStockLedgerForDownload(
                         tenantId,
                         filterDto.getId(),
                         filterDto.getWarehouseId(),
@@ -225,16 +237,8 @@ public class StockServiceImpl implements StockService {
                         filterDto.getReferenceTypes(),
                         filterDto.getSearchQuery(),
                         filterDto.getStartDateTime(),
-                        filterDto.getEndDateTime())
-                .stream()
-                .map(this::convertToDTO)
-                .toList();
-
-        if ("csv".equalsIgnoreCase(format)) {
-            return StockLedgerExportUtils.toCsv(ledgerDtos);
-        }
-
-        return StockLedgerExportUtils.toExcel(ledgerDtos);
+                        filterDto.getEndDateTime()),
+                ledger -> convertToDTO(ledger, findItemName(tenantId, ledger.getItemId())));
     }
 
     @Override
@@ -290,84 +294,122 @@ public class StockServiceImpl implements StockService {
         }).collect(Collectors.toList());
     }
 
-    private Stock createNewStock(Long itemId, Long warehouseId) {
-        return Stock.builder()
-                .itemId(itemId)
-                .tenantId(getTenantIdOrThrow())
-                .warehouseId(warehouseId)
-                .averageCost(BigDecimal.ZERO)
-                .stockValue(BigDecimal.ZERO)
-                .openingQty(0)
-                .inQty(0)
-                .outQty(0)
-                .closingQty(0)
-                .build();
-    }
-
-
+    /**
+     * Reads the {@code stock_dashboard_agg} row(s) kept current by the posting engine: one primary
+     * key lookup for a warehouse, one row per warehouse for the whole tenant.
+     */
     @Override
     @Transactional(readOnly = true)
     public StockDashboardDto getStockDashboard(Long warehouseId) throws CommonException {
         Long tenantId = getTenantIdOrThrow();
 
-        // 1. Total Stock Value
-        BigDecimal totalValue = stockRepository.getTotalStockValue(tenantId, warehouseId);
-
-        // 2. Net Movement (Using the Map approach for simplicity, or use a Projection)
-        // If your repo returns Map<String, Object>, it usually returns List<Map<...>> or Object[].
-        // Let's assume we fetch raw Object[] for safety:
-        // @Query("SELECT sum(s.inQty), sum(s.outQty) ...") -> returns Object[]
-        // For this example, let's do it cleanly via the repository logic below:
-
-        // Note: You might need to adjust the Repository method to return an Interface Projection for type safety.
-        // Here is a manual implementation assuming distinct repo calls or a projection wrapper:
-        Integer totalIn = 0;
-        Integer totalOut = 0;
-
-        // Simulating the repo call for movement (Ideally use a Projection interface)
-        Map<String, Object> movement = stockRepository.getStockMovementSummary(tenantId, warehouseId);
-        // JPA Maps usually return "0": value.
-        if (movement != null && !movement.isEmpty()) {
-            // Depending on driver, might need casting
-            // totalIn = ((Number) movement.get("totalIn")).intValue();
-            // totalOut = ((Number) movement.get("totalOut")).intValue();
-
-            // ALTERNATIVE: Simpler Repository Calls if Map is annoying:
-            // Integer getSumInQty(...); Integer getSumOutQty(...);
+        BigDecimal totalValue = BigDecimal.ZERO;
+        long totalIn = 0;
+        long totalOut = 0;
+        long outOfStockCount = 0;
+        Map<Long, Long> movers = new HashMap<>();
+
+        for (AggRow agg : stockDashboardJdbcRepository.findByTenant(tenantId, warehouseId)) {
+            totalValue = totalValue.add(agg.getTotalValue());
+            totalIn += agg.getTotalInQty();
+            totalOut += agg.getTotalOutQty();
+            outOfStockCount += agg.getOutOfStockCount();
+            for (int i = 0; i < agg.getFastMoverStockIds().size(); i++) {
+                // A stock row can be listed by several slots; out_qty only grows, so the largest is current
+                movers.merge(agg.getFastMoverStockIds().get(i), agg.getFastMoverOutQtys().get(i), Math::max);
+            }
         }
 
-        // Let's assume we split the repo calls for cleaner Java code:
-        // Integer totalIn = stockRepository.sumInQty(tenantId, warehouseId);
-        // Integer totalOut = stockRepository.sumOutQty(tenantId, warehouseId);
-
-        // 3. Out of Stock Items
-        long outOfStockCount = stockRepository.countOutOfStockItems(tenantId, warehouseId);
-
-        // 4. Fast-Moving Items (Top 5)
-        Pageable topFive = PageRequest.of(0, 5);
-        List<Stock> fastMovingStocks = stockRepository.findFastMovingItems(tenantId, warehouseId, topFive);
+        // Fast-Moving Items (Top 5)
+        List<Long> topStockIds = movers.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(DASHBOARD_FAST_MOVERS)
+                .map(Map.Entry::getKey)
+                .toList();
+        Map<Long, Stock> stocksById = stockRepository.findAllById(topStockIds).stream()
+                .collect(Collectors.toMap(Stock::getId, s -> s));
+        List<Stock> fastMovingStocks = topStockIds.stream()
+                .map(stocksById::get)
+                .filter(Objects::nonNull)
+                .toList();
 
+        Map<Long, ItemMetadata> items = itemMetadataCache.getAll(tenantId,
+                fastMovingStocks.stream().map(Stock::getItemId).toList());
         List<StockDto> fastMovingDtos = fastMovingStocks.stream()
-                .map(this::convertToDTO)
+                .map(stock -> convertToDTO(stock, itemName(items, stock.getItemId())))
                 .collect(Collectors.toList());
 
-        // Construct Response
         return StockDashboardDto.builder()
                 .totalStockValue(totalValue)
                 .totalItemsOutOfStock(outOfStockCount)
-                // Assuming we fetched these or they came from the map
-                .totalInQty(totalIn)
-                .totalOutQty(totalOut)
-                .netMovementQty(totalIn - totalOut)
+                .totalInQty((int) totalIn)
+                .totalOutQty((int) totalOut)
+                .netMovementQty((int) (totalIn - totalOut))
                 .fastMovingItems(fastMovingDtos)
                 .build();
     }
 
-    private StockDto convertToDTO(Stock stock) {
+    /**
+     * Closing stock of a warehouse at the end of {@code date} (in the checkpoint zone): the latest
+     * checkpoint up to that instant plus the ledger rows after it.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<StockAsOfDto> getStockAsOf(Long warehouseId, LocalDate date) throws CommonException {
+        if (date == null) {
+            throw new BadRequestException("date is required");
+        }
+        Long tenantId = getTenantIdOrThrow();
+        Timestamp at = Timestamp.from(date.plusDays(1).atStartOfDay(checkpointProperties.getZone()).toInstant());
+
+        List<AsOfRow> rows = stockCheckpointJdbcRepository.findAsOf(tenantId, warehouseId, at);
+        Map<Long, ItemMetadata> items = itemMetadataCache.getAll(tenantId,
+                rows.stream().map(AsOfRow::getItemId).toList());
+
+        return rows.stream()
+                .map(row -> {
+                    BigDecimal averageCost = row.getAverageCost() != null ? row.getAverageCost() : BigDecimal.ZERO;
+                    return StockAsOfDto.builder()
+                            .itemId(row.getItemId())
+                            .itemName(itemName(items, row.getItemId()))
+                            .warehouseId(warehouseId)
+                            .closingQty(row.getClosingQty())
+                            .averageCost(averageCost)
+                            .stockValue(averageCost.multiply(BigDecimal.valueOf(row.getClosingQty()))
+                                    .setScale(2, RoundingMode.HALF_UP))
+                            .checkpointAt(row.getCheckpointAt())
+                            .build();
+                })
+                .toList();
+    }
 
-        String itemName = itemRepository.findNameById(stock.getItemId())
+    // Not @Transactional: the engine runs each partition in its own transaction on its own thread
+    @Override
+    public StockValuationRunDto runValuation() throws CommonException {
+        return stockValuationEngine.value(getTenantIdOrThrow());
+    }
+
+    // Not @Transactional: the scan streams in its own read-only transaction, repairs are single statements
+    @Override
+    public StockReconcileRunDto reconcileStock(boolean repair) throws CommonException {
+        return stockReconciler.reconcile(getTenantIdOrThrow(), repair);
+    }
+
+    private String findItemName(Long tenantId, Long itemId) {
+        return itemMetadataCache.get(tenantId, itemId)
+                .map(ItemMetadata::getName)
                 .orElseThrow(() -> new CommonException("item not found", HttpStatus.NOT_FOUND));
+    }
 
+    private static String itemName(Map<Long, ItemMetadata> items, Long itemId) {
+        ItemMetadata item = items.get(itemId);
+        if (item == null) {
+            throw new CommonException("item not found", HttpStatus.NOT_FOUND);
+        }
+        return item.getName();
+    }
+
+    private StockDto convertToDTO(Stock stock, String itemName) {
         return StockDto.builder()
                 .id(stock.getId())
                 .itemId(stock.getItemId())
@@ -382,11 +424,28 @@ public class StockServiceImpl implements StockService {
                 .build();
     }
 
-    private StockLedgerDto convertToDTO(StockLedger stockLedger) {
+    private static FilterSpecification<StockLedger> ledgerFilter(Long tenantId, StockLedgerFilter filter) {
+        // uuid is stored lower case and indexed as is (trigram), so only the term is lower-cased
+        String uuidTerm = filter.getSearchQuery() != null ? filter.getSearchQuery().toLowerCase(Locale.ROOT) : null;
+        return FilterSpecification.<StockLedger>forTenant(tenantId)
+                .equal("id", filter.getId())
+                .equal("warehouseId", filter.getWarehouseId())
+                .in("transactionType", filter.getTransactionTypes())
+                .in("referenceType", referenceTypes(filter.getReferenceTypes()))
+                .contains("uuid", uuidTerm)
+                .createdBetween(filter.getStartDateTime(), filter.getEndDateTime());
+    }
 
-        String itemName = itemRepository.findNameById(stockLedger.getItemId())
-                .orElseThrow(() -> new CommonException("item not found", HttpStatus.NOT_FOUND));
+    private static List<ReferenceType> referenceTypes(List<String> names) {
+        if (names == null) return null;
+        try {
+            return names.stream().map(ReferenceType::valueOf).toList();
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Unknown reference type in " + names);
+        }
+    }
 
+    private StockLedgerDto convertToDTO(StockLedger stockLedger, String itemName) {
         return StockLedgerDto.builder()
                 .id(stockLedger.getId())
                 .itemId(stockLedger.getItemId())
@@ -401,38 +460,4 @@ public class StockServiceImpl implements StockService {
                 .createdAt(stockLedger.getCreatedAt())
                 .build();
     }
-
-
-    private String performFifoDeduction(Long itemId, Long warehouseId, int qtyRequired) {
-        // 1. Fetch batches with stock, ordered by Creation Date (Oldest First)
-        List<StockBatch> availableBatches = stockBatchRepository
-                .findByItemIdAndWarehouseIdAndRemainingQtyGreaterThanOrderByCreatedAtAsc(itemId, warehouseId, 0);
-
-        if (availableBatches.isEmpty()) {
-            throw new BadRequestException("No batches available with stock for this item");
-        }
-
-        int qtyToDeduct = qtyRequired;
-        List<String> usedBatchNumbers = new ArrayList<>();
-
-        for (StockBatch batch : availableBatches) {
-            if (qtyToDeduct <= 0) break;
-
-            int available = batch.getRemainingQty();
-            int take = Math.min(available, qtyToDeduct);
-
-            // Deduct
-            batch.setRemainingQty(available - take);
-            stockBatchRepository.save(batch);
-
-            usedBatchNumbers.add(batch.getBatchNumber());
-            qtyToDeduct -= take;
-        }
-
-        if (qtyToDeduct > 0) {
-            throw new BadRequestException("Data Inconsistency: Global stock says available, but Batches are empty.");
-        }
-
-        return String.join(",", usedBatchNumbers);
-    }
 }
@@ -0,0 +1,11 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.stock.dto.StockTransferDto;
+import com.ezh.Inventory.utils.common.CommonResponse;
+import com.ezh.Inventory.utils.exception.CommonException;
+
+public interface StockTransferService {
+
+    CommonResponse<?> createTransfer(StockTransferDto dto) throws CommonException;
+    StockTransferDto getTransferById(Long transferId) throws CommonException;
+}
@@ -0,0 +1,223 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.items.dto.ItemMetadata;
+import com.ezh.Inventory.items.service.ItemMetadataCache;
+import com.ezh.Inventory.stock.dto.BatchAllocation;
+import com.ezh.Inventory.stock.dto.StockPostingResult;
+import com.ezh.Inventory.stock.dto.StockTransferDto;
+import com.ezh.Inventory.stock.dto.StockTransferItemDto;
+import com.ezh.Inventory.stock.dto.StockUpdateDto;
+import com.ezh.Inventory.stock.entity.MovementType;
+import com.ezh.Inventory.stock.entity.ReferenceType;
+import com.ezh.Inventory.stock.entity.StockTransfer;
+import com.ezh.Inventory.stock.entity.StockTransferItem;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
+import com.ezh.Inventory.stock.repository.StockTransferItemRepository;
+import com.ezh.Inventory.stock.repository.StockTransferJdbcRepository;
+import com.ezh.Inventory.stock.repository.StockTransferRepository;
+import com.ezh.Inventory.utils.common.CommonResponse;
+import com.ezh.Inventory.utils.common.DocPrefix;
+import com.ezh.Inventory.utils.common.DocumentNumberUtil;
+import com.ezh.Inventory.utils.common.Status;
+import com.ezh.Inventory.utils.exception.BadRequestException;
+import com.ezh.Inventory.utils.exception.CommonException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static com.ezh.Inventory.utils.UserContextUtil.getTenantIdOrThrow;
+
+/**
+ * Moves stock between two warehouses of a tenant as one document.
+ *
+ * <p>The OUT leg (source) and IN leg (target) are posted through the stock engine in the same
+ * transaction, with every row of both warehouses locked up front. Each batch slice the OUT leg
+ * took is carried over to a batch with the same number, buy price and expiry in the target
+ * warehouse, so batch identity and cost survive the move. Target batches, transfer lines and
+ * ledger rows are written as JDBC batches.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockTransferServiceImpl implements StockTransferService {
+
+    private final StockService stockService;
+    private final StockPostingEngine stockPostingEngine;
+    private final StockLockManager stockLockManager;
+    private final TransactionTemplate transactionTemplate;
+    private final StockTransferRepository stockTransferRepository;
+    private final StockTransferItemRepository stockTransferItemRepository;
+    private final StockTransferJdbcRepository stockTransferJdbcRepository;
+    private final ItemMetadataCache itemMetadataCache;
+
+    // Not @Transactional: the item locks are taken first, then the transaction is opened
+    @Override
+    public CommonResponse<?> createTransfer(StockTransferDto dto) throws CommonException {
+        validate(dto);
+
+        Long tenantId = getTenantIdOrThrow();
+        Set<StockKey> targetKeys = new TreeSet<>();
+        Set<StockKey> keys = new TreeSet<>();
+        for (StockTransferItemDto line : dto.getItems()) {
+            keys.add(new StockKey(dto.getSourceWarehouseId(), line.getItemId()));
+            targetKeys.add(new StockKey(dto.getTargetWarehouseId(), line.getItemId()));
+        }
+        keys.addAll(targetKeys);
+
+        StockTransfer transfer = stockLockManager.withLocks(tenantId, keys,
+                () -> transactionTemplate.execute(status -> applyTransfer(tenantId, dto, keys, targetKeys)));
+
+        return CommonResponse.builder()
+                .id(transfer.getId().toString())
+                .status(Status.SUCCESS)
+                .message("Stock transfer " + transfer.getTransferNumber() + " posted: " + transfer.getTotalQty() + " units")
+                .build();
+    }
+
+    private StockTransfer applyTransfer(Long tenantId, StockTransferDto dto, Set<StockKey> keys, Set<StockKey> targetKeys) {
+        StockTransfer transfer = stockTransferRepository.save(StockTransfer.builder()
+                .tenantId(tenantId)
+                .transferNumber(DocumentNumberUtil.generate(DocPrefix.TRF))
+                .sourceWarehouseId(dto.getSourceWarehouseId())
+                .targetWarehouseId(dto.getTargetWarehouseId())
+                .transferDate(new Date())
+                .totalQty(0L)
+                .totalValue(BigDecimal.ZERO)
+                .remarks(dto.getRemarks())
+                .build());
+
+        // 1. Lock source and target rows together so the two legs below cannot deadlock
+        stockPostingEngine.lockRows(tenantId, keys, targetKeys);
+
+        // 2. OUT leg: named batches or FIFO / FEFO picks from the source warehouse
+        List<StockUpdateDto> outs = dto.getItems().stream()
+                .map(line -> leg(dto.getSourceWarehouseId(), line.getItemId(), line.getBatchNumber(),
+                        line.getQuantity(), null, MovementType.OUT, transfer.getId(), dto.getRemarks()))
+                .toList();
+        List<StockPostingResult> postings = stockService.postMovements(outs);
+
+        // 3. Batch slices taken, merged per (item, batch)
+        List<StockTransferItem> slices = toSlices(outs, postings);
+
+        // 4. Target batches with the same number, cost and expiry, then the IN leg into them
+        stockTransferJdbcRepository.upsertTargetBatches(tenantId, dto.getTargetWarehouseId(), slices);
+        stockService.postMovements(slices.stream()
+                .map(slice -> leg(dto.getTargetWarehouseId(), slice.getItemId(), slice.getBatchNumber(),
+                        slice.getQuantity(), slice.getUnitCost(), MovementType.IN, transfer.getId(), dto.getRemarks()))
+                .toList());
+
+        stockTransferJdbcRepository.insertItems(transfer.getId(), slices);
+
+        long totalQty = 0;
+        BigDecimal totalValue = BigDecimal.ZERO;
+        for (StockTransferItem slice : slices) {
+            totalQty += slice.getQuantity();
+            totalValue = totalValue.add(slice.getUnitCost().multiply(BigDecimal.valueOf(slice.getQuantity())));
+        }
+        transfer.setTotalQty(totalQty);
+        transfer.setTotalValue(totalValue);
+        return transfer;
+    }
+
+    private List<StockTransferItem> toSlices(List<StockUpdateDto> outs, List<StockPostingResult> postings) {
+        Map<Long, Long> expiry = stockTransferJdbcRepository.findExpiryDates(postings.stream()
+                .filter(p -> p.getAllocations() != null)
+                .flatMap(p -> p.getAllocations().stream())
+                .map(BatchAllocation::getBatchId)
+                .collect(Collectors.toSet()));
+
+        Map<List<Object>, StockTransferItem> slices = new LinkedHashMap<>();
+        for (int i = 0; i < outs.size(); i++) {
+            Long itemId = outs.get(i).getItemId();
+            List<BatchAllocation> allocations = postings.get(i).getAllocations();
+            if (allocations == null) {
+                throw new CommonException("No batch allocation for item " + itemId, HttpStatus.INTERNAL_SERVER_ERROR);
+            }
+            for (BatchAllocation allocation : allocations) {
+                StockTransferItem slice = slices.computeIfAbsent(List.of(itemId, allocation.getBatchNumber()),
+                        k -> StockTransferItem.builder()
+                                .itemId(itemId)
+                                .batchNumber(allocation.getBatchNumber())
+                                .quantity(0)
+                                .unitCost(allocation.getUnitCost() != null ? allocation.getUnitCost() : BigDecimal.ZERO)
+                                .expiryDate(expiry.get(allocation.getBatchId()))
+                                .build());
+                slice.setQuantity(slice.getQuantity() + allocation.getQuantity());
+            }
+        }
+        return new ArrayList<>(slices.values());
+    }
+
+    private static StockUpdateDto leg(Long warehouseId, Long itemId, String batchNumber, Integer qty,
+                                      BigDecimal unitPrice, MovementType type, Long transferId, String remarks) {
+        return StockUpdateDto.builder()
+                .warehouseId(warehouseId)
+                .itemId(itemId)
+                .batchNumber(batchNumber)
+                .quantity(qty)
+                .unitPrice(unitPrice)
+                .transactionType(type)
+                .referenceType(ReferenceType.TRANSFER)
+                .referenceId(transferId)
+                .remarks(remarks)
+                .build();
+    }
+
+    private static void validate(StockTransferDto dto) {
+        if (dto.getSourceWarehouseId() == null || dto.getTargetWarehouseId() == null) {
+            throw new BadRequestException("Source and target warehouse are required");
+        }
+        if (dto.getSourceWarehouseId().equals(dto.getTargetWarehouseId())) {
+            throw new BadRequestException("Source and target warehouse must be different");
+        }
+        if (dto.getItems() == null || dto.getItems().isEmpty()) {
+            throw new BadRequestException("Transfer must have at least one item");
+        }
+        for (StockTransferItemDto line : dto.getItems()) {
+            if (line.getItemId() == null || line.getQuantity() == null || line.getQuantity() <= 0) {
+                throw new BadRequestException("Invalid transfer line for item " + line.getItemId());
+            }
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public StockTransferDto getTransferById(Long transferId) throws CommonException {
+        Long tenantId = getTenantIdOrThrow();
+        StockTransfer transfer = stockTransferRepository.findByIdAndTenantId(transferId, tenantId)
+                .orElseThrow(() -> new CommonException("Stock transfer not found", HttpStatus.NOT_FOUND));
+
+        List<StockTransferItem> items = stockTransferItemRepository.findByTransferIdOrderById(transferId);
+        Map<Long, ItemMetadata> metadata = itemMetadataCache.getAll(tenantId,
+                items.stream().map(StockTransferItem::getItemId).toList());
+
+        return StockTransferDto.builder()
+                .id(transfer.getId())
+                .transferNumber(transfer.getTransferNumber())
+                .sourceWarehouseId(transfer.getSourceWarehouseId())
+                .targetWarehouseId(transfer.getTargetWarehouseId())
+                .transferDate(transfer.getTransferDate())
+                .totalQty(transfer.getTotalQty())
+                .totalValue(transfer.getTotalValue())
+                .remarks(transfer.getRemarks())
+                .items(items.stream()
+                        .map(item -> StockTransferItemDto.builder()
+                                .itemId(item.getItemId())
+                                .itemName(metadata.containsKey(item.getItemId())
+                                        ? metadata.get(item.getItemId()).getName() : null)
+                                .batchNumber(item.getBatchNumber())
+                                .quantity(item.getQuantity())
+                                .unitCost(item.getUnitCost())
+                                .expiryDate(item.getExpiryDate())
+                                .build())
+                        .toList())
+                .build();
+    }
+}
@@ -0,0 +1,269 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.stock.config.StockValuationProperties;
+import com.ezh.Inventory.stock.dto.StockValuationRunDto;
+import com.ezh.Inventory.stock.repository.StockPostingJdbcRepository.StockKey;
+import com.ezh.Inventory.stock.repository.StockValuationJdbcRepository;
+import com.ezh.Inventory.stock.repository.StockValuationJdbcRepository.BatchLayer;
+import com.ezh.Inventory.stock.repository.StockValuationJdbcRepository.BookRow;
+import com.ezh.Inventory.stock.repository.StockValuationJdbcRepository.LedgerSum;
+import com.ezh.Inventory.stock.repository.StockValuationJdbcRepository.SnapshotRow;
+import com.ezh.Inventory.utils.exception.CommonException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+
+import static java.math.BigDecimal.ZERO;
+
+/**
+ * Values a tenant's stock three ways in one pass over {@code stock_ledger} and {@code stock_batch}:
+ * <ul>
+ *   <li>FIFO: the on-hand quantity is filled from the newest receipts backwards.</li>
+ *   <li>Weighted average: total receipt cost over total received quantity, kept unrounded
+ *       (unlike {@code stock.average_cost}, which is rounded to 2 decimals on every IN).</li>
+ *   <li>Specific batch: each batch's remaining quantity at its own buy price.</li>
+ * </ul>
+ * The on-hand quantity comes from the ledger. Quantity not covered by any batch (stock that
+ * entered without a GRN) is valued at the book average cost in FIFO and WAC.
+ *
+ * <p>The tenant's (warehouse, item) keys are split into ranges on a dedicated {@link ForkJoinPool};
+ * each range is read and written in its own transaction. Results go to
+ * {@code stock_valuation_snapshot}, and the run records elapsed time and rows scanned.
+ */
+@Slf4j
+@Component
+public class StockValuationEngine {
+
+    private static final MathContext PRECISION = MathContext.DECIMAL128;
+
+    private final StockValuationJdbcRepository stockValuationJdbcRepository;
+    private final StockValuationProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final ForkJoinPool pool;
+    private final Timer runTimer;
+
+    public StockValuationEngine(StockValuationJdbcRepository stockValuationJdbcRepository,
+                                StockValuationProperties properties,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry) {
+        this.stockValuationJdbcRepository = stockValuationJdbcRepository;
+        this.properties = properties;
+        this.transactionTemplate = transactionTemplate;
+        this.pool = new ForkJoinPool(properties.getParallelism());
+        this.runTimer = Timer.builder("stock.valuation.run")
+                .description("Time to value all stock of one tenant")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    @Scheduled(cron = "${stock.valuation.cron:0 0 2 1 * *}")
+    public void valueAll() {
+        for (Long tenantId : stockValuationJdbcRepository.findTenantIdsWithStock()) {
+            try {
+                value(tenantId);
+            } catch (Exception e) {
+                log.error("Stock valuation failed for tenant {}", tenantId, e);
+            }
+        }
+    }
+
+    public StockValuationRunDto value(Long tenantId) {
+        long started = System.nanoTime();
+        Long runId = stockValuationJdbcRepository.createRun(tenantId);
+
+        PartitionResult result;
+        List<BookRow> books;
+        try {
+            books = stockValuationJdbcRepository.findBookRows(tenantId);
+            result = books.isEmpty()
+                    ? new PartitionResult()
+                    : pool.invoke(new PartitionTask(runId, tenantId, books));
+        } catch (RuntimeException e) {
+            stockValuationJdbcRepository.finishRun(runId, "FAILED", 0, 0, 0, elapsedMs(started));
+            throw new CommonException("Stock valuation failed: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+
+        long elapsedMs = elapsedMs(started);
+        runTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        stockValuationJdbcRepository.finishRun(runId, "COMPLETED", result.partitions, books.size(),
+                result.rowsScanned, elapsedMs);
+
+        long rowsPerSecond = result.rowsScanned * 1000 / Math.max(elapsedMs, 1);
+        log.info("Valued tenant {} run {}: {} items in {} partitions, {} rows in {} ms ({} rows/s)",
+                tenantId, runId, books.size(), result.partitions, result.rowsScanned, elapsedMs, rowsPerSecond);
+
+        return StockValuationRunDto.builder()
+                .runId(runId)
+                .partitions(result.partitions)
+                .itemCount(books.size())
+                .rowsScanned(result.rowsScanned)
+                .elapsedMs(elapsedMs)
+                .rowsPerSecond(rowsPerSecond)
+                .fifoValue(result.fifoValue)
+                .wacValue(result.wacValue)
+                .batchValue(result.batchValue)
+                .bookValue(result.bookValue)
+                .build();
+    }
+
+    private PartitionResult valuePartition(Long runId, Long tenantId, List<BookRow> books) {
+        StockKey from = books.get(0).getKey();
+        StockKey to = books.get(books.size() - 1).getKey();
+
+        return transactionTemplate.execute(status -> {
+            Map<StockKey, LedgerSum> ledger = stockValuationJdbcRepository.sumLedger(tenantId, from, to);
+            Map<StockKey, Layers> layers = new HashMap<>();
+            long[] batchRows = {0};
+
+            stockValuationJdbcRepository.streamBatches(tenantId, from, to, (BatchLayer batch) -> {
+                batchRows[0]++;
+                layers.computeIfAbsent(batch.getKey(), k -> {
+                    LedgerSum sum = ledger.get(k);
+                    return new Layers(sum != null ? sum.getQty() : 0);
+                }).add(batch);
+            });
+
+            PartitionResult result = new PartitionResult();
+            result.partitions = 1;
+            result.rowsScanned = batchRows[0] + ledger.values().stream().mapToLong(LedgerSum::getRowCount).sum();
+
+            List<SnapshotRow> rows = new ArrayList<>(books.size());
+            for (BookRow book : books) {
+                LedgerSum sum = ledger.get(book.getKey());
+                long onHand = sum != null ? sum.getQty() : 0;
+                SnapshotRow row = layers.getOrDefault(book.getKey(), new Layers(onHand)).toSnapshot(book);
+                rows.add(row);
+                result.add(row);
+            }
+            stockValuationJdbcRepository.insertSnapshots(runId, tenantId, rows);
+            return result;
+        });
+    }
+
+    private static long elapsedMs(long started) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+    }
+
+    private static BigDecimal money(BigDecimal value) {
+        return value.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /** Splits a key-ordered slice of book rows in halves until it fits one partition. */
+    private class PartitionTask extends RecursiveTask<PartitionResult> {
+
+        private final Long runId;
+        private final Long tenantId;
+        private final List<BookRow> books;
+
+        PartitionTask(Long runId, Long tenantId, List<BookRow> books) {
+            this.runId = runId;
+            this.tenantId = tenantId;
+            this.books = books;
+        }
+
+        @Override
+        protected PartitionResult compute() {
+            if (books.size() <= properties.getPartitionSize()) {
+                return valuePartition(runId, tenantId, books);
+            }
+            int mid = books.size() / 2;
+            PartitionTask left = new PartitionTask(runId, tenantId, books.subList(0, mid));
+            PartitionTask right = new PartitionTask(runId, tenantId, books.subList(mid, books.size()));
+            left.fork();
+            PartitionResult result = right.compute();
+            return result.merge(left.join());
+        }
+    }
+
+    /** Batches of one key, fed newest first. */
+    private static class Layers {
+
+        private final long onHand;
+        private long unfilled;
+        private BigDecimal fifoValue = ZERO;
+        private long receivedQty;
+        private BigDecimal receivedCost = ZERO;
+        private BigDecimal batchValue = ZERO;
+
+        Layers(long onHand) {
+            this.onHand = onHand;
+            this.unfilled = Math.max(onHand, 0);
+        }
+
+        void add(BatchLayer batch) {
+            BigDecimal price = batch.getBuyPrice() != null ? batch.getBuyPrice() : ZERO;
+            long take = Math.min(unfilled, batch.getInitialQty());
+            if (take > 0) {
+                fifoValue = fifoValue.add(price.multiply(BigDecimal.valueOf(take)));
+                unfilled -= take;
+            }
+            receivedQty += batch.getInitialQty();
+            receivedCost = receivedCost.add(price.multiply(BigDecimal.valueOf(batch.getInitialQty())));
+            batchValue = batchValue.add(price.multiply(BigDecimal.valueOf(batch.getRemainingQty())));
+        }
+
+        SnapshotRow toSnapshot(BookRow book) {
+            BigDecimal bookCost = book.getAverageCost() != null ? book.getAverageCost() : ZERO;
+            BigDecimal wacUnitCost = receivedQty > 0
+                    ? receivedCost.divide(BigDecimal.valueOf(receivedQty), PRECISION)
+                    : bookCost;
+
+            SnapshotRow row = new SnapshotRow();
+            row.setKey(book.getKey());
+            row.setOnHandQty((int) onHand);
+            row.setFifoValue(money(fifoValue.add(bookCost.multiply(BigDecimal.valueOf(unfilled)))));
+            row.setWacUnitCost(wacUnitCost.setScale(8, RoundingMode.HALF_UP));
+            row.setWacValue(money(wacUnitCost.multiply(BigDecimal.valueOf(onHand), PRECISION)));
+            row.setBatchValue(money(batchValue));
+            row.setBookValue(money(book.getStockValue() != null ? book.getStockValue() : ZERO));
+            return row;
+        }
+    }
+
+    private static class PartitionResult {
+
+        private int partitions;
+        private long rowsScanned;
+        private BigDecimal fifoValue = ZERO;
+        private BigDecimal wacValue = ZERO;
+        private BigDecimal batchValue = ZERO;
+        private BigDecimal bookValue = ZERO;
+
+        void add(SnapshotRow row) {
+            fifoValue = fifoValue.add(row.getFifoValue());
+            wacValue = wacValue.add(row.getWacValue());
+            batchValue = batchValue.add(row.getBatchValue());
+            bookValue = bookValue.add(row.getBookValue());
+        }
+
+        PartitionResult merge(PartitionResult other) {
+            partitions += other.partitions;
+            rowsScanned += other.rowsScanned;
+            fifoValue = fifoValue.add(other.fifoValue);
+            wacValue = wacValue.add(other.wacValue);
+            batchValue = batchValue.add(other.batchValue);
+            bookValue = bookValue.add(other.bookValue);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.ezh.Inventory.stock.utils;
+
+import com.ezh.Inventory.stock.dto.OpeningStockRow;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler.SheetContentsHandler;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+
+import java.io.File;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streams the first sheet of an opening-stock workbook with POI's SAX event API, so an upload of
+ * any size is read with only one chunk of rows in memory ({@code XSSFWorkbook} would build the
+ * whole sheet first).
+ *
+ * <p>Columns: Item ID, Warehouse ID, Quantity, Unit Cost, Batch Number, Expiry Date
+ * ({@code yyyy-MM-dd} or a date cell). The first row is the header. Rows that cannot be parsed
+ * are still passed on, with {@link OpeningStockRow#getError()} set.
+ */
+public final class OpeningStockExcelReader {
+
+    public static final String TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+
+    private OpeningStockExcelReader() {
+    }
+
+    /**
+     * @param chunkConsumer called with every {@code chunkSize} rows, and once more with the rest
+     * @return data rows read, empty rows excluded
+     */
+    public static long read(File file, int chunkSize, Consumer<List<OpeningStockRow>> chunkConsumer) {
+        try (OPCPackage pkg = OPCPackage.open(file, PackageAccess.READ)) {
+            XSSFReader reader = new XSSFReader(pkg);
+            RowCollector collector = new RowCollector(chunkSize, chunkConsumer);
+
+            XMLReader parser = XMLHelper.newXMLReader();
+            parser.setContentHandler(new XSSFSheetXMLHandler(reader.getStylesTable(),
+                    new ReadOnlySharedStringsTable(pkg), collector, new IsoDateFormatter(), false));
+
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                throw new IllegalArgumentException("Workbook has no sheets");
+            }
+            try (InputStream sheet = sheets.next()) {
+                parser.parse(new InputSource(sheet));
+            }
+            collector.flush();
+            return collector.rows;
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("fail to parse Excel file: " + e.getMessage(), e);
+        }
+    }
+
+    private static final class RowCollector implements SheetContentsHandler {
+        private final int chunkSize;
+        private final Consumer<List<OpeningStockRow>> chunkConsumer;
+        private final String[] cells = new String[6];
+        private List<OpeningStockRow> chunk = new ArrayList<>();
+        private long rows;
+
+        private RowCollector(int chunkSize, Consumer<List<OpeningStockRow>> chunkConsumer) {
+            this.chunkSize = chunkSize;
+            this.chunkConsumer = chunkConsumer;
+        }
+
+        @Override
+        public void startRow(int rowNum) {
+            Arrays.fill(cells, null);
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int col = new CellReference(cellReference).getCol();
+            if (col < cells.length && formattedValue != null && !formattedValue.isBlank()) {
+                cells[col] = formattedValue.trim();
+            }
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (rowNum == 0 || isEmpty()) return; // header, blank line
+            chunk.add(toRow(rowNum + 1L));
+            rows++;
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) return;
+            List<OpeningStockRow> full = chunk;
+            chunk = new ArrayList<>(chunkSize);
+            chunkConsumer.accept(full);
+        }
+
+        private boolean isEmpty() {
+            for (String cell : cells) {
+                if (cell != null) return false;
+            }
+            return true;
+        }
+
+        private OpeningStockRow toRow(long rowNumber) {
+            OpeningStockRow row = new OpeningStockRow();
+            row.setRowNumber(rowNumber);
+            try {
+                row.setItemId(parseLong(cells[0], "Item ID"));
+                row.setWarehouseId(parseLong(cells[1], "Warehouse ID"));
+                BigDecimal quantity = parseDecimal(cells[2], "Quantity");
+                if (quantity != null) {
+                    row.setQuantity(quantity.intValueExact());
+                }
+                row.setUnitCost(parseDecimal(cells[3], "Unit Cost"));
+                row.setBatchNumber(cells[4]);
+                row.setExpiryDate(parseDate(cells[5]));
+            } catch (IllegalArgumentException e) {
+                row.setError(e.getMessage());
+            } catch (ArithmeticException e) {
+                row.setError("Quantity must be a whole number");
+            }
+            return row;
+        }
+
+        private static Long parseLong(String value, String column) {
+            BigDecimal decimal = parseDecimal(value, column);
+            try {
+                return decimal != null ? decimal.longValueExact() : null;
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException(column + " must be a whole number");
+            }
+        }
+
+        private static BigDecimal parseDecimal(String value, String column) {
+            if (value == null) return null;
+            try {
+                return new BigDecimal(value.replace(",", ""));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(column + " is not a number: " + value);
+            }
+        }
+
+        private static Long parseDate(String value) {
+            if (value == null) return null;
+            try {
+                return LocalDate.parse(value).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Expiry Date must be yyyy-MM-dd: " + value);
+            }
+        }
+    }
+
+    /** Renders date-formatted cells as {@code yyyy-MM-dd} whatever their display format. */
+    private static final class IsoDateFormatter extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                return DateUtil.getLocalDateTime(value, use1904Windowing).toLocalDate().toString();
+            }
+            return super.formatRawCellContents(value, formatIndex, formatString, use1904Windowing);
+        }
+    }
+}
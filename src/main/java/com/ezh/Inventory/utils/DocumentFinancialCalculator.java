@@ -0,0 +1,92 @@
+package com.ezh.Inventory.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Line and header math shared by the rate-based documents ({@link AbstractFinancialHeader} with
+ * {@link AbstractFinancialLine} lines), computed in a single pass: each line is priced as it is
+ * added and the item totals accumulate alongside, so the header needs no second walk over the lines.
+ *
+ * <pre>
+ * gross    = unitPrice * qty
+ * discount = gross * discountRate / 100          (2 dp, HALF_UP)
+ * tax      = (gross - discount) * taxRate / 100  (2 dp, HALF_UP)
+ * line     = gross - discount + tax
+ *
+ * flatDiscount = sum(line) * flatDiscountRate / 100                 (2 dp, HALF_UP)
+ * flatTax      = (sum(line) - flatDiscount) * flatTaxRate / 100     (2 dp, HALF_UP)
+ * grandTotal   = sum(line) - flatDiscount + flatTax
+ * </pre>
+ *
+ * <p>A percentage is taken by shifting the decimal point and rounding once, which gives exactly
+ * what {@code divide(100, 2, HALF_UP)} gives; a zero rate skips the arithmetic. One instance per
+ * document; not thread-safe.
+ */
+public class DocumentFinancialCalculator {
+
+    private static final BigDecimal ZERO_AMOUNT = BigDecimal.ZERO.setScale(2);
+
+    private BigDecimal itemGrossTotal = BigDecimal.ZERO;
+    private BigDecimal itemTotalDiscount = BigDecimal.ZERO;
+    private BigDecimal itemTotalTax = BigDecimal.ZERO;
+    private BigDecimal lineSum = BigDecimal.ZERO;
+
+    /**
+     * Prices {@code line} and adds it to the document totals. Null rates count as zero.
+     *
+     * @return the same line, with quantity, price, rates, amounts and line total set
+     */
+    public <L extends AbstractFinancialLine> L addLine(L line, BigDecimal unitPrice, int quantity,
+                                                       BigDecimal discountRate, BigDecimal taxRate) {
+        BigDecimal discRate = discountRate != null ? discountRate : BigDecimal.ZERO;
+        BigDecimal tRate = taxRate != null ? taxRate : BigDecimal.ZERO;
+
+        BigDecimal gross = unitPrice.multiply(BigDecimal.valueOf(quantity));
+        BigDecimal discount = percentOf(gross, discRate);
+        BigDecimal taxable = gross.subtract(discount);
+        BigDecimal tax = percentOf(taxable, tRate);
+        BigDecimal lineTotal = taxable.add(tax);
+
+        line.setQuantity(quantity);
+        line.setUnitPrice(unitPrice);
+        line.setDiscountRate(discRate);
+        line.setDiscountAmount(discount);
+        line.setTaxRate(tRate);
+        line.setTaxAmount(tax);
+        line.setLineTotal(lineTotal);
+
+        itemGrossTotal = itemGrossTotal.add(gross);
+        itemTotalDiscount = itemTotalDiscount.add(discount);
+        itemTotalTax = itemTotalTax.add(tax);
+        lineSum = lineSum.add(lineTotal);
+        return line;
+    }
+
+    /**
+     * Writes the item totals, the flat adjustments (on the sum of line totals) and the grand total
+     * onto {@code header}. Null rates count as zero.
+     */
+    public void applyTo(AbstractFinancialHeader header, BigDecimal flatDiscountRate, BigDecimal flatTaxRate) {
+        BigDecimal flatDiscRate = flatDiscountRate != null ? flatDiscountRate : BigDecimal.ZERO;
+        BigDecimal flatTRate = flatTaxRate != null ? flatTaxRate : BigDecimal.ZERO;
+
+        BigDecimal flatDiscount = percentOf(lineSum, flatDiscRate);
+        BigDecimal discountedBill = lineSum.subtract(flatDiscount);
+        BigDecimal flatTax = percentOf(discountedBill, flatTRate);
+
+        header.setItemGrossTotal(itemGrossTotal);
+        header.setItemTotalDiscount(itemTotalDiscount);
+        header.setItemTotalTax(itemTotalTax);
+        header.setFlatDiscountRate(flatDiscRate);
+        header.setFlatDiscountAmount(flatDiscount);
+        header.setFlatTaxRate(flatTRate);
+        header.setFlatTaxAmount(flatTax);
+        header.setGrandTotal(discountedBill.add(flatTax));
+    }
+
+    private static BigDecimal percentOf(BigDecimal amount, BigDecimal rate) {
+        if (rate.signum() == 0) return ZERO_AMOUNT;
+        return amount.multiply(rate).movePointLeft(2).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -24,6 +24,10 @@ public class CommonFilter {
     private LocalDate fromDate;
     private LocalDate toDate;
 
+    // Keyset pagination (the /scroll endpoints): token from the previous page, and whether to count
+    private String cursor;
+    private Boolean includeTotal;
+
     // Get 00:00:00 of the selected day
     public LocalDateTime getStartDateTime() {
         return fromDate != null ? fromDate.atStartOfDay() : null;
@@ -33,4 +37,17 @@ public class CommonFilter {
     public LocalDateTime getEndDateTime() {
         return toDate != null ? toDate.atTime(LocalTime.MAX) : null;
     }
+
+    // Blank means no search: null makes the queries skip the LIKE instead of scanning for '%%'
+    public String getSearchQuery() {
+        return searchQuery == null || searchQuery.isBlank() ? null : searchQuery.trim();
+    }
+
+    public KeysetCursor getKeysetCursor() {
+        return KeysetCursor.decode(cursor);
+    }
+
+    public boolean isTotalRequested() {
+        return Boolean.TRUE.equals(includeTotal);
+    }
 }
@@ -0,0 +1,67 @@
+package com.ezh.Inventory.utils.common;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset (seek) paginated list. Pass {@link #nextCursor} back as the filter's
+ * {@code cursor} to get the following page; {@link #totalElements} is only filled when the
+ * filter asks for it, since counting is the expensive part on large tenants.
+ */
+@Getter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    /** Page size used when the request does not ask for one. */
+    public static final int DEFAULT_SIZE = 20;
+
+    /** Largest page a scroll request may ask for; the query fetches one row more. */
+    public static final int MAX_SIZE = 500;
+
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    private String nextCursor;
+    private Long totalElements;
+
+    /**
+     * The requested page size clamped to {@code 1..MAX_SIZE}, or {@link #DEFAULT_SIZE} when none
+     * was given. Scroll endpoints pass the result to both the query limit and {@link #of}.
+     */
+    public static int clampSize(Integer size) {
+        if (size == null) return DEFAULT_SIZE;
+        return Math.clamp(size, 1, MAX_SIZE);
+    }
+
+    /**
+     * Builds a page from rows fetched with {@code size + 1} as limit; the extra row only signals
+     * that another page exists.
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int size, Function<E, Date> createdAt, Function<E, Long> id,
+                                          Function<E, T> mapper, Long totalElements) {
+        boolean hasNext = rows.size() > size;
+        List<E> pageRows = hasNext ? rows.subList(0, size) : rows;
+
+        String nextCursor = null;
+        if (hasNext && !pageRows.isEmpty()) {
+            E last = pageRows.get(pageRows.size() - 1);
+            nextCursor = KeysetCursor.of(createdAt.apply(last), id.apply(last)).encode();
+        }
+
+        return CursorPage.<T>builder()
+                .content(pageRows.stream().map(mapper).toList())
+                .size(size)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .totalElements(totalElements)
+                .build();
+    }
+}
@@ -18,4 +18,5 @@ public enum DocPrefix {
     GRN,  // Goods Receipt Note
     PR,   // Purchase Return
     RFD,  // Refund
+    TRF,  // Stock Transfer
 }
\ No newline at end of file
@@ -0,0 +1,130 @@
+package com.ezh.Inventory.utils.common;
+
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Builds a list query from only the filters actually supplied. A static query with
+ * {@code (:x IS NULL OR col = :x)} for every filter is one SQL shape for all combinations, and
+ * once Postgres caches a generic plan for it the tenant / customer / status indexes are often
+ * ignored. Here every combination is its own shape, planned for what it filters on.
+ *
+ * <pre>
+ * Specification&lt;Invoice&gt; spec = FilterSpecification.&lt;Invoice&gt;forTenant(tenantId)
+ *         .equal("customerId", filter.getCustomerId())
+ *         .in("status", filter.getInvStatuses())
+ *         .createdBetween(filter.getStartDateTime(), filter.getEndDateTime())
+ *         .search(filter.getSearchQuery(), "invoiceNumber", "remarks")
+ *         .build();
+ * Page&lt;Invoice&gt; page = invoiceRepository.findAll(spec, PageRequest.of(0, 20, FilterSpecification.NEWEST_FIRST));
+ * </pre>
+ *
+ * <p>Null values and empty collections are skipped. Lists read in {@link #NEWEST_FIRST} order,
+ * which the {@code (tenant_id, [status | customer_id,] created_at DESC, id DESC)} indexes serve.
+ */
+public final class FilterSpecification<T> {
+
+    /** (createdAt DESC, id DESC): the order of the tenant list indexes and of {@link KeysetCursor}. */
+    public static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+
+    private final List<Specification<T>> predicates = new ArrayList<>();
+
+    private FilterSpecification() {
+    }
+
+    public static <T> FilterSpecification<T> forTenant(Long tenantId) {
+        return new FilterSpecification<T>().equal("tenantId", tenantId);
+    }
+
+    /** {@code attribute = value}. A dotted attribute ({@code salesOrder.id}) follows the association. */
+    public FilterSpecification<T> equal(String attribute, Object value) {
+        if (value != null) {
+            predicates.add((root, query, cb) -> cb.equal(path(root, attribute), value));
+        }
+        return this;
+    }
+
+    public FilterSpecification<T> in(String attribute, Collection<?> values) {
+        if (values != null && !values.isEmpty()) {
+            predicates.add((root, query, cb) -> path(root, attribute).in(values));
+        }
+        return this;
+    }
+
+    /** {@code from <= createdAt <= to}, either bound optional. */
+    public FilterSpecification<T> createdBetween(LocalDateTime from, LocalDateTime to) {
+        if (from != null) {
+            Timestamp bound = Timestamp.valueOf(from);
+            predicates.add((root, query, cb) -> cb.greaterThanOrEqualTo(root.<Date>get("createdAt"), bound));
+        }
+        if (to != null) {
+            Timestamp bound = Timestamp.valueOf(to);
+            predicates.add((root, query, cb) -> cb.lessThanOrEqualTo(root.<Date>get("createdAt"), bound));
+        }
+        return this;
+    }
+
+    /**
+     * Case-insensitive substring match on any of {@code attributes}, as {@code LOWER(col) LIKE '%term%'}
+     * so the trigram indexes on {@code LOWER(col)} apply. Blank terms are skipped.
+     */
+    public FilterSpecification<T> search(String term, String... attributes) {
+        if (term != null && !term.isBlank()) {
+            String pattern = "%" + term.trim().toLowerCase(Locale.ROOT) + "%";
+            predicates.add((root, query, cb) -> cb.or(Arrays.stream(attributes)
+                    .map(attribute -> cb.like(cb.lower(root.get(attribute)), pattern))
+                    .toArray(Predicate[]::new)));
+        }
+        return this;
+    }
+
+    /** Case-sensitive substring match, {@code col LIKE '%term%'}, for columns stored in one case. Blank terms are skipped. */
+    public FilterSpecification<T> contains(String attribute, String term) {
+        if (term != null && !term.isBlank()) {
+            String pattern = "%" + term.trim() + "%";
+            predicates.add((root, query, cb) -> cb.like(root.get(attribute), pattern));
+        }
+        return this;
+    }
+
+    /** Rows strictly after {@code cursor} in {@link #NEWEST_FIRST} order; nothing for the first page. */
+    public FilterSpecification<T> after(KeysetCursor cursor) {
+        if (cursor != null) {
+            predicates.add((root, query, cb) -> {
+                Path<Date> createdAt = root.get("createdAt");
+                return cb.or(
+                        cb.lessThan(createdAt, cursor.getCreatedAt()),
+                        cb.and(cb.equal(createdAt, cursor.getCreatedAt()),
+                                cb.lessThan(root.<Long>get("id"), cursor.getId())));
+            });
+        }
+        return this;
+    }
+
+    public Specification<T> build() {
+        List<Specification<T>> supplied = List.copyOf(predicates);
+        return (root, query, cb) -> cb.and(supplied.stream()
+                .map(spec -> spec.toPredicate(root, query, cb))
+                .toArray(Predicate[]::new));
+    }
+
+    private static Path<Object> path(Root<?> root, String attribute) {
+        Path<Object> path = null;
+        for (String part : attribute.split("\\.")) {
+            path = path == null ? root.get(part) : path.get(part);
+        }
+        return path;
+    }
+}
@@ -0,0 +1,43 @@
+package com.ezh.Inventory.utils.common;
+
+import com.ezh.Inventory.utils.exception.BadRequestException;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position in a list ordered by (createdAt DESC, id DESC).
+ * Sent to clients as an opaque url-safe token.
+ */
+@Value
+public class KeysetCursor {
+    Timestamp createdAt;
+    Long id;
+
+    public static KeysetCursor of(Date createdAt, Long id) {
+        Instant instant = createdAt instanceof Timestamp ts ? ts.toInstant() : createdAt.toInstant();
+        return new KeysetCursor(Timestamp.from(instant), id);
+    }
+
+    public String encode() {
+        String raw = createdAt.toInstant() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @return null for a blank token (first page) */
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int sep = raw.indexOf('|');
+            return new KeysetCursor(Timestamp.from(Instant.parse(raw.substring(0, sep))),
+                    Long.parseLong(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
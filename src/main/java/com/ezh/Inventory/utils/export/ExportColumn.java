@@ -0,0 +1,16 @@
+package com.ezh.Inventory.utils.export;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.function.Function;
+
+/**
+ * One column of an export: its header and how to read the cell value from a row.
+ */
+@Getter
+@AllArgsConstructor(staticName = "of")
+public class ExportColumn<T> {
+    private final String header;
+    private final Function<T, Object> value;
+}
@@ -0,0 +1,19 @@
+package com.ezh.Inventory.utils.export;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum ExportFormat {
+    CSV("csv", "text/csv"),
+    XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+
+    private final String extension;
+    private final String mediaType;
+
+    // "csv" selects CSV, anything else falls back to Excel (matches the existing ?format= params)
+    public static ExportFormat fromParam(String format) {
+        return "csv".equalsIgnoreCase(format) ? CSV : XLSX;
+    }
+}
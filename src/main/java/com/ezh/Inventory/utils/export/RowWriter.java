@@ -0,0 +1,21 @@
+package com.ezh.Inventory.utils.export;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes rows of string cells to the response as they come. {@link #finish()} completes the
+ * document; it never closes the underlying response stream.
+ */
+interface RowWriter extends AutoCloseable {
+
+    void writeHeader(List<String> headers) throws IOException;
+
+    void writeRow(List<String> cells) throws IOException;
+
+    void finish() throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
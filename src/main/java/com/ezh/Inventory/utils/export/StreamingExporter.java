@@ -0,0 +1,95 @@
+package com.ezh.Inventory.utils.export;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Streams a query result straight into a CSV or XLSX response.
+ *
+ * <p>The body runs after the controller returned, on the async request thread, so it opens its
+ * own read-only transaction around the source {@link Stream}. Anything request-scoped (tenant id,
+ * filters) must be resolved by the caller before building the source. Heap use does not depend
+ * on the export size: the database cursor is read in fetch-size chunks, the persistence context
+ * is cleared as it goes and SXSSF keeps only a window of rows.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StreamingExporter {
+
+    private final PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${export.xlsx-row-window:500}")
+    private int xlsxRowWindow;
+
+    @Value("${export.clear-every-rows:500}")
+    private int clearEveryRows;
+
+    /**
+     * @param source opens the row stream; called inside the export transaction
+     * @param mapper turns a source row into the export row (may load lazy associations)
+     */
+    public <E, T> StreamingResponseBody export(ExportFormat format, String sheetName, List<ExportColumn<T>> columns,
+                                              Supplier<Stream<E>> source, Function<E, T> mapper) {
+        List<String> headers = columns.stream().map(ExportColumn::getHeader).toList();
+
+        return out -> {
+            TransactionTemplate template = new TransactionTemplate(transactionManager);
+            template.setReadOnly(true);
+            template.executeWithoutResult(status -> {
+                try (RowWriter writer = open(format, sheetName, out); Stream<E> rows = source.get()) {
+                    writer.writeHeader(headers);
+
+                    long count = 0;
+                    Iterator<E> iterator = rows.iterator();
+                    while (iterator.hasNext()) {
+                        T row = mapper.apply(iterator.next());
+                        writer.writeRow(cells(columns, row));
+                        if (++count % clearEveryRows == 0) {
+                            entityManager.clear();
+                        }
+                    }
+                    writer.finish();
+                    log.debug("Exported {} rows to {}", count, format);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to write " + sheetName + " export", e);
+                }
+            });
+        };
+    }
+
+    private RowWriter open(ExportFormat format, String sheetName, OutputStream out) {
+        return format == ExportFormat.CSV
+                ? new CsvRowWriter(out)
+                : new XlsxRowWriter(out, sheetName, xlsxRowWindow);
+    }
+
+    private static <T> List<String> cells(List<ExportColumn<T>> columns, T row) {
+        List<String> cells = new ArrayList<>(columns.size());
+        for (ExportColumn<T> column : columns) {
+            Object value = column.getValue().apply(row);
+            cells.add(value == null ? "" : String.valueOf(value));
+        }
+        return cells;
+    }
+}
@@ -0,0 +1,71 @@
+package com.ezh.Inventory.utils.export;
+
+import org.apache.poi.ss.usermodel.*;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Excel through POI's SXSSF: only the last {@code windowSize} rows stay in memory, older rows are
+ * flushed to a compressed temp file and copied to the response on {@link #finish()}.
+ *
+ * <p>Columns get a fixed width; auto-sizing would need every row in memory.
+ */
+class XlsxRowWriter implements RowWriter {
+
+    private static final int COLUMN_WIDTH_CHARS = 20;
+
+    private final OutputStream out;
+    private final SXSSFWorkbook workbook;
+    private final Sheet sheet;
+    private int rowIdx = 0;
+
+    XlsxRowWriter(OutputStream out, String sheetName, int windowSize) {
+        this.out = out;
+        this.workbook = new SXSSFWorkbook(windowSize);
+        this.workbook.setCompressTempFiles(true);
+        this.sheet = workbook.createSheet(sheetName);
+    }
+
+    @Override
+    public void writeHeader(List<String> headers) {
+        CellStyle headerStyle = workbook.createCellStyle();
+        Font font = workbook.createFont();
+        font.setBold(true);
+        headerStyle.setFont(font);
+
+        Row headerRow = sheet.createRow(rowIdx++);
+        for (int i = 0; i < headers.size(); i++) {
+            Cell cell = headerRow.createCell(i);
+            cell.setCellValue(headers.get(i));
+            cell.setCellStyle(headerStyle);
+            sheet.setColumnWidth(i, COLUMN_WIDTH_CHARS * 256);
+        }
+    }
+
+    @Override
+    public void writeRow(List<String> cells) {
+        Row row = sheet.createRow(rowIdx++);
+        for (int i = 0; i < cells.size(); i++) {
+            row.createCell(i).setCellValue(cells.get(i));
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        workbook.write(out);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        // close() does not delete the flushed temp files in POI 5.2; dispose() does
+        try {
+            workbook.close();
+        } finally {
+            workbook.dispose();
+        }
+    }
+}
@@ -0,0 +1,3 @@
+-- Optimistic version for WAC (average cost) recalculation on the stock row.
+-- Every posting bumps the version so concurrent IN movements can detect a lost update and retry.
+ALTER TABLE stock ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,9 @@
+-- Ordered partial indexes over open batches so the allocator's cumulative-sum window only walks
+-- batches that still hold stock, in the order it consumes them.
+CREATE INDEX idx_stock_batch_open_fifo
+    ON stock_batch (tenant_id, warehouse_id, item_id, created_at, id)
+    WHERE remaining_qty > 0;
+
+CREATE INDEX idx_stock_batch_open_fefo
+    ON stock_batch (tenant_id, warehouse_id, item_id, expiry_date, created_at, id)
+    WHERE remaining_qty > 0;
@@ -0,0 +1,27 @@
+-- Stock held for confirmed sales orders until they are invoiced, cancelled or the hold expires
+CREATE TABLE stock_reservation (
+    id BIGSERIAL PRIMARY KEY,
+    uuid VARCHAR(36) UNIQUE NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    is_deleted BOOLEAN DEFAULT false,
+    tenant_id BIGINT NOT NULL,
+    warehouse_id BIGINT NOT NULL,
+    item_id BIGINT NOT NULL,
+    reference_type VARCHAR(50) NOT NULL, -- Values: RESERVATION
+    reference_id BIGINT NOT NULL,        -- Sales order id
+    reference_line_id BIGINT,            -- Sales order item id
+    quantity INTEGER NOT NULL,
+    status VARCHAR(50) NOT NULL,         -- Values: ACTIVE, CONVERTED, RELEASED, EXPIRED
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_stock_reservation_reference ON stock_reservation(tenant_id, reference_id);
+
+-- Reserved quantity per item only ever sums ACTIVE rows
+CREATE INDEX idx_stock_reservation_active_item ON stock_reservation(tenant_id, warehouse_id, item_id)
+    WHERE status = 'ACTIVE';
+
+-- Sweeper scan
+CREATE INDEX idx_stock_reservation_active_expiry ON stock_reservation(expires_at)
+    WHERE status = 'ACTIVE';
@@ -0,0 +1,5 @@
+-- Keyset (seek) pagination: lists are read newest first by (created_at, id) within a tenant
+CREATE INDEX IF NOT EXISTS idx_stock_ledger_tenant_created_id ON stock_ledger(tenant_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_invoice_tenant_created_id ON invoice(tenant_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_sales_order_tenant_created_id ON sales_order(tenant_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_delivery_tenant_created_id ON delivery(tenant_id, created_at DESC, id DESC);
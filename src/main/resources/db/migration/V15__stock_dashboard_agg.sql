@@ -0,0 +1,38 @@
+-- Read model behind GET /v1/stock/dashboard: one row per (tenant, warehouse), kept current by the
+-- posting engine at commit time and periodically rebuilt from stock
+CREATE TABLE stock_dashboard_agg (
+    tenant_id BIGINT NOT NULL,
+    warehouse_id BIGINT NOT NULL,
+    total_value DECIMAL(18, 2) NOT NULL DEFAULT 0,
+    total_in_qty BIGINT NOT NULL DEFAULT 0,
+    total_out_qty BIGINT NOT NULL DEFAULT 0,
+    out_of_stock_count BIGINT NOT NULL DEFAULT 0,
+    fast_mover_stock_ids BIGINT[] NOT NULL DEFAULT '{}', -- stock.id, highest out_qty first
+    fast_mover_out_qtys BIGINT[] NOT NULL DEFAULT '{}',  -- out_qty of the matching stock row
+    rebuilt_at TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (tenant_id, warehouse_id)
+);
+
+INSERT INTO stock_dashboard_agg (tenant_id, warehouse_id, total_value, total_in_qty, total_out_qty,
+                                 out_of_stock_count, fast_mover_stock_ids, fast_mover_out_qtys, rebuilt_at)
+SELECT s.tenant_id,
+       s.warehouse_id,
+       COALESCE(SUM(s.stock_value), 0),
+       COALESCE(SUM(s.in_qty), 0),
+       COALESCE(SUM(s.out_qty), 0),
+       COUNT(*) FILTER (WHERE s.closing_qty <= 0),
+       COALESCE((SELECT array_agg(t.id ORDER BY t.out_qty DESC, t.id)
+                 FROM (SELECT id, out_qty FROM stock
+                       WHERE tenant_id = s.tenant_id AND warehouse_id = s.warehouse_id
+                       ORDER BY out_qty DESC, id LIMIT 10) t), '{}'),
+       COALESCE((SELECT array_agg(CAST(t.out_qty AS BIGINT) ORDER BY t.out_qty DESC, t.id)
+                 FROM (SELECT id, out_qty FROM stock
+                       WHERE tenant_id = s.tenant_id AND warehouse_id = s.warehouse_id
+                       ORDER BY out_qty DESC, id LIMIT 10) t), '{}'),
+       CURRENT_TIMESTAMP
+FROM stock s
+GROUP BY s.tenant_id, s.warehouse_id;
+
+-- Rebuild and the fast-mover backfill read top out_qty per warehouse
+CREATE INDEX idx_stock_tenant_warehouse_out_qty ON stock(tenant_id, warehouse_id, out_qty DESC);
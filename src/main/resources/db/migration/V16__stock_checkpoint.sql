@@ -0,0 +1,16 @@
+-- Closing stock per (tenant, warehouse, item) at a point in time, derived from stock_ledger.
+-- A checkpoint covers every ledger row with created_at < checkpoint_at; as-of queries start from the
+-- latest checkpoint and replay only the ledger rows after it. Items at zero are not stored.
+CREATE TABLE stock_checkpoint (
+    tenant_id BIGINT NOT NULL,
+    warehouse_id BIGINT NOT NULL,
+    item_id BIGINT NOT NULL,
+    checkpoint_at TIMESTAMP NOT NULL,
+    closing_qty INTEGER NOT NULL,
+    average_cost DECIMAL(18, 2),          -- stock.average_cost when the checkpoint was written
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (tenant_id, checkpoint_at, warehouse_id, item_id)
+);
+
+-- Ledger replay after a checkpoint: one warehouse, a created_at range
+CREATE INDEX idx_stock_ledger_tenant_warehouse_created ON stock_ledger(tenant_id, warehouse_id, created_at);
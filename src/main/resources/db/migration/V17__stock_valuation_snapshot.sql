@@ -0,0 +1,33 @@
+-- One row per valuation run; elapsed time and rows scanned size month-end runs
+CREATE TABLE stock_valuation_run (
+    id BIGSERIAL PRIMARY KEY,
+    tenant_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL, -- RUNNING, COMPLETED, FAILED
+    partitions INTEGER NOT NULL DEFAULT 0,
+    item_count INTEGER NOT NULL DEFAULT 0,
+    rows_scanned BIGINT NOT NULL DEFAULT 0,
+    elapsed_ms BIGINT,
+    started_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    finished_at TIMESTAMP
+);
+
+CREATE INDEX idx_stock_valuation_run_tenant ON stock_valuation_run(tenant_id, started_at DESC);
+
+-- Per (warehouse, item) result of a run, valued three ways from the same on-hand quantity.
+-- wac_unit_cost is kept unrounded so it can be compared with stock.average_cost (book, 2 decimals).
+CREATE TABLE stock_valuation_snapshot (
+    run_id BIGINT NOT NULL REFERENCES stock_valuation_run(id) ON DELETE CASCADE,
+    tenant_id BIGINT NOT NULL,
+    warehouse_id BIGINT NOT NULL,
+    item_id BIGINT NOT NULL,
+    on_hand_qty INTEGER NOT NULL,
+    fifo_value DECIMAL(18, 2) NOT NULL,
+    wac_unit_cost DECIMAL(24, 8) NOT NULL,
+    wac_value DECIMAL(18, 2) NOT NULL,
+    batch_value DECIMAL(18, 2) NOT NULL,
+    book_value DECIMAL(18, 2) NOT NULL,
+    PRIMARY KEY (run_id, warehouse_id, item_id)
+);
+
+-- Valuation partitions scan batches by (warehouse, item) range in receipt order, open or not
+CREATE INDEX idx_stock_batch_tenant_key_created ON stock_batch (tenant_id, warehouse_id, item_id, created_at, id);
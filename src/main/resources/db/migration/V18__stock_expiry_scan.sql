@@ -0,0 +1,22 @@
+-- Open batches that carry an expiry, walked by the expiry scanner in (expiry_date, id) order per tenant
+CREATE INDEX idx_stock_batch_tenant_expiry_open
+    ON stock_batch (tenant_id, expiry_date, id)
+    WHERE remaining_qty > 0 AND expiry_date IS NOT NULL;
+
+-- Per-tenant progress of the expiry scanner. A scan cycle can span several runs: the cursor and
+-- the bucket totals so far are kept here until the cycle completes and its alert is sent.
+CREATE TABLE stock_expiry_scan (
+    tenant_id BIGINT PRIMARY KEY,
+    status VARCHAR(20) NOT NULL,          -- SCANNING, IDLE
+    cycle_started_at BIGINT NOT NULL,     -- epoch millis; buckets are relative to it
+    cursor_expiry_date BIGINT,
+    cursor_batch_id BIGINT,
+    expired_batches BIGINT NOT NULL DEFAULT 0,
+    expired_qty BIGINT NOT NULL DEFAULT 0,
+    critical_batches BIGINT NOT NULL DEFAULT 0,
+    critical_qty BIGINT NOT NULL DEFAULT 0,
+    upcoming_batches BIGINT NOT NULL DEFAULT 0,
+    upcoming_qty BIGINT NOT NULL DEFAULT 0,
+    completed_at TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,33 @@
+-- Reorder policy per (tenant, warehouse, item): when on hand plus open PO and open PRQ quantity
+-- drops to min_qty or below, the reorder engine drafts a purchase request up to max_qty
+CREATE TABLE reorder_point (
+    id BIGSERIAL PRIMARY KEY,
+    tenant_id BIGINT NOT NULL,
+    warehouse_id BIGINT NOT NULL,
+    item_id BIGINT NOT NULL,
+    vendor_id BIGINT NOT NULL,   -- vendor the drafted request is addressed to
+    min_qty INTEGER NOT NULL,
+    max_qty INTEGER NOT NULL,
+    is_active BOOLEAN NOT NULL DEFAULT true,
+    created_by BIGINT NOT NULL,  -- also the creator of drafted requests
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT uk_reorder_point UNIQUE (tenant_id, warehouse_id, item_id),
+    CONSTRAINT chk_reorder_point_qty CHECK (min_qty >= 0 AND max_qty > min_qty)
+);
+
+CREATE INDEX idx_reorder_point_tenant_updated ON reorder_point(tenant_id, updated_at);
+
+-- Last incremental scan per tenant; only stock rows and policies changed since then are evaluated
+CREATE TABLE reorder_scan_state (
+    tenant_id BIGINT PRIMARY KEY,
+    last_started_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Changed-stock lookup of the reorder engine
+CREATE INDEX idx_stock_tenant_updated ON stock(tenant_id, updated_at);
+
+-- Open PO / PRQ quantity per (warehouse, item)
+CREATE INDEX idx_purchase_order_item_item ON purchase_order_item(item_id, purchase_order_id);
+CREATE INDEX idx_prq_item_item ON purchase_request_item(item_id, purchase_request_id);
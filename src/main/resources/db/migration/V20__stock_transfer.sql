@@ -0,0 +1,34 @@
+CREATE TABLE stock_transfer (
+    id BIGSERIAL PRIMARY KEY,
+    uuid VARCHAR(36) UNIQUE NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    is_deleted BOOLEAN DEFAULT false,
+    tenant_id BIGINT NOT NULL,
+    transfer_number VARCHAR(50) UNIQUE NOT NULL,
+    source_warehouse_id BIGINT NOT NULL,
+    target_warehouse_id BIGINT NOT NULL,
+    transfer_date TIMESTAMP NOT NULL,
+    total_qty BIGINT NOT NULL DEFAULT 0,
+    total_value DECIMAL(18, 2) NOT NULL DEFAULT 0,
+    remarks TEXT
+);
+
+-- One row per batch slice moved; a requested line split over several batches has several rows
+CREATE TABLE stock_transfer_item (
+    id BIGSERIAL PRIMARY KEY,
+    uuid VARCHAR(36) UNIQUE NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    is_deleted BOOLEAN DEFAULT false,
+    transfer_id BIGINT NOT NULL,
+    item_id BIGINT NOT NULL,
+    batch_number VARCHAR(100) NOT NULL,
+    quantity INTEGER NOT NULL,
+    unit_cost DECIMAL(18, 2),
+    expiry_date BIGINT,
+    CONSTRAINT fk_transfer_item_transfer FOREIGN KEY (transfer_id) REFERENCES stock_transfer(id) ON DELETE CASCADE
+);
+
+CREATE INDEX idx_stock_transfer_tenant_date ON stock_transfer(tenant_id, transfer_date DESC);
+CREATE INDEX idx_stock_transfer_item_transfer_id ON stock_transfer_item(transfer_id);
@@ -0,0 +1,35 @@
+CREATE TABLE stock_reconciliation_run (
+    id BIGSERIAL PRIMARY KEY,
+    tenant_id BIGINT NOT NULL,
+    status VARCHAR(20) NOT NULL, -- RUNNING, COMPLETED, FAILED
+    auto_repair BOOLEAN NOT NULL DEFAULT false,
+    rows_checked BIGINT NOT NULL DEFAULT 0,
+    mismatches BIGINT NOT NULL DEFAULT 0,
+    repaired BIGINT NOT NULL DEFAULT 0,
+    elapsed_ms BIGINT,
+    started_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    finished_at TIMESTAMP
+);
+
+CREATE INDEX idx_stock_reconciliation_run_tenant ON stock_reconciliation_run(tenant_id, started_at DESC);
+
+-- One row per stock row and broken invariant:
+--   BATCH_SUM      closing_qty = SUM(stock_batch.remaining_qty)   (only for items with batches)
+--   LEDGER_AFTER   closing_qty = after_qty of the latest ledger row
+--   MOVEMENT_SUM   opening_qty + in_qty - out_qty = closing_qty
+CREATE TABLE stock_reconciliation_issue (
+    id BIGSERIAL PRIMARY KEY,
+    run_id BIGINT NOT NULL REFERENCES stock_reconciliation_run(id) ON DELETE CASCADE,
+    tenant_id BIGINT NOT NULL,
+    warehouse_id BIGINT NOT NULL,
+    item_id BIGINT NOT NULL,
+    check_type VARCHAR(20) NOT NULL,
+    expected_qty BIGINT NOT NULL,
+    actual_qty BIGINT NOT NULL,  -- stock.closing_qty when the run read it
+    repaired BOOLEAN NOT NULL DEFAULT false
+);
+
+CREATE INDEX idx_stock_reconciliation_issue_run ON stock_reconciliation_issue(run_id);
+
+-- Latest ledger row per (warehouse, item) without a sort over the tenant's whole ledger
+CREATE INDEX idx_stock_ledger_tenant_key_created ON stock_ledger(tenant_id, warehouse_id, item_id, created_at DESC, id DESC);
@@ -0,0 +1,27 @@
+-- Opening-stock imports run in the background; the upload returns the job id and the client polls it
+CREATE TABLE stock_import_job (
+    id BIGSERIAL PRIMARY KEY,
+    tenant_id BIGINT NOT NULL,
+    file_name VARCHAR(255),
+    status VARCHAR(20) NOT NULL, -- QUEUED, RUNNING, COMPLETED, FAILED
+    total_rows BIGINT NOT NULL DEFAULT 0,
+    imported_rows BIGINT NOT NULL DEFAULT 0,
+    failed_rows BIGINT NOT NULL DEFAULT 0,
+    message TEXT,
+    created_by BIGINT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    started_at TIMESTAMP,
+    finished_at TIMESTAMP
+);
+
+CREATE INDEX idx_stock_import_job_tenant ON stock_import_job(tenant_id, created_at DESC);
+
+-- Rejected rows, capped per job by stock.opening-import.max-errors
+CREATE TABLE stock_import_error (
+    id BIGSERIAL PRIMARY KEY,
+    job_id BIGINT NOT NULL REFERENCES stock_import_job(id) ON DELETE CASCADE,
+    row_number BIGINT NOT NULL,
+    message VARCHAR(500) NOT NULL
+);
+
+CREATE INDEX idx_stock_import_error_job ON stock_import_error(job_id, row_number);
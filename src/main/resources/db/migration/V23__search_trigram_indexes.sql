@@ -0,0 +1,24 @@
+-- Trigram indexes for the list searches. Every search box filters with LOWER(col) LIKE '%term%',
+-- which a btree cannot serve; a GIN trigram index over the same LOWER(col) expression can, for
+-- terms of three or more characters. Each index must keep the exact expression the query uses.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Sales orders: order number, remarks
+CREATE INDEX IF NOT EXISTS idx_sales_order_order_number_trgm ON sales_order USING gin (LOWER(order_number) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_sales_order_remarks_trgm ON sales_order USING gin (LOWER(remarks) gin_trgm_ops);
+
+-- Invoices: invoice number, remarks
+CREATE INDEX IF NOT EXISTS idx_invoice_invoice_number_trgm ON invoice USING gin (LOWER(invoice_number) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_invoice_remarks_trgm ON invoice USING gin (LOWER(remarks) gin_trgm_ops);
+
+-- Deliveries: delivery number
+CREATE INDEX IF NOT EXISTS idx_delivery_delivery_number_trgm ON delivery USING gin (LOWER(delivery_number) gin_trgm_ops);
+
+-- Item catalog: name, code, barcode (also serves the stock search by name / code)
+CREATE INDEX IF NOT EXISTS idx_items_name_trgm ON inventory.items USING gin (LOWER(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_items_item_code_trgm ON inventory.items USING gin (LOWER(item_code) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_items_barcode_trgm ON inventory.items USING gin (LOWER(barcode) gin_trgm_ops);
+
+-- Stock ledger: uuid. UUIDs are always written in lower case, so the column is indexed as is and
+-- the ledger search lower-cases only the term.
+CREATE INDEX IF NOT EXISTS idx_stock_ledger_uuid_trgm ON stock_ledger USING gin (uuid gin_trgm_ops);
@@ -0,0 +1,27 @@
+-- Composite indexes for the filtered lists. The list queries now carry only the filters actually
+-- supplied and read newest first, so the common shapes (tenant + status, tenant + customer,
+-- tenant + warehouse) each get an index that also returns rows in (created_at DESC, id DESC) order.
+-- The plain (tenant_id, created_at DESC, id DESC) indexes come from V14.
+
+-- Sales orders
+CREATE INDEX IF NOT EXISTS idx_sales_order_tenant_status_created_id ON sales_order(tenant_id, status, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_sales_order_tenant_customer_created_id ON sales_order(tenant_id, customer_id, created_at DESC, id DESC);
+
+-- Invoices
+CREATE INDEX IF NOT EXISTS idx_invoice_tenant_status_created_id ON invoice(tenant_id, status, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_invoice_tenant_customer_created_id ON invoice(tenant_id, customer_id, created_at DESC, id DESC);
+
+-- Deliveries
+CREATE INDEX IF NOT EXISTS idx_delivery_tenant_status_created_id ON delivery(tenant_id, status, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_delivery_tenant_customer_created_id ON delivery(tenant_id, customer_id, created_at DESC, id DESC);
+
+-- Stock ledger
+CREATE INDEX IF NOT EXISTS idx_stock_ledger_tenant_warehouse_created_id ON stock_ledger(tenant_id, warehouse_id, created_at DESC, id DESC);
+
+-- Stock adjustments
+CREATE INDEX IF NOT EXISTS idx_stock_adjustment_tenant_created_id ON stock_adjustment(tenant_id, created_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_stock_adjustment_tenant_status_created_id ON stock_adjustment(tenant_id, adjustment_status, created_at DESC, id DESC);
+
+-- Payments list newest id first
+CREATE INDEX IF NOT EXISTS idx_payment_tenant_id_desc ON payment(tenant_id, id DESC);
+CREATE INDEX IF NOT EXISTS idx_payment_tenant_customer_id_desc ON payment(tenant_id, customer_id, id DESC);
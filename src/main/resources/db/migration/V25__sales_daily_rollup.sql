@@ -0,0 +1,61 @@
+-- Read model behind the sales order and invoice dashboards: one row per (tenant, day, warehouse,
+-- customer) with the order and invoice measures of the documents created that day. Touched rows are
+-- recomputed when a document is created or changes status, and recent days are recomputed nightly.
+CREATE TABLE sales_daily_rollup (
+    tenant_id BIGINT NOT NULL,
+    report_date DATE NOT NULL,
+    warehouse_id BIGINT NOT NULL,
+    customer_id BIGINT NOT NULL,
+    so_count BIGINT NOT NULL DEFAULT 0,
+    so_value DECIMAL(18, 2) NOT NULL DEFAULT 0,
+    so_converted_count BIGINT NOT NULL DEFAULT 0,         -- PARTIALLY_INVOICED, FULLY_INVOICED
+    so_converted_value DECIMAL(18, 2) NOT NULL DEFAULT 0,
+    so_confirmed_count BIGINT NOT NULL DEFAULT 0,
+    so_pending_approval_count BIGINT NOT NULL DEFAULT 0,
+    so_cancelled_count BIGINT NOT NULL DEFAULT 0,         -- CANCELLED, REJECTED
+    invoice_count BIGINT NOT NULL DEFAULT 0,
+    invoice_value DECIMAL(18, 2) NOT NULL DEFAULT 0,
+    invoice_collected DECIMAL(18, 2) NOT NULL DEFAULT 0,
+    invoice_balance DECIMAL(18, 2) NOT NULL DEFAULT 0,
+    invoice_pending_count BIGINT NOT NULL DEFAULT 0,
+    invoice_pending_delivery_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (tenant_id, report_date, warehouse_id, customer_id)
+);
+
+WITH so AS (
+    SELECT tenant_id, CAST(created_at AS DATE) AS report_date, warehouse_id, customer_id,
+           COUNT(*) AS so_count,
+           COALESCE(SUM(grand_total), 0) AS so_value,
+           COUNT(*) FILTER (WHERE status IN ('PARTIALLY_INVOICED', 'FULLY_INVOICED')) AS so_converted_count,
+           COALESCE(SUM(grand_total) FILTER (WHERE status IN ('PARTIALLY_INVOICED', 'FULLY_INVOICED')), 0) AS so_converted_value,
+           COUNT(*) FILTER (WHERE status = 'CONFIRMED') AS so_confirmed_count,
+           COUNT(*) FILTER (WHERE status = 'PENDING_APPROVAL') AS so_pending_approval_count,
+           COUNT(*) FILTER (WHERE status IN ('CANCELLED', 'REJECTED')) AS so_cancelled_count
+    FROM sales_order
+    GROUP BY tenant_id, CAST(created_at AS DATE), warehouse_id, customer_id
+),
+inv AS (
+    SELECT tenant_id, CAST(created_at AS DATE) AS report_date, warehouse_id, customer_id,
+           COUNT(*) AS invoice_count,
+           COALESCE(SUM(grand_total), 0) AS invoice_value,
+           COALESCE(SUM(amount_paid), 0) AS invoice_collected,
+           COALESCE(SUM(balance), 0) AS invoice_balance,
+           COUNT(*) FILTER (WHERE status = 'PENDING') AS invoice_pending_count,
+           COUNT(*) FILTER (WHERE delivery_status = 'PENDING') AS invoice_pending_delivery_count
+    FROM invoice
+    GROUP BY tenant_id, CAST(created_at AS DATE), warehouse_id, customer_id
+)
+INSERT INTO sales_daily_rollup (tenant_id, report_date, warehouse_id, customer_id,
+                                so_count, so_value, so_converted_count, so_converted_value, so_confirmed_count,
+                                so_pending_approval_count, so_cancelled_count,
+                                invoice_count, invoice_value, invoice_collected, invoice_balance,
+                                invoice_pending_count, invoice_pending_delivery_count)
+SELECT tenant_id, report_date, warehouse_id, customer_id,
+       COALESCE(so_count, 0), COALESCE(so_value, 0), COALESCE(so_converted_count, 0),
+       COALESCE(so_converted_value, 0), COALESCE(so_confirmed_count, 0),
+       COALESCE(so_pending_approval_count, 0), COALESCE(so_cancelled_count, 0),
+       COALESCE(invoice_count, 0), COALESCE(invoice_value, 0), COALESCE(invoice_collected, 0),
+       COALESCE(invoice_balance, 0), COALESCE(invoice_pending_count, 0),
+       COALESCE(invoice_pending_delivery_count, 0)
+FROM so FULL JOIN inv USING (tenant_id, report_date, warehouse_id, customer_id);
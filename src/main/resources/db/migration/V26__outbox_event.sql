@@ -0,0 +1,24 @@
+-- Transactional outbox: side effects of a document (its delivery, approval follow-ups, notifications)
+-- are written here in the document's own transaction and carried out after commit by the outbox
+-- workers, one event per transaction. Delivered events are kept for a few days, failed ones until
+-- someone re-queues them (status back to PENDING).
+CREATE TABLE outbox_event (
+    id BIGSERIAL PRIMARY KEY,
+    tenant_id BIGINT NOT NULL,
+    user_id BIGINT,                                       -- who caused the event; handlers run as them
+    event_type VARCHAR(50) NOT NULL,
+    aggregate_id BIGINT,                                  -- document the event is about, if any
+    payload TEXT NOT NULL,                                -- JSON, read by the event type's handler
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',        -- PENDING, DONE, FAILED
+    attempts INTEGER NOT NULL DEFAULT 0,
+    available_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    processed_at TIMESTAMP
+);
+
+-- Workers claim the oldest due event; only pending rows are indexed, so the index stays as small
+-- as the backlog
+CREATE INDEX idx_outbox_event_due ON outbox_event (available_at, id) WHERE status = 'PENDING';
+
+CREATE INDEX idx_outbox_event_processed ON outbox_event (processed_at) WHERE status = 'DONE';
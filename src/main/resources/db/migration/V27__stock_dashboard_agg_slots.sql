@@ -0,0 +1,7 @@
+-- Each (tenant, warehouse) aggregate is striped over several slot rows so concurrent postings to one
+-- warehouse do not all queue on the same row lock at commit. A posting adds its deltas to one slot;
+-- readers sum the slots. The periodic rebuild writes the recomputed totals to slot 0 and zeroes the rest.
+ALTER TABLE stock_dashboard_agg ADD COLUMN slot SMALLINT NOT NULL DEFAULT 0;
+
+ALTER TABLE stock_dashboard_agg DROP CONSTRAINT stock_dashboard_agg_pkey;
+ALTER TABLE stock_dashboard_agg ADD PRIMARY KEY (tenant_id, warehouse_id, slot);
@@ -1,10 +1,9 @@
 package com.ezh.Inventory;
 
+import com.ezh.Inventory.support.PostgresIntegrationTest;
 import org.junit.jupiter.api.Test;
-import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
-class InventoryApplicationTests {
+class InventoryApplicationTests extends PostgresIntegrationTest {
 
 	@Test
 	void contextLoads() {
@@ -0,0 +1,139 @@
+package com.ezh.Inventory.common.outbox.service;
+
+import com.ezh.Inventory.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * INVOICE_DELIVERY events drained through {@link OutboxDispatcher#dispatchNext} on several threads
+ * must give every invoice exactly one delivery with all its lines, and redelivering every event
+ * must change nothing: the handler skips invoices that already have a delivery.
+ */
+class OutboxDispatcherTest extends PostgresIntegrationTest {
+
+    // A tenant of its own, so the seeded documents stay out of the other tests' way
+    private static final long OUTBOX_TENANT_ID = 3L;
+    private static final int INVOICES = 200;
+    private static final int LINES = 5;
+    private static final int WORKERS = 4;
+
+    @Autowired
+    private OutboxDispatcher dispatcher;
+
+    private ExecutorService executor;
+    private MapSqlParameterSource params;
+
+    @BeforeEach
+    void seed() {
+        executor = Executors.newFixedThreadPool(WORKERS);
+        params = new MapSqlParameterSource()
+                .addValue("tenantId", OUTBOX_TENANT_ID)
+                .addValue("invoices", INVOICES)
+                .addValue("lines", LINES);
+
+        jdbc.update("""
+                DELETE FROM delivery_item WHERE delivery_id IN (SELECT id FROM delivery WHERE tenant_id = :tenantId)
+                """, params);
+        jdbc.update("DELETE FROM delivery WHERE tenant_id = :tenantId", params);
+        jdbc.update("DELETE FROM outbox_event WHERE tenant_id = :tenantId", params);
+        jdbc.update("""
+                DELETE FROM invoice_item WHERE invoice_id IN (SELECT id FROM invoice WHERE tenant_id = :tenantId)
+                """, params);
+        jdbc.update("DELETE FROM invoice WHERE tenant_id = :tenantId", params);
+        jdbc.update("DELETE FROM sales_order WHERE tenant_id = :tenantId", params);
+
+        jdbc.update("""
+                INSERT INTO sales_order (uuid, created_at, tenant_id, warehouse_id, order_number, customer_id,
+                                         order_date, status, source, grand_total)
+                SELECT CAST(gen_random_uuid() AS varchar), CURRENT_TIMESTAMP, :tenantId, 1,
+                       'OSO-' || lpad(CAST(g AS text), 9, '0'), 1 + g % 50, CURRENT_TIMESTAMP, 'FULLY_INVOICED',
+                       'SALES_TEAM', 100 * :lines
+                FROM generate_series(1, :invoices) AS g
+                """, params);
+        jdbc.update("""
+                INSERT INTO invoice (uuid, created_at, tenant_id, warehouse_id, invoice_number, invoice_date,
+                                     sales_order_id, customer_id, status, delivery_status, payment_status,
+                                     invoice_type, grand_total, balance)
+                SELECT CAST(gen_random_uuid() AS varchar), so.created_at, so.tenant_id, so.warehouse_id,
+                       'OINV-' || substr(so.order_number, 5), so.order_date, so.id, so.customer_id, 'PENDING',
+                       'PENDING', 'UNPAID', 'CREDIT', so.grand_total, so.grand_total
+                FROM sales_order so
+                WHERE so.tenant_id = :tenantId
+                """, params);
+        jdbc.update("""
+                INSERT INTO invoice_item (uuid, invoice_id, item_id, item_name, batch_number, quantity, unit_price,
+                                          line_total)
+                SELECT CAST(gen_random_uuid() AS varchar), i.id, l, 'Outbox item ' || l, 'B-1', 1, 100, 100
+                FROM invoice i, generate_series(1, :lines) AS l
+                WHERE i.tenant_id = :tenantId
+                """, params);
+        jdbc.update("""
+                INSERT INTO outbox_event (tenant_id, user_id, event_type, aggregate_id, payload)
+                SELECT i.tenant_id, 1, 'INVOICE_DELIVERY', i.id,
+                       '{"type":"IN_HOUSE_DELIVERY","scheduledDate":null,"deliveryAddress":"Route ' || i.id % 20 || '"}'
+                FROM invoice i
+                WHERE i.tenant_id = :tenantId
+                ORDER BY i.id
+                """, params);
+    }
+
+    @AfterEach
+    void stopWorkers() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void deliversEachInvoiceExactlyOnce() {
+        drain();
+        assertExactlyOneDeliveryPerInvoice();
+
+        // Every event handled again, as after a lost acknowledgement
+        jdbc.update("""
+                UPDATE outbox_event SET status = 'PENDING', attempts = 0, available_at = CURRENT_TIMESTAMP,
+                                        processed_at = NULL
+                WHERE tenant_id = :tenantId
+                """, params);
+        drain();
+        assertExactlyOneDeliveryPerInvoice();
+    }
+
+    private void assertExactlyOneDeliveryPerInvoice() {
+        assertThat(count("SELECT COUNT(*) FROM outbox_event WHERE tenant_id = :tenantId AND status <> 'DONE'",
+                params)).as("events not delivered").isZero();
+        assertThat(count("SELECT COUNT(*) FROM delivery WHERE tenant_id = :tenantId", params))
+                .as("deliveries").isEqualTo(INVOICES);
+        assertThat(count("""
+                SELECT COUNT(*) FROM delivery_item di JOIN delivery d ON d.id = di.delivery_id
+                WHERE d.tenant_id = :tenantId
+                """, params)).as("delivery lines").isEqualTo(INVOICES * LINES);
+        assertThat(count("""
+                SELECT COUNT(*) FROM invoice i
+                WHERE i.tenant_id = :tenantId
+                  AND (SELECT COUNT(*) FROM delivery d WHERE d.invoice_id = i.id) <> 1
+                """, params)).as("invoices without exactly one delivery").isZero();
+    }
+
+    // Other tests leave events of their own tenants queued; they are drained along the way
+    private void drain() {
+        List<CompletableFuture<Void>> runs = new ArrayList<>(WORKERS);
+        for (int i = 0; i < WORKERS; i++) {
+            runs.add(CompletableFuture.runAsync(() -> {
+                while (dispatcher.dispatchNext()) {
+                    // keep leasing until nothing is due
+                }
+            }, executor));
+        }
+        CompletableFuture.allOf(runs.toArray(CompletableFuture[]::new)).join();
+    }
+}
@@ -0,0 +1,141 @@
+package com.ezh.Inventory.sales.invoice.service;
+
+import com.ezh.Inventory.sales.delivery.entity.ShipmentType;
+import com.ezh.Inventory.sales.invoice.dto.InvoiceDto;
+import com.ezh.Inventory.sales.invoice.dto.InvoiceItemDto;
+import com.ezh.Inventory.sales.invoice.entity.Invoice;
+import com.ezh.Inventory.support.PostgresIntegrationTest;
+import com.ezh.Inventory.support.RoundTripCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Direct invoices posted through {@link InvoicePostingPipeline} must cost the same number of JDBC
+ * statements whatever their line count (see {@link RoundTripCounter}).
+ */
+class InvoicePostingPipelineTest extends PostgresIntegrationTest {
+
+    private static final long WAREHOUSE_ID = 1L;
+    private static final long CUSTOMER_ID = 1L;
+    private static final int MAX_LINES = 50;
+    private static final int STOCK_QTY = 10_000;
+
+    @Autowired
+    private InvoicePostingPipeline invoicePostingPipeline;
+
+    private List<Long> itemIds;
+
+    @BeforeEach
+    void seed() {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tenantId", TENANT_ID)
+                .addValue("warehouseId", WAREHOUSE_ID)
+                .addValue("items", MAX_LINES)
+                .addValue("qty", STOCK_QTY);
+        if (count("SELECT COUNT(*) FROM items WHERE item_code LIKE 'PIPE-%'", params) == 0) {
+            jdbc.update("""
+                    INSERT INTO items (uuid, created_at, updated_at, is_deleted, name, tenant_id, item_code, sku,
+                                       item_type, purchase_price, selling_price, tax_percentage, is_active)
+                    SELECT CAST(gen_random_uuid() AS varchar), CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, false,
+                           'Pipeline item ' || i, :tenantId, 'PIPE-' || i, 'PIPE-SKU-' || i, 'PRODUCT', 80, 100, 18, true
+                    FROM generate_series(1, :items) AS i
+                    """, params);
+        }
+        itemIds = jdbc.queryForList("SELECT id FROM items WHERE item_code LIKE 'PIPE-%' ORDER BY id", params, Long.class);
+
+        params.addValue("itemIds", itemIds.stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}")));
+        jdbc.update("""
+                DELETE FROM stock_batch WHERE tenant_id = :tenantId AND item_id = ANY(CAST(:itemIds AS bigint[]))
+                """, params);
+        jdbc.update("""
+                DELETE FROM stock WHERE tenant_id = :tenantId AND item_id = ANY(CAST(:itemIds AS bigint[]))
+                """, params);
+        jdbc.update("""
+                INSERT INTO stock (uuid, created_at, updated_at, is_deleted, item_id, tenant_id, warehouse_id,
+                                   opening_qty, in_qty, out_qty, closing_qty, average_cost, stock_value, version)
+                SELECT CAST(gen_random_uuid() AS varchar), CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, false, i, :tenantId,
+                       :warehouseId, :qty, 0, 0, :qty, 80, 80 * :qty, 0
+                FROM unnest(CAST(:itemIds AS bigint[])) AS i
+                """, params);
+        jdbc.update("""
+                INSERT INTO stock_batch (uuid, created_at, updated_at, is_deleted, item_id, warehouse_id, tenant_id,
+                                         batch_number, buy_price, initial_qty, remaining_qty)
+                SELECT CAST(gen_random_uuid() AS varchar), CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, false, i,
+                       :warehouseId, :tenantId, 'P-1', 80, :qty, :qty
+                FROM unnest(CAST(:itemIds AS bigint[])) AS i
+                """, params);
+    }
+
+    @Test
+    void directInvoiceStatementsDoNotGrowWithLines() {
+        // Warms the item cache and the lazily initialised paths, so every measured run starts equal
+        post(MAX_LINES);
+
+        long single = statements(1);
+        long some = statements(10);
+        long full = statements(MAX_LINES);
+
+        assertThat(single).isPositive();
+        assertThat(some).as("statements for 10 lines").isEqualTo(single);
+        assertThat(full).as("statements for %d lines", MAX_LINES).isEqualTo(single);
+    }
+
+    @Test
+    void postsEveryLine() {
+        Invoice invoice = post(MAX_LINES);
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("invoiceId", invoice.getId())
+                .addValue("tenantId", TENANT_ID)
+                .addValue("itemIds", itemIds.stream().map(String::valueOf).collect(Collectors.joining(",", "{", "}")));
+        assertThat(count("SELECT COUNT(*) FROM invoice_item WHERE invoice_id = :invoiceId", params))
+                .isEqualTo(MAX_LINES);
+        assertThat(count("""
+                SELECT COALESCE(SUM(out_qty), 0) FROM stock
+                WHERE tenant_id = :tenantId AND item_id = ANY(CAST(:itemIds AS bigint[]))
+                """, params)).isEqualTo(MAX_LINES);
+    }
+
+    private long statements(int lines) {
+        InvoiceDto dto = invoice(lines);
+        long before = RoundTripCounter.count();
+        post(dto);
+        return RoundTripCounter.count() - before;
+    }
+
+    private Invoice post(int lines) {
+        return post(invoice(lines));
+    }
+
+    private Invoice post(InvoiceDto dto) {
+        return invoicePostingPipeline.postAllLocked(List.of(dto), TENANT_ID).getFirst();
+    }
+
+    private InvoiceDto invoice(int lines) {
+        List<InvoiceItemDto> items = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) {
+            items.add(InvoiceItemDto.builder()
+                    .itemId(itemIds.get(i))
+                    .quantity(1)
+                    .unitPrice(new BigDecimal("100.00"))
+                    .discountRate(BigDecimal.ZERO)
+                    .taxRate(new BigDecimal("18"))
+                    .build());
+        }
+        return InvoiceDto.builder()
+                .customerId(CUSTOMER_ID)
+                .warehouseId(WAREHOUSE_ID)
+                .deliveryType(ShipmentType.CUSTOMER_PICKUP)
+                .items(items)
+                .build();
+    }
+}
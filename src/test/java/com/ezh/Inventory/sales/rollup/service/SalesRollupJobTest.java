@@ -0,0 +1,193 @@
+package com.ezh.Inventory.sales.rollup.service;
+
+import com.ezh.Inventory.sales.invoice.dto.InvoiceStats;
+import com.ezh.Inventory.sales.invoice.repository.InvoiceRepository;
+import com.ezh.Inventory.sales.order.dto.SalesOrderStats;
+import com.ezh.Inventory.sales.order.repository.SalesConversionDateProjection;
+import com.ezh.Inventory.sales.order.repository.SalesOrderRepository;
+import com.ezh.Inventory.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The dashboard and conversion report queries over {@code sales_daily_rollup}, filled by
+ * {@link SalesRollupJob#recompute}, must report exactly what the aggregates over
+ * {@code sales_order} and {@code invoice} they replaced report for the same window.
+ */
+class SalesRollupJobTest extends PostgresIntegrationTest {
+
+    // A tenant of its own, so the seeded documents stay out of the other tests' way
+    private static final long ROLLUP_TENANT_ID = 4L;
+    private static final int ROWS = 20_000;
+    private static final int DAYS = 60;
+    private static final int WINDOW_DAYS = 30;
+
+    private static final String CONVERTED = "so.status IN ('PARTIALLY_INVOICED', 'FULLY_INVOICED')";
+
+    private static final String LEGACY_ORDER_STATS = """
+            SELECT COALESCE(SUM(so.grand_total), 0) AS total_value,
+                   COALESCE(SUM(CASE WHEN %1$s THEN so.grand_total ELSE 0 END), 0) AS converted_value,
+                   COUNT(*) AS total_sales_orders,
+                   COUNT(*) FILTER (WHERE %1$s) AS converted,
+                   COUNT(*) FILTER (WHERE so.status = 'CONFIRMED') AS confirmed,
+                   COUNT(*) FILTER (WHERE so.status = 'PENDING_APPROVAL') AS pending_approval,
+                   COUNT(*) FILTER (WHERE so.status IN ('CANCELLED', 'REJECTED')) AS cancelled
+            FROM sales_order so
+            WHERE so.tenant_id = :tenantId AND so.created_at >= :from AND so.created_at <= :to
+            """.formatted(CONVERTED);
+
+    private static final String LEGACY_CONVERSION_REPORT = """
+            SELECT CAST(so.created_at AS date) AS report_date,
+                   COUNT(*) AS total_sales_orders,
+                   COUNT(*) FILTER (WHERE %1$s) AS converted,
+                   SUM(so.grand_total) AS total_value,
+                   SUM(CASE WHEN %1$s THEN so.grand_total ELSE 0 END) AS converted_value,
+                   COUNT(*) FILTER (WHERE so.status = 'PENDING_APPROVAL') AS pending_approval,
+                   COUNT(*) FILTER (WHERE so.status IN ('CANCELLED', 'REJECTED')) AS cancelled
+            FROM sales_order so
+            WHERE so.tenant_id = :tenantId AND so.created_at >= :from AND so.created_at <= :to
+            GROUP BY CAST(so.created_at AS date)
+            ORDER BY CAST(so.created_at AS date)
+            """.formatted(CONVERTED);
+
+    private static final String LEGACY_INVOICE_STATS = """
+            SELECT COALESCE(SUM(i.grand_total), 0) AS total_value,
+                   COALESCE(SUM(i.amount_paid), 0) AS collected,
+                   COALESCE(SUM(i.balance), 0) AS uncollected,
+                   COUNT(*) FILTER (WHERE i.status = 'PENDING') AS pending,
+                   COUNT(*) FILTER (WHERE i.delivery_status = 'PENDING') AS pending_delivery
+            FROM invoice i
+            WHERE i.tenant_id = :tenantId AND i.created_at >= :from AND i.created_at <= :to
+            """;
+
+    @Autowired
+    private SalesRollupJob salesRollupJob;
+
+    @Autowired
+    private SalesOrderRepository salesOrderRepository;
+
+    @Autowired
+    private InvoiceRepository invoiceRepository;
+
+    private LocalDate from;
+    private LocalDate to;
+    private MapSqlParameterSource window;
+
+    @BeforeEach
+    void seed() {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tenantId", ROLLUP_TENANT_ID)
+                .addValue("rows", ROWS)
+                .addValue("days", DAYS);
+        if (count("SELECT COUNT(*) FROM sales_order WHERE tenant_id = :tenantId", params) == 0) {
+            insertDocuments(params);
+        }
+
+        LocalDate today = LocalDate.now();
+        for (LocalDate day = today.minusDays(DAYS); !day.isAfter(today); day = day.plusDays(1)) {
+            salesRollupJob.recompute(ROLLUP_TENANT_ID, day);
+        }
+
+        to = today;
+        from = today.minusDays(WINDOW_DAYS - 1L);
+        window = new MapSqlParameterSource()
+                .addValue("tenantId", ROLLUP_TENANT_ID)
+                .addValue("from", Timestamp.valueOf(from.atStartOfDay()))
+                .addValue("to", Timestamp.valueOf(to.plusDays(1).atStartOfDay().minusNanos(1000)));
+    }
+
+    @Test
+    void orderStatsMatchTheDocuments() {
+        Map<String, Object> expected = jdbc.queryForMap(LEGACY_ORDER_STATS, window);
+        SalesOrderStats stats = salesOrderRepository.getDashboardStats(ROLLUP_TENANT_ID, from, to);
+
+        assertThat(decimal(expected.get("total_sales_orders"))).isPositive();
+        assertSame("order value", expected.get("total_value"), stats.getTotalValue());
+        assertSame("converted value", expected.get("converted_value"), stats.getConvertedSalesValue());
+        assertSame("order count", expected.get("total_sales_orders"), stats.getTotalSalesOrders());
+        assertSame("converted orders", expected.get("converted"), stats.getConvertedToInvoiceCount());
+        assertSame("confirmed orders", expected.get("confirmed"), stats.getConfirmedCount());
+        assertSame("orders pending approval", expected.get("pending_approval"), stats.getPendingApprovalCount());
+        assertSame("cancelled orders", expected.get("cancelled"), stats.getCancelledCount());
+    }
+
+    @Test
+    void conversionReportMatchesTheDocuments() {
+        List<Map<String, Object>> expected = jdbc.queryForList(LEGACY_CONVERSION_REPORT, window);
+        List<SalesConversionDateProjection> report =
+                salesOrderRepository.getSalesOrderConversionReport(ROLLUP_TENANT_ID, null, null, from, to);
+
+        assertThat(report).hasSize(expected.size()).isNotEmpty();
+        for (int i = 0; i < report.size(); i++) {
+            Map<String, Object> day = expected.get(i);
+            SalesConversionDateProjection actual = report.get(i);
+            LocalDate date = ((Date) day.get("report_date")).toLocalDate();
+            assertThat(actual.getReportDate()).as("report date %d", i).isEqualTo(date);
+            assertSame("orders on " + date, day.get("total_sales_orders"), actual.getTotalSalesOrders());
+            assertSame("converted on " + date, day.get("converted"), actual.getConvertedToInvoice());
+            assertSame("value on " + date, day.get("total_value"), actual.getTotalSalesValue());
+            assertSame("converted value on " + date, day.get("converted_value"), actual.getConvertedSalesValue());
+            assertSame("pending approval on " + date, day.get("pending_approval"), actual.getPendingApprovalCount());
+            assertSame("cancelled on " + date, day.get("cancelled"), actual.getCancelledRejectedCount());
+        }
+    }
+
+    @Test
+    void invoiceStatsMatchTheDocuments() {
+        Map<String, Object> expected = jdbc.queryForMap(LEGACY_INVOICE_STATS, window);
+        InvoiceStats stats = invoiceRepository.getDashboardStats(ROLLUP_TENANT_ID, from, to);
+
+        assertThat(decimal(expected.get("total_value"))).isPositive();
+        assertSame("invoice value", expected.get("total_value"), stats.getTotalInvoiceValue());
+        assertSame("collected", expected.get("collected"), stats.getCollectedAmount());
+        assertSame("uncollected", expected.get("uncollected"), stats.getUncollectedAmount());
+        assertSame("pending invoices", expected.get("pending"), stats.getPendingCount());
+        assertSame("pending deliveries", expected.get("pending_delivery"), stats.getPendingDeliveryCount());
+    }
+
+    // Counts come back as Long on one side and BigDecimal or Integer on the other
+    private static void assertSame(String what, Object expected, Object actual) {
+        assertThat(decimal(actual)).as(what).isEqualByComparingTo(decimal(expected));
+    }
+
+    private static BigDecimal decimal(Object value) {
+        return value != null ? new BigDecimal(value.toString()) : BigDecimal.ZERO;
+    }
+
+    private void insertDocuments(MapSqlParameterSource params) {
+        jdbc.update("""
+                INSERT INTO sales_order (uuid, created_at, tenant_id, warehouse_id, order_number, customer_id,
+                                         order_date, status, source, grand_total)
+                SELECT CAST(gen_random_uuid() AS varchar),
+                       CURRENT_TIMESTAMP - (g % :days) * INTERVAL '1 day' - (g % 600) * INTERVAL '1 minute',
+                       :tenantId, 1 + g % 3, 'RSO-' || lpad(CAST(g AS text), 9, '0'), 1 + g % 500, CURRENT_TIMESTAMP,
+                       (ARRAY['CONFIRMED', 'PENDING_APPROVAL', 'PARTIALLY_INVOICED', 'FULLY_INVOICED',
+                              'CANCELLED', 'REJECTED'])[1 + g % 6],
+                       'SALES_TEAM', 100 + g % 900
+                FROM generate_series(1, :rows) AS g
+                """, params);
+        jdbc.update("""
+                INSERT INTO invoice (uuid, created_at, tenant_id, warehouse_id, invoice_number, invoice_date,
+                                     sales_order_id, customer_id, status, delivery_status, payment_status,
+                                     invoice_type, grand_total, amount_paid, balance)
+                SELECT CAST(gen_random_uuid() AS varchar), so.created_at + INTERVAL '1 hour', so.tenant_id,
+                       so.warehouse_id, 'RINV-' || substr(so.order_number, 5), so.order_date, so.id, so.customer_id,
+                       CASE WHEN so.id % 2 = 0 THEN 'PENDING' ELSE 'ISSUED' END,
+                       CASE WHEN so.id % 3 = 0 THEN 'PENDING' ELSE 'DELIVERED' END,
+                       'UNPAID', 'CREDIT', so.grand_total, so.grand_total / 2, so.grand_total - so.grand_total / 2
+                FROM sales_order so
+                WHERE so.tenant_id = :tenantId
+                """, params);
+    }
+}
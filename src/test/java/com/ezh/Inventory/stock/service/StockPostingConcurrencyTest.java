@@ -0,0 +1,147 @@
+package com.ezh.Inventory.stock.service;
+
+import com.ezh.Inventory.stock.dto.StockUpdateDto;
+import com.ezh.Inventory.stock.entity.MovementType;
+import com.ezh.Inventory.stock.entity.ReferenceType;
+import com.ezh.Inventory.support.PostgresIntegrationTest;
+import com.ezh.Inventory.utils.exception.BadRequestException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrent unbatched OUT postings against one item, asking for more than is on hand. Whichever
+ * postings win, the stock row must never go negative and must still agree with its movements
+ * and with its batches.
+ */
+class StockPostingConcurrencyTest extends PostgresIntegrationTest {
+
+    private static final long WAREHOUSE_ID = 1L;
+    private static final long ITEM_ID = 900_001L;
+    private static final int BATCHES = 10;
+    private static final int BATCH_QTY = 10;
+    private static final int OUT_QTY = 3;
+    private static final int POSTINGS = 60;
+    private static final int THREADS = 8;
+
+    @Autowired
+    private StockService stockService;
+
+    private final MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("tenantId", TENANT_ID)
+            .addValue("warehouseId", WAREHOUSE_ID)
+            .addValue("itemId", ITEM_ID)
+            .addValue("batches", BATCHES)
+            .addValue("batchQty", BATCH_QTY);
+
+    @BeforeEach
+    void seed() {
+        jdbc.update("""
+                DELETE FROM stock_batch WHERE tenant_id = :tenantId AND warehouse_id = :warehouseId AND item_id = :itemId
+                """, params);
+        jdbc.update("""
+                DELETE FROM stock WHERE tenant_id = :tenantId AND warehouse_id = :warehouseId AND item_id = :itemId
+                """, params);
+        jdbc.update("""
+                INSERT INTO stock (uuid, created_at, updated_at, is_deleted, item_id, tenant_id, warehouse_id,
+                                   opening_qty, in_qty, out_qty, closing_qty, average_cost, stock_value, version)
+                VALUES (CAST(gen_random_uuid() AS varchar), CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, false, :itemId,
+                        :tenantId, :warehouseId, 0, :batches * :batchQty, 0, :batches * :batchQty, 10,
+                        10 * :batches * :batchQty, 0)
+                """, params);
+        jdbc.update("""
+                INSERT INTO stock_batch (uuid, created_at, updated_at, is_deleted, item_id, warehouse_id, tenant_id,
+                                         batch_number, buy_price, initial_qty, remaining_qty)
+                SELECT CAST(gen_random_uuid() AS varchar), TIMESTAMP '2024-01-01' + b * INTERVAL '1 minute',
+                       CURRENT_TIMESTAMP, false, :itemId, :warehouseId, :tenantId, 'C-' || b, 10, :batchQty, :batchQty
+                FROM generate_series(1, :batches) AS b
+                """, params);
+    }
+
+    @Test
+    void concurrentOutsNeverOversellOrSplitFromBatches() throws Exception {
+        AtomicInteger posted = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> runs = new ArrayList<>(POSTINGS);
+            for (int i = 0; i < POSTINGS; i++) {
+                // Half single-line updates, half one-line documents, so both OUT paths race each other
+                boolean document = i % 2 == 0;
+                runs.add(executor.submit(() -> {
+                    signIn();
+                    try {
+                        start.await();
+                        if (document) {
+                            stockService.postMovements(List.of(out()));
+                        } else {
+                            stockService.updateStock(out());
+                        }
+                        posted.incrementAndGet();
+                    } catch (BadRequestException e) {
+                        rejected.incrementAndGet();
+                    } finally {
+                        SecurityContextHolder.clearContext();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> run : runs) {
+                run.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Map<String, Object> stock = jdbc.queryForMap("""
+                SELECT opening_qty, in_qty, out_qty, closing_qty FROM stock
+                WHERE tenant_id = :tenantId AND warehouse_id = :warehouseId AND item_id = :itemId
+                """, params);
+        int opening = ((Number) stock.get("opening_qty")).intValue();
+        int in = ((Number) stock.get("in_qty")).intValue();
+        int out = ((Number) stock.get("out_qty")).intValue();
+        int closing = ((Number) stock.get("closing_qty")).intValue();
+        int batchRemaining = count("""
+                SELECT COALESCE(SUM(remaining_qty), 0) FROM stock_batch
+                WHERE tenant_id = :tenantId AND warehouse_id = :warehouseId AND item_id = :itemId
+                """, params);
+
+        assertThat(posted.get() + rejected.get()).isEqualTo(POSTINGS);
+        assertThat(rejected.get()).as("postings refused for lack of stock").isPositive();
+        assertThat(closing).isNotNegative();
+        assertThat(opening + in - out).isEqualTo(closing);
+        assertThat(out).isEqualTo(posted.get() * OUT_QTY);
+        assertThat(batchRemaining).isEqualTo(closing);
+        assertThat(count("""
+                SELECT COUNT(*) FROM stock_batch
+                WHERE tenant_id = :tenantId AND warehouse_id = :warehouseId AND item_id = :itemId AND remaining_qty < 0
+                """, params)).isZero();
+    }
+
+    private static StockUpdateDto out() {
+        return StockUpdateDto.builder()
+                .itemId(ITEM_ID)
+                .warehouseId(WAREHOUSE_ID)
+                .quantity(OUT_QTY)
+                .transactionType(MovementType.OUT)
+                .referenceType(ReferenceType.SALE)
+                .referenceId(1L)
+                .build();
+    }
+}
@@ -0,0 +1,107 @@
+package com.ezh.Inventory.support;
+
+import com.ezh.Inventory.security.JwtAuthentication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.UUID;
+
+/**
+ * The application booted against a throwaway embedded Postgres (Flyway builds the schema), shared
+ * by every test class extending this one. Outbox workers are off, so nothing runs in the background.
+ * The test thread is signed in as one tenant; other threads call {@link #signIn()} themselves.
+ * Statements are counted by {@link RoundTripCounter}.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "logging.level.org.flywaydb=WARN",
+        "logging.level.org.springframework.jdbc=WARN",
+        "management.endpoints.web.exposure.include=health",
+        "jwt.secret=integration-test-signing-key-integration-test-0123456789",
+        "mcp.ai.url=http://localhost:0",
+        "auth.service.url=http://localhost:0",
+        "spring.mail.username=test",
+        "spring.mail.password=test",
+        "aws.s3.access-key-id=test",
+        "aws.s3.secret-access-key=test",
+        "aws.s3.bucket=test",
+        "outbox.enabled=false"})
+@Import(PostgresIntegrationTest.CountingDataSource.class)
+public abstract class PostgresIntegrationTest {
+
+    protected static final long TENANT_ID = 1L;
+    protected static final long USER_ID = 1L;
+
+    private static final EmbeddedPostgres POSTGRES = startPostgres();
+
+    @Autowired
+    protected NamedParameterJdbcTemplate jdbc;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @BeforeEach
+    void signInTestThread() {
+        signIn();
+    }
+
+    @AfterEach
+    void signOutTestThread() {
+        SecurityContextHolder.clearContext();
+    }
+
+    /** Signs the calling thread in as {@link #USER_ID} of {@link #TENANT_ID}. */
+    protected static void signIn() {
+        String uuid = UUID.randomUUID().toString();
+        SecurityContextHolder.getContext().setAuthentication(
+                new JwtAuthentication(USER_ID, uuid, "test@ezh.local", TENANT_ID, uuid, "ADMIN", "ADMIN"));
+    }
+
+    protected int count(String sql, MapSqlParameterSource params) {
+        Integer count = jdbc.queryForObject(sql, params, Integer.class);
+        return count != null ? count : 0;
+    }
+
+    @TestConfiguration(proxyBeanMethods = false)
+    static class CountingDataSource {
+
+        @Bean
+        static BeanPostProcessor roundTripCounter() {
+            return RoundTripCounter.dataSourceWrapper();
+        }
+    }
+
+    private static EmbeddedPostgres startPostgres() {
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException ignored) {
+                    // The JVM is going away; the data directory is temporary anyway
+                }
+            }));
+            return postgres;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not start embedded Postgres", e);
+        }
+    }
+}
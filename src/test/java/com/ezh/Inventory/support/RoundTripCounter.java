@@ -0,0 +1,61 @@
+package com.ezh.Inventory.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+
+/**
+ * Counts JDBC statement executions across the application's {@link DataSource}, Hibernate and
+ * JdbcTemplate alike. Every {@code execute*} call is one round trip to the database; a batch sent
+ * with {@code executeBatch} counts once. Counts are kept per thread, so scheduled jobs running
+ * meanwhile do not show up in the caller's count.
+ */
+public final class RoundTripCounter {
+
+    private static final ThreadLocal<long[]> EXECUTIONS = ThreadLocal.withInitial(() -> new long[1]);
+
+    private RoundTripCounter() {
+    }
+
+    /** Statements executed so far on the calling thread. */
+    public static long count() {
+        return EXECUTIONS.get()[0];
+    }
+
+    /** Registered on the context before refresh, so every consumer gets the counting data source. */
+    public static BeanPostProcessor dataSourceWrapper() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? wrap(DataSource.class, dataSource) : bean;
+            }
+        };
+    }
+
+    private static <T> T wrap(Class<T> type, T target) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                EXECUTIONS.get()[0]++;
+            }
+            Object result;
+            try {
+                result = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+            // unwrap() must hand out the driver's own object
+            if (method.getName().equals("unwrap")) return result;
+            if (result instanceof Connection connection) return wrap(Connection.class, connection);
+            if (result instanceof CallableStatement statement) return wrap(CallableStatement.class, statement);
+            if (result instanceof PreparedStatement statement) return wrap(PreparedStatement.class, statement);
+            if (result instanceof Statement statement) return wrap(Statement.class, statement);
+            return result;
+        }));
+    }
+}
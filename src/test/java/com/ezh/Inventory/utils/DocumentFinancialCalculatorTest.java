@@ -0,0 +1,197 @@
+package com.ezh.Inventory.utils;
+
+import com.ezh.Inventory.sales.invoice.entity.Invoice;
+import com.ezh.Inventory.sales.invoice.entity.InvoiceItem;
+import com.ezh.Inventory.sales.order.entity.SalesOrder;
+import com.ezh.Inventory.sales.order.entity.SalesOrderItem;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Amounts are compared with {@code equals}, not {@code compareTo}: a changed scale would show in
+ * API responses and PDFs.
+ */
+class DocumentFinancialCalculatorTest {
+
+    private static final BigDecimal[] AWKWARD_RATES = {null, BigDecimal.ZERO, new BigDecimal("0.00"),
+            new BigDecimal("12.5"), new BigDecimal("33.3333"), new BigDecimal("50"), new BigDecimal("100")};
+    private static final BigDecimal[] AWKWARD_PRICES = {new BigDecimal("0.01"), new BigDecimal("0.05"),
+            new BigDecimal("19.99"), new BigDecimal("1E+2"), new BigDecimal("7.125"), new BigDecimal("1234.5678")};
+
+    @Test
+    void roundsHalfCentsUp() {
+        DocumentFinancialCalculator calculator = new DocumentFinancialCalculator();
+
+        SalesOrderItem tie = calculator.addLine(new SalesOrderItem(), new BigDecimal("0.05"), 1,
+                new BigDecimal("10"), new BigDecimal("12.5"));
+        assertThat(tie.getDiscountAmount()).isEqualTo(new BigDecimal("0.01"));
+        assertThat(tie.getTaxAmount()).isEqualTo(new BigDecimal("0.01"));
+        assertThat(tie.getLineTotal()).isEqualTo(new BigDecimal("0.05"));
+
+        SalesOrderItem aboveTie = calculator.addLine(new SalesOrderItem(), new BigDecimal("0.15"), 1,
+                new BigDecimal("10"), BigDecimal.ZERO);
+        assertThat(aboveTie.getDiscountAmount()).isEqualTo(new BigDecimal("0.02"));
+        assertThat(aboveTie.getLineTotal()).isEqualTo(new BigDecimal("0.13"));
+    }
+
+    @Test
+    void treatsNullRatesAsZero() {
+        DocumentFinancialCalculator calculator = new DocumentFinancialCalculator();
+        SalesOrderItem line = calculator.addLine(new SalesOrderItem(), new BigDecimal("19.99"), 3, null, null);
+
+        assertThat(line.getDiscountRate()).isEqualTo(BigDecimal.ZERO);
+        assertThat(line.getTaxRate()).isEqualTo(BigDecimal.ZERO);
+        assertThat(line.getDiscountAmount()).isEqualTo(new BigDecimal("0.00"));
+        assertThat(line.getTaxAmount()).isEqualTo(new BigDecimal("0.00"));
+        assertThat(line.getLineTotal()).isEqualTo(new BigDecimal("59.97"));
+
+        SalesOrder order = new SalesOrder();
+        calculator.applyTo(order, null, null);
+        assertThat(order.getFlatDiscountRate()).isEqualTo(BigDecimal.ZERO);
+        assertThat(order.getFlatTaxRate()).isEqualTo(BigDecimal.ZERO);
+        assertThat(order.getFlatDiscountAmount()).isEqualTo(new BigDecimal("0.00"));
+        assertThat(order.getFlatTaxAmount()).isEqualTo(new BigDecimal("0.00"));
+        assertThat(order.getGrandTotal()).isEqualTo(new BigDecimal("59.97"));
+    }
+
+    @Test
+    void keepsZeroRatesAsGiven() {
+        BigDecimal zero = new BigDecimal("0.00");
+        SalesOrderItem line = new DocumentFinancialCalculator()
+                .addLine(new SalesOrderItem(), new BigDecimal("10.00"), 2, zero, BigDecimal.ZERO);
+
+        assertThat(line.getDiscountRate()).isSameAs(zero);
+        assertThat(line.getDiscountAmount()).isEqualTo(new BigDecimal("0.00"));
+        assertThat(line.getTaxAmount()).isEqualTo(new BigDecimal("0.00"));
+        assertThat(line.getLineTotal()).isEqualTo(new BigDecimal("20.00"));
+    }
+
+    @Test
+    void appliesFlatDiscountAndTaxToSalesOrder() {
+        DocumentFinancialCalculator calculator = new DocumentFinancialCalculator();
+        SalesOrderItem first = calculator.addLine(new SalesOrderItem(), new BigDecimal("100.00"), 3,
+                new BigDecimal("10"), new BigDecimal("18"));
+        SalesOrderItem second = calculator.addLine(new SalesOrderItem(), new BigDecimal("49.99"), 2,
+                BigDecimal.ZERO, new BigDecimal("5"));
+        SalesOrder order = new SalesOrder();
+        calculator.applyTo(order, new BigDecimal("2.5"), BigDecimal.ONE);
+
+        assertThat(first.getDiscountAmount()).isEqualTo(new BigDecimal("30.00"));
+        assertThat(first.getTaxAmount()).isEqualTo(new BigDecimal("48.60"));
+        assertThat(first.getLineTotal()).isEqualTo(new BigDecimal("318.60"));
+        assertThat(second.getTaxAmount()).isEqualTo(new BigDecimal("5.00"));
+        assertThat(second.getLineTotal()).isEqualTo(new BigDecimal("104.98"));
+
+        assertThat(order.getItemGrossTotal()).isEqualTo(new BigDecimal("399.98"));
+        assertThat(order.getItemTotalDiscount()).isEqualTo(new BigDecimal("30.00"));
+        assertThat(order.getItemTotalTax()).isEqualTo(new BigDecimal("53.60"));
+        assertThat(order.getFlatDiscountAmount()).isEqualTo(new BigDecimal("10.59"));
+        assertThat(order.getFlatTaxAmount()).isEqualTo(new BigDecimal("4.13"));
+        assertThat(order.getGrandTotal()).isEqualTo(new BigDecimal("417.12"));
+    }
+
+    @Test
+    void appliesFlatDiscountAndTaxToInvoice() {
+        DocumentFinancialCalculator calculator = new DocumentFinancialCalculator();
+        InvoiceItem first = calculator.addLine(new InvoiceItem(), new BigDecimal("250.00"), 4,
+                new BigDecimal("5"), new BigDecimal("12"));
+        InvoiceItem second = calculator.addLine(new InvoiceItem(), new BigDecimal("19.99"), 7,
+                new BigDecimal("12.5"), new BigDecimal("18"));
+        Invoice invoice = new Invoice();
+        calculator.applyTo(invoice, new BigDecimal("3"), new BigDecimal("2.5"));
+
+        assertThat(first.getLineTotal()).isEqualTo(new BigDecimal("1064.00"));
+        assertThat(second.getDiscountAmount()).isEqualTo(new BigDecimal("17.49"));
+        assertThat(second.getTaxAmount()).isEqualTo(new BigDecimal("22.04"));
+        assertThat(second.getLineTotal()).isEqualTo(new BigDecimal("144.48"));
+
+        assertThat(invoice.getItemGrossTotal()).isEqualTo(new BigDecimal("1139.93"));
+        assertThat(invoice.getItemTotalDiscount()).isEqualTo(new BigDecimal("67.49"));
+        assertThat(invoice.getItemTotalTax()).isEqualTo(new BigDecimal("136.04"));
+        assertThat(invoice.getFlatDiscountAmount()).isEqualTo(new BigDecimal("36.25"));
+        assertThat(invoice.getFlatTaxAmount()).isEqualTo(new BigDecimal("29.31"));
+        assertThat(invoice.getGrandTotal()).isEqualTo(new BigDecimal("1201.54"));
+    }
+
+    @Test
+    void matchesPreRefactorFormulas() {
+        for (BigDecimal flatRate : AWKWARD_RATES) {
+            List<SalesOrderItem> legacyLines = new ArrayList<>();
+            List<SalesOrderItem> lines = new ArrayList<>();
+            DocumentFinancialCalculator calculator = new DocumentFinancialCalculator();
+            int row = 0;
+            for (BigDecimal price : AWKWARD_PRICES) {
+                for (BigDecimal discountRate : AWKWARD_RATES) {
+                    BigDecimal taxRate = AWKWARD_RATES[(row++ + 3) % AWKWARD_RATES.length];
+                    legacyLines.add(legacyLine(price, 3, discountRate, taxRate));
+                    lines.add(calculator.addLine(new SalesOrderItem(), price, 3, discountRate, taxRate));
+                }
+            }
+            SalesOrder expected = legacyHeader(legacyLines, flatRate, flatRate);
+            SalesOrder actual = new SalesOrder();
+            calculator.applyTo(actual, flatRate, flatRate);
+
+            assertThat(lines).usingRecursiveFieldByFieldElementComparator().isEqualTo(legacyLines);
+            assertThat(actual).usingRecursiveComparison().isEqualTo(expected);
+        }
+    }
+
+    // Line math as SalesOrderServiceImpl and InvoicePostingPipeline each carried it before the calculator
+    private static SalesOrderItem legacyLine(BigDecimal price, int quantity, BigDecimal discountRate, BigDecimal taxRate) {
+        BigDecimal grossPrice = price.multiply(BigDecimal.valueOf(quantity));
+
+        BigDecimal discRate = discountRate != null ? discountRate : BigDecimal.ZERO;
+        BigDecimal discAmt = grossPrice.multiply(discRate).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
+
+        BigDecimal taxableValue = grossPrice.subtract(discAmt);
+        BigDecimal tRate = taxRate != null ? taxRate : BigDecimal.ZERO;
+        BigDecimal taxAmt = taxableValue.multiply(tRate).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
+
+        SalesOrderItem line = new SalesOrderItem();
+        line.setQuantity(quantity);
+        line.setUnitPrice(price);
+        line.setDiscountRate(discRate);
+        line.setDiscountAmount(discAmt);
+        line.setTaxRate(tRate);
+        line.setTaxAmount(taxAmt);
+        line.setLineTotal(taxableValue.add(taxAmt));
+        return line;
+    }
+
+    private static SalesOrder legacyHeader(List<SalesOrderItem> lines, BigDecimal flatDiscountRate, BigDecimal flatTaxRate) {
+        SalesOrder order = new SalesOrder();
+        BigDecimal itemGrossTotal = BigDecimal.ZERO;
+        BigDecimal itemTotalDiscount = BigDecimal.ZERO;
+        BigDecimal itemTotalTax = BigDecimal.ZERO;
+        BigDecimal lineSum = BigDecimal.ZERO;
+        for (SalesOrderItem line : lines) {
+            itemGrossTotal = itemGrossTotal.add(line.getUnitPrice().multiply(BigDecimal.valueOf(line.getQuantity())));
+            itemTotalDiscount = itemTotalDiscount.add(line.getDiscountAmount());
+            itemTotalTax = itemTotalTax.add(line.getTaxAmount());
+            lineSum = lineSum.add(line.getLineTotal());
+        }
+        order.setItemGrossTotal(itemGrossTotal);
+        order.setItemTotalDiscount(itemTotalDiscount);
+        order.setItemTotalTax(itemTotalTax);
+
+        BigDecimal flatDiscRate = flatDiscountRate != null ? flatDiscountRate : BigDecimal.ZERO;
+        BigDecimal flatDiscAmt = lineSum.multiply(flatDiscRate).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
+        order.setFlatDiscountRate(flatDiscRate);
+        order.setFlatDiscountAmount(flatDiscAmt);
+
+        BigDecimal discountedBill = lineSum.subtract(flatDiscAmt);
+        BigDecimal flatTRate = flatTaxRate != null ? flatTaxRate : BigDecimal.ZERO;
+        BigDecimal flatTaxAmt = discountedBill.multiply(flatTRate).divide(new BigDecimal("100"), 2, RoundingMode.HALF_UP);
+        order.setFlatTaxRate(flatTRate);
+        order.setFlatTaxAmount(flatTaxAmt);
+
+        order.setGrandTotal(discountedBill.add(flatTaxAmt));
+        return order;
+    }
+}
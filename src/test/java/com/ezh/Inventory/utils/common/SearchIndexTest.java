@@ -0,0 +1,171 @@
+package com.ezh.Inventory.utils.common;
+
+import com.ezh.Inventory.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The V23 trigram indexes must keep the exact expression each list search filters with, or the
+ * planner cannot use them. Each search predicate is EXPLAINed as the list queries issue it, with
+ * sequential scans priced out and the table's other secondary indexes dropped inside a transaction
+ * that rolls back, and its plan must name every trigram index of that search.
+ */
+class SearchIndexTest extends PostgresIntegrationTest {
+
+    // A tenant of its own, so the seeded rows stay out of the other tests' way
+    private static final long SEARCH_TENANT_ID = 2L;
+    private static final int ROWS = 20_000;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private String numberTerm;
+    private String itemTerm;
+    private String uuidTerm;
+
+    @BeforeEach
+    void seed() {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tenantId", SEARCH_TENANT_ID)
+                .addValue("rows", ROWS);
+        if (count("SELECT COUNT(*) FROM stock_ledger WHERE tenant_id = :tenantId", params) == 0) {
+            insertRows(params);
+        }
+
+        numberTerm = String.format("%07d", ROWS / 3);
+        itemTerm = jdbc.queryForObject("SELECT substr(md5(CAST(:n AS text)), 1, 6)",
+                new MapSqlParameterSource("n", ROWS / 2), String.class);
+        uuidTerm = jdbc.queryForObject("""
+                SELECT substr(uuid, 10, 9) FROM stock_ledger WHERE tenant_id = :tenantId ORDER BY id DESC LIMIT 1
+                """, params, String.class).toUpperCase();
+    }
+
+    @Test
+    void salesOrderSearchUsesTrigramIndexes() {
+        assertThat(plan("sales_order", """
+                SELECT so.id FROM sales_order so
+                WHERE so.tenant_id = :tenantId
+                  AND (lower(so.order_number) LIKE '%' || lower(CAST(:q AS varchar)) || '%'
+                       OR lower(so.remarks) LIKE '%' || lower(CAST(:q AS varchar)) || '%')
+                """, numberTerm))
+                .contains("idx_sales_order_order_number_trgm", "idx_sales_order_remarks_trgm");
+    }
+
+    @Test
+    void invoiceSearchUsesTrigramIndexes() {
+        assertThat(plan("invoice", """
+                SELECT i.id FROM invoice i
+                WHERE i.tenant_id = :tenantId
+                  AND (lower(i.invoice_number) LIKE '%' || lower(CAST(:q AS varchar)) || '%'
+                       OR lower(i.remarks) LIKE '%' || lower(CAST(:q AS varchar)) || '%')
+                """, numberTerm))
+                .contains("idx_invoice_invoice_number_trgm", "idx_invoice_remarks_trgm");
+    }
+
+    @Test
+    void deliverySearchUsesTrigramIndex() {
+        assertThat(plan("delivery", """
+                SELECT d.id FROM delivery d
+                WHERE d.tenant_id = :tenantId
+                  AND lower(d.delivery_number) LIKE '%' || lower(CAST(:q AS varchar)) || '%'
+                """, numberTerm))
+                .contains("idx_delivery_delivery_number_trgm");
+    }
+
+    @Test
+    void itemSearchUsesTrigramIndexes() {
+        assertThat(plan("items", """
+                SELECT it.id FROM items it
+                WHERE it.tenant_id = :tenantId
+                  AND (CAST(:q AS text) IS NULL
+                       OR lower(it.name) LIKE lower(CAST('%' || :q || '%' AS text))
+                       OR lower(it.item_code) LIKE lower(CAST('%' || :q || '%' AS text))
+                       OR lower(it.barcode) LIKE lower(CAST('%' || :q || '%' AS text)))
+                """, itemTerm))
+                .contains("idx_items_name_trgm", "idx_items_item_code_trgm", "idx_items_barcode_trgm");
+    }
+
+    @Test
+    void stockLedgerSearchUsesTrigramIndex() {
+        assertThat(plan("stock_ledger", """
+                SELECT s.id FROM stock_ledger s
+                WHERE s.tenant_id = :tenantId
+                  AND s.uuid LIKE '%' || lower(CAST(:q AS text)) || '%'
+                """, uuidTerm))
+                .contains("idx_stock_ledger_uuid_trgm");
+    }
+
+    // The test tables are small, so a sequential scan, or the tenant btree plus a filter, would win on
+    // cost alone. Both are taken out of the running; the drops are rolled back with the transaction.
+    private String plan(String table, String sql, String term) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("tenantId", SEARCH_TENANT_ID)
+                .addValue("q", term);
+        return transactionTemplate.execute(status -> {
+            status.setRollbackOnly();
+            jdbc.getJdbcTemplate().execute("SET LOCAL enable_seqscan = off");
+            List<String> others = jdbc.queryForList("""
+                    SELECT i.indexrelid::regclass::text FROM pg_index i
+                    WHERE i.indrelid = CAST(:table AS regclass)
+                      AND NOT EXISTS (SELECT 1 FROM pg_constraint c WHERE c.conindid = i.indexrelid)
+                      AND i.indexrelid::regclass::text NOT LIKE '%\\_trgm'
+                    """, new MapSqlParameterSource("table", table), String.class);
+            others.forEach(index -> jdbc.getJdbcTemplate().execute("DROP INDEX " + index));
+            return String.join("\n", jdbc.queryForList("EXPLAIN " + sql, params, String.class));
+        });
+    }
+
+    private void insertRows(MapSqlParameterSource params) {
+        jdbc.update("""
+                INSERT INTO sales_order (uuid, created_at, tenant_id, warehouse_id, order_number, customer_id,
+                                         order_date, status, source, remarks, grand_total)
+                SELECT CAST(gen_random_uuid() AS varchar), CURRENT_TIMESTAMP - g * INTERVAL '1 minute', :tenantId, 1,
+                       'TSO-' || lpad(CAST(g AS text), 9, '0'), 1 + g % 500, CURRENT_TIMESTAMP, 'CONFIRMED',
+                       'SALES_TEAM', 'Route ' || g % 97 || ' ' || md5(CAST(g AS text)), 100
+                FROM generate_series(1, :rows) AS g
+                """, params);
+        jdbc.update("""
+                INSERT INTO invoice (uuid, created_at, tenant_id, warehouse_id, invoice_number, invoice_date,
+                                     sales_order_id, customer_id, status, delivery_status, payment_status,
+                                     invoice_type, remarks, grand_total, balance)
+                SELECT CAST(gen_random_uuid() AS varchar), so.created_at, so.tenant_id, so.warehouse_id,
+                       'TINV-' || substr(so.order_number, 5), so.order_date, so.id, so.customer_id, 'PENDING',
+                       'PENDING', 'UNPAID', 'CREDIT', so.remarks, 100, 100
+                FROM sales_order so
+                WHERE so.tenant_id = :tenantId AND so.order_number LIKE 'TSO-%'
+                """, params);
+        jdbc.update("""
+                INSERT INTO delivery (uuid, created_at, tenant_id, delivery_number, invoice_id, customer_id,
+                                      type, status)
+                SELECT CAST(gen_random_uuid() AS varchar), i.created_at, i.tenant_id,
+                       'TDEL-' || substr(i.invoice_number, 6), i.id, i.customer_id, 'IN_HOUSE_DELIVERY', 'PENDING'
+                FROM invoice i
+                WHERE i.tenant_id = :tenantId AND i.invoice_number LIKE 'TINV-%'
+                """, params);
+        jdbc.update("""
+                INSERT INTO items (uuid, created_at, updated_at, is_deleted, name, tenant_id, item_code,
+                                   barcode, item_type, selling_price, is_active)
+                SELECT CAST(gen_random_uuid() AS varchar), CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, false,
+                       'Item ' || md5(CAST(g AS text)), :tenantId, 'TSRCH-' || lpad(CAST(g AS text), 9, '0'),
+                       CAST(8900000000000 + g AS text), 'PRODUCT', 100, true
+                FROM generate_series(1, :rows) AS g
+                """, params);
+        jdbc.update("""
+                INSERT INTO stock_ledger (uuid, created_at, item_id, tenant_id, warehouse_id, transaction_type,
+                                          quantity, reference_type, before_qty, after_qty)
+                SELECT CAST(gen_random_uuid() AS varchar), CURRENT_TIMESTAMP - g * INTERVAL '1 second',
+                       1 + g % 1000, :tenantId, 1, 'IN', 1, 'GRN', 0, 1
+                FROM generate_series(1, :rows) AS g
+                """, params);
+        for (String table : List.of("sales_order", "invoice", "delivery", "items", "stock_ledger")) {
+            jdbc.getJdbcTemplate().execute("ANALYZE " + table);
+        }
+    }
+}